@@ -0,0 +1,37 @@
+package com.example.keycloak.config;
+
+import org.eclipse.jetty.http2.server.AbstractHTTP2ServerConnectionFactory;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.Connector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.jetty.JettyServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * HTTP/2 sur Jetty (mvn ... -Dembedded-server=jetty)
+ *
+ * Spring Boot déclare la fabrique h2c (ou h2 + ALPN en TLS) sur chaque connecteur ;
+ * on y applique les réglages communs, dont la table HPACK du décodeur.
+ */
+@Configuration
+@EnableConfigurationProperties(Http2Properties.class)
+@ConditionalOnProperty(name = "server.http2.enabled")
+public class JettyHttp2Config {
+
+    @Bean
+    public WebServerFactoryCustomizer<JettyServletWebServerFactory> jettyHttp2Customizer(Http2Properties properties) {
+        return factory -> factory.addServerCustomizers(server -> {
+            for (Connector connector : server.getConnectors()) {
+                for (ConnectionFactory connectionFactory : connector.getConnectionFactories()) {
+                    if (connectionFactory instanceof AbstractHTTP2ServerConnectionFactory http2) {
+                        http2.setMaxConcurrentStreams(properties.getMaxConcurrentStreams());
+                        http2.setMaxDecoderTableCapacity((int) properties.getHeaderTableSize().toBytes());
+                    }
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,388 @@
+package com.example.keycloak.batch;
+
+import com.example.keycloak.config.BatchProperties;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.Filter;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exécution des sous-requêtes d'un appel POST /api/batch
+ *
+ * La requête /api/batch traverse une seule fois la chaîne de sécurité (décodage
+ * JWT, conversion des autorités). Chaque sous-requête est ensuite passée directement
+ * au DispatcherServlet, sur un pool dédié, avec l'Authentication déjà construite :
+ * les controllers existants répondent sans modification et @PreAuthorize /
+ * @RolesAllowed restent évalués pour chaque sous-requête. Les règles d'URL
+ * (authorizeHttpRequests) le sont aussi : l'AuthorizationManager de la chaîne de
+ * sécurité qui correspond au chemin de la sous-requête est consulté avant le dispatch.
+ *
+ * Les filtres servlet (CORS, limitation de concurrence, latences) ne sont pas
+ * rejoués : seules les routes GET sous batch.allowed-paths (hors batch.excluded-paths)
+ * sont acceptées, et les résultats sont écrits en NDJSON dans l'ordre où les
+ * sous-requêtes se terminent.
+ */
+public class BatchDispatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchDispatcher.class);
+
+    /**
+     * En-têtes de sous-requête transmis ; les autres (Authorization, Cookie...) viennent de l'appel /api/batch
+     */
+    private static final Set<String> FORWARDED_HEADERS = Set.of("accept", "accept-language", "if-none-match");
+
+    /**
+     * En-têtes de réponse sans objet dans une ligne de résultat
+     */
+    private static final Set<String> DROPPED_HEADERS = Set.of("content-length", "vary", "transfer-encoding");
+
+    private final BatchProperties properties;
+    private final ObjectProvider<DispatcherServlet> dispatcherServlet;
+    private final ObjectProvider<SecurityFilterChain> filterChains;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor workers;
+
+    private volatile List<SecurityFilterChain> orderedChains;
+
+    public BatchDispatcher(BatchProperties properties, ObjectProvider<DispatcherServlet> dispatcherServlet,
+                           ObjectProvider<SecurityFilterChain> filterChains, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.dispatcherServlet = dispatcherServlet;
+        this.filterChains = filterChains;
+        this.objectMapper = objectMapper;
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(properties.getParallelism(), properties.getParallelism(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "batch-worker-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Vérifie la forme de l'appel (avant toute écriture de la réponse)
+     *
+     * @throws IllegalArgumentException si la liste est vide, trop longue ou contient des identifiants en double
+     */
+    public void validate(List<BatchItem> items) {
+        if (items == null || items.isEmpty() || items.size() > properties.getMaxRequests()) {
+            throw new IllegalArgumentException("Le batch doit contenir entre 1 et "
+                    + properties.getMaxRequests() + " sous-requêtes");
+        }
+        Set<String> ids = new HashSet<>();
+        for (BatchItem item : items) {
+            if (item == null || item.id() == null || item.id().isBlank()) {
+                throw new IllegalArgumentException("Chaque sous-requête doit porter un id");
+            }
+            if (!ids.add(item.id())) {
+                throw new IllegalArgumentException("Identifiant de sous-requête en double : " + item.id());
+            }
+        }
+    }
+
+    /**
+     * Exécute les sous-requêtes en parallèle et écrit une ligne JSON par résultat
+     *
+     * @param items Sous-requêtes (déjà validées)
+     * @param request Requête /api/batch authentifiée
+     * @param response Réponse /api/batch (seulement utilisée comme enveloppe des réponses tamponnées)
+     * @param authentication Authentication issue de l'unique passage dans la chaîne de sécurité
+     * @param out Flux de la réponse /api/batch, vidé après chaque ligne
+     */
+    public void execute(List<BatchItem> items, HttpServletRequest request, HttpServletResponse response,
+                        Authentication authentication, OutputStream out) throws IOException {
+        long deadline = System.nanoTime() + properties.getTimeout().toNanos();
+
+        // Analyse paresseuse côté conteneur : forcée ici, avant les accès concurrents
+        request.getLocales();
+        request.getCookies();
+
+        ExecutorCompletionService<SubResult> completion = new ExecutorCompletionService<>(workers);
+        Map<Future<SubResult>, Pending> pending = new LinkedHashMap<>();
+        List<SubResult> immediate = new ArrayList<>();
+        for (BatchItem item : items) {
+            String rejection = rejection(item);
+            if (rejection != null) {
+                int status = "GET".equalsIgnoreCase(method(item)) ? 400 : 405;
+                immediate.add(SubResult.error(item.id(), status, rejection));
+                continue;
+            }
+            Pending sub = new Pending(item, new BatchSubRequest(request, item.path(), forwardedHeaders(item)),
+                    new BufferedSubResponse(response));
+            try {
+                pending.put(completion.submit(() -> dispatch(sub, authentication)), sub);
+            } catch (RejectedExecutionException e) {
+                immediate.add(SubResult.error(item.id(), 503, "Capacité de traitement des batchs atteinte"));
+            }
+        }
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null);
+        for (SubResult result : immediate) {
+            write(generator, result);
+        }
+
+        try {
+            while (!pending.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                Future<SubResult> done = remaining > 0 ? completion.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                if (done == null) {
+                    break;
+                }
+                write(generator, outcome(done, pending.remove(done).item()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Sous-requêtes abandonnées : le conteneur recyclera la requête parente après cette réponse
+        for (Map.Entry<Future<SubResult>, Pending> entry : pending.entrySet()) {
+            entry.getKey().cancel(true);
+            entry.getValue().request().detach();
+            entry.getValue().response().detach();
+            write(generator, SubResult.error(entry.getValue().item().id(), 504, "Délai du batch dépassé"));
+        }
+    }
+
+    /**
+     * Appel du DispatcherServlet sur un thread du pool, sous l'Authentication de l'appel /api/batch
+     */
+    private SubResult dispatch(Pending sub, Authentication authentication) throws Exception {
+        AuthorizationManager<HttpServletRequest> urlRules = urlRules(sub.request());
+        if (urlRules != null) {
+            AuthorizationResult result = urlRules.authorize(() -> authentication, sub.request());
+            if (result != null && !result.isGranted()) {
+                throw new AccessDeniedException("Accès refusé par les règles d'URL");
+            }
+        }
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+        try {
+            dispatcherServlet.getObject().service(sub.request(), sub.response());
+            return SubResult.of(sub.item().id(), sub.response());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /**
+     * Règles d'URL de la première chaîne de sécurité qui correspond à la sous-requête,
+     * null si cette chaîne n'en applique aucune (chaîne publique)
+     */
+    private AuthorizationManager<HttpServletRequest> urlRules(HttpServletRequest request) {
+        List<SecurityFilterChain> chains = orderedChains;
+        if (chains == null) {
+            chains = filterChains.orderedStream().toList();
+            orderedChains = chains;
+        }
+        for (SecurityFilterChain chain : chains) {
+            if (chain.matches(request)) {
+                for (Filter filter : chain.getFilters()) {
+                    if (filter instanceof AuthorizationFilter authorizationFilter) {
+                        return authorizationFilter.getAuthorizationManager();
+                    }
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private SubResult outcome(Future<SubResult> future, BatchItem item) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            while ((cause instanceof ServletException || cause instanceof ExecutionException) && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof AccessDeniedException) {
+                return SubResult.error(item.id(), 403, "Accès refusé");
+            }
+            if (cause instanceof AuthenticationException) {
+                return SubResult.error(item.id(), 401, "Authentification requise");
+            }
+            log.warn("Sous-requête {} {} en échec", item.id(), item.path(), cause);
+            return SubResult.error(item.id(), 500, "Erreur interne");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return SubResult.error(item.id(), 503, "Batch interrompu");
+        }
+    }
+
+    /**
+     * Motif de refus d'une sous-requête, null si elle peut être exécutée
+     */
+    private String rejection(BatchItem item) {
+        if (!"GET".equalsIgnoreCase(method(item))) {
+            return "Seules les sous-requêtes GET sont acceptées";
+        }
+        String path = item.path();
+        if (path == null || !path.startsWith("/")) {
+            return "Chemin absent ou relatif";
+        }
+        int query = path.indexOf('?');
+        String route = query < 0 ? path : path.substring(0, query);
+        // Chemin pris tel quel : aucune forme encodée ou ambiguë ne doit contourner la liste autorisée
+        if (route.contains("..") || route.contains("//") || route.contains("\\") || route.contains(";")
+                || route.contains("%") || path.contains("#")) {
+            return "Chemin non canonique";
+        }
+        for (String excluded : properties.getExcludedPaths()) {
+            if (route.startsWith(excluded)) {
+                return "Route non autorisée en sous-requête : " + route;
+            }
+        }
+        for (String allowed : properties.getAllowedPaths()) {
+            if (route.startsWith(allowed)) {
+                return null;
+            }
+        }
+        return "Route non autorisée en sous-requête : " + route;
+    }
+
+    private static String method(BatchItem item) {
+        return item.method() != null ? item.method() : "GET";
+    }
+
+    private static Map<String, String> forwardedHeaders(BatchItem item) {
+        Map<String, String> headers = new HashMap<>();
+        if (item.headers() != null) {
+            item.headers().forEach((name, value) -> {
+                if (name != null && value != null && FORWARDED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    headers.put(name, value);
+                }
+            });
+        }
+        return headers;
+    }
+
+    /**
+     * Ligne NDJSON : {"id", "status", "headers", "body"} ; un corps JSON est recopié tel quel
+     */
+    private static void write(JsonGenerator generator, SubResult result) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", result.id());
+        generator.writeNumberField("status", result.status());
+        if (!result.headers().isEmpty()) {
+            generator.writeObjectFieldStart("headers");
+            for (Map.Entry<String, String> header : result.headers().entrySet()) {
+                generator.writeStringField(header.getKey(), header.getValue());
+            }
+            generator.writeEndObject();
+        }
+        if (result.error() != null) {
+            generator.writeObjectFieldStart("body");
+            generator.writeStringField("error", result.error());
+            generator.writeEndObject();
+        } else if (result.body() != null) {
+            generator.writeFieldName("body");
+            if (result.json()) {
+                generator.writeRawValue(result.body());
+            } else {
+                generator.writeString(result.body());
+            }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        generator.flush();
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Vue d'une requête ou réponse terminée : tout accès échoue au lieu de lire un objet recyclé
+     */
+    static <T> T detached(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            throw new IllegalStateException("Appel /api/batch déjà terminé");
+        }));
+    }
+
+    private record Pending(BatchItem item, BatchSubRequest request, BufferedSubResponse response) {
+    }
+
+    /**
+     * Résultat d'une sous-requête, prêt à sérialiser (body : JSON brut si json, texte sinon)
+     */
+    private record SubResult(String id, int status, Map<String, String> headers, String body, boolean json,
+                             String error) {
+
+        static SubResult of(String id, BufferedSubResponse response) {
+            Map<String, String> headers = new LinkedHashMap<>();
+            response.headers().forEach((name, values) -> {
+                if (!DROPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    headers.put(name, String.join(", ", values));
+                }
+            });
+            if (response.getContentType() != null) {
+                headers.put(HttpHeaders.CONTENT_TYPE, response.getContentType());
+            }
+
+            byte[] bytes = response.body();
+            if (bytes.length == 0) {
+                // sendError() sans page d'erreur : message (ou libellé du statut) repris dans le corps
+                String error = null;
+                if (response.getStatus() >= 400) {
+                    HttpStatus status = HttpStatus.resolve(response.getStatus());
+                    error = response.getErrorMessage() != null ? response.getErrorMessage()
+                            : status != null ? status.getReasonPhrase() : "Erreur";
+                }
+                return new SubResult(id, response.getStatus(), headers, null, false, error);
+            }
+            boolean json = response.getContentType() != null
+                    && MediaType.parseMediaType(response.getContentType()).isCompatibleWith(MediaType.APPLICATION_JSON);
+            Charset charset = json ? StandardCharsets.UTF_8 : response.charset();
+            return new SubResult(id, response.getStatus(), headers, new String(bytes, charset), json, null);
+        }
+
+        static SubResult error(String id, int status, String message) {
+            return new SubResult(id, status, Map.of(), null, false, message);
+        }
+    }
+}
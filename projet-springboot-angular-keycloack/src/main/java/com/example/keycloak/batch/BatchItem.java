@@ -0,0 +1,14 @@
+package com.example.keycloak.batch;
+
+import java.util.Map;
+
+/**
+ * Sous-requête d'un appel POST /api/batch
+ *
+ * @param id Identifiant choisi par le client, repris tel quel dans la ligne de résultat
+ * @param method Méthode HTTP (GET uniquement ; GET si absente)
+ * @param path Route relative au contexte, query string comprise (ex: /api/advanced/profile/john?x=1)
+ * @param headers En-têtes propres à la sous-requête (Accept, If-None-Match)
+ */
+public record BatchItem(String id, String method, String path, Map<String, String> headers) {
+}
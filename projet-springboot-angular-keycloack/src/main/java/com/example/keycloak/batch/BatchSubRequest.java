@@ -0,0 +1,316 @@
+package com.example.keycloak.batch;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Requête GET synthétique passée au DispatcherServlet pour une sous-requête
+ *
+ * Enveloppe la requête /api/batch (principal, adresse, en-têtes communs) en
+ * remplaçant méthode, chemin, paramètres et attributs. Les attributs sont propres
+ * à la sous-requête : plusieurs sous-requêtes s'exécutent en parallèle sur la
+ * même requête parente, qui n'est lue qu'en lecture seule.
+ */
+class BatchSubRequest extends HttpServletRequestWrapper {
+
+    /**
+     * En-têtes de la requête parente qui ne décrivent pas une sous-requête GET
+     */
+    private static final Set<String> HIDDEN_HEADERS = Set.of(
+            HttpHeaders.CONTENT_TYPE.toLowerCase(Locale.ROOT), HttpHeaders.CONTENT_LENGTH.toLowerCase(Locale.ROOT),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(Locale.ROOT), HttpHeaders.ACCEPT_ENCODING.toLowerCase(Locale.ROOT),
+            HttpHeaders.IF_NONE_MATCH.toLowerCase(Locale.ROOT), HttpHeaders.IF_MODIFIED_SINCE.toLowerCase(Locale.ROOT),
+            HttpHeaders.IF_MATCH.toLowerCase(Locale.ROOT), HttpHeaders.ORIGIN.toLowerCase(Locale.ROOT));
+
+    private final String path;
+    private final String queryString;
+    private final Map<String, String[]> parameters;
+    private final Map<String, String> headers = new LinkedCaseInsensitiveMap<>(Locale.ROOT);
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    BatchSubRequest(HttpServletRequest parent, String pathAndQuery, Map<String, String> headers) {
+        super(parent);
+        int query = pathAndQuery.indexOf('?');
+        this.path = query < 0 ? pathAndQuery : pathAndQuery.substring(0, query);
+        this.queryString = query < 0 ? null : pathAndQuery.substring(query + 1);
+        this.parameters = parseParameters(queryString);
+        this.headers.put(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+        if (headers != null) {
+            this.headers.putAll(headers);
+        }
+    }
+
+    @Override
+    public String getMethod() {
+        return "GET";
+    }
+
+    @Override
+    public String getRequestURI() {
+        return getContextPath() + path;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        StringBuffer url = new StringBuffer();
+        url.append(getScheme()).append("://").append(getServerName()).append(':').append(getServerPort());
+        return url.append(getRequestURI());
+    }
+
+    @Override
+    public String getServletPath() {
+        return path;
+    }
+
+    @Override
+    public String getPathInfo() {
+        return null;
+    }
+
+    @Override
+    public String getPathTranslated() {
+        return null;
+    }
+
+    @Override
+    public String getQueryString() {
+        return queryString;
+    }
+
+    @Override
+    public DispatcherType getDispatcherType() {
+        return DispatcherType.REQUEST;
+    }
+
+    // --- Paramètres (query string de la sous-requête uniquement) ---
+
+    @Override
+    public String getParameter(String name) {
+        String[] values = parameters.get(name);
+        return values != null ? values[0] : null;
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return parameters;
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(parameters.keySet());
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        String[] values = parameters.get(name);
+        return values != null ? values.clone() : null;
+    }
+
+    // --- En-têtes : ceux de la sous-requête, puis ceux de la requête parente ---
+
+    @Override
+    public String getHeader(String name) {
+        if (headers.containsKey(name)) {
+            return headers.get(name);
+        }
+        return isHidden(name) ? null : super.getHeader(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        if (headers.containsKey(name)) {
+            return Collections.enumeration(List.of(headers.get(name)));
+        }
+        return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        Set<String> names = new LinkedHashSet<>(headers.keySet());
+        for (String name : Collections.list(super.getHeaderNames())) {
+            if (!isHidden(name) && !headers.containsKey(name)) {
+                names.add(name);
+            }
+        }
+        return Collections.enumeration(names);
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        String value = getHeader(name);
+        return value != null ? Integer.parseInt(value) : -1;
+    }
+
+    @Override
+    public long getDateHeader(String name) {
+        String value = getHeader(name);
+        if (value == null) {
+            return -1;
+        }
+        return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+    }
+
+    // --- Corps : une sous-requête GET n'en a pas ---
+
+    @Override
+    public String getContentType() {
+        return null;
+    }
+
+    @Override
+    public int getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return -1;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        return new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return true;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read() {
+                return -1;
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        return new BufferedReader(new StringReader(""));
+    }
+
+    // --- Attributs propres à la sous-requête ---
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    // --- Ni session ni traitement asynchrone : l'appel /api/batch reste sans état ---
+
+    @Override
+    public HttpSession getSession(boolean create) {
+        if (create) {
+            throw new IllegalStateException("Pas de session HTTP pour une sous-requête");
+        }
+        return null;
+    }
+
+    @Override
+    public HttpSession getSession() {
+        return getSession(true);
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+        return false;
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+        return false;
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+        throw new IllegalStateException("Traitement asynchrone indisponible pour une sous-requête");
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+        throw new IllegalStateException("Traitement asynchrone indisponible pour une sous-requête");
+    }
+
+    /**
+     * Coupe le lien avec la requête /api/batch (sous-requête abandonnée après batch.timeout)
+     */
+    void detach() {
+        setRequest(BatchDispatcher.detached(HttpServletRequest.class));
+    }
+
+    private static boolean isHidden(String name) {
+        return HIDDEN_HEADERS.contains(name.toLowerCase(Locale.ROOT));
+    }
+
+    private static Map<String, String[]> parseParameters(String queryString) {
+        if (queryString == null || queryString.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        MultiValueMap<String, String> raw = UriComponentsBuilder.newInstance().query(queryString).build().getQueryParams();
+        MultiValueMap<String, String> decoded = new LinkedMultiValueMap<>();
+        raw.forEach((name, values) -> values.forEach(value -> decoded.add(decode(name), value != null ? decode(value) : "")));
+        Map<String, String[]> parameters = new LinkedHashMap<>();
+        decoded.forEach((name, values) -> parameters.put(name, values.toArray(String[]::new)));
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,348 @@
+package com.example.keycloak.batch;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Réponse d'une sous-requête, entièrement tamponnée en mémoire
+ *
+ * Rien n'est transmis à la réponse /api/batch : statut, en-têtes et corps sont
+ * relus une fois le DispatcherServlet terminé pour composer la ligne de résultat.
+ */
+class BufferedSubResponse extends HttpServletResponseWrapper {
+
+    private int status = SC_OK;
+    private String errorMessage;
+    private final Map<String, List<String>> headers = new LinkedCaseInsensitiveMap<>(Locale.ROOT);
+    private String contentType;
+    private String characterEncoding;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+    private boolean committed;
+    private Locale locale = Locale.getDefault();
+
+    BufferedSubResponse(HttpServletResponse parent) {
+        super(parent);
+    }
+
+    // --- Statut ---
+
+    @Override
+    public void setStatus(int status) {
+        if (!committed) {
+            this.status = status;
+        }
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public void sendError(int status) {
+        sendError(status, null);
+    }
+
+    @Override
+    public void sendError(int status, String message) {
+        checkNotCommitted();
+        resetBuffer();
+        this.status = status;
+        this.errorMessage = message;
+        this.committed = true;
+    }
+
+    @Override
+    public void sendRedirect(String location) {
+        checkNotCommitted();
+        resetBuffer();
+        this.status = SC_FOUND;
+        setHeader(HttpHeaders.LOCATION, location);
+        this.committed = true;
+    }
+
+    String getErrorMessage() {
+        return errorMessage;
+    }
+
+    // --- En-têtes ---
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+            setContentType(value);
+        } else if (!committed && value == null) {
+            headers.remove(name);
+        } else if (!committed) {
+            List<String> values = new ArrayList<>(1);
+            values.add(value);
+            headers.put(name, values);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+            setContentType(value);
+        } else if (!committed && value != null) {
+            headers.computeIfAbsent(name, key -> new ArrayList<>(1)).add(value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        addHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        setHeader(name, formatDate(date));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        addHeader(name, formatDate(date));
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return headers.containsKey(name)
+                || (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name) && contentType != null);
+    }
+
+    @Override
+    public String getHeader(String name) {
+        if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+            return getContentType();
+        }
+        List<String> values = headers.get(name);
+        return values != null ? values.get(0) : null;
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+        if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+            return contentType != null ? List.of(getContentType()) : List.of();
+        }
+        List<String> values = headers.get(name);
+        return values != null ? List.copyOf(values) : List.of();
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        return List.copyOf(headers.keySet());
+    }
+
+    /**
+     * Cookies ignorés : une sous-requête ne modifie pas l'état du navigateur
+     */
+    @Override
+    public void addCookie(Cookie cookie) {
+    }
+
+    Map<String, List<String>> headers() {
+        return headers;
+    }
+
+    // --- Corps ---
+
+    @Override
+    public void setContentType(String type) {
+        if (committed || type == null) {
+            return;
+        }
+        MediaType mediaType = MediaType.parseMediaType(type);
+        if (mediaType.getCharset() != null) {
+            characterEncoding = mediaType.getCharset().name();
+        }
+        contentType = mediaType.getType() + "/" + mediaType.getSubtype();
+    }
+
+    @Override
+    public String getContentType() {
+        if (contentType == null) {
+            return null;
+        }
+        return characterEncoding != null ? contentType + ";charset=" + characterEncoding : contentType;
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+        if (!committed && writer == null) {
+            characterEncoding = charset;
+        }
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding != null ? characterEncoding : StandardCharsets.ISO_8859_1.name();
+    }
+
+    @Override
+    public void setContentLength(int length) {
+    }
+
+    @Override
+    public void setContentLengthLong(long length) {
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() déjà appelé");
+        }
+        if (outputStream == null) {
+            outputStream = new ServletOutputStream() {
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void write(int b) {
+                    body.write(b);
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) {
+                    body.write(bytes, offset, length);
+                }
+            };
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        if (outputStream != null) {
+            throw new IllegalStateException("getOutputStream() déjà appelé");
+        }
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(body, Charset.forName(getCharacterEncoding())));
+        }
+        return writer;
+    }
+
+    /**
+     * Corps écrit par le controller (ou par le convertisseur de messages)
+     */
+    byte[] body() {
+        if (writer != null) {
+            writer.flush();
+        }
+        return body.toByteArray();
+    }
+
+    Charset charset() {
+        return Charset.forName(getCharacterEncoding());
+    }
+
+    // --- Tampon : toujours en mémoire, « commit » purement logique ---
+
+    @Override
+    public void flushBuffer() {
+        if (writer != null) {
+            writer.flush();
+        }
+        committed = true;
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    @Override
+    public void reset() {
+        checkNotCommitted();
+        resetBuffer();
+        status = SC_OK;
+        headers.clear();
+        contentType = null;
+        characterEncoding = null;
+    }
+
+    @Override
+    public void resetBuffer() {
+        checkNotCommitted();
+        if (writer != null) {
+            writer.flush();
+        }
+        body.reset();
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+    }
+
+    @Override
+    public int getBufferSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void setLocale(Locale locale) {
+        if (!committed && locale != null) {
+            this.locale = locale;
+        }
+    }
+
+    @Override
+    public Locale getLocale() {
+        return locale;
+    }
+
+    @Override
+    public void setTrailerFields(Supplier<Map<String, String>> supplier) {
+    }
+
+    /**
+     * Coupe le lien avec la réponse /api/batch (sous-requête abandonnée après batch.timeout)
+     */
+    void detach() {
+        setResponse(BatchDispatcher.detached(HttpServletResponse.class));
+    }
+
+    private void checkNotCommitted() {
+        if (committed) {
+            throw new IllegalStateException("Réponse de sous-requête déjà envoyée");
+        }
+    }
+
+    private static String formatDate(long date) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(date).atZone(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.keycloak.bff;
+
+import org.springframework.security.core.Authentication;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Session BFF : tokens Keycloak d'un navigateur, identifiés par le cookie de session
+ *
+ * L'Authentication est construite une seule fois par token d'accès (connexion,
+ * rafraîchissement) : les requêtes du navigateur ne paient ni décodage ni
+ * vérification RSA. Un store partagé peut ne pas la conserver ; elle est alors
+ * reconstruite au premier accès sur l'instance.
+ */
+public final class BffSession {
+
+    private final String id;
+    private final String username;
+    private final Instant createdAt;
+
+    private volatile BffTokens tokens;
+    private volatile Authentication authentication;
+    private volatile Instant lastAccess;
+
+    public BffSession(String id, String username, Instant createdAt, BffTokens tokens,
+                      Authentication authentication) {
+        this.id = id;
+        this.username = username;
+        this.createdAt = createdAt;
+        this.tokens = tokens;
+        this.authentication = authentication;
+        this.lastAccess = createdAt;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public String username() {
+        return username;
+    }
+
+    public Instant createdAt() {
+        return createdAt;
+    }
+
+    public BffTokens tokens() {
+        return tokens;
+    }
+
+    /**
+     * @return Authentication du token d'accès courant, null si elle reste à construire
+     */
+    public Authentication authentication() {
+        return authentication;
+    }
+
+    public Instant lastAccess() {
+        return lastAccess;
+    }
+
+    public void touch(Instant now) {
+        lastAccess = now;
+    }
+
+    /**
+     * Remplace les tokens après un rafraîchissement
+     */
+    public void update(BffTokens tokens, Authentication authentication) {
+        this.authentication = authentication;
+        this.tokens = tokens;
+    }
+
+    void authenticate(Authentication authentication) {
+        this.authentication = authentication;
+    }
+
+    /**
+     * @return true si la session est inactive depuis idleTimeout, ou si ses tokens
+     *         ne sont plus utilisables ni rafraîchissables
+     */
+    public boolean isExpiredAt(Instant now, Duration idleTimeout) {
+        if (Duration.between(lastAccess, now).compareTo(idleTimeout) > 0) {
+            return true;
+        }
+        BffTokens current = tokens;
+        return !current.accessToken().isUsableAt(now) && !current.isRefreshableAt(now);
+    }
+}
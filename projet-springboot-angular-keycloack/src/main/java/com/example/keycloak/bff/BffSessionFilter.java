@@ -0,0 +1,83 @@
+package com.example.keycloak.bff;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Authentification des requêtes du navigateur par le cookie de session BFF
+ *
+ * Placé avant BearerTokenAuthenticationFilter : une requête portant un en-tête
+ * Authorization garde le chemin JWT habituel. Sans cookie valide, la requête
+ * continue non authentifiée (401 par la chaîne).
+ *
+ * Requêtes non sûres authentifiées par cookie : l'en-tête bff.csrf-header est exigé (403 sinon).
+ *
+ * Le contexte est aussi enregistré dans le SecurityContextRepository de la chaîne
+ * (attribut de requête), comme le fait BearerTokenAuthenticationFilter : les
+ * dispatchs ASYNC (SSE) le retrouvent et LatencyRecordingFilter attribue la
+ * requête au bon utilisateur.
+ */
+public class BffSessionFilter extends OncePerRequestFilter {
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+    private final BffSessionService sessionService;
+    private final String cookieName;
+    private final String csrfHeader;
+    private final SecurityContextRepository securityContextRepository;
+    private final SecurityContextHolderStrategy securityContextHolderStrategy =
+            SecurityContextHolder.getContextHolderStrategy();
+
+    public BffSessionFilter(BffSessionService sessionService, String cookieName, String csrfHeader,
+                            SecurityContextRepository securityContextRepository) {
+        this.sessionService = sessionService;
+        this.cookieName = cookieName;
+        this.csrfHeader = csrfHeader;
+        this.securityContextRepository = securityContextRepository;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String cookieValue = request.getHeader(HttpHeaders.AUTHORIZATION) == null ? cookieValue(request) : null;
+        Authentication authentication = cookieValue != null ? sessionService.resolve(cookieValue) : null;
+        if (authentication != null) {
+            if (!SAFE_METHODS.contains(request.getMethod()) && !StringUtils.hasText(request.getHeader(csrfHeader))) {
+                response.sendError(HttpServletResponse.SC_FORBIDDEN, "En-tête " + csrfHeader + " requis");
+                return;
+            }
+            SecurityContext context = securityContextHolderStrategy.createEmptyContext();
+            context.setAuthentication(authentication);
+            securityContextHolderStrategy.setContext(context);
+            securityContextRepository.saveContext(context, request, response);
+        }
+        chain.doFilter(request, response);
+    }
+
+    private String cookieValue(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (cookieName.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,412 @@
+package com.example.keycloak.bff;
+
+import com.example.keycloak.client.SingleFlight;
+import com.example.keycloak.config.BffProperties;
+import com.example.keycloak.events.NotificationHub;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Sessions du mode BFF : flux authorization code + PKCE, tokens conservés côté serveur
+ *
+ * - /bff/login : state et code_verifier PKCE gardés en mémoire (bornés, expirés après bff.login-timeout) ;
+ *   le state est aussi déposé dans un cookie HttpOnly du navigateur qui démarre la connexion
+ * - /bff/callback : le state reçu doit être celui de ce cookie (login CSRF : un code obtenu
+ *   par un tiers ne peut pas ouvrir sa session dans le navigateur de la victime)
+ * - puis échange du code, décodage et conversion du token d'accès une seule fois,
+ *   création de la session et du cookie signé
+ * - requêtes du navigateur : cookie vérifié (HMAC) puis lecture du store ; aucun token sur le réseau,
+ *   aucune vérification RSA
+ * - rafraîchissement en arrière-plan avant expiration, tant que la session est utilisée ;
+ *   une session refusée par Keycloak (refresh token révoqué) est fermée
+ * - NotificationHub (optionnel) : forced-logout à la révocation, roles-changed quand les rôles
+ *   du token rafraîchi diffèrent
+ *
+ * Métriques : app.bff.sessions, app.bff.refreshes{outcome}.
+ */
+public class BffSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BffSessionService.class);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final BffProperties properties;
+    private final BffSessionStore store;
+    private final SessionCookieCodec cookieCodec;
+    private final BffTokenClient tokenClient;
+    private final JwtDecoder jwtDecoder;
+    private final Converter<Jwt, AbstractAuthenticationToken> authenticationConverter;
+    private final TaskScheduler taskScheduler;
+    private final Clock clock;
+
+    private final SecureRandom random = new SecureRandom();
+    private final ConcurrentHashMap<String, PendingLogin> pendingLogins = new ConcurrentHashMap<>();
+    private final SingleFlight<String, BffTokens> singleFlight = new SingleFlight<>();
+    private final Counter refreshSuccess;
+    private final Counter refreshFailure;
+    private final NotificationHub notificationHub;
+
+    public BffSessionService(BffProperties properties,
+                             BffSessionStore store,
+                             SessionCookieCodec cookieCodec,
+                             BffTokenClient tokenClient,
+                             JwtDecoder jwtDecoder,
+                             Converter<Jwt, AbstractAuthenticationToken> authenticationConverter,
+                             TaskScheduler taskScheduler,
+                             Clock clock,
+                             MeterRegistry meterRegistry,
+                             NotificationHub notificationHub) {
+        this.properties = properties;
+        this.store = store;
+        this.cookieCodec = cookieCodec;
+        this.tokenClient = tokenClient;
+        this.jwtDecoder = jwtDecoder;
+        this.authenticationConverter = authenticationConverter;
+        this.taskScheduler = taskScheduler;
+        this.clock = clock;
+        this.notificationHub = notificationHub;
+        Gauge.builder("app.bff.sessions", store, BffSessionStore::size)
+                .description("Sessions BFF conservées")
+                .register(meterRegistry);
+        this.refreshSuccess = refreshCounter(meterRegistry, "success");
+        this.refreshFailure = refreshCounter(meterRegistry, "failure");
+    }
+
+    /**
+     * Démarre une connexion
+     *
+     * @return URL d'autorisation Keycloak vers laquelle rediriger le navigateur, et state
+     *         à déposer dans le cookie du navigateur
+     */
+    public LoginRedirect startLogin() {
+        String state = randomValue(16);
+        String codeVerifier = randomValue(32);
+        storePending(state, new PendingLogin(codeVerifier, clock.instant()));
+        URI location = UriComponentsBuilder.fromUriString(properties.getAuthorizationUri())
+                .queryParam("response_type", "code")
+                .queryParam("client_id", properties.getClientId())
+                .queryParam("redirect_uri", properties.getRedirectUri())
+                .queryParam("scope", properties.getScope())
+                .queryParam("state", state)
+                .queryParam("code_challenge", codeChallenge(codeVerifier))
+                .queryParam("code_challenge_method", "S256")
+                .encode()
+                .build()
+                .toUri();
+        return new LoginRedirect(location, state);
+    }
+
+    /**
+     * Termine une connexion (retour de Keycloak sur /bff/callback)
+     *
+     * @param code Code d'autorisation
+     * @param state State émis par startLogin
+     * @param browserState State lu dans le cookie du navigateur
+     * @return Valeur du cookie de session
+     * @throws IllegalArgumentException si le state est inconnu, déjà utilisé, expiré
+     *         ou différent de celui du navigateur
+     * @throws org.springframework.web.client.RestClientException si Keycloak refuse le code
+     */
+    public String completeLogin(String code, String state, String browserState) {
+        if (state == null || browserState == null || !MessageDigest.isEqual(
+                state.getBytes(StandardCharsets.US_ASCII), browserState.getBytes(StandardCharsets.US_ASCII))) {
+            // La connexion en attente n'est pas consommée : elle reste utilisable par son navigateur
+            throw new IllegalArgumentException(
+                    "Connexion démarrée depuis un autre navigateur, recommencez depuis /bff/login");
+        }
+        PendingLogin pending = pendingLogins.remove(state);
+        Instant now = clock.instant();
+        if (pending == null || pending.isExpiredAt(now, properties.getLoginTimeout())) {
+            throw new IllegalArgumentException("Connexion inconnue ou expirée, recommencez depuis /bff/login");
+        }
+        BffTokens tokens = tokenClient.exchangeCode(code, pending.codeVerifier());
+        Authentication authentication = authenticate(tokens);
+        BffSession session = new BffSession(cookieCodec.newSessionId(), subject(authentication), now,
+                tokens, authentication);
+        store.save(session);
+        scheduleRefresh(session.id(), tokens);
+        log.debug("Session BFF ouverte pour {} (token expire à {})", session.username(), tokens.accessToken().expiresAt());
+        return cookieCodec.encode(session.id());
+    }
+
+    /**
+     * Authentification portée par un cookie de session
+     *
+     * @param cookieValue Valeur du cookie
+     * @return Authentication de la session, null si le cookie est invalide ou la session fermée
+     */
+    public Authentication resolve(String cookieValue) {
+        String id = cookieCodec.decode(cookieValue);
+        if (id == null) {
+            return null;
+        }
+        BffSession session = store.find(id);
+        if (session == null) {
+            return null;
+        }
+        Instant now = clock.instant();
+        session.touch(now);
+        if (!session.tokens().accessToken().isUsableAt(now)) {
+            // Rafraîchissement en arrière-plan manqué (Keycloak indisponible) : dernière tentative
+            try {
+                refreshNow(session);
+            } catch (RuntimeException e) {
+                log.debug("Session BFF {} fermée, token expiré : {}", session.username(), e.getMessage());
+                store.remove(id);
+                return null;
+            }
+        }
+        Authentication authentication = session.authentication();
+        if (authentication == null) {
+            // Session lue depuis un store partagé : Authentication reconstruite une fois par instance
+            authentication = authenticate(session.tokens());
+            session.authenticate(authentication);
+        }
+        return authentication;
+    }
+
+    /**
+     * Ferme la session et, si possible, la session Keycloak associée
+     */
+    public void logout(String cookieValue) {
+        String id = cookieCodec.decode(cookieValue);
+        if (id == null) {
+            return;
+        }
+        BffSession session = store.find(id);
+        store.remove(id);
+        if (session != null) {
+            endKeycloakSession(session);
+        }
+    }
+
+    /**
+     * Déconnexion imposée : ferme toutes les sessions BFF de l'utilisateur et leurs sessions Keycloak
+     *
+     * @param username Utilisateur (preferred_username, sinon sub)
+     * @return Nombre de sessions fermées
+     */
+    public int logoutUser(String username) {
+        List<BffSession> sessions = store.findByUsername(username);
+        for (BffSession session : sessions) {
+            store.remove(session.id());
+            endKeycloakSession(session);
+        }
+        return sessions.size();
+    }
+
+    private void endKeycloakSession(BffSession session) {
+        if (session.tokens().refreshToken() == null) {
+            return;
+        }
+        try {
+            tokenClient.logout(session.tokens().refreshToken());
+        } catch (RuntimeException e) {
+            log.warn("Déconnexion Keycloak impossible pour {} : {}", session.username(), e.getMessage());
+        }
+    }
+
+    /**
+     * Nombre de connexions en attente de callback
+     */
+    public int pendingLogins() {
+        return pendingLogins.size();
+    }
+
+    /**
+     * Planifie le rafraîchissement avant expiration
+     * Pour un token de courte durée, au plus tard à mi-vie
+     */
+    private void scheduleRefresh(String id, BffTokens tokens) {
+        if (tokens.refreshToken() == null) {
+            return;
+        }
+        Duration lead = properties.getRefreshBefore();
+        Duration halfLife = tokens.accessToken().lifetime().dividedBy(2);
+        if (lead.compareTo(halfLife) > 0) {
+            lead = halfLife;
+        }
+        taskScheduler.schedule(() -> refresh(id, tokens), tokens.accessToken().expiresAt().minus(lead));
+    }
+
+    void refresh(String id, BffTokens scheduledFor) {
+        BffSession session = store.find(id);
+        if (session == null || session.tokens() != scheduledFor) {
+            return; // Session fermée ou tokens déjà remplacés
+        }
+        Instant now = clock.instant();
+        if (Duration.between(session.lastAccess(), now).compareTo(properties.getIdleTimeout()) > 0) {
+            store.remove(id);
+            log.debug("Session BFF {} inutilisée, fermée", session.username());
+            return;
+        }
+        try {
+            refreshNow(session);
+        } catch (HttpClientErrorException e) {
+            // Refresh token refusé : session Keycloak expirée ou révoquée
+            store.remove(id);
+            log.debug("Session BFF {} fermée, rafraîchissement refusé : {}", session.username(), e.getStatusCode());
+            if (notificationHub != null && session.authentication() != null) {
+                notificationHub.forceLogout(subject(session.authentication()), "session-revoked");
+            }
+        } catch (RuntimeException e) {
+            Instant retryAt = now.plus(RETRY_DELAY);
+            if (scheduledFor.accessToken().isUsableAt(retryAt)) {
+                log.warn("Échec du rafraîchissement de la session BFF {}, nouvel essai à {} : {}",
+                        session.username(), retryAt, e.getMessage());
+                taskScheduler.schedule(() -> refresh(id, scheduledFor), retryAt);
+            } else {
+                log.warn("Échec du rafraîchissement de la session BFF {} : {}", session.username(), e.getMessage());
+            }
+        }
+    }
+
+    private BffTokens refreshNow(BffSession session) {
+        BffTokens before = session.tokens();
+        return singleFlight.execute(session.id(), () -> {
+            BffTokens current = session.tokens();
+            if (current != before && current.accessToken().isUsableAt(clock.instant())) {
+                return current;
+            }
+            if (!current.isRefreshableAt(clock.instant())) {
+                throw new IllegalStateException("Refresh token expiré");
+            }
+            try {
+                BffTokens refreshed = tokenClient.refresh(current.refreshToken());
+                if (refreshed.refreshToken() == null) {
+                    refreshed = new BffTokens(refreshed.accessToken(), current.refreshToken(),
+                            current.refreshExpiresAt(), current.idToken());
+                }
+                Authentication previous = session.authentication();
+                Authentication authentication = authenticate(refreshed);
+                session.update(refreshed, authentication);
+                store.save(session);
+                scheduleRefresh(session.id(), refreshed);
+                notifyIfRolesChanged(previous, authentication);
+                refreshSuccess.increment();
+                return refreshed;
+            } catch (RuntimeException e) {
+                refreshFailure.increment();
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Rôles modifiés dans Keycloak : visibles au rafraîchissement, poussés aux connexions SSE
+     */
+    private void notifyIfRolesChanged(Authentication previous, Authentication current) {
+        if (notificationHub == null || previous == null) {
+            return;
+        }
+        Set<String> before = realmRoles(previous);
+        Set<String> after = realmRoles(current);
+        if (!before.equals(after)) {
+            notificationHub.rolesChanged(subject(current), after, "token-refresh");
+        }
+    }
+
+    /**
+     * Utilisateur tel que l'identifient les connexions SSE (preferred_username, sinon sub)
+     */
+    private static String subject(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof Jwt jwt && jwt.getClaimAsString("preferred_username") != null) {
+            return jwt.getClaimAsString("preferred_username");
+        }
+        return authentication.getName();
+    }
+
+    private static Set<String> realmRoles(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(authority -> authority.startsWith("ROLE_"))
+                .map(authority -> authority.substring("ROLE_".length()))
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * Seul décodage (signature RSA, validations) du token d'accès pendant sa durée de vie
+     */
+    private Authentication authenticate(BffTokens tokens) {
+        return authenticationConverter.convert(jwtDecoder.decode(tokens.accessToken().value()));
+    }
+
+    /**
+     * Connexions en attente bornées : purge des expirées, puis éviction de la plus ancienne
+     */
+    private void storePending(String state, PendingLogin pending) {
+        if (pendingLogins.size() >= properties.getMaxPendingLogins()) {
+            Instant now = clock.instant();
+            pendingLogins.values().removeIf(existing -> existing.isExpiredAt(now, properties.getLoginTimeout()));
+            while (pendingLogins.size() >= properties.getMaxPendingLogins()) {
+                pendingLogins.entrySet().stream()
+                        .min(Map.Entry.comparingByValue((a, b) -> a.createdAt().compareTo(b.createdAt())))
+                        .ifPresent(oldest -> pendingLogins.remove(oldest.getKey(), oldest.getValue()));
+            }
+        }
+        pendingLogins.put(state, pending);
+    }
+
+    private String randomValue(int bytes) {
+        byte[] value = new byte[bytes];
+        random.nextBytes(value);
+        return ENCODER.encodeToString(value);
+    }
+
+    static String codeChallenge(String codeVerifier) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(codeVerifier.getBytes(StandardCharsets.US_ASCII));
+            return ENCODER.encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private static Counter refreshCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("app.bff.refreshes")
+                .description("Rafraîchissements des tokens des sessions BFF")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Redirection vers Keycloak et state à lier au navigateur
+     */
+    public record LoginRedirect(URI location, String state) {
+    }
+
+    private record PendingLogin(String codeVerifier, Instant createdAt) {
+
+        boolean isExpiredAt(Instant now, Duration loginTimeout) {
+            return Duration.between(createdAt, now).compareTo(loginTimeout) > 0;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.keycloak.bff;
+
+import java.util.List;
+
+/**
+ * Stockage des sessions BFF
+ *
+ * Implémentation par défaut : InMemoryBffSessionStore (une instance).
+ * Un store partagé entre instances (Redis, base...) se branche en déclarant
+ * un bean BffSessionStore ; il doit borner et expirer les sessions lui-même
+ * et peut ignorer l'Authentication (reconstruite depuis le token d'accès).
+ */
+public interface BffSessionStore {
+
+    /**
+     * @param id Identifiant de session (cookie vérifié)
+     * @return Session active, null si inconnue ou expirée
+     */
+    BffSession find(String id);
+
+    /**
+     * Enregistre une nouvelle session ou les tokens rafraîchis d'une session existante
+     */
+    void save(BffSession session);
+
+    void remove(String id);
+
+    /**
+     * @param username Utilisateur (preferred_username, sinon sub)
+     * @return Sessions actives de l'utilisateur (déconnexion imposée)
+     */
+    List<BffSession> findByUsername(String username);
+
+    /**
+     * Nombre de sessions conservées
+     */
+    int size();
+}
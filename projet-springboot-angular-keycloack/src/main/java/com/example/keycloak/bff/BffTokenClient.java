@@ -0,0 +1,119 @@
+package com.example.keycloak.bff;
+
+import com.example.keycloak.client.AccessToken;
+import com.example.keycloak.config.BffProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.http.MediaType;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClient;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+
+/**
+ * Appels Keycloak du mode BFF : échange du code (PKCE), rafraîchissement, déconnexion
+ *
+ * Client confidentiel (authentification Basic) si bff.client-secret est renseigné,
+ * client public sinon (client_id dans le formulaire, PKCE seul).
+ */
+public class BffTokenClient {
+
+    private final RestClient restClient;
+    private final BffProperties properties;
+    private final Clock clock;
+
+    /**
+     * @param restClient Client de l'endpoint token (disjoncteur et cloison "token")
+     */
+    public BffTokenClient(RestClient restClient, BffProperties properties, Clock clock) {
+        this.restClient = restClient;
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    /**
+     * Échange le code d'autorisation reçu sur /bff/callback
+     *
+     * @param code Code d'autorisation
+     * @param codeVerifier Vérificateur PKCE généré à /bff/login
+     * @throws org.springframework.web.client.RestClientException si Keycloak refuse le code
+     */
+    public BffTokens exchangeCode(String code, String codeVerifier) {
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("grant_type", "authorization_code");
+        form.add("code", code);
+        form.add("redirect_uri", properties.getRedirectUri());
+        form.add("code_verifier", codeVerifier);
+        return request(form);
+    }
+
+    /**
+     * Rafraîchit les tokens d'une session
+     *
+     * @throws org.springframework.web.client.RestClientException si le refresh token est refusé
+     */
+    public BffTokens refresh(String refreshToken) {
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("grant_type", "refresh_token");
+        form.add("refresh_token", refreshToken);
+        return request(form);
+    }
+
+    /**
+     * Ferme la session Keycloak associée au refresh token (déconnexion back-channel)
+     */
+    public void logout(String refreshToken) {
+        if (!StringUtils.hasText(properties.getLogoutUri())) {
+            return;
+        }
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("refresh_token", refreshToken);
+        post(properties.getLogoutUri(), form).toBodilessEntity();
+    }
+
+    private BffTokens request(MultiValueMap<String, String> form) {
+        Instant issuedAt = clock.instant();
+        TokenResponse response = post(properties.getTokenUri(), form).body(TokenResponse.class);
+        if (response == null || response.accessToken() == null || response.expiresIn() <= 0) {
+            throw new IllegalStateException("Réponse token invalide pour le client " + properties.getClientId());
+        }
+        // refresh_expires_in = 0 : token hors ligne, sans expiration annoncée
+        Instant refreshExpiresAt = response.refreshExpiresIn() > 0
+                ? issuedAt.plusSeconds(response.refreshExpiresIn())
+                : null;
+        return new BffTokens(
+                new AccessToken(response.accessToken(), issuedAt, issuedAt.plusSeconds(response.expiresIn())),
+                response.refreshToken(), refreshExpiresAt, response.idToken());
+    }
+
+    private RestClient.ResponseSpec post(String uri, MultiValueMap<String, String> form) {
+        boolean confidential = StringUtils.hasText(properties.getClientSecret());
+        if (!confidential) {
+            form.add("client_id", properties.getClientId());
+        }
+        return restClient.post()
+                .uri(uri)
+                .headers(headers -> {
+                    if (confidential) {
+                        headers.setBasicAuth(properties.getClientId(), properties.getClientSecret(),
+                                StandardCharsets.UTF_8);
+                    }
+                })
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(form)
+                .retrieve();
+    }
+
+    /**
+     * Réponse de l'endpoint token (RFC 6749 §5.1, champs Keycloak)
+     */
+    record TokenResponse(@JsonProperty("access_token") String accessToken,
+                         @JsonProperty("expires_in") long expiresIn,
+                         @JsonProperty("refresh_token") String refreshToken,
+                         @JsonProperty("refresh_expires_in") long refreshExpiresIn,
+                         @JsonProperty("id_token") String idToken) {
+    }
+}
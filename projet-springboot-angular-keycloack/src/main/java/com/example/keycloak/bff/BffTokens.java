@@ -0,0 +1,23 @@
+package com.example.keycloak.bff;
+
+import com.example.keycloak.client.AccessToken;
+
+import java.time.Instant;
+
+/**
+ * Tokens d'une session BFF, conservés côté serveur uniquement
+ *
+ * @param accessToken Token d'accès et son expiration
+ * @param refreshToken Refresh token (null : pas de rafraîchissement possible)
+ * @param refreshExpiresAt Expiration du refresh token (null : inconnue)
+ * @param idToken ID token (indication de déconnexion auprès de Keycloak)
+ */
+public record BffTokens(AccessToken accessToken, String refreshToken, Instant refreshExpiresAt, String idToken) {
+
+    /**
+     * @return true si le refresh token peut encore être présenté à Keycloak
+     */
+    public boolean isRefreshableAt(Instant now) {
+        return refreshToken != null && (refreshExpiresAt == null || now.isBefore(refreshExpiresAt));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.keycloak.bff;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sessions BFF en mémoire, bornées et expirantes
+ *
+ * Résolution d'un cookie : une lecture de ConcurrentHashMap. Les sessions
+ * expirées sont retirées à la lecture ; lorsque le store est plein, elles sont
+ * purgées puis, si nécessaire, la session inactive depuis le plus longtemps
+ * est évincée (ses utilisateurs devront se reconnecter).
+ */
+public class InMemoryBffSessionStore implements BffSessionStore {
+
+    private final ConcurrentHashMap<String, BffSession> sessions = new ConcurrentHashMap<>();
+    private final int maxSessions;
+    private final Duration idleTimeout;
+    private final Clock clock;
+
+    public InMemoryBffSessionStore(int maxSessions, Duration idleTimeout, Clock clock) {
+        this.maxSessions = maxSessions;
+        this.idleTimeout = idleTimeout;
+        this.clock = clock;
+    }
+
+    @Override
+    public BffSession find(String id) {
+        BffSession session = sessions.get(id);
+        if (session != null && session.isExpiredAt(clock.instant(), idleTimeout)) {
+            sessions.remove(id, session);
+            return null;
+        }
+        return session;
+    }
+
+    @Override
+    public void save(BffSession session) {
+        if (!sessions.containsKey(session.id()) && sessions.size() >= maxSessions) {
+            evict();
+        }
+        sessions.put(session.id(), session);
+    }
+
+    @Override
+    public void remove(String id) {
+        sessions.remove(id);
+    }
+
+    @Override
+    public List<BffSession> findByUsername(String username) {
+        Instant now = clock.instant();
+        return sessions.values().stream()
+                .filter(session -> session.username().equals(username) && !session.isExpiredAt(now, idleTimeout))
+                .toList();
+    }
+
+    @Override
+    public int size() {
+        return sessions.size();
+    }
+
+    private synchronized void evict() {
+        Instant now = clock.instant();
+        sessions.values().removeIf(session -> session.isExpiredAt(now, idleTimeout));
+        while (sessions.size() >= maxSessions) {
+            Map.Entry<String, BffSession> oldest = null;
+            for (Map.Entry<String, BffSession> entry : sessions.entrySet()) {
+                if (oldest == null || entry.getValue().lastAccess().isBefore(oldest.getValue().lastAccess())) {
+                    oldest = entry;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            sessions.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+}
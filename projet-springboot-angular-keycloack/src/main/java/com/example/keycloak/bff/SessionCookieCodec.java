@@ -0,0 +1,87 @@
+package com.example.keycloak.bff;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Valeur du cookie de session : identifiant aléatoire (128 bits) et signature HMAC-SHA256 tronquée
+ *
+ * Format : base64url(id) "." base64url(hmac(id)[0..16]), soit 45 caractères
+ * au lieu des ~1,5 à 3 Ko d'un token Keycloak. Un cookie forgé ou altéré est
+ * rejeté avant toute consultation du store.
+ */
+public class SessionCookieCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int ID_BYTES = 16;
+    private static final int SIGNATURE_BYTES = 16;
+    private static final int ENCODED_ID_LENGTH = 22;
+    private static final int ENCODED_LENGTH = ENCODED_ID_LENGTH + 1 + 22;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * @param secret Clé HMAC (32 octets ou plus)
+     */
+    public SessionCookieCodec(byte[] secret) {
+        if (secret.length < 32) {
+            throw new IllegalArgumentException("La clé du cookie de session doit faire au moins 32 octets");
+        }
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+    }
+
+    /**
+     * @return Nouvel identifiant de session aléatoire
+     */
+    public String newSessionId() {
+        byte[] id = new byte[ID_BYTES];
+        random.nextBytes(id);
+        return ENCODER.encodeToString(id);
+    }
+
+    /**
+     * @return Valeur signée à placer dans le cookie
+     */
+    public String encode(String sessionId) {
+        return sessionId + "." + ENCODER.encodeToString(sign(sessionId));
+    }
+
+    /**
+     * @param cookieValue Valeur reçue du navigateur
+     * @return Identifiant de session si la signature est valide, null sinon
+     */
+    public String decode(String cookieValue) {
+        if (cookieValue == null || cookieValue.length() != ENCODED_LENGTH
+                || cookieValue.charAt(ENCODED_ID_LENGTH) != '.') {
+            return null;
+        }
+        String sessionId = cookieValue.substring(0, ENCODED_ID_LENGTH);
+        byte[] signature;
+        try {
+            signature = DECODER.decode(cookieValue.substring(ENCODED_ID_LENGTH + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return MessageDigest.isEqual(signature, sign(sessionId)) ? sessionId : null;
+    }
+
+    private byte[] sign(String sessionId) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return Arrays.copyOf(mac.doFinal(sessionId.getBytes(StandardCharsets.US_ASCII)), SIGNATURE_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Signature HMAC indisponible", e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.keycloak.client;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Token d'accès obtenu auprès de Keycloak pour un appel sortant
+ *
+ * @param value Valeur du token (à placer dans l'en-tête Authorization)
+ * @param issuedAt Date d'obtention
+ * @param expiresAt Date d'expiration
+ */
+public record AccessToken(String value, Instant issuedAt, Instant expiresAt) {
+
+    /**
+     * Marge sous laquelle un token n'est plus envoyé (il expirerait en vol)
+     */
+    static final Duration MIN_VALIDITY = Duration.ofSeconds(5);
+
+    public boolean isUsableAt(Instant now) {
+        return now.isBefore(expiresAt.minus(MIN_VALIDITY));
+    }
+
+    public Duration lifetime() {
+        return Duration.between(issuedAt, expiresAt);
+    }
+}
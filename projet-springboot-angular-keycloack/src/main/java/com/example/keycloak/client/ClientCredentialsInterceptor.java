@@ -0,0 +1,37 @@
+package com.example.keycloak.client;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Intercepteur RestClient : ajoute le token client credentials à chaque appel
+ *
+ * Le token provient du cache de ClientCredentialsTokenManager ;
+ * une réponse 401 l'invalide pour que l'appel suivant en obtienne un nouveau.
+ */
+public class ClientCredentialsInterceptor implements ClientHttpRequestInterceptor {
+
+    private final ClientCredentialsTokenManager tokenManager;
+    private final String registrationId;
+
+    public ClientCredentialsInterceptor(ClientCredentialsTokenManager tokenManager, String registrationId) {
+        this.tokenManager = tokenManager;
+        this.registrationId = registrationId;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        request.getHeaders().setBearerAuth(tokenManager.getAccessToken(registrationId));
+        ClientHttpResponse response = execution.execute(request, body);
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.UNAUTHORIZED)) {
+            tokenManager.invalidate(registrationId);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.keycloak.client;
+
+import com.example.keycloak.config.OutboundClientProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gestionnaire des tokens client credentials pour les appels sortants
+ *
+ * Un token par (client, scope, audience) est conservé en mémoire :
+ * - le chemin nominal est une simple lecture de map, sans appel à Keycloak
+ * - le token est rafraîchi en arrière-plan avant son expiration (outbound.refresh-before)
+ * - les demandes concurrentes pour une même clé sont coalescées (un seul appel token)
+ * - un token inutilisé depuis outbound.idle-timeout n'est plus rafraîchi
+ */
+@Service
+public class ClientCredentialsTokenManager {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientCredentialsTokenManager.class);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+
+    private final TokenEndpointClient tokenEndpointClient;
+    private final OutboundClientProperties properties;
+    private final Clock clock;
+    private final TaskScheduler taskScheduler;
+
+    private final ConcurrentHashMap<TokenKey, TokenEntry> tokens = new ConcurrentHashMap<>();
+    private final SingleFlight<TokenKey, AccessToken> singleFlight = new SingleFlight<>();
+
+    public ClientCredentialsTokenManager(TokenEndpointClient tokenEndpointClient,
+                                         OutboundClientProperties properties,
+                                         Clock clock,
+                                         TaskScheduler taskScheduler) {
+        this.tokenEndpointClient = tokenEndpointClient;
+        this.properties = properties;
+        this.clock = clock;
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Token pour un client, avec le scope et l'audience configurés
+     *
+     * @param registrationId Nom du client (outbound.registrations.*)
+     * @return Valeur du token d'accès
+     */
+    public String getAccessToken(String registrationId) {
+        OutboundClientProperties.Registration registration = registration(registrationId);
+        return getAccessToken(registrationId, registration.getScope(), registration.getAudience());
+    }
+
+    /**
+     * Token pour un client avec un scope / une audience spécifiques
+     *
+     * @param registrationId Nom du client (outbound.registrations.*)
+     * @param scope Scope demandé (null : scopes par défaut du client)
+     * @param audience Audience demandée (null : aucune)
+     * @return Valeur du token d'accès
+     * @throws IllegalArgumentException si le client n'est pas configuré
+     */
+    public String getAccessToken(String registrationId, String scope, String audience) {
+        TokenKey key = new TokenKey(registrationId, scope, audience);
+        Instant now = clock.instant();
+        TokenEntry entry = tokens.get(key);
+        if (entry != null && entry.token.isUsableAt(now)) {
+            entry.lastAccess = now;
+            return entry.token.value();
+        }
+        return singleFlight.execute(key, () -> {
+            TokenEntry current = tokens.get(key);
+            if (current != null && current.token.isUsableAt(clock.instant())) {
+                current.lastAccess = clock.instant();
+                return current.token;
+            }
+            return fetch(key);
+        }).value();
+    }
+
+    /**
+     * Oublie le token d'un client (ex: réponse 401 du service appelé)
+     */
+    public void invalidate(String registrationId, String scope, String audience) {
+        tokens.remove(new TokenKey(registrationId, scope, audience));
+    }
+
+    public void invalidate(String registrationId) {
+        OutboundClientProperties.Registration registration = registration(registrationId);
+        invalidate(registrationId, registration.getScope(), registration.getAudience());
+    }
+
+    /**
+     * Nombre de tokens en cache
+     */
+    public int size() {
+        return tokens.size();
+    }
+
+    private AccessToken fetch(TokenKey key) {
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("grant_type", "client_credentials");
+        if (StringUtils.hasText(key.scope())) {
+            form.add("scope", key.scope());
+        }
+        if (StringUtils.hasText(key.audience())) {
+            form.add("audience", key.audience());
+        }
+        AccessToken token = tokenEndpointClient.requestToken(registration(key.registrationId()), form);
+
+        TokenEntry previous = tokens.get(key);
+        TokenEntry entry = new TokenEntry(token, previous != null ? previous.lastAccess : clock.instant());
+        tokens.put(key, entry);
+        scheduleRefresh(key, entry);
+        log.debug("Token client credentials obtenu pour {} (expire à {})", key, token.expiresAt());
+        return token;
+    }
+
+    /**
+     * Planifie le rafraîchissement avant expiration
+     * Pour un token de courte durée, au plus tard à mi-vie
+     */
+    private void scheduleRefresh(TokenKey key, TokenEntry entry) {
+        Duration lead = properties.getRefreshBefore();
+        Duration halfLife = entry.token.lifetime().dividedBy(2);
+        if (lead.compareTo(halfLife) > 0) {
+            lead = halfLife;
+        }
+        taskScheduler.schedule(() -> refresh(key, entry), entry.token.expiresAt().minus(lead));
+    }
+
+    void refresh(TokenKey key, TokenEntry scheduledFor) {
+        TokenEntry entry = tokens.get(key);
+        if (entry != scheduledFor) {
+            return; // Token invalidé ou déjà remplacé
+        }
+        Instant now = clock.instant();
+        if (Duration.between(entry.lastAccess, now).compareTo(properties.getIdleTimeout()) > 0) {
+            tokens.remove(key, entry);
+            log.debug("Token {} inutilisé, retiré du cache", key);
+            return;
+        }
+        try {
+            singleFlight.execute(key, () -> fetch(key));
+        } catch (RuntimeException e) {
+            Instant retryAt = now.plus(RETRY_DELAY);
+            if (entry.token.isUsableAt(retryAt)) {
+                log.warn("Échec du rafraîchissement du token {}, nouvel essai à {} : {}", key, retryAt, e.getMessage());
+                taskScheduler.schedule(() -> refresh(key, entry), retryAt);
+            } else {
+                log.warn("Échec du rafraîchissement du token {} : {}", key, e.getMessage());
+            }
+        }
+    }
+
+    private OutboundClientProperties.Registration registration(String registrationId) {
+        OutboundClientProperties.Registration registration = properties.getRegistrations().get(registrationId);
+        if (registration == null) {
+            throw new IllegalArgumentException("Client sortant inconnu : " + registrationId);
+        }
+        return registration;
+    }
+
+    record TokenKey(String registrationId, String scope, String audience) {
+    }
+
+    static final class TokenEntry {
+
+        final AccessToken token;
+        volatile Instant lastAccess;
+
+        TokenEntry(AccessToken token, Instant lastAccess) {
+            this.token = token;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.keycloak.client;
+
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+
+/**
+ * Client du service de reporting, appelé au nom de l'utilisateur courant
+ *
+ * Le RestClient fourni porte UserTokenInterceptor : chaque appel part avec le
+ * token entrant échangé (RFC 8693) pour l'audience du service de reporting.
+ */
+public class ReportingClient {
+
+    private final RestClient restClient;
+
+    public ReportingClient(RestClient restClient) {
+        this.restClient = restClient;
+    }
+
+    /**
+     * @return Rapports accessibles à l'utilisateur courant, selon le service de reporting
+     */
+    public List<String> availableReports() {
+        String[] reports = restClient.get()
+                .uri("/reports")
+                .retrieve()
+                .body(String[].class);
+        return reports != null ? List.of(reports) : List.of();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.keycloak.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalescence des appels concurrents par clé
+ *
+ * Le premier appelant exécute le chargement sur son propre thread ;
+ * les appelants concurrents pour la même clé attendent et partagent
+ * son résultat (ou son exception) au lieu de relancer l'appel.
+ *
+ * Le chargeur doit publier son résultat dans le cache avant de rendre la main :
+ * un appelant arrivant juste après la fin du vol le trouvera ainsi en cache.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inflight = new ConcurrentHashMap<>();
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inflight.putIfAbsent(key, created);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            V value = loader.get();
+            created.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Error comprise (OOM, StackOverflowError...) : les appelants en attente ne doivent pas rester bloqués
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(key, created);
+        }
+    }
+
+    /**
+     * Nombre de chargements en cours
+     */
+    public int inflightCount() {
+        return inflight.size();
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.keycloak.client;
+
+import com.example.keycloak.config.OutboundClientProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClient;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+
+/**
+ * Appel à l'endpoint token de Keycloak (client confidentiel, authentification Basic)
+ *
+ * Partagé par les flux client credentials et token exchange.
+ */
+@Component
+public class TokenEndpointClient {
+
+    private final RestClient restClient;
+    private final OutboundClientProperties properties;
+    private final Clock clock;
+
+    public TokenEndpointClient(@Qualifier("tokenEndpointRestClient") RestClient restClient,
+                               OutboundClientProperties properties,
+                               Clock clock) {
+        this.restClient = restClient;
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    /**
+     * Envoie une requête token
+     *
+     * @param registration Client confidentiel qui s'authentifie
+     * @param form Paramètres du grant (grant_type, scope, audience...)
+     * @return Token obtenu
+     * @throws org.springframework.web.client.RestClientException si Keycloak refuse ou est injoignable
+     */
+    public AccessToken requestToken(OutboundClientProperties.Registration registration,
+                                    MultiValueMap<String, String> form) {
+        Instant issuedAt = clock.instant();
+        TokenResponse response = restClient.post()
+                .uri(properties.getTokenUri())
+                .headers(headers -> headers.setBasicAuth(
+                        registration.getClientId(), registration.getClientSecret(), StandardCharsets.UTF_8))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(form)
+                .retrieve()
+                .body(TokenResponse.class);
+        if (response == null || response.accessToken() == null || response.expiresIn() <= 0) {
+            throw new IllegalStateException("Réponse token invalide pour le client " + registration.getClientId());
+        }
+        return new AccessToken(response.accessToken(), issuedAt, issuedAt.plusSeconds(response.expiresIn()));
+    }
+
+    /**
+     * Réponse de l'endpoint token (RFC 6749 §5.1)
+     */
+    record TokenResponse(@JsonProperty("access_token") String accessToken,
+                         @JsonProperty("expires_in") long expiresIn) {
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.keycloak.client;
+
+import com.example.keycloak.config.OutboundClientProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Propagation de l'identité de l'utilisateur vers les services appelés
+ *
+ * Deux modes :
+ * - relais : le token entrant est transmis tel quel
+ * - échange (RFC 8693) : Keycloak émet un token restreint à l'audience du service appelé
+ *
+ * Les tokens échangés sont mis en cache par (identifiant du token entrant, audience)
+ * jusqu'à leur expiration, bornée par celle du token entrant. Les échanges
+ * concurrents pour une même clé sont coalescés : lors d'un fan-out,
+ * seul le premier appel sollicite Keycloak.
+ */
+@Service
+public class TokenExchangeService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenExchangeService.class);
+
+    static final String TOKEN_EXCHANGE_GRANT = "urn:ietf:params:oauth:grant-type:token-exchange";
+    static final String ACCESS_TOKEN_TYPE = "urn:ietf:params:oauth:token-type:access_token";
+
+    private final TokenEndpointClient tokenEndpointClient;
+    private final OutboundClientProperties properties;
+    private final Clock clock;
+    private final String registrationId;
+    private final int maxEntries;
+
+    private final ConcurrentHashMap<ExchangeKey, AccessToken> exchangedTokens = new ConcurrentHashMap<>();
+    private final SingleFlight<ExchangeKey, AccessToken> singleFlight = new SingleFlight<>();
+
+    public TokenExchangeService(TokenEndpointClient tokenEndpointClient,
+                                OutboundClientProperties properties,
+                                Clock clock,
+                                @Value("${outbound.token-exchange.registration:token-exchange}") String registrationId,
+                                @Value("${outbound.token-exchange.max-entries:10000}") int maxEntries) {
+        this.tokenEndpointClient = tokenEndpointClient;
+        this.properties = properties;
+        this.clock = clock;
+        this.registrationId = registrationId;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Relais : le token entrant est transmis sans modification
+     */
+    public String relay(Jwt subjectToken) {
+        return subjectToken.getTokenValue();
+    }
+
+    /**
+     * Échange le token entrant contre un token destiné à une audience
+     *
+     * @param subjectToken Token de l'utilisateur
+     * @param audience Client Keycloak du service appelé
+     * @return Valeur du token échangé
+     * @throws org.springframework.web.client.RestClientException si Keycloak refuse l'échange
+     */
+    public String exchange(Jwt subjectToken, String audience) {
+        ExchangeKey key = new ExchangeKey(tokenId(subjectToken), audience);
+        AccessToken cached = exchangedTokens.get(key);
+        if (cached != null && cached.isUsableAt(clock.instant())) {
+            return cached.value();
+        }
+        return singleFlight.execute(key, () -> {
+            AccessToken current = exchangedTokens.get(key);
+            if (current != null && current.isUsableAt(clock.instant())) {
+                return current;
+            }
+            return fetch(key, subjectToken);
+        }).value();
+    }
+
+    /**
+     * Nombre de tokens échangés en cache
+     */
+    public int size() {
+        return exchangedTokens.size();
+    }
+
+    private AccessToken fetch(ExchangeKey key, Jwt subjectToken) {
+        OutboundClientProperties.Registration registration = properties.getRegistrations().get(registrationId);
+        if (registration == null) {
+            throw new IllegalStateException("Client d'échange de token non configuré : " + registrationId);
+        }
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("grant_type", TOKEN_EXCHANGE_GRANT);
+        form.add("subject_token", subjectToken.getTokenValue());
+        form.add("subject_token_type", ACCESS_TOKEN_TYPE);
+        form.add("requested_token_type", ACCESS_TOKEN_TYPE);
+        form.add("audience", key.audience());
+        AccessToken token = tokenEndpointClient.requestToken(registration, form);
+
+        // Le token échangé ne survit pas au token de l'utilisateur
+        Instant subjectExpiry = subjectToken.getExpiresAt();
+        if (subjectExpiry != null && subjectExpiry.isBefore(token.expiresAt())) {
+            token = new AccessToken(token.value(), token.issuedAt(), subjectExpiry);
+        }
+        store(key, token);
+        log.debug("Token échangé pour l'audience {} (expire à {})", key.audience(), token.expiresAt());
+        return token;
+    }
+
+    /**
+     * Cache borné : purge des entrées expirées, puis éviction des plus anciennes (1/10e du cache)
+     *
+     * Un vidage complet renverrait tous les appels suivants vers Keycloak en même temps.
+     */
+    private void store(ExchangeKey key, AccessToken token) {
+        if (exchangedTokens.size() >= maxEntries) {
+            Instant now = clock.instant();
+            exchangedTokens.values().removeIf(existing -> !existing.isUsableAt(now));
+            int excess = exchangedTokens.size() - maxEntries + Math.max(1, maxEntries / 10);
+            if (excess > 0) {
+                exchangedTokens.entrySet().stream()
+                        .sorted(Map.Entry.comparingByValue(Comparator.comparing(AccessToken::issuedAt)))
+                        .limit(excess)
+                        .map(Map.Entry::getKey)
+                        .toList()
+                        .forEach(exchangedTokens::remove);
+            }
+        }
+        exchangedTokens.put(key, token);
+    }
+
+    /**
+     * Identifiant stable du token : le claim jti si présent, sinon la valeur brute du token
+     */
+    private static String tokenId(Jwt jwt) {
+        String jti = jwt.getId();
+        return jti != null && !jti.isEmpty() ? jti : jwt.getTokenValue();
+    }
+
+    record ExchangeKey(String subjectTokenId, String audience) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.keycloak.client;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.io.IOException;
+
+/**
+ * Intercepteur RestClient : appelle un service au nom de l'utilisateur courant
+ *
+ * Sans audience, le token entrant est relayé ; avec une audience, il est
+ * échangé (RFC 8693) via TokenExchangeService. Le token est lu dans le
+ * SecurityContext du thread courant : pour un fan-out sur un pool,
+ * propager le contexte (DelegatingSecurityContextExecutor).
+ */
+public class UserTokenInterceptor implements ClientHttpRequestInterceptor {
+
+    private final TokenExchangeService tokenExchangeService;
+    private final String audience;
+
+    public UserTokenInterceptor(TokenExchangeService tokenExchangeService, String audience) {
+        this.tokenExchangeService = tokenExchangeService;
+        this.audience = audience;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof JwtAuthenticationToken jwtAuthentication) {
+            String token = audience == null
+                    ? tokenExchangeService.relay(jwtAuthentication.getToken())
+                    : tokenExchangeService.exchange(jwtAuthentication.getToken(), audience);
+            request.getHeaders().setBearerAuth(token);
+        }
+        return execution.execute(request, body);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.keycloak.config;
+
+import com.example.keycloak.batch.BatchDispatcher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.web.servlet.DispatcherServlet;
+
+/**
+ * Requêtes groupées (POST /api/batch)
+ *
+ * Le DispatcherServlet et les chaînes de sécurité sont résolus à la première
+ * sous-requête : ils sont eux-mêmes construits à partir du contexte qui déclare ce bean.
+ */
+@Configuration
+@EnableConfigurationProperties(BatchProperties.class)
+@ConditionalOnProperty(name = "batch.enabled", matchIfMissing = true)
+public class BatchConfig {
+
+    @Bean(destroyMethod = "close")
+    public BatchDispatcher batchDispatcher(BatchProperties properties,
+                                           ObjectProvider<DispatcherServlet> dispatcherServlet,
+                                           ObjectProvider<SecurityFilterChain> filterChains,
+                                           ObjectMapper objectMapper) {
+        return new BatchDispatcher(properties, dispatcherServlet, filterChains, objectMapper);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.keycloak.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Propriétés de l'endpoint de requêtes groupées (POST /api/batch)
+ *
+ * Exemple (application.yml) :
+ * batch.max-requests = 20
+ * batch.parallelism = 8
+ * batch.timeout = 10s
+ * batch.allowed-paths = /api/private/, /api/advanced/
+ * batch.excluded-paths = /api/private/events
+ */
+@ConfigurationProperties(prefix = "batch")
+public class BatchProperties {
+
+    /**
+     * Active l'endpoint /api/batch
+     */
+    private boolean enabled = true;
+
+    /**
+     * Nombre maximal de sous-requêtes par appel
+     */
+    private int maxRequests = 20;
+
+    /**
+     * Threads dédiés à l'exécution des sous-requêtes (partagés entre tous les appels)
+     */
+    private int parallelism = 8;
+
+    /**
+     * Sous-requêtes en attente d'un thread au-delà desquelles la sous-requête reçoit un 503
+     */
+    private int queueCapacity = 200;
+
+    /**
+     * Durée maximale d'un appel ; les sous-requêtes non terminées reçoivent un 504
+     */
+    private Duration timeout = Duration.ofSeconds(10);
+
+    /**
+     * Préfixes des routes accessibles en sous-requête (GET uniquement)
+     *
+     * La liste restreint les routes, elle n'accorde aucun droit : chaque sous-requête
+     * passe par les règles d'URL de la chaîne de sécurité (ex: /api/admin/** réservé
+     * au rôle ADMIN) puis par la sécurité de méthode du controller.
+     */
+    private List<String> allowedPaths = new ArrayList<>(List.of("/api/private/", "/api/advanced/"));
+
+    /**
+     * Préfixes exclus bien que sous un préfixe autorisé : flux (SSE) qui occuperaient
+     * un thread du pool jusqu'au timeout de l'appel
+     */
+    private List<String> excludedPaths = new ArrayList<>(List.of("/api/private/events"));
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    public void setMaxRequests(int maxRequests) {
+        this.maxRequests = maxRequests;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public List<String> getAllowedPaths() {
+        return allowedPaths;
+    }
+
+    public void setAllowedPaths(List<String> allowedPaths) {
+        this.allowedPaths = allowedPaths;
+    }
+
+    public List<String> getExcludedPaths() {
+        return excludedPaths;
+    }
+
+    public void setExcludedPaths(List<String> excludedPaths) {
+        this.excludedPaths = excludedPaths;
+    }
+}
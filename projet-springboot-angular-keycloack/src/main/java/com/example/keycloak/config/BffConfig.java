@@ -0,0 +1,82 @@
+package com.example.keycloak.config;
+
+import com.example.keycloak.bff.BffSessionService;
+import com.example.keycloak.bff.BffSessionStore;
+import com.example.keycloak.bff.BffTokenClient;
+import com.example.keycloak.bff.InMemoryBffSessionStore;
+import com.example.keycloak.bff.SessionCookieCodec;
+import com.example.keycloak.events.NotificationHub;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClient;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Clock;
+
+/**
+ * Mode backend-for-frontend (bff.enabled=true)
+ *
+ * Les tokens Keycloak restent côté serveur ; le navigateur s'authentifie par
+ * un cookie de session signé (SecurityConfig ajoute BffSessionFilter à la chaîne
+ * principale). Les appels Bearer restent acceptés tels quels.
+ */
+@Configuration
+@EnableConfigurationProperties(BffProperties.class)
+@ConditionalOnProperty(name = "bff.enabled", havingValue = "true")
+public class BffConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(BffConfig.class);
+
+    /**
+     * Store en mémoire, remplacé par tout bean BffSessionStore déclaré ailleurs (store partagé)
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public BffSessionStore bffSessionStore(BffProperties properties, Clock clock) {
+        return new InMemoryBffSessionStore(properties.getMaxSessions(), properties.getIdleTimeout(), clock);
+    }
+
+    @Bean
+    public SessionCookieCodec sessionCookieCodec(BffProperties properties) {
+        String secret = properties.getCookie().getSecret();
+        if (StringUtils.hasText(secret)) {
+            return new SessionCookieCodec(secret.getBytes(StandardCharsets.UTF_8));
+        }
+        // Clé propre à l'instance : ne convient ni à plusieurs instances ni à un store partagé
+        log.warn("bff.cookie.secret absent : clé de signature aléatoire, sessions perdues au redémarrage");
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return new SessionCookieCodec(random);
+    }
+
+    /**
+     * Appels token du BFF : même client HTTP (disjoncteur, cloison) que les appels sortants
+     */
+    @Bean
+    public BffTokenClient bffTokenClient(@Qualifier("tokenEndpointRestClient") RestClient restClient,
+                                         BffProperties properties, Clock clock) {
+        return new BffTokenClient(restClient, properties, clock);
+    }
+
+    @Bean
+    public BffSessionService bffSessionService(BffProperties properties, BffSessionStore store,
+                                               SessionCookieCodec sessionCookieCodec, BffTokenClient bffTokenClient,
+                                               JwtDecoder jwtDecoder, JwtAuthenticationConverter jwtAuthenticationConverter,
+                                               TaskScheduler taskScheduler, Clock clock, MeterRegistry meterRegistry,
+                                               ObjectProvider<NotificationHub> notificationHub) {
+        return new BffSessionService(properties, store, sessionCookieCodec, bffTokenClient, jwtDecoder,
+                jwtAuthenticationConverter, taskScheduler, clock, meterRegistry, notificationHub.getIfAvailable());
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.keycloak.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Propriétés du mode backend-for-frontend (BFF)
+ *
+ * Exemple (application.yml) :
+ * bff.enabled = true
+ * bff.client-id = angular-app
+ * bff.redirect-uri = http://localhost:8081/bff/callback
+ * bff.cookie-secret = ${BFF_COOKIE_SECRET}
+ */
+@ConfigurationProperties(prefix = "bff")
+public class BffProperties {
+
+    /**
+     * Active le mode BFF (/bff/login, /bff/callback, /bff/logout et cookie de session)
+     */
+    private boolean enabled = false;
+
+    /**
+     * Endpoint d'autorisation du realm Keycloak
+     */
+    private String authorizationUri;
+
+    /**
+     * Endpoint token du realm Keycloak
+     */
+    private String tokenUri;
+
+    /**
+     * Endpoint de déconnexion du realm (fermeture de la session Keycloak au logout)
+     */
+    private String logoutUri;
+
+    /**
+     * Client Keycloak utilisé pour le flux authorization code + PKCE
+     */
+    private String clientId;
+
+    /**
+     * Secret du client (vide : client public, PKCE seul)
+     */
+    private String clientSecret;
+
+    /**
+     * Scopes demandés
+     */
+    private String scope = "openid profile email";
+
+    /**
+     * URI de retour enregistrée dans Keycloak (GET /bff/callback)
+     */
+    private String redirectUri;
+
+    /**
+     * Page de l'application Angular affichée après la connexion ou la déconnexion
+     */
+    private String postLoginRedirect = "/";
+
+    /**
+     * Délai maximal entre /bff/login et /bff/callback
+     */
+    private Duration loginTimeout = Duration.ofMinutes(5);
+
+    /**
+     * Connexions en cours (state en attente de callback) conservées au plus
+     */
+    private int maxPendingLogins = 1000;
+
+    /**
+     * Sessions conservées au plus ; au-delà, la session inactive depuis le plus longtemps est évincée
+     */
+    private int maxSessions = 10000;
+
+    /**
+     * Une session non utilisée depuis ce délai est fermée (plus de rafraîchissement)
+     */
+    private Duration idleTimeout = Duration.ofMinutes(30);
+
+    /**
+     * Délai avant expiration du token d'accès auquel il est rafraîchi en arrière-plan
+     */
+    private Duration refreshBefore = Duration.ofSeconds(30);
+
+    /**
+     * Cookie de session : identifiant aléatoire signé (HMAC-SHA256), sans token
+     */
+    private Cookie cookie = new Cookie();
+
+    /**
+     * En-tête exigé sur les requêtes non sûres (POST, PUT...) authentifiées par cookie ;
+     * un formulaire cross-site ne peut pas l'envoyer sans preflight CORS
+     */
+    private String csrfHeader = "X-Requested-With";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getAuthorizationUri() {
+        return authorizationUri;
+    }
+
+    public void setAuthorizationUri(String authorizationUri) {
+        this.authorizationUri = authorizationUri;
+    }
+
+    public String getTokenUri() {
+        return tokenUri;
+    }
+
+    public void setTokenUri(String tokenUri) {
+        this.tokenUri = tokenUri;
+    }
+
+    public String getLogoutUri() {
+        return logoutUri;
+    }
+
+    public void setLogoutUri(String logoutUri) {
+        this.logoutUri = logoutUri;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    public String getClientSecret() {
+        return clientSecret;
+    }
+
+    public void setClientSecret(String clientSecret) {
+        this.clientSecret = clientSecret;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    public String getRedirectUri() {
+        return redirectUri;
+    }
+
+    public void setRedirectUri(String redirectUri) {
+        this.redirectUri = redirectUri;
+    }
+
+    public String getPostLoginRedirect() {
+        return postLoginRedirect;
+    }
+
+    public void setPostLoginRedirect(String postLoginRedirect) {
+        this.postLoginRedirect = postLoginRedirect;
+    }
+
+    public Duration getLoginTimeout() {
+        return loginTimeout;
+    }
+
+    public void setLoginTimeout(Duration loginTimeout) {
+        this.loginTimeout = loginTimeout;
+    }
+
+    public int getMaxPendingLogins() {
+        return maxPendingLogins;
+    }
+
+    public void setMaxPendingLogins(int maxPendingLogins) {
+        this.maxPendingLogins = maxPendingLogins;
+    }
+
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    public void setMaxSessions(int maxSessions) {
+        this.maxSessions = maxSessions;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public Duration getRefreshBefore() {
+        return refreshBefore;
+    }
+
+    public void setRefreshBefore(Duration refreshBefore) {
+        this.refreshBefore = refreshBefore;
+    }
+
+    public Cookie getCookie() {
+        return cookie;
+    }
+
+    public void setCookie(Cookie cookie) {
+        this.cookie = cookie;
+    }
+
+    public String getCsrfHeader() {
+        return csrfHeader;
+    }
+
+    public void setCsrfHeader(String csrfHeader) {
+        this.csrfHeader = csrfHeader;
+    }
+
+    /**
+     * Attributs du cookie de session
+     */
+    public static class Cookie {
+
+        private String name = "BFF_SESSION";
+
+        /**
+         * Cookie du state de connexion, de /bff/login au retour de Keycloak (toujours SameSite=Lax)
+         */
+        private String stateName = "BFF_LOGIN_STATE";
+
+        /**
+         * Clé HMAC (32 octets ou plus) ; vide : clé aléatoire, les cookies ne survivent pas au redémarrage
+         */
+        private String secret;
+
+        /**
+         * Cookie réservé à HTTPS (à désactiver uniquement en développement sur http://localhost)
+         */
+        private boolean secure = true;
+
+        /**
+         * Strict, Lax ou None
+         */
+        private String sameSite = "Lax";
+
+        private String path = "/";
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getStateName() {
+            return stateName;
+        }
+
+        public void setStateName(String stateName) {
+            this.stateName = stateName;
+        }
+
+        public String getSecret() {
+            return secret;
+        }
+
+        public void setSecret(String secret) {
+            this.secret = secret;
+        }
+
+        public boolean isSecure() {
+            return secure;
+        }
+
+        public void setSecure(boolean secure) {
+            this.secure = secure;
+        }
+
+        public String getSameSite() {
+            return sameSite;
+        }
+
+        public void setSameSite(String sameSite) {
+            this.sameSite = sameSite;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+    }
+}
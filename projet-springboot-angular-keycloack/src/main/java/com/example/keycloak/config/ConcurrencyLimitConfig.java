@@ -0,0 +1,47 @@
+package com.example.keycloak.config;
+
+import com.example.keycloak.limit.AdaptiveConcurrencyLimiter;
+import com.example.keycloak.limit.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Configuration du délestage adaptatif (ConcurrencyLimitFilter)
+ *
+ * Le filtre est placé avant la chaîne Spring Security pour que le rejet
+ * d'une requête en surcharge reste quasi gratuit.
+ */
+@Configuration
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+@ConditionalOnProperty(prefix = "concurrency-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(ConcurrencyLimitProperties properties,
+                                                                                 MeterRegistry meterRegistry) {
+        List<ConcurrencyLimitFilter.RouteGroup> groups = properties.getGroups().entrySet().stream()
+                .map(entry -> new ConcurrencyLimitFilter.RouteGroup(entry.getKey(),
+                        entry.getValue().getPatterns(),
+                        entry.getValue().getPriority(),
+                        limiter(entry.getValue())))
+                .toList();
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(groups, limiter(properties.getGlobal()),
+                properties.getRetryAfter(), meterRegistry);
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 10);
+        return registration;
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(ConcurrencyLimitProperties.Limit limit) {
+        return new AdaptiveConcurrencyLimiter(limit.getInitialLimit(), limit.getMinLimit(), limit.getMaxLimit(),
+                limit.getSmoothing(), limit.getTolerance(), limit.getWindowSize(), limit.getLongWindow());
+    }
+}
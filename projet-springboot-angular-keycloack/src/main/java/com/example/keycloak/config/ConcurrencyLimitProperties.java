@@ -0,0 +1,169 @@
+package com.example.keycloak.config;
+
+import com.example.keycloak.limit.RequestPriority;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Propriétés de la limitation de concurrence adaptative
+ *
+ * Exemple (application.yml) :
+ * concurrency-limit.global.max-limit = 200
+ * concurrency-limit.groups.private.patterns = /api/private/
+ * concurrency-limit.groups.private.priority = NORMAL
+ */
+@ConfigurationProperties(prefix = "concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    /**
+     * false : aucun filtre enregistré
+     */
+    private boolean enabled = true;
+
+    /**
+     * Délai suggéré au client dans l'en-tête Retry-After des réponses 503
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    /**
+     * Limite partagée par tous les groupes (capacité du serveur)
+     */
+    private Limit global = new Limit();
+
+    /**
+     * Groupes de routes, évalués dans l'ordre de déclaration (premier préfixe correspondant)
+     */
+    private Map<String, Group> groups = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public void setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    public Limit getGlobal() {
+        return global;
+    }
+
+    public void setGlobal(Limit global) {
+        this.global = global;
+    }
+
+    public Map<String, Group> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(Map<String, Group> groups) {
+        this.groups = groups;
+    }
+
+    /**
+     * Paramètres d'un AdaptiveConcurrencyLimiter
+     */
+    public static class Limit {
+
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 200;
+        private double smoothing = 0.2;
+        private double tolerance = 1.5;
+        private int windowSize = 50;
+        private int longWindow = 20;
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getSmoothing() {
+            return smoothing;
+        }
+
+        public void setSmoothing(double smoothing) {
+            this.smoothing = smoothing;
+        }
+
+        public double getTolerance() {
+            return tolerance;
+        }
+
+        public void setTolerance(double tolerance) {
+            this.tolerance = tolerance;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public int getLongWindow() {
+            return longWindow;
+        }
+
+        public void setLongWindow(int longWindow) {
+            this.longWindow = longWindow;
+        }
+    }
+
+    /**
+     * Groupe de routes : préfixes d'URL, priorité et limite propre
+     */
+    public static class Group extends Limit {
+
+        private List<String> patterns = new ArrayList<>();
+        private RequestPriority priority = RequestPriority.NORMAL;
+
+        public List<String> getPatterns() {
+            return patterns;
+        }
+
+        public void setPatterns(List<String> patterns) {
+            this.patterns = patterns;
+        }
+
+        public RequestPriority getPriority() {
+            return priority;
+        }
+
+        public void setPriority(RequestPriority priority) {
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.keycloak.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Bean créé uniquement lorsque les clés de signature viennent du JWKS Keycloak (réseau)
+ *
+ * En mode fichier (security.jwt.key-file), l'instance ne contacte jamais Keycloak :
+ * sondes de santé, récupération résiliente du JWKS et indicateurs associés sont absents.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@ConditionalOnExpression("'${security.jwt.key-file:}'.isEmpty()")
+public @interface ConditionalOnNetworkKeys {
+}
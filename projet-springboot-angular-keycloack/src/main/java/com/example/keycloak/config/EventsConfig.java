@@ -0,0 +1,27 @@
+package com.example.keycloak.config;
+
+import com.example.keycloak.events.NotificationHub;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * Canal de notifications poussées (GET /api/private/events)
+ *
+ * Les émetteurs (BffSessionService, AdvancedSecurityController) passent par un
+ * ObjectProvider : events.enabled=false retire le canal sans autre changement.
+ */
+@Configuration
+@EnableConfigurationProperties(EventsProperties.class)
+@ConditionalOnProperty(name = "events.enabled", matchIfMissing = true)
+public class EventsConfig {
+
+    @Bean(destroyMethod = "close")
+    public NotificationHub notificationHub(EventsProperties properties, Clock clock, MeterRegistry meterRegistry) {
+        return new NotificationHub(properties, clock, meterRegistry);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.keycloak.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Propriétés du canal de notifications poussées (GET /api/private/events, Server-Sent Events)
+ *
+ * Exemple (application.yml) :
+ * events.heartbeat = 25s
+ * events.expiry-warning = 5m
+ * events.queue-capacity = 32
+ * events.max-connections-per-subject = 5
+ */
+@ConfigurationProperties(prefix = "events")
+public class EventsProperties {
+
+    /**
+     * Active le canal /api/private/events
+     */
+    private boolean enabled = true;
+
+    /**
+     * Commentaire SSE envoyé après cette durée sans événement (proxys, répartiteurs de charge)
+     */
+    private Duration heartbeat = Duration.ofSeconds(25);
+
+    /**
+     * Avance de l'événement token-expiring sur l'expiration du token (token_expiring_soon de /api/private/user)
+     */
+    private Duration expiryWarning = Duration.ofMinutes(5);
+
+    /**
+     * Événements en attente par connexion ; au-delà, le client trop lent est déconnecté
+     */
+    private int queueCapacity = 32;
+
+    /**
+     * Connexions simultanées par utilisateur (onglets) ; la plus ancienne est fermée au-delà
+     */
+    private int maxConnectionsPerSubject = 5;
+
+    /**
+     * Connexions simultanées pour l'instance ; au-delà, 503
+     */
+    private int maxConnections = 10000;
+
+    /**
+     * Threads partagés par toutes les connexions (envoi, heartbeats, échéances des tokens)
+     */
+    private int threads = 2;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getHeartbeat() {
+        return heartbeat;
+    }
+
+    public void setHeartbeat(Duration heartbeat) {
+        this.heartbeat = heartbeat;
+    }
+
+    public Duration getExpiryWarning() {
+        return expiryWarning;
+    }
+
+    public void setExpiryWarning(Duration expiryWarning) {
+        this.expiryWarning = expiryWarning;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getMaxConnectionsPerSubject() {
+        return maxConnectionsPerSubject;
+    }
+
+    public void setMaxConnectionsPerSubject(int maxConnectionsPerSubject) {
+        this.maxConnectionsPerSubject = maxConnectionsPerSubject;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.keycloak.config;
+
+import com.example.keycloak.jfr.ControllerStageInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Enregistrement de l'étape "controller" des événements JFR (SecurityStageEvent)
+ *
+ * Les autres étapes sont instrumentées là où elles s'exécutent :
+ * JwtConfig (decode, validate), LazyClaimsJwtDecoder (signature),
+ * JwtAuthenticationConverter (convert) et MethodSecurityConfig (authorize).
+ */
+@Configuration
+public class FlightRecorderConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ControllerStageInterceptor()).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.keycloak.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Réglages HTTP/2 du serveur embarqué (activé par server.http2.enabled)
+ *
+ * Appliqués par la configuration propre au serveur du profil Maven
+ * (src/tomcat, src/jetty, src/undertow).
+ *
+ * Exemple (application.yml) :
+ * http2.max-concurrent-streams = 128
+ * http2.header-table-size = 16KB
+ */
+@ConfigurationProperties(prefix = "http2")
+public class Http2Properties {
+
+    /**
+     * Flux simultanés par connexion (requêtes Angular multiplexées)
+     */
+    private int maxConcurrentStreams = 128;
+
+    /**
+     * Taille de la table dynamique HPACK du décodeur serveur (SETTINGS_HEADER_TABLE_SIZE)
+     *
+     * Un en-tête n'est indexé que si nom + valeur + 32 octets tiennent dans la table :
+     * avec 4 Ko (valeur par défaut du protocole), un token Keycloak volumineux est
+     * renvoyé en entier à chaque requête. Jetty et Undertow uniquement ; Tomcat
+     * impose 4 Ko.
+     */
+    private DataSize headerTableSize = DataSize.ofKilobytes(16);
+
+    public int getMaxConcurrentStreams() {
+        return maxConcurrentStreams;
+    }
+
+    public void setMaxConcurrentStreams(int maxConcurrentStreams) {
+        this.maxConcurrentStreams = maxConcurrentStreams;
+    }
+
+    public DataSize getHeaderTableSize() {
+        return headerTableSize;
+    }
+
+    public void setHeaderTableSize(DataSize headerTableSize) {
+        this.headerTableSize = headerTableSize;
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.keycloak.config;
 
+import com.example.keycloak.jfr.SecurityStageEvent;
+
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
@@ -30,7 +32,9 @@ public class JwtAuthenticationConverter implements Converter<Jwt, AbstractAuthen
      */
     @Override
     public AbstractAuthenticationToken convert(Jwt jwt) {
+        SecurityStageEvent event = SecurityStageEvent.begin(SecurityStageEvent.CONVERT);
         Collection<GrantedAuthority> authorities = extractAuthorities(jwt);
+        event.finish(jwt.getTokenValue().length(), authorities.size(), true);
         return new JwtAuthenticationToken(jwt, authorities);
     }
 
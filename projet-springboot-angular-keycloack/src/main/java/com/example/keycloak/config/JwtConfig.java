@@ -1,23 +1,46 @@
 package com.example.keycloak.config;
 
+import com.example.keycloak.jfr.RecordingJwtDecoder;
+import com.example.keycloak.jfr.RecordingJwtValidator;
+import com.example.keycloak.resilience.LastKnownGoodResourceRetriever;
+import com.example.keycloak.security.FileJwkSource;
+import com.example.keycloak.security.FusedJwtValidator;
+import com.example.keycloak.security.LazyClaimsJwtDecoder;
+import com.example.keycloak.security.PreValidatingJwtDecoder;
+import com.example.keycloak.service.KeycloakProbeService;
+import com.example.keycloak.tracing.ObservedJwtDecoder;
+import com.example.keycloak.tracing.ObservedJwtValidator;
+import com.example.keycloak.warmup.WarmupJwkSource;
+import com.example.keycloak.warmup.WarmupTokenIssuer;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
-import org.springframework.security.oauth2.jwt.JwtDecoders;
-import org.springframework.security.oauth2.jwt.JwtValidators;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
-import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
-import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
-import org.springframework.security.oauth2.core.OAuth2Error;
 import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.security.oauth2.jwt.JwtIssuerValidator;
-import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+import org.springframework.util.StringUtils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Configuration personnalisée pour JWT Decoder
@@ -31,9 +54,66 @@ public class JwtConfig {
     @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}")
     private String issuerUri;
 
-    @Value("${spring.security.oauth2.resourceserver.jwt.audiences:#{null}}")
+    @Value("${spring.security.oauth2.resourceserver.jwt.audiences:}")
     private String audiences;
 
+    @Value("${security.jwt.authorized-parties:}")
+    private String authorizedParties;
+
+    @Value("${security.jwt.clock-skew:PT60S}")
+    private Duration clockSkew;
+
+    // Par défaut, endpoint certs du realm (inutilisé en mode fichier)
+    @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri:"
+        + "${spring.security.oauth2.resourceserver.jwt.issuer-uri}/protocol/openid-connect/certs}")
+    private String jwkSetUri;
+
+    @Value("${security.jwt.lazy-claims:true}")
+    private boolean lazyClaims;
+
+    @Value("${security.jwt.allowed-algorithms:RS256}")
+    private String allowedAlgorithms;
+
+    @Value("${security.jwt.max-token-length:16384}")
+    private int maxTokenLength;
+
+    @Autowired
+    private Clock clock;
+
+    // Sonde et récupération résiliente du JWKS : absentes en mode fichier
+    @Autowired
+    private ObjectProvider<KeycloakProbeService> keycloakProbeService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Autowired
+    private ObjectProvider<LastKnownGoodResourceRetriever> jwksResourceRetriever;
+
+    @Autowired
+    private ObjectProvider<FileJwkSource> fileJwkSource;
+
+    @Autowired
+    private ObjectProvider<WarmupTokenIssuer> warmupTokenIssuer;
+
+    /**
+     * Clés de signature lues depuis un fichier local (JWKS ou PEM) au lieu du JWKS Keycloak
+     * Activé par security.jwt.key-file ; le fichier est surveillé et rechargé à chaud.
+     *
+     * @param keyFile Chemin du fichier de clés
+     * @return Source de clés sans accès réseau
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "security.jwt.key-file")
+    public FileJwkSource fileJwkSource(@Value("${security.jwt.key-file}") String keyFile) throws IOException {
+        FileJwkSource source = new FileJwkSource(Path.of(keyFile), meterRegistry);
+        source.start();
+        return source;
+    }
+
     /**
      * Configuration personnalisée du JWT Decoder
      * Permet de désactiver la validation d'audience si nécessaire
@@ -45,42 +125,71 @@ public class JwtConfig {
         name = "spring.security.oauth2.resourceserver.jwt.audiences",
         matchIfMissing = true
     )
-    public JwtDecoder jwtDecoder() {
-        NimbusJwtDecoder jwtDecoder = JwtDecoders.fromIssuerLocation(issuerUri);
-        
-        // Créer une liste de validateurs
-        List<OAuth2TokenValidator<Jwt>> validators = new ArrayList<>();
+    public JwtDecoder jwtDecoder() throws MalformedURLException {
+        // Issuer, timestamp, audience et azp validés en une seule passe
+        // Si pas d'audience dans le token, on accepte quand même
+        // (pour gérer les différentes configurations Keycloak)
+        // Étapes "validate" et "decode" visibles dans les enregistrements JFR (SecurityStageEvent)
+        // et dans les traces (spans security.jwt.validate / security.jwt.decode)
+        OAuth2TokenValidator<Jwt> validator = new ObservedJwtValidator(new RecordingJwtValidator(new FusedJwtValidator(
+            issuerUri, commaSeparated(audiences), commaSeparated(authorizedParties), true, clockSkew, clock)),
+            observationRegistry);
         
-        // Toujours valider l'issuer
-        validators.add(new JwtIssuerValidator(issuerUri));
-        
-        // Toujours valider le timestamp
-        validators.add(new JwtTimestampValidator());
+        // Clés issues d'un fichier local (aucun réseau dans la validation) ou du JWKS Keycloak :
+        // timeouts courts, disjoncteur et cloison ; pendant une panne Keycloak,
+        // les dernières clés connues restent utilisées (KeycloakResilienceConfig).
+        // Rafraîchissement anticipé : l'expiration du cache ne bloque pas les requêtes.
+        // Aucun appel à Keycloak au démarrage (pas de discovery via l'issuer).
+        FileJwkSource fileKeys = fileJwkSource.getIfAvailable();
+        JWKSource<SecurityContext> jwkSource;
+        Supplier<Set<String>> knownKeyIds;
+        Runnable unknownKeyIdListener;
+        if (fileKeys != null) {
+            jwkSource = fileKeys;
+            knownKeyIds = fileKeys::keyIds;
+            unknownKeyIdListener = () -> { };
+        } else {
+            KeycloakProbeService probe = keycloakProbeService.getObject();
+            jwkSource = JWKSourceBuilder.create(new URL(jwkSetUri), jwksResourceRetriever.getObject())
+                .refreshAheadCache(true).build();
+            knownKeyIds = probe::knownKeyIds;
+            unknownKeyIdListener = probe::requestRefresh;
+        }
         
-        // Valider l'audience seulement si configurée
-        if (audiences != null && !audiences.trim().isEmpty()) {
-            // Si l'audience est configurée, l'ajouter aux validateurs
-            // Note: Dans un cas réel, vous pourriez créer un AudienceValidator personnalisé
-            validators.add(token -> {
-                List<String> tokenAudiences = token.getAudience();
-                if (tokenAudiences != null && tokenAudiences.contains(audiences)) {
-                    return OAuth2TokenValidatorResult.success();
-                }
-                // Si pas d'audience dans le token, on accepte quand même
-                // (pour gérer les différentes configurations Keycloak)
-                if (tokenAudiences == null || tokenAudiences.isEmpty()) {
-                    return OAuth2TokenValidatorResult.success();
-                }
-                OAuth2Error error = new OAuth2Error("invalid_audience", 
-                    "The required audience is missing: " + audiences, null);
-                return OAuth2TokenValidatorResult.failure(error);
-            });
+        // Clé éphémère de la chauffe JIT, acceptée uniquement avant la readiness (WarmupRunner)
+        WarmupTokenIssuer warmupKeys = warmupTokenIssuer.getIfAvailable();
+        if (warmupKeys != null) {
+            jwkSource = new WarmupJwkSource(jwkSource, warmupKeys);
+            knownKeyIds = WarmupJwkSource.withWarmupKeyId(knownKeyIds, warmupKeys);
         }
         
-        // Combiner tous les validateurs
-        OAuth2TokenValidator<Jwt> validator = new DelegatingOAuth2TokenValidator<>(validators);
-        jwtDecoder.setJwtValidator(validator);
+        JwtDecoder jwtDecoder;
+        if (lazyClaims) {
+            // Claims décodés à la demande (tokens Keycloak volumineux)
+            jwtDecoder = new LazyClaimsJwtDecoder(jwkSource, validator);
+        } else {
+            DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+            jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(
+                commaSeparated(allowedAlgorithms).stream().map(JWSAlgorithm::parse).collect(Collectors.toSet()),
+                jwkSource));
+            // Claims validés par le validateur Spring ci-dessus
+            jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> { });
+            NimbusJwtDecoder nimbusJwtDecoder = new NimbusJwtDecoder(jwtProcessor);
+            nimbusJwtDecoder.setJwtValidator(validator);
+            jwtDecoder = nimbusJwtDecoder;
+        }
         
-        return jwtDecoder;
+        // Rejet des tokens manifestement invalides avant la vérification RSA ;
+        // un kid inconnu de la sonde ne fait que demander un rafraîchissement
+        return new ObservedJwtDecoder(new RecordingJwtDecoder(new PreValidatingJwtDecoder(jwtDecoder, issuerUri,
+            commaSeparated(allowedAlgorithms), knownKeyIds, unknownKeyIdListener,
+            maxTokenLength, clockSkew, clock, meterRegistry)), observationRegistry);
+    }
+
+    private static Set<String> commaSeparated(String value) {
+        return StringUtils.commaDelimitedListToSet(value).stream()
+            .map(String::trim)
+            .filter(item -> !item.isEmpty())
+            .collect(Collectors.toSet());
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.example.keycloak.config;
+
+import com.example.keycloak.resilience.ResilienceInterceptor;
+import com.example.keycloak.resilience.ResilienceRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+
+/**
+ * Configuration du client HTTP utilisé par les sondes de santé Keycloak
+ *
+ * Timeouts courts : une sonde lente ne doit pas monopoliser le scheduler
+ * partagé avec les fenêtres horaires et les jobs en masse. Disjoncteur et
+ * cloison "probe" : pendant une panne, les sondes échouent immédiatement.
+ */
+@Configuration
+public class KeycloakHealthConfig {
+
+    /**
+     * Client HTTP dédié aux sondes (discovery et JWKS)
+     *
+     * @param builder Builder RestClient fourni par Spring Boot
+     * @param resilienceRegistry Disjoncteurs et cloisons des appels Keycloak
+     * @param timeout Timeout de connexion et de lecture
+     * @return RestClient configuré
+     */
+    @Bean
+    @ConditionalOnNetworkKeys
+    public RestClient keycloakProbeRestClient(RestClient.Builder builder,
+                                              ResilienceRegistry resilienceRegistry,
+                                              @Value("${keycloak.health.timeout:PT2S}") Duration timeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        return builder
+                .requestFactory(requestFactory)
+                .requestInterceptor(new ResilienceInterceptor(resilienceRegistry.guard("probe")))
+                .build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.keycloak.config;
+
+import com.example.keycloak.resilience.LastKnownGoodResourceRetriever;
+import com.example.keycloak.resilience.ResilienceRegistry;
+import com.example.keycloak.tracing.ObservedResourceRetriever;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * Protection des appels Keycloak : disjoncteur et cloison par type d'appel
+ *
+ * - jwks : récupération des clés par le JwtDecoder (JwtConfig), avec mode dégradé
+ * - probe : sondes de santé (KeycloakHealthConfig)
+ *   (jwks et probe absents en mode fichier, security.jwt.key-file)
+ * - token, admin : endpoint token et API d'administration (OutboundClientConfig)
+ */
+@Configuration
+@EnableConfigurationProperties(KeycloakResilienceProperties.class)
+public class KeycloakResilienceConfig {
+
+    @Bean
+    public ResilienceRegistry keycloakResilienceRegistry(KeycloakResilienceProperties properties, Clock clock,
+                                                         MeterRegistry meterRegistry) {
+        return new ResilienceRegistry(properties, clock, meterRegistry);
+    }
+
+    /**
+     * Récupération du JWKS : timeouts courts, disjoncteur, cloison et dernières clés connues
+     */
+    @Bean
+    @ConditionalOnNetworkKeys
+    public LastKnownGoodResourceRetriever jwksResourceRetriever(ResilienceRegistry keycloakResilienceRegistry,
+                                                                KeycloakResilienceProperties properties,
+                                                                Clock clock,
+                                                                MeterRegistry meterRegistry,
+                                                                ObservationRegistry observationRegistry) {
+        ObservedResourceRetriever http = new ObservedResourceRetriever(
+                (int) properties.getConnectTimeout().toMillis(), (int) properties.getReadTimeout().toMillis(),
+                JWKSourceBuilder.DEFAULT_HTTP_SIZE_LIMIT, observationRegistry);
+        return new LastKnownGoodResourceRetriever(http, keycloakResilienceRegistry.guard("jwks"),
+                properties.getMaxStaleness(), clock, meterRegistry);
+    }
+}
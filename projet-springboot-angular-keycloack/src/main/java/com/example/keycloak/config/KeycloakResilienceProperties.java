@@ -0,0 +1,170 @@
+package com.example.keycloak.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Propriétés de la protection des appels Keycloak (timeouts, disjoncteur, cloison, mode dégradé)
+ *
+ * Exemple (application.yml) :
+ * keycloak.resilience.read-timeout = 2s
+ * keycloak.resilience.open-duration = PT30S
+ * keycloak.resilience.max-concurrent-per-call.jwks = 2
+ * keycloak.resilience.max-staleness = PT1H
+ */
+@ConfigurationProperties(prefix = "keycloak.resilience")
+public class KeycloakResilienceProperties {
+
+    /**
+     * Timeout de connexion (JWKS, API d'administration)
+     */
+    private Duration connectTimeout = Duration.ofMillis(500);
+
+    /**
+     * Timeout de lecture (JWKS, API d'administration)
+     */
+    private Duration readTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Taux d'échec ouvrant le disjoncteur (0..1)
+     */
+    private double failureRateThreshold = 0.5;
+
+    /**
+     * Nombre d'appels de la fenêtre glissante du disjoncteur
+     */
+    private int slidingWindowSize = 20;
+
+    /**
+     * Nombre d'appels minimal avant d'évaluer le taux d'échec
+     */
+    private int minimumCalls = 5;
+
+    /**
+     * Durée pendant laquelle les appels sont refusés une fois le disjoncteur ouvert
+     */
+    private Duration openDuration = Duration.ofSeconds(30);
+
+    /**
+     * Nombre d'appels d'essai en état semi-ouvert
+     */
+    private int halfOpenCalls = 2;
+
+    /**
+     * Nombre d'appels simultanés par type d'appel (défaut)
+     */
+    private int maxConcurrent = 4;
+
+    /**
+     * Nombre d'appels simultanés, par type d'appel (jwks, probe, token, admin)
+     */
+    private Map<String, Integer> maxConcurrentPerCall = new LinkedHashMap<>();
+
+    /**
+     * Attente maximale d'une place dans la cloison
+     */
+    private Duration maxWait = Duration.ofMillis(100);
+
+    /**
+     * Durée maximale de validation sur les dernières clés connues pendant une panne
+     */
+    private Duration maxStaleness = Duration.ofHours(1);
+
+    /**
+     * @return Nombre d'appels simultanés autorisés pour ce type d'appel
+     */
+    public int maxConcurrentFor(String call) {
+        return maxConcurrentPerCall.getOrDefault(call, maxConcurrent);
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public void setFailureRateThreshold(double failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    public int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    public void setSlidingWindowSize(int slidingWindowSize) {
+        this.slidingWindowSize = slidingWindowSize;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public void setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+
+    public void setOpenDuration(Duration openDuration) {
+        this.openDuration = openDuration;
+    }
+
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    public void setHalfOpenCalls(int halfOpenCalls) {
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public Map<String, Integer> getMaxConcurrentPerCall() {
+        return maxConcurrentPerCall;
+    }
+
+    public void setMaxConcurrentPerCall(Map<String, Integer> maxConcurrentPerCall) {
+        this.maxConcurrentPerCall = maxConcurrentPerCall;
+    }
+
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    public void setMaxWait(Duration maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    public Duration getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    public void setMaxStaleness(Duration maxStaleness) {
+        this.maxStaleness = maxStaleness;
+    }
+}
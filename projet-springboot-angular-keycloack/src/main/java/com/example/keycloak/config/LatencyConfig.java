@@ -0,0 +1,28 @@
+package com.example.keycloak.config;
+
+import com.example.keycloak.latency.LatencyRecordingFilter;
+import com.example.keycloak.latency.LatencySloTracker;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration du suivi des latences par route (LatencyRecordingFilter)
+ *
+ * Le filtre est placé après le délestage (une requête rejetée n'est pas mesurée)
+ * et avant la chaîne Spring Security (le décodage du token est inclus).
+ */
+@Configuration
+@EnableConfigurationProperties(LatencySloProperties.class)
+public class LatencyConfig {
+
+    @Bean
+    public FilterRegistrationBean<LatencyRecordingFilter> latencyRecordingFilter(LatencySloTracker tracker) {
+        FilterRegistrationBean<LatencyRecordingFilter> registration =
+                new FilterRegistrationBean<>(new LatencyRecordingFilter(tracker));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 5);
+        return registration;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.keycloak.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Propriétés du suivi des latences et des SLO par route
+ *
+ * Exemple (application.yml) :
+ * latency.slo.threshold = 300ms
+ * latency.slo.objective = 0.99
+ * latency.slo.thresholds.[/api/advanced/reports] = PT1S
+ */
+@ConfigurationProperties(prefix = "latency.slo")
+public class LatencySloProperties {
+
+    /**
+     * Durée d'un intervalle de la fenêtre glissante
+     */
+    private Duration interval = Duration.ofSeconds(10);
+
+    /**
+     * Nombre d'intervalles de la fenêtre (fenêtre = interval x windowIntervals)
+     */
+    private int windowIntervals = 6;
+
+    /**
+     * Nombre maximal de routes suivies (au-delà : route "other")
+     */
+    private int maxRoutes = 200;
+
+    /**
+     * Seuil de latence par défaut : une requête plus lente consomme le budget d'erreur
+     */
+    private Duration threshold = Duration.ofMillis(300);
+
+    /**
+     * Part des requêtes devant respecter le seuil (ex: 0.99)
+     */
+    private double objective = 0.99;
+
+    /**
+     * Seuils spécifiques, par pattern de route
+     */
+    private Map<String, Duration> thresholds = new LinkedHashMap<>();
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+
+    public int getWindowIntervals() {
+        return windowIntervals;
+    }
+
+    public void setWindowIntervals(int windowIntervals) {
+        this.windowIntervals = windowIntervals;
+    }
+
+    public int getMaxRoutes() {
+        return maxRoutes;
+    }
+
+    public void setMaxRoutes(int maxRoutes) {
+        this.maxRoutes = maxRoutes;
+    }
+
+    public Duration getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    public double getObjective() {
+        return objective;
+    }
+
+    public void setObjective(double objective) {
+        this.objective = objective;
+    }
+
+    public Map<String, Duration> getThresholds() {
+        return thresholds;
+    }
+
+    public void setThresholds(Map<String, Duration> thresholds) {
+        this.thresholds = thresholds;
+    }
+
+    /**
+     * @return Seuil applicable à une route
+     */
+    public Duration thresholdFor(String route) {
+        return thresholds.getOrDefault(route, threshold);
+    }
+}
@@ -1,39 +1,142 @@
 package com.example.keycloak.config;
 
+import com.example.keycloak.jfr.RecordingAuthorizationManager;
+import com.example.keycloak.security.CachingAuthorizationManager;
+import com.example.keycloak.service.TimeWindowPolicyService;
+import com.example.keycloak.tracing.ObservedAuthorizationManager;
+import io.micrometer.observation.ObservationRegistry;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Advisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.method.AuthorizationManagerAfterMethodInterceptor;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
+import org.springframework.security.authorization.method.PostAuthorizeAuthorizationManager;
+import org.springframework.security.authorization.method.PostFilterAuthorizationMethodInterceptor;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.authorization.method.PreFilterAuthorizationMethodInterceptor;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.time.Clock;
 
 /**
  * Configuration Method Security pour les annotations @PreAuthorize
  * Vidéo 7 : Endpoints sécurisés avancés
- * 
+ *
  * Cette configuration active les annotations de sécurité au niveau des méthodes :
  * - @PreAuthorize : Vérification avant l'exécution de la méthode
- * - @PostAuthorize : Vérification après l'exécution de la méthode  
+ * - @PostAuthorize : Vérification après l'exécution de la méthode
  * - @Secured : Sécurisation basée sur les rôles
  * - @RolesAllowed : Annotation JSR-250 pour les rôles
+ *
+ * Les intercepteurs pre/post sont déclarés explicitement (prePostEnabled = false)
+ * afin d'envelopper @PreAuthorize dans un CachingAuthorizationManager :
+ * les décisions sont mémorisées par (token, méthode, arguments) jusqu'à l'expiration du token.
  */
 @Configuration
 @EnableMethodSecurity(
-    // Active les annotations @PreAuthorize et @PostAuthorize
-    prePostEnabled = true,
-    
-    // Active les annotations @Secured  
+    // @PreAuthorize / @PostAuthorize / @PreFilter / @PostFilter sont enregistrés ci-dessous
+    prePostEnabled = false,
+
+    // Active les annotations @Secured
     securedEnabled = true,
-    
+
     // Active les annotations JSR-250 comme @RolesAllowed
     jsr250Enabled = true
 )
 public class MethodSecurityConfig {
-    
-    // Cette classe active automatiquement la Method Security
-    // Les configurations de validation des rôles seront
-    // gérées par les annotations directement sur les méthodes
-    
+
     // Exemples d'utilisation :
     // @PreAuthorize("hasRole('ADMIN')")
     // @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     // @PreAuthorize("authentication.name == #username")
     // @Secured("ROLE_ADMIN")
     // @RolesAllowed({"ADMIN", "MANAGER"})
-}
\ No newline at end of file
+
+    /**
+     * Expression handler partagé, avec accès aux beans (@customSecurityService, @jwtService)
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static MethodSecurityExpressionHandler methodSecurityExpressionHandler(ApplicationContext context) {
+        DefaultMethodSecurityExpressionHandler handler = new DefaultMethodSecurityExpressionHandler();
+        handler.setApplicationContext(context);
+        return handler;
+    }
+
+    /**
+     * Intercepteur @PreAuthorize avec cache des décisions
+     *
+     * L'époque des fenêtres horaires fait partie de la clé de cache : les décisions
+     * dépendant de isMaintenanceHour() restent valides jusqu'à la prochaine borne de fenêtre.
+     * Le service est résolu paresseusement pour ne pas initialiser de bean applicatif
+     * depuis un bean d'infrastructure.
+     *
+     * @param timeWindows Fournisseur du moteur de politiques horaires
+     * @param observationRegistry Registre des observations (span authorization autour de @PreAuthorize)
+     * @param enabled Permet de désactiver complètement le cache
+     * @param maxEntries Nombre maximum de décisions conservées en mémoire
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor preAuthorizeAuthorizationMethodInterceptor(
+            MethodSecurityExpressionHandler methodSecurityExpressionHandler,
+            ApplicationContext context,
+            ObjectProvider<TimeWindowPolicyService> timeWindows,
+            ObjectProvider<ObservationRegistry> observationRegistry,
+            @Value("${security.authorization-cache.enabled:true}") boolean enabled,
+            @Value("${security.authorization-cache.max-entries:10000}") int maxEntries) {
+        PreAuthorizeAuthorizationManager preAuthorize = new PreAuthorizeAuthorizationManager();
+        preAuthorize.setExpressionHandler(methodSecurityExpressionHandler);
+        preAuthorize.setApplicationContext(context);
+
+        SingletonSupplier<TimeWindowPolicyService> timeWindowPolicy = SingletonSupplier.of(timeWindows::getObject);
+        AuthorizationManager<MethodInvocation> manager = enabled
+                ? new CachingAuthorizationManager(preAuthorize, maxEntries, Clock.systemUTC(),
+                        () -> timeWindowPolicy.obtain().epoch())
+                : preAuthorize;
+        // Étape "authorize" visible dans les enregistrements JFR (SecurityStageEvent)
+        // et dans les traces (span authorize method, enfant de http.controller)
+        return AuthorizationManagerBeforeMethodInterceptor.preAuthorize(new ObservedAuthorizationManager(
+                new RecordingAuthorizationManager(manager),
+                () -> observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP)));
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor postAuthorizeAuthorizationMethodInterceptor(
+            MethodSecurityExpressionHandler methodSecurityExpressionHandler,
+            ApplicationContext context) {
+        PostAuthorizeAuthorizationManager postAuthorize = new PostAuthorizeAuthorizationManager();
+        postAuthorize.setExpressionHandler(methodSecurityExpressionHandler);
+        postAuthorize.setApplicationContext(context);
+        return AuthorizationManagerAfterMethodInterceptor.postAuthorize(postAuthorize);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor preFilterAuthorizationMethodInterceptor(
+            MethodSecurityExpressionHandler methodSecurityExpressionHandler) {
+        PreFilterAuthorizationMethodInterceptor preFilter = new PreFilterAuthorizationMethodInterceptor();
+        preFilter.setExpressionHandler(methodSecurityExpressionHandler);
+        return preFilter;
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor postFilterAuthorizationMethodInterceptor(
+            MethodSecurityExpressionHandler methodSecurityExpressionHandler) {
+        PostFilterAuthorizationMethodInterceptor postFilter = new PostFilterAuthorizationMethodInterceptor();
+        postFilter.setExpressionHandler(methodSecurityExpressionHandler);
+        return postFilter;
+    }
+}
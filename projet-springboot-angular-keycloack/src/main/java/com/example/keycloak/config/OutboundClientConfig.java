@@ -0,0 +1,67 @@
+package com.example.keycloak.config;
+
+import com.example.keycloak.client.ReportingClient;
+import com.example.keycloak.client.TokenExchangeService;
+import com.example.keycloak.client.UserTokenInterceptor;
+import com.example.keycloak.resilience.ResilienceInterceptor;
+import com.example.keycloak.resilience.ResilienceRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Configuration des appels sortants authentifiés
+ *
+ * Les RestClient déclarés ici ajoutent automatiquement un token :
+ * - client credentials (identité du service) via ClientCredentialsTokenManager
+ * - utilisateur relayé ou échangé (RFC 8693) via TokenExchangeService
+ *
+ * Les appels vers l'endpoint token passent par un disjoncteur et une cloison ;
+ * un client vers l'API d'administration Keycloak se construit de la même façon
+ * avec ClientCredentialsInterceptor et le garde "admin".
+ */
+@Configuration
+@EnableConfigurationProperties(OutboundClientProperties.class)
+public class OutboundClientConfig {
+
+    /**
+     * Client HTTP de l'endpoint token Keycloak
+     */
+    @Bean
+    public RestClient tokenEndpointRestClient(RestClient.Builder builder, OutboundClientProperties properties,
+                                              ResilienceRegistry resilienceRegistry) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(properties.getTimeout());
+        requestFactory.setReadTimeout(properties.getTimeout());
+        return builder
+                .requestFactory(requestFactory)
+                .requestInterceptor(new ResilienceInterceptor(resilienceRegistry.guard("token")))
+                .build();
+    }
+
+    /**
+     * Client du service de reporting, appelé au nom de l'utilisateur
+     * (token échangé pour l'audience du service) ; sans lui, /api/advanced/reports
+     * répond avec le catalogue local
+     */
+    @Bean
+    @ConditionalOnProperty(name = "outbound.reporting.enabled", havingValue = "true")
+    public ReportingClient reportingClient(RestClient.Builder builder,
+                                           TokenExchangeService tokenExchangeService,
+                                           OutboundClientProperties properties,
+                                           @Value("${outbound.reporting.url}") String reportingUrl,
+                                           @Value("${outbound.reporting.audience}") String reportingAudience) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(properties.getTimeout());
+        requestFactory.setReadTimeout(properties.getTimeout());
+        return new ReportingClient(builder
+                .baseUrl(reportingUrl)
+                .requestFactory(requestFactory)
+                .requestInterceptor(new UserTokenInterceptor(tokenExchangeService, reportingAudience))
+                .build());
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.keycloak.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Propriétés des appels sortants authentifiés (client credentials)
+ *
+ * Exemple (application.yml) :
+ * outbound.token-uri = http://localhost:8080/realms/demo/protocol/openid-connect/token
+ * outbound.registrations.token-exchange.client-id = demo-backend
+ * outbound.registrations.token-exchange.client-secret = ${KEYCLOAK_ADMIN_CLIENT_SECRET}
+ */
+@ConfigurationProperties(prefix = "outbound")
+public class OutboundClientProperties {
+
+    /**
+     * Endpoint token du realm Keycloak
+     */
+    private String tokenUri;
+
+    /**
+     * Délai avant expiration auquel le token est rafraîchi en arrière-plan
+     */
+    private Duration refreshBefore = Duration.ofSeconds(30);
+
+    /**
+     * Un token non utilisé depuis ce délai n'est plus rafraîchi (retiré du cache)
+     */
+    private Duration idleTimeout = Duration.ofMinutes(15);
+
+    /**
+     * Timeout de connexion et de lecture vers l'endpoint token
+     */
+    private Duration timeout = Duration.ofSeconds(5);
+
+    /**
+     * Clients confidentiels nommés (token-exchange, reporting...)
+     */
+    private Map<String, Registration> registrations = new LinkedHashMap<>();
+
+    public String getTokenUri() {
+        return tokenUri;
+    }
+
+    public void setTokenUri(String tokenUri) {
+        this.tokenUri = tokenUri;
+    }
+
+    public Duration getRefreshBefore() {
+        return refreshBefore;
+    }
+
+    public void setRefreshBefore(Duration refreshBefore) {
+        this.refreshBefore = refreshBefore;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public Map<String, Registration> getRegistrations() {
+        return registrations;
+    }
+
+    public void setRegistrations(Map<String, Registration> registrations) {
+        this.registrations = registrations;
+    }
+
+    /**
+     * Client confidentiel et scope / audience demandés par défaut
+     */
+    public static class Registration {
+
+        private String clientId;
+        private String clientSecret;
+        private String scope;
+        private String audience;
+
+        public Registration() {
+        }
+
+        public Registration(String clientId, String clientSecret, String scope, String audience) {
+            this.clientId = clientId;
+            this.clientSecret = clientSecret;
+            this.scope = scope;
+            this.audience = audience;
+        }
+
+        public String getClientId() {
+            return clientId;
+        }
+
+        public void setClientId(String clientId) {
+            this.clientId = clientId;
+        }
+
+        public String getClientSecret() {
+            return clientSecret;
+        }
+
+        public void setClientSecret(String clientSecret) {
+            this.clientSecret = clientSecret;
+        }
+
+        public String getScope() {
+            return scope;
+        }
+
+        public void setScope(String scope) {
+            this.scope = scope;
+        }
+
+        public String getAudience() {
+            return audience;
+        }
+
+        public void setAudience(String audience) {
+            this.audience = audience;
+        }
+    }
+}
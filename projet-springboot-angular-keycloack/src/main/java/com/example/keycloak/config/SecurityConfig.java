@@ -1,12 +1,23 @@
 package com.example.keycloak.config;
 
+import com.example.keycloak.bff.BffSessionFilter;
+import com.example.keycloak.bff.BffSessionService;
+import com.example.keycloak.security.UserActivityFilter;
+import com.example.keycloak.service.UserProfileService;
+import com.example.keycloak.tracing.ObservedAuthenticationConverter;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -22,6 +33,8 @@ import java.util.Arrays;
  * - La validation automatique des tokens JWT Keycloak
  * - La configuration CORS pour le frontend Angular
  * - Les règles d'autorisation par patterns d'URL
+ * - Un mode strictement stateless (aucune HttpSession)
+ * - Le mode BFF optionnel : cookie de session signé, tokens gardés côté serveur
  * 
  * @author Formation YouTube - Module 2
  * @version 2.0.0
@@ -33,6 +46,48 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationConverter jwtAuthenticationConverter;
     
+    @Autowired
+    private ObservationRegistry observationRegistry;
+    
+    @Autowired
+    private ObjectProvider<BffSessionService> bffSessionService;
+    
+    @Autowired
+    private ObjectProvider<BffProperties> bffProperties;
+    
+    @Autowired
+    private ObjectProvider<UserProfileService> userProfileService;
+    
+    /**
+     * Chaîne dédiée aux endpoints publics (/api/public/**)
+     * 
+     * Aucune authentification n'y est requise : on ne monte que CORS et les
+     * en-têtes de sécurité. Pas de SecurityContext chargé, pas de session,
+     * pas de RequestCache, pas de filtre anonyme ni d'AuthorizationFilter,
+     * et un éventuel header Authorization n'est pas décodé.
+     * 
+     * @param http Configuration HttpSecurity
+     * @return SecurityFilterChain allégée, évaluée avant la chaîne principale
+     * @throws Exception en cas d'erreur de configuration
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain publicFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher("/api/public/**")
+            .cors(Customizer.withDefaults())
+            .csrf(csrf -> csrf.disable())
+            .securityContext(context -> context.disable())
+            .sessionManagement(session -> session.disable())
+            .requestCache(cache -> cache.disable())
+            .anonymous(anonymous -> anonymous.disable())
+            .servletApi(servletApi -> servletApi.disable())
+            .exceptionHandling(exceptions -> exceptions.disable())
+            .logout(logout -> logout.disable());
+        
+        return http.build();
+    }
+    
     /**
      * Configuration de la chaîne de filtres de sécurité Spring Security 6
      * Utilise le nouveau pattern avec SecurityFilterChain Bean (Spring Security 5.7+)
@@ -42,14 +97,22 @@ public class SecurityConfig {
      * @throws Exception en cas d'erreur de configuration
      */
     @Bean
+    @Order(2)
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+        // Dépôt partagé avec BffSessionFilter : le contexte de session BFF est enregistré au même endroit
+        RequestAttributeSecurityContextRepository securityContextRepository =
+            new RequestAttributeSecurityContextRepository();
         http
             // Configuration des règles d'autorisation
             .authorizeHttpRequests(authz -> authz
                 // Endpoints publics accessibles sans authentification
-                .requestMatchers("/api/public/**").permitAll()
-                .requestMatchers("/actuator/health").permitAll()
+                // (/api/public/** est servi par publicFilterChain)
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
                 .requestMatchers("/actuator/info").permitAll()
+                .requestMatchers("/actuator/latency", "/actuator/jfr", "/actuator/jfr/**").hasRole("ADMIN")
+                
+                // Mode BFF : connexion, retour Keycloak et déconnexion (404 si bff.enabled=false)
+                .requestMatchers("/bff/login", "/bff/callback", "/bff/logout").permitAll()
                 
                 // Endpoints d'administration (préparation vidéo 7)
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
@@ -60,8 +123,10 @@ public class SecurityConfig {
             
             // Configuration OAuth2 Resource Server avec validation JWT
             // Connexion automatique à Keycloak via issuer-uri dans application.yml
+            // Conversion JWT -> Authentication tracée (span security.jwt.convert)
             .oauth2ResourceServer(oauth2 -> oauth2
-                .jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter))
+                .jwt(jwt -> jwt.jwtAuthenticationConverter(
+                    new ObservedAuthenticationConverter(jwtAuthenticationConverter, observationRegistry)))
             )
             
             // Configuration CORS pour permettre les requêtes depuis Angular
@@ -69,7 +134,34 @@ public class SecurityConfig {
             
             // Désactivation CSRF pour API REST stateless
             // JWT est stateless, pas besoin de protection CSRF
-            .csrf(csrf -> csrf.disable());
+            .csrf(csrf -> csrf.disable())
+            
+            // Mode strictement stateless : aucune HttpSession créée ni consultée
+            // Le SecurityContext ne vit que le temps de la requête (attribut de requête)
+            // La stratégie du SecurityContextHolder reste ThreadLocal : SecurityContextHolderFilter
+            // la vide en fin de requête, ce qui donne déjà une portée requête. Une stratégie
+            // « request-scoped » serait globale à la JVM et casserait les lectures hors requête
+            // (@PreAuthorize des workers, BatchDispatcher, intercepteurs des clients sortants).
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .securityContext(context -> context.securityContextRepository(securityContextRepository))
+            .requestCache(cache -> cache.disable());
+        
+        // Mode BFF : le cookie de session remplace le Bearer pour le navigateur
+        // (résolution par lecture du store, sans vérification de signature RSA)
+        BffSessionService sessions = bffSessionService.getIfAvailable();
+        if (sessions != null) {
+            BffProperties properties = bffProperties.getObject();
+            http.addFilterBefore(
+                new BffSessionFilter(sessions, properties.getCookie().getName(), properties.getCsrfHeader(),
+                    securityContextRepository),
+                BearerTokenAuthenticationFilter.class);
+        }
+        
+        // Dernière connexion / dernière activité : enregistrement en mémoire, écriture par lots
+        UserProfileService profiles = userProfileService.getIfAvailable();
+        if (profiles != null) {
+            http.addFilterAfter(new UserActivityFilter(profiles), BearerTokenAuthenticationFilter.class);
+        }
         
         return http.build();
     }
@@ -101,6 +193,7 @@ public class SecurityConfig {
         configuration.setAllowedHeaders(Arrays.asList(
             "Authorization",
             "Content-Type",
+            "X-Requested-With",
             "Accept",
             "Origin",
             "Access-Control-Request-Method",
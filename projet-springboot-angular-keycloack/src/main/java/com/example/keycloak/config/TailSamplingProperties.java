@@ -0,0 +1,68 @@
+package com.example.keycloak.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Propriétés de l'échantillonnage en queue des traces (TailSamplingSpanProcessor)
+ *
+ * Exemple (application.yml) :
+ * tracing.tail-sampling.slow-threshold = 500ms
+ * tracing.tail-sampling.max-traces = 10000
+ */
+@ConfigurationProperties(prefix = "tracing.tail-sampling")
+public class TailSamplingProperties {
+
+    /**
+     * Durée de requête à partir de laquelle la trace est toujours exportée
+     */
+    private Duration slowThreshold = Duration.ofMillis(500);
+
+    /**
+     * Nombre maximal de traces en attente de décision
+     */
+    private int maxTraces = 10_000;
+
+    /**
+     * Nombre maximal de spans conservés par trace en attente
+     */
+    private int maxSpansPerTrace = 512;
+
+    /**
+     * Délai après lequel une trace dont la racine n'est jamais terminée est abandonnée
+     */
+    private Duration traceTimeout = Duration.ofSeconds(30);
+
+    public Duration getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    public void setSlowThreshold(Duration slowThreshold) {
+        this.slowThreshold = slowThreshold;
+    }
+
+    public int getMaxTraces() {
+        return maxTraces;
+    }
+
+    public void setMaxTraces(int maxTraces) {
+        this.maxTraces = maxTraces;
+    }
+
+    public int getMaxSpansPerTrace() {
+        return maxSpansPerTrace;
+    }
+
+    public void setMaxSpansPerTrace(int maxSpansPerTrace) {
+        this.maxSpansPerTrace = maxSpansPerTrace;
+    }
+
+    public Duration getTraceTimeout() {
+        return traceTimeout;
+    }
+
+    public void setTraceTimeout(Duration traceTimeout) {
+        this.traceTimeout = traceTimeout;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.keycloak.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.time.Clock;
+
+/**
+ * Configuration de l'horloge et du scheduler utilisés par les politiques horaires
+ *
+ * L'horloge est injectée partout où l'heure courante est nécessaire,
+ * ce qui permet de tester les fenêtres horaires de façon déterministe.
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(TimeWindowProperties.class)
+public class TimeWindowConfig {
+
+    /**
+     * Horloge applicative (UTC) ; chaque fenêtre porte son propre fuseau horaire
+     *
+     * @return Clock système
+     */
+    @Bean
+    public Clock clock() {
+        return Clock.systemUTC();
+    }
+}
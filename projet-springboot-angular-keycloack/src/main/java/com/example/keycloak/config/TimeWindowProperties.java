@@ -0,0 +1,110 @@
+package com.example.keycloak.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Propriétés des fenêtres horaires utilisées par les politiques de sécurité
+ *
+ * Exemple (application.yml) :
+ * security.time-windows.windows.maintenance.start = 02:00
+ * security.time-windows.windows.maintenance.end = 06:00
+ * security.time-windows.windows.maintenance.zone = UTC
+ * security.time-windows.operations.BULK_UPDATE = maintenance
+ * security.time-windows.sensitive-data-roles.MANAGER = business-hours
+ */
+@ConfigurationProperties(prefix = "security.time-windows")
+public class TimeWindowProperties {
+
+    /**
+     * Fenêtres horaires nommées (maintenance, business-hours...)
+     */
+    private Map<String, Window> windows = new LinkedHashMap<>();
+
+    /**
+     * Opération sensible -> nom de la fenêtre pendant laquelle elle est autorisée
+     */
+    private Map<String, String> operations = new LinkedHashMap<>();
+
+    /**
+     * Rôle -> nom de la fenêtre pendant laquelle il accède aux données sensibles
+     */
+    private Map<String, String> sensitiveDataRoles = new LinkedHashMap<>();
+
+    public Map<String, Window> getWindows() {
+        return windows;
+    }
+
+    public void setWindows(Map<String, Window> windows) {
+        this.windows = windows;
+    }
+
+    public Map<String, String> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(Map<String, String> operations) {
+        this.operations = operations;
+    }
+
+    public Map<String, String> getSensitiveDataRoles() {
+        return sensitiveDataRoles;
+    }
+
+    public void setSensitiveDataRoles(Map<String, String> sensitiveDataRoles) {
+        this.sensitiveDataRoles = sensitiveDataRoles;
+    }
+
+    /**
+     * Fenêtre [start, end[ exprimée dans un fuseau horaire
+     * Une fenêtre dont la fin précède le début traverse minuit (ex: 22:00-04:00)
+     * start et end sont obligatoires et distincts : une fenêtre start == end est refusée au démarrage
+     */
+    public static class Window {
+
+        private LocalTime start;
+        private LocalTime end;
+
+        /**
+         * Fuseau horaire de la fenêtre (fuseau du système si absent)
+         */
+        private ZoneId zone = ZoneId.systemDefault();
+
+        public Window() {
+        }
+
+        public Window(LocalTime start, LocalTime end, ZoneId zone) {
+            this.start = start;
+            this.end = end;
+            this.zone = zone;
+        }
+
+        public LocalTime getStart() {
+            return start;
+        }
+
+        public void setStart(LocalTime start) {
+            this.start = start;
+        }
+
+        public LocalTime getEnd() {
+            return end;
+        }
+
+        public void setEnd(LocalTime end) {
+            this.end = end;
+        }
+
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        public void setZone(ZoneId zone) {
+            this.zone = zone;
+        }
+    }
+}
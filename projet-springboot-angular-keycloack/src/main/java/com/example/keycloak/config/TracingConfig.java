@@ -0,0 +1,91 @@
+package com.example.keycloak.config;
+
+import com.example.keycloak.tracing.ControllerObservationInterceptor;
+import com.example.keycloak.tracing.ErrorTypeObservationHandler;
+import com.example.keycloak.tracing.RecordOnlyRatioSampler;
+import com.example.keycloak.tracing.TailSamplingSpanProcessor;
+import io.micrometer.observation.ObservationRegistry;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.tracing.SpanExporters;
+import org.springframework.boot.actuate.autoconfigure.tracing.SpanProcessors;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Traces distribuées (Micrometer Tracing + OpenTelemetry)
+ *
+ * Spans de la requête :
+ * - http server requests : racine, contexte W3C (traceparent) repris de l'appelant
+ * - security filterchain / authentication / authorization : observations de Spring Security
+ * - security.jwt.decode, security.jwt.validate, security.jwt.convert : JwtConfig, SecurityConfig
+ * - keycloak.jwks.fetch et http client requests : appels Keycloak
+ * - http.controller : méthode du controller ; contrôles @PreAuthorize en spans enfants
+ *   (authorize method, MethodSecurityConfig)
+ *
+ * Échantillonnage : ratio en tête (management.tracing.sampling.probability), les traces
+ * non retenues sont tout de même enregistrées puis exportées si elles sont lentes
+ * ou en erreur. Export OTLP/HTTP vers management.otlp.tracing.endpoint.
+ */
+@Configuration
+@EnableConfigurationProperties(TailSamplingProperties.class)
+public class TracingConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<ObservationRegistry> observationRegistry;
+
+    public TracingConfig(ObjectProvider<ObservationRegistry> observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    /**
+     * Remplace le sampler de Spring Boot (même propriété de ratio)
+     */
+    @Bean
+    public Sampler otelSampler(@Value("${management.tracing.sampling.probability:0.1}") double probability) {
+        return new RecordOnlyRatioSampler(probability);
+    }
+
+    /**
+     * Processeur d'export : les spans non "sampled" retenus en queue doivent aussi être exportés
+     */
+    @Bean
+    public BatchSpanProcessor otelSpanProcessor(SpanExporters spanExporters) {
+        return BatchSpanProcessor.builder(SpanExporter.composite(spanExporters.list()))
+                .setExportUnsampledSpans(true)
+                .build();
+    }
+
+    /**
+     * Seul processeur enregistré : décide en queue puis délègue au BatchSpanProcessor
+     */
+    @Bean
+    public SpanProcessors spanProcessors(BatchSpanProcessor otelSpanProcessor, TailSamplingProperties properties) {
+        SpanProcessor tailSampling = new TailSamplingSpanProcessor(otelSpanProcessor,
+                properties.getSlowThreshold(), properties.getMaxTraces(),
+                properties.getMaxSpansPerTrace(), properties.getTraceTimeout());
+        return SpanProcessors.of(List.of(tailSampling));
+    }
+
+    /**
+     * Marque les observations en erreur (error.type) pour l'échantillonnage en queue
+     */
+    @Bean
+    public ErrorTypeObservationHandler errorTypeObservationHandler() {
+        return new ErrorTypeObservationHandler();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ControllerObservationInterceptor(
+                observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP))).addPathPatterns("/api/**");
+    }
+}
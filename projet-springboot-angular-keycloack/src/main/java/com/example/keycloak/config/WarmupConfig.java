@@ -0,0 +1,86 @@
+package com.example.keycloak.config;
+
+import com.example.keycloak.warmup.WarmupRunner;
+import com.example.keycloak.warmup.WarmupTokenIssuer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.boot.web.server.Ssl;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.net.http.HttpClient;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.time.Clock;
+
+/**
+ * Chauffe JIT au démarrage (WarmupRunner), avant ReadinessState.ACCEPTING_TRAFFIC
+ *
+ * Les tokens synthétiques portent l'issuer, la première audience et la première
+ * partie autorisée configurées : ils passent les mêmes validations qu'un token Keycloak.
+ * Désactivée par warmup.enabled=false (JwtConfig n'accepte alors aucune clé de chauffe).
+ */
+@Configuration
+@EnableConfigurationProperties(WarmupProperties.class)
+@ConditionalOnProperty(name = "warmup.enabled", matchIfMissing = true)
+public class WarmupConfig {
+
+    @Bean
+    public WarmupTokenIssuer warmupTokenIssuer(
+            @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuerUri,
+            @Value("${spring.security.oauth2.resourceserver.jwt.audiences:}") String audiences,
+            @Value("${security.jwt.authorized-parties:}") String authorizedParties,
+            Clock clock) {
+        return new WarmupTokenIssuer(issuerUri, first(audiences), first(authorizedParties), clock);
+    }
+
+    /**
+     * Requêtes de chauffe dans le protocole servi aux clients : HTTP/2 si server.http2.enabled,
+     * TLS si server.ssl est configuré (certificat du serveur approuvé, appel sur localhost)
+     */
+    @Bean
+    public WarmupRunner warmupRunner(WarmupProperties properties, WarmupTokenIssuer warmupTokenIssuer,
+                                     ApplicationContext context, ServerProperties serverProperties,
+                                     ObjectProvider<SslBundles> sslBundles, MeterRegistry meterRegistry)
+            throws GeneralSecurityException {
+        HttpClient.Builder client = HttpClient.newBuilder()
+                .version(serverProperties.getHttp2() != null && serverProperties.getHttp2().isEnabled()
+                        ? HttpClient.Version.HTTP_2
+                        : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(properties.getRequestTimeout());
+        Ssl ssl = serverProperties.getSsl();
+        boolean secure = Ssl.isEnabled(ssl);
+        if (secure && StringUtils.hasText(ssl.getBundle()) && sslBundles.getIfAvailable() != null) {
+            client.sslContext(trusting(sslBundles.getIfAvailable().getBundle(ssl.getBundle()).getStores().getKeyStore()));
+        }
+        return new WarmupRunner(properties, warmupTokenIssuer, context, client.build(),
+                secure ? "https" : "http", meterRegistry);
+    }
+
+    private static SSLContext trusting(KeyStore serverKeyStore) throws GeneralSecurityException {
+        // Le certificat du serveur (entrée de clé privée) est approuvé tel quel
+        TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagers.init(serverKeyStore);
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, trustManagers.getTrustManagers(), null);
+        return sslContext;
+    }
+
+    private static String first(String commaSeparated) {
+        for (String value : StringUtils.commaDelimitedListToStringArray(commaSeparated)) {
+            if (!value.isBlank()) {
+                return value.trim();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.keycloak.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Propriétés de la chauffe JIT exécutée avant que l'instance ne se déclare prête
+ *
+ * Exemple (application.yml) :
+ * warmup.enabled = true
+ * warmup.max-duration = PT30S
+ * warmup.paths[0] = /api/private/user
+ */
+@ConfigurationProperties(prefix = "warmup")
+public class WarmupProperties {
+
+    /**
+     * Active la chauffe au démarrage (false : readiness immédiate)
+     */
+    private boolean enabled = true;
+
+    /**
+     * Durée maximale de la chauffe ; au-delà, l'instance se déclare prête quel que soit l'état du JIT
+     */
+    private Duration maxDuration = Duration.ofSeconds(30);
+
+    /**
+     * Nombre de tours minimal avant de tester la stabilité
+     */
+    private int minRounds = 3;
+
+    /**
+     * Nombre de tours maximal
+     */
+    private int maxRounds = 100;
+
+    /**
+     * Requêtes envoyées par tour, réparties sur les routes et les profils (USER, ADMIN)
+     */
+    private int requestsPerRound = 200;
+
+    /**
+     * Requêtes simultanées (chemins concurrents : caches, compteurs, pools)
+     */
+    private int concurrency = 4;
+
+    /**
+     * Temps de compilation JIT par tour en deçà duquel un tour est considéré stable
+     */
+    private Duration compilationThreshold = Duration.ofMillis(20);
+
+    /**
+     * Nombre de tours stables consécutifs marquant la fin de la chauffe
+     */
+    private int stableRounds = 3;
+
+    /**
+     * Timeout de chaque requête de chauffe
+     */
+    private Duration requestTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Routes GET rejouées ; {username} est remplacé par l'utilisateur du token synthétique
+     *
+     * Uniquement des routes sans appel sortant : le token synthétique n'est connu
+     * que de cette instance (ex: /api/advanced/reports l'échangerait auprès de Keycloak).
+     */
+    private List<String> paths = new ArrayList<>(List.of(
+            "/api/private/user",
+            "/api/private/auth-details",
+            "/api/advanced/admin-only",
+            "/api/advanced/management",
+            "/api/advanced/profile/{username}",
+            "/api/advanced/maintenance",
+            "/api/advanced/debug-auth",
+            "/api/advanced/projects?ids=warmup-1,warmup-2"));
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getMaxDuration() {
+        return maxDuration;
+    }
+
+    public void setMaxDuration(Duration maxDuration) {
+        this.maxDuration = maxDuration;
+    }
+
+    public int getMinRounds() {
+        return minRounds;
+    }
+
+    public void setMinRounds(int minRounds) {
+        this.minRounds = minRounds;
+    }
+
+    public int getMaxRounds() {
+        return maxRounds;
+    }
+
+    public void setMaxRounds(int maxRounds) {
+        this.maxRounds = maxRounds;
+    }
+
+    public int getRequestsPerRound() {
+        return requestsPerRound;
+    }
+
+    public void setRequestsPerRound(int requestsPerRound) {
+        this.requestsPerRound = requestsPerRound;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public Duration getCompilationThreshold() {
+        return compilationThreshold;
+    }
+
+    public void setCompilationThreshold(Duration compilationThreshold) {
+        this.compilationThreshold = compilationThreshold;
+    }
+
+    public int getStableRounds() {
+        return stableRounds;
+    }
+
+    public void setStableRounds(int stableRounds) {
+        this.stableRounds = stableRounds;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public void setRequestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public void setPaths(List<String> paths) {
+        this.paths = paths;
+    }
+}
@@ -1,19 +1,32 @@
 package com.example.keycloak.controller;
 
+import com.example.keycloak.client.ReportingClient;
 import com.example.keycloak.config.JwtAuthenticationConverter;
+import com.example.keycloak.dto.UserDto;
+import com.example.keycloak.events.NotificationHub;
+import com.example.keycloak.security.AuthorizationCache;
+import com.example.keycloak.service.CustomSecurityService;
 import com.example.keycloak.service.JwtService;
+import com.example.keycloak.service.ProjectAccessService;
+import com.example.keycloak.service.TimeWindowPolicyService;
+import com.example.keycloak.service.UserProfileService;
 import jakarta.annotation.security.RolesAllowed;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.client.RestClientException;
 
 //import javax.annotation.security.RolesAllowed;
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -31,12 +44,38 @@ import java.util.Map;
 @CrossOrigin(origins = "http://localhost:4200")
 public class AdvancedSecurityController {
 
+    /**
+     * Catalogue servi lorsque le service de reporting n'est pas configuré
+     */
+    private static final List<String> LOCAL_REPORTS = List.of(
+        "User Activity Report",
+        "System Performance Report",
+        "Security Audit Report");
+
     @Autowired
     private JwtService jwtService;
     
     @Autowired
     private JwtAuthenticationConverter jwtAuthenticationConverter;
 
+    @Autowired
+    private TimeWindowPolicyService timeWindowPolicyService;
+
+    @Autowired
+    private CustomSecurityService customSecurityService;
+
+    @Autowired
+    private ProjectAccessService projectAccessService;
+
+    @Autowired
+    private ObjectProvider<NotificationHub> notificationHub;
+
+    @Autowired
+    private UserProfileService userProfileService;
+
+    @Autowired
+    private ObjectProvider<ReportingClient> reportingClient;
+
     /**
      * Endpoint nécessitant le rôle ADMIN spécifique
      * Utilise @PreAuthorize pour une validation fine
@@ -60,13 +99,21 @@ public class AdvancedSecurityController {
      */
     @GetMapping("/management")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResponseEntity<Map<String, Object>> managementArea(@AuthenticationPrincipal Jwt jwt) {
+    public ResponseEntity<Map<String, Object>> managementArea(
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Évalué après @PreAuthorize : un 304 n'est servi qu'à un appelant autorisé
+        ClaimsETag etag = ClaimsETag.of(jwt.getExpiresAt(), "/api/advanced/management", ClaimsETag.userInfoClaims(jwt));
+        if (etag.matches(ifNoneMatch)) {
+            return etag.notModified();
+        }
+        
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Zone de gestion - Accès ADMIN ou MANAGER");
         response.put("user_info", jwtService.extractUserInfo(jwt));
         response.put("allowed_roles", new String[]{"ADMIN", "MANAGER"});
         
-        return ResponseEntity.ok(response);
+        return etag.ok(response);
     }
 
     /**
@@ -84,11 +131,15 @@ public class AdvancedSecurityController {
         response.put("requested_user", username);
         response.put("current_user", jwt.getClaimAsString("preferred_username"));
         response.put("is_admin", jwtService.isAdmin(jwt));
-        response.put("profile_data", Map.of(
-            "username", username,
-            "last_login", Instant.now().minusSeconds(3600).toString(),
-            "status", "active"
-        ));
+        
+        // Profil persistant (cache en lecture + activité pas encore écrite) ; null si jamais vu
+        UserDto profile = userProfileService.findProfile(username);
+        Map<String, Object> profileData = new HashMap<>();
+        profileData.put("username", username);
+        profileData.put("last_login", profile != null ? profile.getLastLogin().toString() : null);
+        profileData.put("last_seen", profile != null ? profile.getLastSeen().toString() : null);
+        profileData.put("status", profile != null ? "active" : "unknown");
+        response.put("profile_data", profileData);
         
         return ResponseEntity.ok(response);
     }
@@ -96,6 +147,9 @@ public class AdvancedSecurityController {
     /**
      * Endpoint utilisant @RolesAllowed (JSR-250)
      * Alternative à @PreAuthorize pour la compatibilité Java EE
+     *
+     * Avec outbound.reporting.enabled=true, la liste vient du service de reporting,
+     * appelé avec le token de l'utilisateur échangé pour son audience
      */
     @GetMapping("/reports")
     @RolesAllowed({"ADMIN", "MANAGER", "ANALYST"})
@@ -103,18 +157,25 @@ public class AdvancedSecurityController {
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Accès aux rapports - Rôles multiples acceptés");
         response.put("user", jwtService.extractUsername(jwt));
-        response.put("available_reports", new String[]{
-            "User Activity Report",
-            "System Performance Report", 
-            "Security Audit Report"
-        });
-        
-        return ResponseEntity.ok(response);
+
+        ReportingClient client = reportingClient.getIfAvailable();
+        if (client == null) {
+            response.put("available_reports", LOCAL_REPORTS);
+            return ResponseEntity.ok(response);
+        }
+        try {
+            response.put("available_reports", client.availableReports());
+            return ResponseEntity.ok(response);
+        } catch (RestClientException e) {
+            response.put("error", "Service de reporting indisponible");
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(response);
+        }
     }
 
     /**
      * Endpoint avec expression SpEL complexe
      * Validation basée sur l'heure et le rôle
+     * La décision reste en cache jusqu'à la prochaine ouverture/fermeture de fenêtre
      */
     @GetMapping("/maintenance")
     @PreAuthorize("hasRole('ADMIN') and @customSecurityService.isMaintenanceHour()")
@@ -122,7 +183,7 @@ public class AdvancedSecurityController {
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Mode maintenance - Accès pendant heures autorisées");
         response.put("admin_user", jwtService.extractUsername(jwt));
-        response.put("maintenance_window", "02:00-06:00 UTC");
+        response.put("maintenance_window", timeWindowPolicyService.describe(CustomSecurityService.MAINTENANCE_WINDOW));
         response.put("current_time", Instant.now().toString());
         
         return ResponseEntity.ok(response);
@@ -168,6 +229,7 @@ public class AdvancedSecurityController {
      */
     @PostMapping("/sensitive-operation")
     @PreAuthorize("hasRole('ADMIN') and @jwtService.isAdmin(#jwt) and !@jwtService.isTokenExpiringSoon(#jwt, 300)")
+    @AuthorizationCache(enabled = false) // Fraîcheur du token réévaluée à chaque appel
     public ResponseEntity<Map<String, Object>> sensitiveOperation(
             @RequestBody Map<String, Object> operationData,
             @AuthenticationPrincipal Jwt jwt) {
@@ -185,4 +247,71 @@ public class AdvancedSecurityController {
         
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Endpoint de liste filtré par les ACL projets
+     * Vérification en lot sur l'index mémoire (pas de requête par ligne)
+     */
+    @GetMapping("/projects")
+    public ResponseEntity<Map<String, Object>> accessibleProjects(
+            @RequestParam List<String> ids,
+            @AuthenticationPrincipal Jwt jwt) {
+        String username = jwtService.extractUsername(jwt);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("user", username);
+        response.put("requested", ids.size());
+        response.put("accessible_projects", customSecurityService.filterAccessibleProjects(username, ids));
+        
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Ajoute un utilisateur à un projet (ADMIN uniquement)
+     */
+    @PutMapping("/projects/{projectId}/members/{username}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> grantProjectAccess(
+            @PathVariable String projectId,
+            @PathVariable String username) {
+        projectAccessService.grant(username, projectId);
+        notifyAccessChanged(username, projectId, true);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("project_id", projectId);
+        response.put("username", username);
+        response.put("member", true);
+        
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Retire un utilisateur d'un projet (ADMIN uniquement)
+     */
+    @DeleteMapping("/projects/{projectId}/members/{username}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> revokeProjectAccess(
+            @PathVariable String projectId,
+            @PathVariable String username) {
+        boolean removed = projectAccessService.revoke(username, projectId);
+        if (removed) {
+            notifyAccessChanged(username, projectId, false);
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("project_id", projectId);
+        response.put("username", username);
+        response.put("member", false);
+        response.put("removed", removed);
+        
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Prévient les connexions SSE de l'utilisateur (liste des projets à recharger)
+     */
+    private void notifyAccessChanged(String username, String projectId, boolean member) {
+        notificationHub.ifAvailable(hub -> hub.publish(username, "access-changed",
+                Map.of("project_id", projectId, "member", member)));
+    }
+}
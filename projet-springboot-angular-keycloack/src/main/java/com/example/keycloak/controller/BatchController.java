@@ -0,0 +1,75 @@
+package com.example.keycloak.controller;
+
+import com.example.keycloak.batch.BatchDispatcher;
+import com.example.keycloak.batch.BatchItem;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller des requêtes groupées
+ *
+ * Un tableau de bord Angular charge plusieurs endpoints en un seul appel : une
+ * seule négociation TLS, un seul décodage JWT, une seule conversion des autorités.
+ * Chaque sous-requête reste soumise à la sécurité de sa méthode de controller.
+ */
+@RestController
+@RequestMapping("/api")
+@ConditionalOnProperty(name = "batch.enabled", matchIfMissing = true)
+public class BatchController {
+
+    /**
+     * Une ligne JSON par sous-requête, dans l'ordre de terminaison
+     */
+    static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private BatchDispatcher batchDispatcher;
+
+    /**
+     * Exécute des sous-requêtes GET en parallèle
+     *
+     * Corps : {"requests": [{"id": "user", "path": "/api/private/user"}, ...]}
+     * Réponse (200, NDJSON) : {"id": "user", "status": 200, "headers": {...}, "body": {...}} par ligne ;
+     * les refus d'une sous-requête (400, 401, 403, 404, 504...) figurent dans sa ligne.
+     */
+    @PostMapping(value = "/batch", produces = {NDJSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Map<String, Object>> batch(@RequestBody BatchCall call,
+                                                     Authentication authentication,
+                                                     HttpServletRequest request,
+                                                     HttpServletResponse response) throws IOException {
+        try {
+            batchDispatcher.validate(call.requests());
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(error);
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        batchDispatcher.execute(call.requests(), request, response, authentication, response.getOutputStream());
+        // Réponse déjà écrite ligne par ligne
+        return null;
+    }
+
+    /**
+     * Corps de POST /api/batch
+     */
+    public record BatchCall(List<BatchItem> requests) {
+    }
+}
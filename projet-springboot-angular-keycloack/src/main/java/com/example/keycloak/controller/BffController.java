@@ -0,0 +1,143 @@
+package com.example.keycloak.controller;
+
+import com.example.keycloak.bff.BffSessionService;
+import com.example.keycloak.config.BffProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.CookieValue;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.client.RestClientException;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Controller du mode backend-for-frontend (bff.enabled=true)
+ *
+ * Le navigateur ne voit jamais les tokens Keycloak : il ne reçoit qu'un cookie
+ * de session HttpOnly signé, envoyé ensuite sur les appels /api/** (withCredentials).
+ *
+ * Protection CSRF : le retour de Keycloak n'est accepté que dans le navigateur
+ * qui a démarré la connexion (cookie de state), et la déconnexion exige
+ * l'en-tête bff.csrf-header comme toute requête non sûre authentifiée par cookie.
+ */
+@RestController
+@RequestMapping("/bff")
+@ConditionalOnProperty(name = "bff.enabled", havingValue = "true")
+public class BffController {
+
+    @Autowired
+    private BffSessionService bffSessionService;
+
+    @Autowired
+    private BffProperties bffProperties;
+
+    /**
+     * Redirige vers la page de connexion Keycloak (authorization code + PKCE)
+     * et lie le state au navigateur
+     */
+    @GetMapping("/login")
+    public ResponseEntity<Void> login() {
+        BffSessionService.LoginRedirect redirect = bffSessionService.startLogin();
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .location(redirect.location())
+                .header(HttpHeaders.SET_COOKIE,
+                        stateCookie(redirect.state(), bffProperties.getLoginTimeout()).toString())
+                .build();
+    }
+
+    /**
+     * Retour de Keycloak : ouverture de la session et dépôt du cookie
+     */
+    @GetMapping("/callback")
+    public ResponseEntity<Map<String, Object>> callback(@RequestParam(required = false) String code,
+                                                        @RequestParam(required = false) String state,
+                                                        @RequestParam(required = false) String error,
+                                                        @CookieValue(name = "${bff.cookie.state-name:BFF_LOGIN_STATE}",
+                                                                required = false) String browserState) {
+        Map<String, Object> response = new HashMap<>();
+        String clearState = stateCookie("", Duration.ZERO).toString();
+        if (error != null || code == null) {
+            response.put("error", error != null ? error : "Paramètre code manquant");
+            return ResponseEntity.badRequest().header(HttpHeaders.SET_COOKIE, clearState).body(response);
+        }
+        try {
+            String cookieValue = bffSessionService.completeLogin(code, state, browserState);
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create(bffProperties.getPostLoginRedirect()))
+                    .header(HttpHeaders.SET_COOKIE, sessionCookie(cookieValue, null).toString(), clearState)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().header(HttpHeaders.SET_COOKIE, clearState).body(response);
+        } catch (RestClientException | JwtException e) {
+            response.put("error", "Échange du code refusé par Keycloak");
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                    .header(HttpHeaders.SET_COOKIE, clearState)
+                    .body(response);
+        }
+    }
+
+    /**
+     * Ferme la session (et la session Keycloak) puis efface le cookie
+     * Sans l'en-tête bff.csrf-header, un formulaire cross-site pourrait déconnecter l'utilisateur : 403
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@CookieValue(name = "${bff.cookie.name:BFF_SESSION}", required = false)
+                                       String cookieValue,
+                                       @RequestHeader HttpHeaders headers) {
+        if (cookieValue != null && !StringUtils.hasText(headers.getFirst(bffProperties.getCsrfHeader()))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (cookieValue != null) {
+            bffSessionService.logout(cookieValue);
+        }
+        return ResponseEntity.noContent()
+                .header(HttpHeaders.SET_COOKIE, sessionCookie("", Duration.ZERO).toString())
+                .build();
+    }
+
+    /**
+     * Cookie de session : HttpOnly (inaccessible au JavaScript), sans Max-Age (fermeture du navigateur)
+     */
+    private ResponseCookie sessionCookie(String value, Duration maxAge) {
+        BffProperties.Cookie cookie = bffProperties.getCookie();
+        ResponseCookie.ResponseCookieBuilder builder = ResponseCookie.from(cookie.getName(), value)
+                .httpOnly(true)
+                .secure(cookie.isSecure())
+                .sameSite(cookie.getSameSite())
+                .path(cookie.getPath());
+        if (maxAge != null) {
+            builder.maxAge(maxAge);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Cookie de state : Lax même si le cookie de session est Strict, le retour de Keycloak
+     * étant une navigation cross-site
+     */
+    private ResponseCookie stateCookie(String value, Duration maxAge) {
+        BffProperties.Cookie cookie = bffProperties.getCookie();
+        return ResponseCookie.from(cookie.getStateName(), value)
+                .httpOnly(true)
+                .secure(cookie.isSecure())
+                .sameSite("Lax")
+                .path(cookie.getPath())
+                .maxAge(maxAge)
+                .build();
+    }
+}
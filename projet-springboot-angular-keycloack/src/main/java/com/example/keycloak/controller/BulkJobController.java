@@ -0,0 +1,83 @@
+package com.example.keycloak.controller;
+
+import com.example.keycloak.dto.BulkJobDto;
+import com.example.keycloak.service.BulkJobService;
+import com.example.keycloak.service.JwtService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller des jobs de mise à jour en masse
+ *
+ * La soumission est acceptée à toute heure (202 Accepted) ; l'exécution
+ * est différée à la fenêtre de maintenance par BulkJobService.
+ * Les endpoints de progression permettent de suivre l'avancement chunk par chunk.
+ */
+@RestController
+@RequestMapping("/api/admin/bulk-jobs")
+@CrossOrigin(origins = "http://localhost:4200")
+@PreAuthorize("hasRole('ADMIN')")
+public class BulkJobController {
+
+    @Autowired
+    private BulkJobService bulkJobService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    /**
+     * Soumet un job
+     * Corps attendu : {"operation": "BULK_UPDATE", "items": [{...}, {...}]}
+     */
+    @PostMapping
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<Map<String, Object>> submit(
+            @RequestBody Map<String, Object> request,
+            @AuthenticationPrincipal Jwt jwt) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            BulkJobDto job = bulkJobService.submit(
+                (String) request.get("operation"),
+                (List<Map<String, Object>>) request.get("items"),
+                jwtService.extractUsername(jwt));
+            response.put("message", "Job en file - exécution pendant la fenêtre de maintenance");
+            response.put("job", job);
+            return ResponseEntity.accepted().body(response);
+        } catch (IllegalArgumentException | ClassCastException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * Liste des jobs, du plus récent au plus ancien
+     */
+    @GetMapping
+    public ResponseEntity<List<BulkJobDto>> list() {
+        return ResponseEntity.ok(bulkJobService.findAll());
+    }
+
+    /**
+     * Progression d'un job
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<BulkJobDto> progress(@PathVariable String jobId) {
+        return ResponseEntity.of(bulkJobService.findById(jobId));
+    }
+
+    /**
+     * Remet en file un job échoué (reprise à partir du dernier checkpoint)
+     */
+    @PostMapping("/{jobId}/resume")
+    public ResponseEntity<BulkJobDto> resume(@PathVariable String jobId) {
+        return ResponseEntity.of(bulkJobService.resume(jobId));
+    }
+}
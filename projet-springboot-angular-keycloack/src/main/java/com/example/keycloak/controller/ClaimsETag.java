@@ -0,0 +1,120 @@
+package com.example.keycloak.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * ETag fort des endpoints d'identité, calculé à partir des claims du token
+ *
+ * Ces réponses sont une fonction pure des claims (et des autorités) : l'ETag
+ * est le hash des valeurs qui entrent dans le corps, calculé avant de construire
+ * ou de sérialiser la réponse. Un If-None-Match correspondant reçoit un 304 vide.
+ *
+ * Cache-Control: private jusqu'à l'expiration du token (ou jusqu'au prochain
+ * changement d'une valeur dépendant de l'heure), avec Vary: Authorization, Cookie
+ * pour qu'un autre token ou une autre session BFF ne réutilise jamais l'entrée.
+ */
+final class ClaimsETag {
+
+    private static final int HASH_BYTES = 16;
+    private static final String[] VARY = {HttpHeaders.AUTHORIZATION, HttpHeaders.COOKIE};
+
+    private final String value;
+    private final CacheControl cacheControl;
+
+    private ClaimsETag(String value, CacheControl cacheControl) {
+        this.value = value;
+        this.cacheControl = cacheControl;
+    }
+
+    /**
+     * @param validUntil Instant jusqu'auquel la réponse reste valable (null : pas de mise en cache)
+     * @param parts Route puis valeurs qui déterminent le corps (claims, autorités triées...)
+     */
+    static ClaimsETag of(Instant validUntil, Object... parts) {
+        MessageDigest digest = sha256();
+        for (Object part : parts) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        String hash = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Arrays.copyOf(digest.digest(), HASH_BYTES));
+        Duration maxAge = validUntil != null ? Duration.between(Instant.now(), validUntil) : Duration.ZERO;
+        CacheControl cacheControl = maxAge.isNegative() || maxAge.isZero()
+                ? CacheControl.noCache().cachePrivate()
+                : CacheControl.maxAge(maxAge).cachePrivate();
+        return new ClaimsETag("\"" + hash + "\"", cacheControl);
+    }
+
+    /**
+     * Comparaison faible (RFC 9110 §13.1.2) : W/"x" correspond à "x", liste et * acceptés
+     */
+    boolean matches(String ifNoneMatch) {
+        return weakMatch(ifNoneMatch, value);
+    }
+
+    /**
+     * Comparaison faible d'un ETag avec chaque élément de la liste If-None-Match
+     *
+     * @param ifNoneMatch Valeur de l'en-tête (peut être null)
+     * @param etag ETag de la représentation courante, fort ou faible
+     */
+    static boolean weakMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = opaqueTag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || opaqueTag(tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    /**
+     * Claims repris dans user_info (JwtService.extractUserInfo)
+     */
+    static List<Object> userInfoClaims(Jwt jwt) {
+        return Arrays.asList(jwt.getSubject(), jwt.getClaimAsString("preferred_username"),
+                jwt.getClaimAsString("email"), jwt.getClaimAsString("name"),
+                jwt.getClaimAsString("given_name"), jwt.getClaimAsString("family_name"),
+                jwt.getClaims().get("realm_access"), jwt.getId(), jwt.getIssuedAt(), jwt.getExpiresAt());
+    }
+
+    <T> ResponseEntity<T> notModified() {
+        return ResponseEntity.status(304).eTag(value).cacheControl(cacheControl).varyBy(VARY).build();
+    }
+
+    <T> ResponseEntity<T> ok(T body) {
+        return ResponseEntity.ok().eTag(value).cacheControl(cacheControl).varyBy(VARY).body(body);
+    }
+
+    String value() {
+        return value;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package com.example.keycloak.controller;
 
 import com.example.keycloak.service.JwtService;
+import com.example.keycloak.service.KeycloakProbeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -28,6 +36,44 @@ public class DemoController {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${public-endpoints.cache-max-age:PT5S}")
+    private Duration publicCacheMaxAge;
+
+    // Absente en mode fichier (security.jwt.key-file) : aucune sonde Keycloak
+    @Autowired
+    private ObjectProvider<KeycloakProbeService> keycloakProbeService;
+
+    // Corps des endpoints publics, sérialisés une seule fois (seul le timestamp varie)
+    private PrecomputedJsonResponse helloResponse;
+
+    // Corps du health check en mode fichier (aucun état Keycloak à suivre)
+    private PrecomputedJsonResponse keyFileHealthResponse;
+
+    // Corps du health check, resérialisé uniquement quand l'état Keycloak change
+    private volatile HealthSnapshot healthSnapshot;
+
+    @PostConstruct
+    void precomputePublicResponses() {
+        Map<String, Object> hello = new LinkedHashMap<>();
+        hello.put("message", "Endpoint public - Aucune authentification requise");
+        hello.put("status", "OK");
+        hello.put("version", "2.0.0");
+        hello.put("security", "PUBLIC");
+        helloResponse = PrecomputedJsonResponse.of(objectMapper, hello, "timestamp", publicCacheMaxAge);
+
+        Map<String, Object> keyFileHealth = new LinkedHashMap<>();
+        keyFileHealth.put("status", "UP");
+        keyFileHealth.put("service", "keycloak-demo");
+        keyFileHealth.put("port", 8081);
+        keyFileHealth.put("keycloak_integration", true);
+        keyFileHealth.put("security_enabled", true);
+        keyFileHealth.put("keycloak", Map.of("key_source", "file"));
+        keyFileHealthResponse = PrecomputedJsonResponse.of(objectMapper, keyFileHealth, "timestamp", publicCacheMaxAge);
+    }
+
     /**
      * Endpoint public de test
      * Accessible sans authentification
@@ -35,15 +81,9 @@ public class DemoController {
      * @return Message de bienvenue avec statut et timestamp
      */
     @GetMapping("/public/hello")
-    public ResponseEntity<Map<String, Object>> publicEndpoint() {
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", "Endpoint public - Aucune authentification requise");
-        response.put("status", "OK");
-        response.put("timestamp", Instant.now().toEpochMilli());
-        response.put("version", "2.0.0");
-        response.put("security", "PUBLIC");
-        
-        return ResponseEntity.ok(response);
+    public ResponseEntity<byte[]> publicEndpoint(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return helloResponse.render(ifNoneMatch, Long.toString(Instant.now().toEpochMilli()));
     }
 
     /**
@@ -53,16 +93,57 @@ public class DemoController {
      * @return Statut de l'application avec informations de service
      */
     @GetMapping("/public/health")
-    public ResponseEntity<Map<String, Object>> healthCheck() {
-        Map<String, Object> health = new HashMap<>();
-        health.put("status", "UP");
+    public ResponseEntity<byte[]> healthCheck(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return healthResponse().render(ifNoneMatch, "\"" + Instant.now() + "\"");
+    }
+
+    /**
+     * Corps du health check pour le dernier état publié par la sonde Keycloak
+     * (aucun appel à Keycloak sur le thread de la requête)
+     *
+     * Le corps n'est reconstruit que si la sonde a publié un nouvel état ou si les
+     * clés viennent de dépasser keycloak.health.max-key-age ; l'ETag est celui du
+     * corps figé, stable tant que son contenu ne change pas.
+     * En mode fichier, le corps est fixe : les clés sont locales, Keycloak n'est pas sondé.
+     */
+    private PrecomputedJsonResponse healthResponse() {
+        KeycloakProbeService probe = keycloakProbeService.getIfAvailable();
+        if (probe == null) {
+            return keyFileHealthResponse;
+        }
+        KeycloakProbeService.ProbeState state = probe.currentState();
+        boolean keysFresh = probe.isKeysFresh(state);
+        HealthSnapshot snapshot = healthSnapshot;
+        if (snapshot != null && snapshot.state() == state && snapshot.keysFresh() == keysFresh) {
+            return snapshot.response();
+        }
+
+        boolean clockSkewOk = probe.isClockSkewAcceptable(state);
+        boolean keycloakHealthy = state.isReachable() && keysFresh && clockSkewOk;
+
+        Map<String, Object> keycloak = new LinkedHashMap<>();
+        keycloak.put("probed", state.isProbed());
+        keycloak.put("discovery", state.discoveryReachable());
+        keycloak.put("jwks", state.jwksReachable());
+        keycloak.put("keys_fresh", keysFresh);
+        keycloak.put("clock_skew_ok", clockSkewOk);
+
+        Map<String, Object> health = new LinkedHashMap<>();
+        health.put("status", keycloakHealthy ? "UP" : "DEGRADED");
         health.put("service", "keycloak-demo");
         health.put("port", 8081);
-        health.put("keycloak_integration", true);
+        health.put("keycloak_integration", keycloakHealthy);
         health.put("security_enabled", true);
-        health.put("timestamp", Instant.now().toString());
-        
-        return ResponseEntity.ok(health);
+        health.put("keycloak", keycloak);
+        snapshot = new HealthSnapshot(state, keysFresh,
+            PrecomputedJsonResponse.of(objectMapper, health, "timestamp", publicCacheMaxAge));
+        healthSnapshot = snapshot;
+        return snapshot.response();
+    }
+
+    private record HealthSnapshot(KeycloakProbeService.ProbeState state, boolean keysFresh,
+                                  PrecomputedJsonResponse response) {
     }
 
     /**
@@ -73,14 +154,26 @@ public class DemoController {
      * @return Informations extraites du token JWT
      */
     @GetMapping("/private/user")
-    public ResponseEntity<Map<String, Object>> userInfo(@AuthenticationPrincipal Jwt jwt) {
+    public ResponseEntity<Map<String, Object>> userInfo(
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        boolean expiringSoon = jwtService.isTokenExpiringSoon(jwt, 300); // 5 minutes
+        // token_expiring_soon bascule 5 minutes avant l'expiration : la réponse n'est valable que jusque-là
+        Instant validUntil = expiringSoon || jwt.getExpiresAt() == null
+            ? jwt.getExpiresAt()
+            : jwt.getExpiresAt().minusSeconds(300);
+        ClaimsETag etag = ClaimsETag.of(validUntil, "/api/private/user", expiringSoon, ClaimsETag.userInfoClaims(jwt));
+        if (etag.matches(ifNoneMatch)) {
+            return etag.notModified();
+        }
+        
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Endpoint protégé - Authentification réussie !");
         response.put("user_info", jwtService.extractUserInfo(jwt));
         response.put("is_admin", jwtService.isAdmin(jwt));
-        response.put("token_expiring_soon", jwtService.isTokenExpiringSoon(jwt, 300)); // 5 minutes
+        response.put("token_expiring_soon", expiringSoon);
         
-        return ResponseEntity.ok(response);
+        return etag.ok(response);
     }
 
     /**
@@ -91,7 +184,19 @@ public class DemoController {
      * @return Détails de l'authentification courante
      */
     @GetMapping("/private/auth-details")
-    public ResponseEntity<Map<String, Object>> authenticationDetails(Authentication authentication) {
+    public ResponseEntity<Map<String, Object>> authenticationDetails(
+            Authentication authentication,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Autorités triées : l'ETag ne dépend pas de l'ordre de conversion des rôles
+        ClaimsETag etag = ClaimsETag.of(
+            authentication.getPrincipal() instanceof Jwt jwt ? jwt.getExpiresAt() : null,
+            "/api/private/auth-details", authentication.getName(),
+            authentication.getAuthorities().stream().map(auth -> auth.getAuthority()).sorted().toList(),
+            authentication.getDetails());
+        if (etag.matches(ifNoneMatch)) {
+            return etag.notModified();
+        }
+        
         Map<String, Object> response = new HashMap<>();
         response.put("is_authenticated", authentication.isAuthenticated());
         response.put("principal_name", authentication.getName());
@@ -101,7 +206,7 @@ public class DemoController {
         response.put("credentials", "JWT Token (hidden)");
         response.put("details", authentication.getDetails());
         
-        return ResponseEntity.ok(response);
+        return etag.ok(response);
     }
 
     /**
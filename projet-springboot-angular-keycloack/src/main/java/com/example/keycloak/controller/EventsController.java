@@ -0,0 +1,80 @@
+package com.example.keycloak.controller;
+
+import com.example.keycloak.bff.BffSessionService;
+import com.example.keycloak.events.NotificationHub;
+import com.example.keycloak.service.JwtService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Controller du canal de notifications poussées (Server-Sent Events)
+ *
+ * Le client Angular ouvre /api/private/events une fois par token au lieu
+ * d'interroger /api/private/user : EventSource avec withCredentials en mode BFF,
+ * requête fetch portant l'en-tête Authorization sinon.
+ */
+@RestController
+@RequestMapping("/api")
+@ConditionalOnProperty(name = "events.enabled", matchIfMissing = true)
+public class EventsController {
+
+    @Autowired
+    private NotificationHub notificationHub;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private ObjectProvider<BffSessionService> bffSessionService;
+
+    /**
+     * Flux d'événements de l'utilisateur courant, fermé à l'expiration de son token
+     */
+    @GetMapping(value = "/private/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> events(@AuthenticationPrincipal Jwt jwt) {
+        try {
+            SseEmitter emitter = notificationHub.subscribe(jwtService.extractUsername(jwt),
+                    jwtService.extractRealmRoles(jwt), jwt.getExpiresAt());
+            // Pas de mise en tampon par un proxy nginx entre le serveur et le navigateur
+            return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+    }
+
+    /**
+     * Impose la déconnexion d'un utilisateur sur toutes ses connexions ouvertes (ADMIN uniquement)
+     * En mode BFF, ses sessions sont aussi fermées : le cookie ne rouvre pas la session
+     */
+    @PostMapping("/admin/users/{username}/logout")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> forceLogout(@PathVariable String username) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("username", username);
+        BffSessionService sessions = bffSessionService.getIfAvailable();
+        if (sessions != null) {
+            response.put("closed_sessions", sessions.logoutUser(username));
+        }
+        response.put("notified_connections", notificationHub.forceLogout(username, "admin"));
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.keycloak.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Réponse JSON pré-sérialisée dont seul le timestamp varie
+ *
+ * Le corps est sérialisé une seule fois au démarrage : à chaque requête,
+ * on concatène le préfixe figé, la valeur du timestamp et l'accolade finale.
+ * L'ETag (faible, car le timestamp change) identifie la partie figée
+ * et permet de répondre 304 aux sondes qui renvoient If-None-Match.
+ */
+final class PrecomputedJsonResponse {
+
+    private static final byte[] SUFFIX = "}".getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] prefix;
+    private final String etag;
+    private final CacheControl cacheControl;
+
+    private PrecomputedJsonResponse(byte[] prefix, String etag, CacheControl cacheControl) {
+        this.prefix = prefix;
+        this.etag = etag;
+        this.cacheControl = cacheControl;
+    }
+
+    /**
+     * Pré-sérialise un corps JSON auquel sera ajouté le champ timestamp
+     *
+     * @param objectMapper Mapper Jackson de l'application
+     * @param body Champs figés de la réponse (le timestamp ne doit pas y figurer)
+     * @param timestampField Nom du champ timestamp, ajouté en dernier
+     * @param maxAge Durée de mise en cache côté client / load balancer
+     */
+    static PrecomputedJsonResponse of(ObjectMapper objectMapper, Map<String, Object> body,
+                                      String timestampField, Duration maxAge) {
+        try {
+            String json = objectMapper.writeValueAsString(body);
+            String prefix = json.substring(0, json.length() - 1)
+                    + (body.isEmpty() ? "" : ",")
+                    + objectMapper.writeValueAsString(timestampField) + ":";
+            byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+            String etag = "W/\"" + DigestUtils.md5DigestAsHex(prefixBytes) + "\"";
+            return new PrecomputedJsonResponse(prefixBytes, etag, CacheControl.maxAge(maxAge).cachePublic());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossible de pré-sérialiser la réponse", e);
+        }
+    }
+
+    /**
+     * Construit la réponse : 304 si l'ETag correspond, sinon le corps avec le timestamp
+     *
+     * @param ifNoneMatch Valeur de l'en-tête If-None-Match (peut être null)
+     * @param timestampJson Valeur JSON du timestamp (nombre ou chaîne entre guillemets)
+     */
+    ResponseEntity<byte[]> render(String ifNoneMatch, String timestampJson) {
+        if (ClaimsETag.weakMatch(ifNoneMatch, etag)) {
+            return ResponseEntity.status(304).eTag(etag).cacheControl(cacheControl).build();
+        }
+        byte[] timestamp = timestampJson.getBytes(StandardCharsets.ISO_8859_1);
+        byte[] body = new byte[prefix.length + timestamp.length + SUFFIX.length];
+        System.arraycopy(prefix, 0, body, 0, prefix.length);
+        System.arraycopy(timestamp, 0, body, prefix.length, timestamp.length);
+        System.arraycopy(SUFFIX, 0, body, prefix.length + timestamp.length, SUFFIX.length);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .body(body);
+    }
+
+    String etag() {
+        return etag;
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.keycloak.dto;
+
+import java.time.Instant;
+
+/**
+ * Data Transfer Object pour les jobs de mise à jour en masse
+ *
+ * Représente l'état et la progression d'un job soumis par un administrateur.
+ */
+public class BulkJobDto {
+
+    /**
+     * Cycle de vie d'un job
+     * PENDING : en attente de la fenêtre de maintenance
+     * RUNNING : en cours d'exécution
+     * PAUSED : interrompu par la fermeture de la fenêtre (reprise automatique)
+     * COMPLETED : tous les chunks exécutés
+     * FAILED : un chunk a échoué (reprise manuelle possible)
+     */
+    public enum Status {
+        PENDING, RUNNING, PAUSED, COMPLETED, FAILED
+    }
+
+    private String id;
+    private String operation;
+    private String submittedBy;
+    private Status status;
+    private int totalItems;
+    private int processedItems;
+    private int chunkSize;
+    private String lastError;
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    /**
+     * Constructeur par défaut
+     */
+    public BulkJobDto() {
+    }
+
+    /**
+     * Constructeur avec tous les paramètres
+     */
+    public BulkJobDto(String id, String operation, String submittedBy, Status status, int totalItems,
+                      int processedItems, int chunkSize, String lastError, Instant createdAt, Instant updatedAt) {
+        this.id = id;
+        this.operation = operation;
+        this.submittedBy = submittedBy;
+        this.status = status;
+        this.totalItems = totalItems;
+        this.processedItems = processedItems;
+        this.chunkSize = chunkSize;
+        this.lastError = lastError;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * @return progression en pourcentage (0-100)
+     */
+    public int getProgressPercent() {
+        return totalItems == 0 ? 100 : (int) (processedItems * 100L / totalItems);
+    }
+
+    /**
+     * @return nombre de chunks du job
+     */
+    public int getTotalChunks() {
+        return chunkSize == 0 ? 0 : (totalItems + chunkSize - 1) / chunkSize;
+    }
+
+    // Getters et Setters
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public String getSubmittedBy() {
+        return submittedBy;
+    }
+
+    public void setSubmittedBy(String submittedBy) {
+        this.submittedBy = submittedBy;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getTotalItems() {
+        return totalItems;
+    }
+
+    public void setTotalItems(int totalItems) {
+        this.totalItems = totalItems;
+    }
+
+    public int getProcessedItems() {
+        return processedItems;
+    }
+
+    public void setProcessedItems(int processedItems) {
+        this.processedItems = processedItems;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkJobDto{" +
+                "id='" + id + '\'' +
+                ", operation='" + operation + '\'' +
+                ", status=" + status +
+                ", processedItems=" + processedItems +
+                ", totalItems=" + totalItems +
+                '}';
+    }
+}
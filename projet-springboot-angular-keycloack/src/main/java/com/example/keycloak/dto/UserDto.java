@@ -1,5 +1,7 @@
 package com.example.keycloak.dto;
 
+import java.time.Instant;
+
 /**
  * Data Transfer Object pour les utilisateurs
  * 
@@ -12,6 +14,8 @@ public class UserDto {
     private String username;
     private String email;
     private String fullName;
+    private Instant lastLogin;
+    private Instant lastSeen;
 
     /**
      * Constructeur par défaut
@@ -68,6 +72,28 @@ public class UserDto {
         this.fullName = fullName;
     }
 
+    /**
+     * @return Date d'authentification (claim auth_time) de la session la plus récente, null si jamais vu
+     */
+    public Instant getLastLogin() {
+        return lastLogin;
+    }
+
+    public void setLastLogin(Instant lastLogin) {
+        this.lastLogin = lastLogin;
+    }
+
+    /**
+     * @return Date de la dernière requête authentifiée, null si jamais vu
+     */
+    public Instant getLastSeen() {
+        return lastSeen;
+    }
+
+    public void setLastSeen(Instant lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+
     @Override
     public String toString() {
         return "UserDto{" +
@@ -75,6 +101,8 @@ public class UserDto {
                 ", username='" + username + '\'' +
                 ", email='" + email + '\'' +
                 ", fullName='" + fullName + '\'' +
+                ", lastLogin=" + lastLogin +
+                ", lastSeen=" + lastSeen +
                 '}';
     }
 
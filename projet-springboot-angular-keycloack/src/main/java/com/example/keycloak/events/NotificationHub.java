@@ -0,0 +1,228 @@
+package com.example.keycloak.events;
+
+import com.example.keycloak.config.EventsProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Notifications poussées par utilisateur (Server-Sent Events)
+ *
+ * Remplace l'interrogation périodique de /api/private/user (token_expiring_soon) :
+ * - token-expiring : events.expiry-warning avant l'expiration du token de la connexion
+ * - token-expired : à l'expiration ; le flux se termine, le client se reconnecte avec un nouveau token
+ * - roles-changed : nouvelles autorités (rafraîchissement BFF, autre connexion du même utilisateur)
+ * - access-changed : ajout ou retrait d'un projet
+ * - forced-logout : déconnexion imposée (administrateur, session Keycloak révoquée) ; le flux se termine
+ *
+ * Toutes les connexions partagent events.threads threads : aucun thread n'est
+ * attaché à une connexion ouverte, chacune n'ayant qu'une file bornée et au plus
+ * un drain en cours. Un heartbeat (commentaire SSE) maintient les connexions
+ * inactives ouvertes à travers les proxys.
+ *
+ * Métriques : app.events.connections, app.events.overflows.
+ */
+public class NotificationHub implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationHub.class);
+
+    private final EventsProperties properties;
+    private final Clock clock;
+    private final ScheduledExecutorService executor;
+    /**
+     * Connexions par utilisateur, dans l'ordre d'ouverture ; ensembles modifiés dans compute uniquement
+     */
+    private final ConcurrentHashMap<String, Set<SseConnection>> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final Counter overflows;
+
+    public NotificationHub(EventsProperties properties, Clock clock, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.clock = clock;
+        AtomicInteger threads = new AtomicInteger();
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(properties.getThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "sse-events-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.setRemoveOnCancelPolicy(true);
+        this.executor = pool;
+        Gauge.builder("app.events.connections", connectionCount, AtomicInteger::get)
+                .description("Connexions SSE ouvertes")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("app.events.overflows")
+                .description("Connexions SSE fermées, file d'événements pleine (client trop lent)")
+                .register(meterRegistry);
+        long heartbeat = properties.getHeartbeat().toMillis();
+        executor.scheduleWithFixedDelay(this::heartbeat, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ouvre un flux pour l'utilisateur, borné par l'expiration de son token
+     *
+     * @param subject Utilisateur (preferred_username)
+     * @param roles Rôles du token de la connexion
+     * @param expiresAt Expiration du token de la connexion
+     * @throws IllegalStateException si events.max-connections est atteint
+     */
+    public SseEmitter subscribe(String subject, Collection<String> roles, Instant expiresAt) {
+        Instant now = clock.instant();
+        Instant end = expiresAt != null ? expiresAt : now.plus(properties.getExpiryWarning());
+        if (connectionCount.incrementAndGet() > properties.getMaxConnections()) {
+            connectionCount.decrementAndGet();
+            throw new IllegalStateException("Nombre maximal de connexions SSE atteint");
+        }
+
+        // Délai de garde : token-expired est envoyé par le timer, avant l'expiration du flux côté serveur
+        Duration lifetime = Duration.between(now, end).plus(properties.getHeartbeat());
+        SseEmitter emitter = new SseEmitter(Math.max(lifetime.toMillis(), 1));
+        SseConnection connection = new SseConnection(subject, Set.copyOf(new TreeSet<>(roles)), emitter,
+                properties.getQueueCapacity(), executor, clock, overflows);
+        emitter.onCompletion(() -> unregister(connection));
+        emitter.onTimeout(connection::close);
+        emitter.onError(error -> connection.close());
+
+        List<SseConnection> evicted = new ArrayList<>();
+        List<SseConnection> stale = new ArrayList<>();
+        connections.compute(subject, (key, existing) -> {
+            Set<SseConnection> set = existing != null ? existing : new CopyOnWriteArraySet<>();
+            for (SseConnection other : set) {
+                if (!other.roles().equals(connection.roles())) {
+                    stale.add(other);
+                }
+            }
+            set.add(connection);
+            while (set.size() > properties.getMaxConnectionsPerSubject()) {
+                SseConnection oldest = set.iterator().next();
+                set.remove(oldest);
+                connectionCount.decrementAndGet();
+                evicted.add(oldest);
+            }
+            return set;
+        });
+        evicted.forEach(SseConnection::close);
+        stale.forEach(other -> other.offer(event("roles-changed",
+                Map.of("roles", connection.roles(), "reason", "new-token"))));
+
+        Map<String, Object> connected = new LinkedHashMap<>();
+        connected.put("expires_at", end.toString());
+        connected.put("heartbeat_seconds", properties.getHeartbeat().toSeconds());
+        connection.offer(event("connected", connected));
+        scheduleExpiry(connection, now, end);
+        log.debug("Flux SSE ouvert pour {} jusqu'à {}", subject, end);
+        return emitter;
+    }
+
+    /**
+     * Envoie un événement à toutes les connexions de l'utilisateur
+     *
+     * @return nombre de connexions auxquelles l'événement a été confié
+     */
+    public int publish(String subject, String type, Map<String, ?> data) {
+        int delivered = 0;
+        for (SseConnection connection : connectionsOf(subject)) {
+            if (connection.offer(event(type, data))) {
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Nouvelles autorités pour l'utilisateur
+     */
+    public void rolesChanged(String subject, Collection<String> roles, String reason) {
+        publish(subject, "roles-changed", Map.of("roles", new TreeSet<>(roles), "reason", reason));
+    }
+
+    /**
+     * Déconnexion imposée : événement forced-logout puis fin des flux de l'utilisateur
+     *
+     * Les tokens Bearer déjà émis restent valides jusqu'à leur expiration : le client
+     * doit réagir à l'événement (déconnexion Keycloak, effacement du token).
+     *
+     * @return nombre de connexions notifiées
+     */
+    public int forceLogout(String subject, String reason) {
+        int notified = publish(subject, "forced-logout", Map.of("reason", reason));
+        connectionsOf(subject).forEach(SseConnection::closeAfterDrain);
+        return notified;
+    }
+
+    public int connectionCount() {
+        return connectionCount.get();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        connections.values().forEach(set -> set.forEach(SseConnection::close));
+    }
+
+    private void scheduleExpiry(SseConnection connection, Instant now, Instant expiresAt) {
+        Instant warningAt = expiresAt.minus(properties.getExpiryWarning());
+        Map<String, Object> expiry = Map.of("expires_at", expiresAt.toString());
+        if (!warningAt.isAfter(now)) {
+            connection.offer(event("token-expiring", expiry));
+        } else {
+            connection.addTimer(executor.schedule(() -> connection.offer(event("token-expiring", expiry)),
+                    Duration.between(now, warningAt).toMillis(), TimeUnit.MILLISECONDS));
+        }
+        connection.addTimer(executor.schedule(() -> {
+            connection.offer(event("token-expired", expiry));
+            connection.closeAfterDrain();
+        }, Duration.between(now, expiresAt).toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    private void heartbeat() {
+        try {
+            for (Set<SseConnection> set : connections.values()) {
+                for (SseConnection connection : set) {
+                    connection.heartbeatIfIdle(properties.getHeartbeat());
+                }
+            }
+        } catch (RuntimeException e) {
+            // Une exception annulerait les heartbeats suivants
+            log.warn("Heartbeat SSE en échec : {}", e.getMessage());
+        }
+    }
+
+    private void unregister(SseConnection connection) {
+        connections.computeIfPresent(connection.subject(), (key, set) -> {
+            if (set.remove(connection)) {
+                connectionCount.decrementAndGet();
+            }
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private List<SseConnection> connectionsOf(String subject) {
+        Set<SseConnection> set = connections.get(subject);
+        return set != null ? List.copyOf(set) : List.of();
+    }
+
+    private static SseEmitter.SseEventBuilder event(String type, Map<String, ?> data) {
+        return SseEmitter.event().name(type).data(data, MediaType.APPLICATION_JSON);
+    }
+}
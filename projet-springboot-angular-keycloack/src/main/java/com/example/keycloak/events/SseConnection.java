@@ -0,0 +1,156 @@
+package com.example.keycloak.events;
+
+import io.micrometer.core.instrument.Counter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Connexion SSE d'un utilisateur : file bornée, vidée par un thread partagé à la fois
+ *
+ * Les producteurs (timers, controllers, BFF) ne font qu'enfiler ; un seul drain
+ * est actif par connexion, sur le pool du NotificationHub. Une file pleine signifie
+ * que le client ne lit plus assez vite : la connexion est fermée plutôt que de
+ * laisser la mémoire croître (le client se reconnecte et relit l'état courant).
+ */
+final class SseConnection {
+
+    private final String subject;
+    private final Set<String> roles;
+    private final SseEmitter emitter;
+    private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+    private final Executor executor;
+    private final Clock clock;
+    private final Counter overflows;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final List<Future<?>> timers = new CopyOnWriteArrayList<>();
+    private volatile boolean closeWhenDrained;
+    private volatile Instant lastSent;
+
+    SseConnection(String subject, Set<String> roles, SseEmitter emitter, int capacity,
+                  Executor executor, Clock clock, Counter overflows) {
+        this.subject = subject;
+        this.roles = roles;
+        this.emitter = emitter;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.executor = executor;
+        this.clock = clock;
+        this.overflows = overflows;
+        this.lastSent = clock.instant();
+    }
+
+    String subject() {
+        return subject;
+    }
+
+    Set<String> roles() {
+        return roles;
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Enfile un événement sans bloquer
+     *
+     * @return false si la connexion est fermée ou vient de l'être (file pleine)
+     */
+    boolean offer(SseEmitter.SseEventBuilder event) {
+        if (closed.get() || closeWhenDrained) {
+            return false;
+        }
+        if (!queue.offer(event)) {
+            overflows.increment();
+            close();
+            return false;
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * Commentaire SSE si rien n'a été envoyé depuis interval (file vide uniquement)
+     */
+    void heartbeatIfIdle(Duration interval) {
+        if (queue.isEmpty() && !lastSent.plus(interval).isAfter(clock.instant())) {
+            offer(SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    /**
+     * Termine le flux une fois les événements en attente envoyés
+     */
+    void closeAfterDrain() {
+        closeWhenDrained = true;
+        scheduleDrain();
+    }
+
+    /**
+     * Ferme immédiatement (événements en attente abandonnés)
+     */
+    void close() {
+        if (closed.compareAndSet(false, true)) {
+            timers.forEach(timer -> timer.cancel(false));
+            queue.clear();
+            emitter.complete();
+        }
+    }
+
+    void addTimer(Future<?> timer) {
+        timers.add(timer);
+        if (closed.get()) {
+            timer.cancel(false);
+        }
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                close();
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while (!closed.get() && (event = queue.poll()) != null) {
+                emitter.send(event);
+                lastSent = clock.instant();
+            }
+            if (closeWhenDrained && queue.isEmpty()) {
+                close();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client parti (ou flux déjà terminé côté conteneur)
+            close();
+        } finally {
+            draining.set(false);
+        }
+        // Événement enfilé pendant la sortie du drain
+        if (!closed.get() && (!queue.isEmpty() || closeWhenDrained)) {
+            scheduleDrain();
+        }
+    }
+}
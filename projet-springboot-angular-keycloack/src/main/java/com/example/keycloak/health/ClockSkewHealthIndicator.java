@@ -0,0 +1,37 @@
+package com.example.keycloak.health;
+
+import com.example.keycloak.config.ConditionalOnNetworkKeys;
+import com.example.keycloak.service.KeycloakProbeService;
+import com.example.keycloak.service.KeycloakProbeService.ProbeState;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Décalage d'horloge entre l'application et Keycloak
+ *
+ * Un décalage important fait rejeter des tokens valides (exp / nbf).
+ * DOWN au-delà de keycloak.health.max-clock-skew. Exposé sous le nom "clockSkew".
+ */
+@Component
+@ConditionalOnNetworkKeys
+public class ClockSkewHealthIndicator implements HealthIndicator {
+
+    private final KeycloakProbeService probeService;
+
+    public ClockSkewHealthIndicator(KeycloakProbeService probeService) {
+        this.probeService = probeService;
+    }
+
+    @Override
+    public Health health() {
+        ProbeState state = probeService.currentState();
+        if (state.clockSkew() == null) {
+            return Health.unknown().withDetail("probe", "pending").build();
+        }
+        return (probeService.isClockSkewAcceptable(state) ? Health.up() : Health.down())
+                .withDetail("skewMillis", state.clockSkew().toMillis())
+                .withDetail("maxClockSkew", probeService.getMaxClockSkew().toString())
+                .build();
+    }
+}
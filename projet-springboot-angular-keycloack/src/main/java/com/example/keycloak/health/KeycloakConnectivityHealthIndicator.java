@@ -0,0 +1,46 @@
+package com.example.keycloak.health;
+
+import com.example.keycloak.config.ConditionalOnNetworkKeys;
+import com.example.keycloak.service.KeycloakProbeService;
+import com.example.keycloak.service.KeycloakProbeService.ProbeState;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Joignabilité du document de discovery et du JWKS Keycloak
+ *
+ * Lit le dernier état publié par KeycloakProbeService (aucun appel réseau).
+ * Keycloak injoignable : DEGRADED (HTTP 200), pas DOWN. L'indicateur figure aussi
+ * dans l'agrégat racine /actuator/health, qu'une courte panne de l'IdP ne doit pas
+ * faire passer à 503 ; seul keycloakResilience (aucune clé utilisable) rend l'instance DOWN.
+ * Exposé sous le nom "keycloakConnectivity".
+ */
+@Component
+@ConditionalOnNetworkKeys
+public class KeycloakConnectivityHealthIndicator implements HealthIndicator {
+
+    private final KeycloakProbeService probeService;
+
+    public KeycloakConnectivityHealthIndicator(KeycloakProbeService probeService) {
+        this.probeService = probeService;
+    }
+
+    @Override
+    public Health health() {
+        ProbeState state = probeService.currentState();
+        if (!state.isProbed()) {
+            return Health.unknown().withDetail("probe", "pending").build();
+        }
+        Health.Builder builder = state.isReachable()
+                ? Health.up()
+                : Health.status(KeycloakResilienceHealthIndicator.DEGRADED);
+        builder.withDetail("discovery", state.discoveryReachable())
+                .withDetail("jwks", state.jwksReachable())
+                .withDetail("checkedAt", state.checkedAt().toString());
+        if (state.lastError() != null) {
+            builder.withDetail("error", state.lastError());
+        }
+        return builder.build();
+    }
+}
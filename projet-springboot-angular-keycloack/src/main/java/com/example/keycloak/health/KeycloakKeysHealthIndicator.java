@@ -0,0 +1,46 @@
+package com.example.keycloak.health;
+
+import com.example.keycloak.config.ConditionalOnNetworkKeys;
+import com.example.keycloak.service.KeycloakProbeService;
+import com.example.keycloak.service.KeycloakProbeService.ProbeState;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fraîcheur des clés de signature Keycloak
+ *
+ * DEGRADED si aucun JWKS non vide n'a été récupéré depuis keycloak.health.max-key-age :
+ * une courte indisponibilité de Keycloak reste ainsi sans effet sur la readiness
+ * tant que les clés connues sont récentes. Jamais DOWN : l'indicateur figure dans
+ * l'agrégat racine, et l'absence de clé utilisable relève de keycloakResilience.
+ * Exposé sous le nom "keycloakKeys".
+ */
+@Component
+@ConditionalOnNetworkKeys
+public class KeycloakKeysHealthIndicator implements HealthIndicator {
+
+    private final KeycloakProbeService probeService;
+
+    public KeycloakKeysHealthIndicator(KeycloakProbeService probeService) {
+        this.probeService = probeService;
+    }
+
+    @Override
+    public Health health() {
+        ProbeState state = probeService.currentState();
+        if (!state.isProbed()) {
+            return Health.unknown().withDetail("probe", "pending").build();
+        }
+        Health.Builder builder = probeService.isKeysFresh(state)
+                ? Health.up()
+                : Health.status(KeycloakResilienceHealthIndicator.DEGRADED);
+        builder.withDetail("keyCount", state.keyCount())
+                .withDetail("maxKeyAge", probeService.getMaxKeyAge().toString());
+        if (state.lastKeyRefresh() != null) {
+            builder.withDetail("lastRefresh", state.lastKeyRefresh().toString())
+                    .withDetail("age", probeService.keyAge(state).toString());
+        }
+        return builder.build();
+    }
+}
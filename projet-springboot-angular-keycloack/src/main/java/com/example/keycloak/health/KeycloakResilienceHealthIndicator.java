@@ -0,0 +1,82 @@
+package com.example.keycloak.health;
+
+import com.example.keycloak.config.ConditionalOnNetworkKeys;
+import com.example.keycloak.resilience.CircuitBreaker;
+import com.example.keycloak.resilience.LastKnownGoodResourceRetriever;
+import com.example.keycloak.resilience.ResilienceGuard;
+import com.example.keycloak.resilience.ResilienceRegistry;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Capacité à valider les tokens malgré l'état de Keycloak
+ *
+ * - UP : JWKS à jour, disjoncteurs fermés
+ * - DEGRADED : validation sur les dernières clés connues, ou disjoncteur ouvert
+ *   (l'instance sert toujours les requêtes, HTTP 200)
+ * - DOWN : aucune clé utilisable (récupération en échec, ou clés périmées depuis plus de max-staleness)
+ * - UNKNOWN : JWKS pas encore récupéré (il l'est au premier token validé)
+ *
+ * Exposé sous le nom "keycloakResilience".
+ */
+@Component
+@ConditionalOnNetworkKeys
+public class KeycloakResilienceHealthIndicator implements HealthIndicator {
+
+    /**
+     * Instance opérationnelle, Keycloak indisponible ou dégradé
+     */
+    public static final Status DEGRADED = new Status("DEGRADED");
+
+    private final ResilienceRegistry registry;
+    private final LastKnownGoodResourceRetriever jwksRetriever;
+
+    public KeycloakResilienceHealthIndicator(ResilienceRegistry registry,
+                                             LastKnownGoodResourceRetriever jwksRetriever) {
+        this.registry = registry;
+        this.jwksRetriever = jwksRetriever;
+    }
+
+    @Override
+    public Health health() {
+        Map<String, Object> circuits = new LinkedHashMap<>();
+        boolean allClosed = true;
+        for (ResilienceGuard guard : registry.guards()) {
+            CircuitBreaker.State state = guard.getCircuitBreaker().getState();
+            allClosed &= state == CircuitBreaker.State.CLOSED;
+            Map<String, Object> circuit = new LinkedHashMap<>();
+            circuit.put("state", state.name());
+            circuit.put("failureRate", Math.round(guard.getCircuitBreaker().getFailureRate() * 100) / 100.0);
+            circuit.put("bulkheadAvailable", guard.getBulkhead().getAvailable());
+            circuits.put(guard.getName(), circuit);
+        }
+
+        Health.Builder builder;
+        if (jwksRetriever.getLastSuccess() == null) {
+            // Aucune clé récupérée : inconnu tant que la récupération n'échoue pas durablement
+            builder = jwksRetriever.getGuard().getCircuitBreaker().getState() == CircuitBreaker.State.CLOSED
+                    ? Health.unknown()
+                    : Health.down();
+        } else if (!jwksRetriever.isUsable()) {
+            builder = Health.down();
+        } else if (jwksRetriever.isDegraded() || !allClosed) {
+            builder = Health.status(DEGRADED);
+        } else {
+            builder = Health.up();
+        }
+        builder.withDetail("degraded", jwksRetriever.isDegraded())
+                .withDetail("maxStaleness", jwksRetriever.getMaxStaleness().toString());
+        if (jwksRetriever.getLastSuccess() != null) {
+            builder.withDetail("lastKeyFetch", jwksRetriever.getLastSuccess().toString());
+        }
+        if (jwksRetriever.getDegradedSince() != null) {
+            builder.withDetail("degradedSince", jwksRetriever.getDegradedSince().toString());
+        }
+        return builder.withDetail("circuits", circuits).build();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.keycloak.jfr;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Intercepteur Spring MVC émettant l'étape "controller" (exécution du handler)
+ *
+ * L'événement n'est créé et attaché à la requête que si un enregistrement JFR
+ * le demande. Le champ detail porte le nom de la méthode du controller.
+ */
+public class ControllerStageInterceptor implements HandlerInterceptor {
+
+    private static final String EVENT_ATTRIBUTE = ControllerStageInterceptor.class.getName() + ".EVENT";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            SecurityStageEvent event = SecurityStageEvent.begin(SecurityStageEvent.CONTROLLER);
+            if (event.isEnabled()) {
+                request.setAttribute(EVENT_ATTRIBUTE, event);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(EVENT_ATTRIBUTE) instanceof SecurityStageEvent event) {
+            request.removeAttribute(EVENT_ATTRIBUTE);
+            event.finish(((HandlerMethod) handler).getMethod().getName(), 0, 0,
+                    ex == null && response.getStatus() < 400);
+        }
+    }
+}
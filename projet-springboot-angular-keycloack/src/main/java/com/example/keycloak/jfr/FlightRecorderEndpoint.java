@@ -0,0 +1,190 @@
+package com.example.keycloak.jfr;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Endpoint Actuator /actuator/jfr : enregistrement JFR à la demande (réservé aux administrateurs)
+ *
+ * - POST /actuator/jfr {"duration": "PT60S", "settings": "profile"} : démarre un enregistrement
+ *   borné dans le temps (au plus jfr.max-duration) et en taille ; il s'arrête seul
+ * - DELETE /actuator/jfr : arrête l'enregistrement en cours
+ * - GET /actuator/jfr : état de l'enregistrement
+ * - GET /actuator/jfr/recording.jfr : téléchargement (instantané si l'enregistrement est en cours)
+ *
+ * Un seul enregistrement à la fois ; le précédent (et son fichier) est supprimé
+ * au démarrage du suivant. Les événements SecurityStageEvent sont toujours activés,
+ * sans seuil de durée, en plus des réglages JDK choisis (default ou profile).
+ */
+@Component
+@WebEndpoint(id = "jfr")
+public class FlightRecorderEndpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecorderEndpoint.class);
+    private static final String FILE_NAME = "recording.jfr";
+    private static final int STATUS_CONFLICT = 409;
+
+    private final Duration defaultDuration;
+    private final Duration maxDuration;
+    private final DataSize maxSize;
+
+    private Recording recording;
+    private Path file;
+    private Path snapshot;
+    private String settings;
+
+    public FlightRecorderEndpoint(@Value("${jfr.default-duration:PT60S}") Duration defaultDuration,
+                                  @Value("${jfr.max-duration:PT10M}") Duration maxDuration,
+                                  @Value("${jfr.max-size:100MB}") DataSize maxSize) {
+        this.defaultDuration = defaultDuration;
+        this.maxDuration = maxDuration;
+        this.maxSize = maxSize;
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        return describe();
+    }
+
+    /**
+     * Démarre un enregistrement
+     *
+     * @param duration Durée (défaut jfr.default-duration, plafonnée à jfr.max-duration)
+     * @param settings Réglages JDK : "default" (surcoût ~1 %) ou "profile" (échantillonnage plus fin)
+     */
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> start(@Nullable Duration duration,
+                                                                       @Nullable String settings) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return new WebEndpointResponse<>(describe(), STATUS_CONFLICT);
+        }
+        Duration effective = duration == null || duration.isNegative() || duration.isZero()
+                ? defaultDuration
+                : (duration.compareTo(maxDuration) > 0 ? maxDuration : duration);
+        String configurationName = settings != null ? settings : "default";
+        try {
+            discard();
+            Recording next = new Recording(Configuration.getConfiguration(configurationName));
+            next.enable(SecurityStageEvent.class).withoutThreshold();
+            next.setName("security-pipeline");
+            next.setToDisk(true);
+            next.setDuration(effective);
+            next.setMaxSize(maxSize.toBytes());
+            file = Files.createTempFile("security-pipeline-", ".jfr");
+            next.setDestination(file);
+            next.start();
+            recording = next;
+            this.settings = configurationName;
+            log.info("Enregistrement JFR démarré ({}, {})", configurationName, effective);
+            return new WebEndpointResponse<>(describe(), WebEndpointResponse.STATUS_OK);
+        } catch (ParseException | IOException | IllegalArgumentException e) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("error", "Réglages JFR inconnus ou illisibles : " + configurationName);
+            return new WebEndpointResponse<>(error, WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Arrête l'enregistrement en cours (le fichier reste téléchargeable)
+     */
+    @DeleteOperation
+    public synchronized Map<String, Object> stop() {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            log.info("Enregistrement JFR arrêté");
+        }
+        return describe();
+    }
+
+    /**
+     * Télécharge l'enregistrement ; s'il est en cours, un instantané est extrait
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> download(@Selector String name) {
+        if (!FILE_NAME.equals(name) || recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        try {
+            if (recording.getState() == RecordingState.RUNNING) {
+                // Un seul instantané conservé : le précédent est remplacé
+                deleteQuietly(snapshot);
+                snapshot = Files.createTempFile("security-pipeline-snapshot-", ".jfr");
+                recording.dump(snapshot);
+                return new WebEndpointResponse<>(new FileSystemResource(snapshot), WebEndpointResponse.STATUS_OK);
+            }
+            return new WebEndpointResponse<>(new FileSystemResource(file), WebEndpointResponse.STATUS_OK);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture de l'enregistrement JFR impossible", e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        discard();
+    }
+
+    private void discard() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+        deleteQuietly(file);
+        deleteQuietly(snapshot);
+        file = null;
+        snapshot = null;
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Suppression de {} impossible", path, e);
+        }
+    }
+
+    private Map<String, Object> describe() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (recording == null) {
+            status.put("state", "NONE");
+            return status;
+        }
+        status.put("state", recording.getState().name());
+        status.put("settings", settings);
+        status.put("started_at", recording.getStartTime());
+        status.put("stopped_at", recording.getStopTime());
+        status.put("duration", String.valueOf(recording.getDuration()));
+        status.put("size_bytes", recording.getState() == RecordingState.RUNNING
+                ? recording.getSize()
+                : file.toFile().length());
+        status.put("download", "/actuator/jfr/" + FILE_NAME);
+        return status;
+    }
+}
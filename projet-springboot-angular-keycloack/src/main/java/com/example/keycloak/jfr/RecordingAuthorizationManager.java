@@ -0,0 +1,57 @@
+package com.example.keycloak.jfr;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.server.resource.authentication.AbstractOAuth2TokenAuthenticationToken;
+
+import java.util.function.Supplier;
+
+/**
+ * Décorateur d'AuthorizationManager de Method Security émettant l'étape "authorize"
+ *
+ * Le champ detail porte le nom de la méthode protégée.
+ */
+public class RecordingAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+
+    private final AuthorizationManager<MethodInvocation> delegate;
+
+    public RecordingAuthorizationManager(AuthorizationManager<MethodInvocation> delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Méthode historique de l'API AuthorizationManager, délègue à authorize()
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        AuthorizationResult result = authorize(authentication, invocation);
+        if (result == null || result instanceof AuthorizationDecision) {
+            return (AuthorizationDecision) result;
+        }
+        return new AuthorizationDecision(result.isGranted());
+    }
+
+    @Override
+    public AuthorizationResult authorize(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        SecurityStageEvent event = SecurityStageEvent.begin(SecurityStageEvent.AUTHORIZE);
+        if (!event.isEnabled()) {
+            return delegate.authorize(authentication, invocation);
+        }
+        Authentication auth = authentication.get();
+        AuthorizationResult result = null;
+        try {
+            result = delegate.authorize(() -> auth, invocation);
+            return result;
+        } finally {
+            int tokenSize = auth instanceof AbstractOAuth2TokenAuthenticationToken<?> token
+                    ? token.getToken().getTokenValue().length()
+                    : 0;
+            int roleCount = auth != null ? auth.getAuthorities().size() : 0;
+            event.finish(invocation.getMethod().getName(), tokenSize, roleCount, result != null && result.isGranted());
+        }
+    }
+}
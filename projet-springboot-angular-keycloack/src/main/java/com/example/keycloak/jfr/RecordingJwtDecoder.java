@@ -0,0 +1,30 @@
+package com.example.keycloak.jfr;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * Décorateur de JwtDecoder émettant l'étape "decode" (pré-filtrage, signature et validation inclus)
+ */
+public class RecordingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+
+    public RecordingJwtDecoder(JwtDecoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        SecurityStageEvent event = SecurityStageEvent.begin(SecurityStageEvent.DECODE);
+        boolean success = false;
+        try {
+            Jwt jwt = delegate.decode(token);
+            success = true;
+            return jwt;
+        } finally {
+            event.finish(token != null ? token.length() : 0, 0, success);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.keycloak.jfr;
+
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Décorateur de validateur émettant l'étape "validate" (exp, nbf, iss, aud, azp)
+ */
+public class RecordingJwtValidator implements OAuth2TokenValidator<Jwt> {
+
+    private final OAuth2TokenValidator<Jwt> delegate;
+
+    public RecordingJwtValidator(OAuth2TokenValidator<Jwt> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public OAuth2TokenValidatorResult validate(Jwt token) {
+        SecurityStageEvent event = SecurityStageEvent.begin(SecurityStageEvent.VALIDATE);
+        OAuth2TokenValidatorResult result = null;
+        try {
+            result = delegate.validate(token);
+            return result;
+        } finally {
+            event.finish(token.getTokenValue().length(), 0, result != null && !result.hasErrors());
+        }
+    }
+}
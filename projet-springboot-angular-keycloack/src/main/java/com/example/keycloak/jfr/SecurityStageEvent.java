@@ -0,0 +1,88 @@
+package com.example.keycloak.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Événement JDK Flight Recorder émis à chaque étape du traitement sécurité d'une requête
+ *
+ * Hors enregistrement JFR, begin/end/shouldCommit se réduisent à un test de
+ * booléen : l'instrumentation reste compilée en permanence. Les champs ne sont
+ * renseignés que si l'événement sera effectivement écrit (shouldCommit).
+ *
+ * Usage :
+ * SecurityStageEvent event = SecurityStageEvent.begin(SecurityStageEvent.DECODE);
+ * ...
+ * event.finish(token.length(), 0, true);
+ */
+@Name("com.example.keycloak.SecurityStage")
+@Label("Security Stage")
+@Category({"Keycloak Demo", "Security"})
+@Description("Durée d'une étape du pipeline de sécurité (décodage, signature, validation, conversion, autorisation, controller)")
+@StackTrace(false)
+public class SecurityStageEvent extends Event {
+
+    public static final String DECODE = "decode";
+    public static final String SIGNATURE = "signature";
+    public static final String VALIDATE = "validate";
+    public static final String CONVERT = "convert";
+    public static final String AUTHORIZE = "authorize";
+    public static final String CONTROLLER = "controller";
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Detail")
+    @Description("Méthode, handler ou kid concerné")
+    String detail;
+
+    @Label("Token Size")
+    @DataAmount(DataAmount.BYTES)
+    int tokenSize;
+
+    @Label("Role Count")
+    int roleCount;
+
+    @Label("Success")
+    boolean success;
+
+    /**
+     * Démarre la mesure d'une étape
+     */
+    public static SecurityStageEvent begin(String stage) {
+        SecurityStageEvent event = new SecurityStageEvent();
+        event.stage = stage;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Termine la mesure et écrit l'événement si un enregistrement le demande
+     *
+     * @param tokenSize Taille du token encodé (0 si inconnue)
+     * @param roleCount Nombre de rôles de l'appelant (0 si inconnu)
+     * @param success false si l'étape a rejeté la requête ou échoué
+     */
+    public void finish(int tokenSize, int roleCount, boolean success) {
+        finish(null, tokenSize, roleCount, success);
+    }
+
+    /**
+     * @param detail Méthode, handler ou kid concerné (peut être null)
+     */
+    public void finish(String detail, int tokenSize, int roleCount, boolean success) {
+        end();
+        if (shouldCommit()) {
+            this.detail = detail;
+            this.tokenSize = tokenSize;
+            this.roleCount = roleCount;
+            this.success = success;
+            commit();
+        }
+    }
+}
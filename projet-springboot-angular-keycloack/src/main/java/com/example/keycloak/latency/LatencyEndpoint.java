@@ -0,0 +1,121 @@
+package com.example.keycloak.latency;
+
+import com.example.keycloak.config.LatencySloProperties;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Endpoint Actuator /actuator/latency : percentiles et consommation du budget d'erreur
+ *
+ * Pour chaque route (pattern), puis par résultat d'authentification et classe
+ * de rôle, et enfin par classe de rôle toutes routes confondues :
+ * - count, p50, p90, p99, p99.9 et max (millisecondes) sur la fenêtre glissante
+ * - slow : requêtes au-delà du seuil de la route
+ * - burn_rate : taux de requêtes lentes rapporté au budget d'erreur (1 - objectif) ;
+ *   1 consomme le budget exactement au rythme prévu, au-delà le SLO sera manqué
+ */
+@Component
+@Endpoint(id = "latency")
+public class LatencyEndpoint {
+
+    private final LatencySloTracker tracker;
+    private final LatencySloProperties properties;
+
+    public LatencyEndpoint(LatencySloTracker tracker, LatencySloProperties properties) {
+        this.tracker = tracker;
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public Map<String, Object> latency() {
+        Map<String, Aggregate> routes = new TreeMap<>();
+        Map<String, List<Map<String, Object>>> breakdowns = new TreeMap<>();
+        Map<String, Aggregate> roleClasses = new TreeMap<>();
+
+        for (LatencySloTracker.WindowSnapshot snapshot : tracker.snapshot()) {
+            long thresholdMicros = properties.thresholdFor(snapshot.route()).toNanos() / 1_000;
+            Aggregate series = new Aggregate().add(snapshot.histogram(), thresholdMicros);
+
+            routes.computeIfAbsent(snapshot.route(), route -> new Aggregate()).add(snapshot.histogram(), thresholdMicros);
+            roleClasses.computeIfAbsent(snapshot.roleClass().name(), roleClass -> new Aggregate())
+                    .add(snapshot.histogram(), thresholdMicros);
+
+            Map<String, Object> breakdown = new LinkedHashMap<>();
+            breakdown.put("outcome", snapshot.outcome().name());
+            breakdown.put("role_class", snapshot.roleClass().name());
+            breakdown.putAll(series.summary());
+            breakdowns.computeIfAbsent(snapshot.route(), route -> new ArrayList<>()).add(breakdown);
+        }
+
+        Map<String, Object> routeReports = new LinkedHashMap<>();
+        routes.forEach((route, aggregate) -> {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("threshold_ms", properties.thresholdFor(route).toMillis());
+            report.putAll(aggregate.summary());
+            report.put("breakdown", breakdowns.get(route));
+            routeReports.put(route, report);
+        });
+        Map<String, Object> roleClassReports = new LinkedHashMap<>();
+        roleClasses.forEach((roleClass, aggregate) -> roleClassReports.put(roleClass, aggregate.summary()));
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("window", tracker.window().toString());
+        response.put("objective", properties.getObjective());
+        response.put("routes", routeReports);
+        response.put("role_classes", roleClassReports);
+        return response;
+    }
+
+    /**
+     * Histogramme fusionné et nombre de requêtes lentes (seuils propres à chaque route)
+     */
+    private final class Aggregate {
+
+        private Histogram histogram;
+        private long slow;
+
+        Aggregate add(Histogram window, long thresholdMicros) {
+            if (histogram == null) {
+                histogram = window.copy();
+            } else {
+                histogram.add(window);
+            }
+            long total = window.getTotalCount();
+            slow += thresholdMicros >= window.getMaxValue()
+                    ? 0
+                    : total - window.getCountBetweenValues(0, thresholdMicros);
+            return this;
+        }
+
+        Map<String, Object> summary() {
+            long count = histogram.getTotalCount();
+            double budget = 1 - properties.getObjective();
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", count);
+            summary.put("p50_ms", millis(histogram.getValueAtPercentile(50)));
+            summary.put("p90_ms", millis(histogram.getValueAtPercentile(90)));
+            summary.put("p99_ms", millis(histogram.getValueAtPercentile(99)));
+            summary.put("p999_ms", millis(histogram.getValueAtPercentile(99.9)));
+            summary.put("max_ms", millis(histogram.getMaxValue()));
+            summary.put("slow", slow);
+            summary.put("burn_rate", budget > 0 ? round((double) slow / count / budget) : 0.0);
+            return summary;
+        }
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
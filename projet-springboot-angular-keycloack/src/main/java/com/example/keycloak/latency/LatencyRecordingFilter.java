@@ -0,0 +1,102 @@
+package com.example.keycloak.latency;
+
+import com.example.keycloak.warmup.WarmupTokenIssuer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Mesure la durée de chaque requête /api/** et l'enregistre dans LatencySloTracker
+ *
+ * Placé avant la chaîne Spring Security pour inclure le décodage du token.
+ * Une fois la requête traitée, on lit :
+ * - le pattern de la route (attribut posé par le DispatcherServlet)
+ * - le SecurityContext conservé en attribut de requête (mode stateless)
+ * - le statut HTTP (401 / 403)
+ *
+ * Les requêtes de la chauffe JIT (token de chauffe) ne sont pas enregistrées :
+ * exécutées à froid, elles fausseraient les percentiles du SLO.
+ */
+public class LatencyRecordingFilter extends OncePerRequestFilter {
+
+    private static final String API_PREFIX = "/api/";
+
+    private final LatencySloTracker tracker;
+
+    public LatencyRecordingFilter(LatencySloTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(API_PREFIX, request.getContextPath().length());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!WarmupTokenIssuer.isWarmupRequest(request)) {
+                long micros = (System.nanoTime() - start) / 1_000;
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                Authentication authentication = authentication(request);
+                tracker.record(pattern instanceof String route ? route : LatencySloTracker.UNMAPPED,
+                        outcome(response.getStatus(), authentication),
+                        roleClass(authentication),
+                        micros);
+            }
+        }
+    }
+
+    static LatencySloTracker.AuthOutcome outcome(int status, Authentication authentication) {
+        if (status == HttpServletResponse.SC_UNAUTHORIZED) {
+            return LatencySloTracker.AuthOutcome.UNAUTHORIZED;
+        }
+        if (status == HttpServletResponse.SC_FORBIDDEN) {
+            return LatencySloTracker.AuthOutcome.FORBIDDEN;
+        }
+        return authentication != null && authentication.isAuthenticated()
+                ? LatencySloTracker.AuthOutcome.AUTHENTICATED
+                : LatencySloTracker.AuthOutcome.ANONYMOUS;
+    }
+
+    static LatencySloTracker.RoleClass roleClass(Authentication authentication) {
+        if (authentication == null) {
+            return LatencySloTracker.RoleClass.NONE;
+        }
+        LatencySloTracker.RoleClass roleClass = LatencySloTracker.RoleClass.NONE;
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            switch (String.valueOf(authority.getAuthority())) {
+                case "ROLE_ADMIN" -> {
+                    return LatencySloTracker.RoleClass.ADMIN;
+                }
+                case "ROLE_MANAGER" -> roleClass = LatencySloTracker.RoleClass.MANAGER;
+                case "ROLE_USER" -> {
+                    if (roleClass == LatencySloTracker.RoleClass.NONE) {
+                        roleClass = LatencySloTracker.RoleClass.USER;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return roleClass;
+    }
+
+    private static Authentication authentication(HttpServletRequest request) {
+        Object context = request.getAttribute(RequestAttributeSecurityContextRepository.DEFAULT_REQUEST_ATTR_NAME);
+        return context instanceof SecurityContext securityContext ? securityContext.getAuthentication() : null;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.keycloak.latency;
+
+import com.example.keycloak.config.LatencySloProperties;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.PackedHistogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Latences par route, résultat d'authentification et classe de rôle (HdrHistogram)
+ *
+ * Enregistrement sans verrou ni allocation : chaque série possède un Recorder
+ * HdrHistogram (écriture wait-free) ; la série n'est allouée qu'au premier
+ * échantillon de sa combinaison (route, résultat, rôle).
+ *
+ * Fenêtre glissante : à chaque intervalle, le scheduler bascule l'histogramme
+ * d'intervalle de chaque Recorder dans un anneau de N histogrammes compacts
+ * (PackedHistogram). Le rapport agrège l'anneau : la fenêtre couvre
+ * les N derniers intervalles complets.
+ *
+ * Le nombre de routes suivies est borné ; au-delà, les échantillons sont
+ * comptés sous la route "other".
+ */
+@Component
+public class LatencySloTracker {
+
+    /**
+     * Route utilisée lorsque la requête n'a pas atteint de handler (ex: 401 de la chaîne de filtres)
+     */
+    public static final String UNMAPPED = "unmapped";
+
+    static final String OVERFLOW = "other";
+
+    private static final long HIGHEST_TRACKABLE_MICROS = Duration.ofSeconds(60).toNanos() / 1_000;
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final int OUTCOMES = AuthOutcome.values().length;
+    private static final int ROLE_CLASSES = RoleClass.values().length;
+
+    /**
+     * Résultat d'authentification / autorisation de la requête
+     */
+    public enum AuthOutcome {
+        ANONYMOUS, AUTHENTICATED, UNAUTHORIZED, FORBIDDEN
+    }
+
+    /**
+     * Rôle le plus élevé de l'appelant
+     */
+    public enum RoleClass {
+        ADMIN, MANAGER, USER, NONE
+    }
+
+    /**
+     * Histogramme de la fenêtre glissante d'une série
+     */
+    public record WindowSnapshot(String route, AuthOutcome outcome, RoleClass roleClass, Histogram histogram) {
+    }
+
+    private final Map<String, AtomicReferenceArray<Series>> routes = new ConcurrentHashMap<>();
+    private final int windowIntervals;
+    private final int maxRoutes;
+    private final Duration interval;
+
+    public LatencySloTracker(LatencySloProperties properties) {
+        this.interval = properties.getInterval();
+        this.windowIntervals = properties.getWindowIntervals();
+        this.maxRoutes = properties.getMaxRoutes();
+    }
+
+    /**
+     * Enregistre une latence (chemin critique : aucune allocation une fois la série créée)
+     *
+     * @param route Pattern de la route (ex: /api/advanced/profile/{username})
+     * @param outcome Résultat d'authentification
+     * @param roleClass Classe de rôle de l'appelant
+     * @param micros Durée en microsecondes
+     */
+    public void record(String route, AuthOutcome outcome, RoleClass roleClass, long micros) {
+        AtomicReferenceArray<Series> series = routes.get(route);
+        if (series == null) {
+            series = routeSeries(route);
+        }
+        int index = outcome.ordinal() * ROLE_CLASSES + roleClass.ordinal();
+        Series target = series.get(index);
+        if (target == null) {
+            series.compareAndSet(index, null, new Series(windowIntervals));
+            target = series.get(index);
+        }
+        target.recorder.recordValue(Math.max(1, Math.min(micros, HIGHEST_TRACKABLE_MICROS)));
+    }
+
+    /**
+     * Fait glisser la fenêtre d'un intervalle
+     */
+    @Scheduled(fixedRateString = "${latency.slo.interval:PT10S}")
+    public void rotate() {
+        for (AtomicReferenceArray<Series> series : routes.values()) {
+            for (int i = 0; i < series.length(); i++) {
+                Series target = series.get(i);
+                if (target != null) {
+                    target.rotate();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Histogramme agrégé de la fenêtre pour chaque série ayant reçu des échantillons
+     */
+    public List<WindowSnapshot> snapshot() {
+        List<WindowSnapshot> snapshots = new ArrayList<>();
+        routes.forEach((route, series) -> {
+            for (int i = 0; i < series.length(); i++) {
+                Series target = series.get(i);
+                if (target == null) {
+                    continue;
+                }
+                Histogram window = target.window();
+                if (window.getTotalCount() > 0) {
+                    snapshots.add(new WindowSnapshot(route, AuthOutcome.values()[i / ROLE_CLASSES],
+                            RoleClass.values()[i % ROLE_CLASSES], window));
+                }
+            }
+        });
+        return snapshots;
+    }
+
+    /**
+     * @return Durée couverte par la fenêtre glissante
+     */
+    public Duration window() {
+        return interval.multipliedBy(windowIntervals);
+    }
+
+    private AtomicReferenceArray<Series> routeSeries(String route) {
+        if (routes.size() >= maxRoutes && !routes.containsKey(route)) {
+            route = OVERFLOW;
+        }
+        return routes.computeIfAbsent(route, key -> new AtomicReferenceArray<>(OUTCOMES * ROLE_CLASSES));
+    }
+
+    /**
+     * Recorder d'une série et anneau des derniers intervalles
+     */
+    private static final class Series {
+
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private final PackedHistogram[] ring;
+        private Histogram spare;
+        private int position;
+
+        Series(int windowIntervals) {
+            ring = new PackedHistogram[windowIntervals];
+            for (int i = 0; i < windowIntervals; i++) {
+                ring[i] = new PackedHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+            }
+        }
+
+        synchronized void rotate() {
+            spare = recorder.getIntervalHistogram(spare);
+            position = (position + 1) % ring.length;
+            ring[position].reset();
+            ring[position].add(spare);
+        }
+
+        synchronized Histogram window() {
+            Histogram window = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+            for (PackedHistogram interval : ring) {
+                window.add(interval);
+            }
+            return window;
+        }
+    }
+}
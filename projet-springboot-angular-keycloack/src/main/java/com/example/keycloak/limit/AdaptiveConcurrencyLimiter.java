@@ -0,0 +1,136 @@
+package com.example.keycloak.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite de concurrence adaptative (algorithme à gradient, inspiré de TCP Vegas)
+ *
+ * La limite n'est pas fixée à la main : elle suit le rapport entre la latence
+ * de référence (moyenne exponentielle longue) et la latence récente (moyenne
+ * de la dernière fenêtre d'échantillons) :
+ * - latence récente stable : gradient = 1, la limite croît d'environ √limite par fenêtre
+ * - latence récente qui dérive (file d'attente qui se forme) : gradient < 1, la limite baisse
+ *
+ * Le gradient est borné à [0.5, 1] et lissé pour éviter les oscillations.
+ * La limite ne croît pas lorsque moins de la moitié est utilisée (charge applicative
+ * insuffisante pour conclure). Après un pic prolongé, la latence de référence est
+ * ramenée progressivement vers la latence récente.
+ *
+ * Les requêtes admises sont comptées dans inFlight ; chaque acquisition doit être
+ * suivie d'un release (avec ou sans échantillon de latence).
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double tolerance;
+    private final int windowSize;
+    private final double longWindowWeight;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // Fenêtre d'échantillons courante et latence de référence (protégées par this)
+    private long windowRttSum;
+    private int windowCount;
+    private double longRtt;
+
+    /**
+     * @param initialLimit Limite au démarrage
+     * @param minLimit Limite plancher (la limite ne descend jamais en dessous)
+     * @param maxLimit Limite plafond
+     * @param smoothing Poids de la nouvelle limite calculée (0..1)
+     * @param tolerance Dérive de latence tolérée avant réduction (ex: 1.5 = +50 %)
+     * @param windowSize Nombre d'échantillons par fenêtre de recalcul
+     * @param longWindow Nombre de fenêtres de la moyenne exponentielle de référence
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double smoothing, double tolerance, int windowSize, int longWindow) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Bornes de limite invalides : [" + minLimit + ", " + maxLimit + "]");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.tolerance = tolerance;
+        this.windowSize = windowSize;
+        this.longWindowWeight = 1.0 / longWindow;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Tente de réserver une place
+     *
+     * @param share Part de la limite accessible à l'appelant (1.0 : toute la limite) ;
+     *              les requêtes moins prioritaires sont rejetées plus tôt
+     * @return true si la requête est admise (release obligatoire ensuite)
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) Math.ceil(limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libère une place et enregistre la latence observée
+     *
+     * @param rttNanos Durée de traitement de la requête
+     */
+    public void release(long rttNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        sample(rttNanos, inFlightBefore);
+    }
+
+    /**
+     * Libère une place sans échantillon (requête abandonnée avant traitement)
+     */
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void sample(long rttNanos, int inFlightBefore) {
+        windowRttSum += rttNanos;
+        windowCount++;
+        if (windowCount < windowSize) {
+            return;
+        }
+        double shortRtt = (double) windowRttSum / windowCount;
+        windowRttSum = 0;
+        windowCount = 0;
+
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+        } else {
+            longRtt = longRtt * (1 - longWindowWeight) + shortRtt * longWindowWeight;
+        }
+        // Sortie d'un pic prolongé : la référence a été tirée vers le haut, on la fait redescendre
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        int current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        if (gradient >= 1.0 && inFlightBefore < current / 2) {
+            return;
+        }
+        double target = current * gradient + Math.sqrt(current);
+        double smoothed = current * (1 - smoothing) + target * smoothing;
+        limit = (int) Math.max(minLimit, Math.min(maxLimit, Math.round(smoothed)));
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
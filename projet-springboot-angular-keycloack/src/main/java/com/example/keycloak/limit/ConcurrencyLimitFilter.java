@@ -0,0 +1,171 @@
+package com.example.keycloak.limit;
+
+import com.example.keycloak.warmup.WarmupTokenIssuer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Délestage des requêtes au-delà de la capacité mesurée du service
+ *
+ * Enregistré avant la chaîne Spring Security : une requête rejetée ne coûte
+ * ni décodage JWT ni vérification de signature. Chaque requête doit obtenir :
+ * - une place dans la limite de son groupe de routes (isolation entre groupes)
+ * - une place dans la limite globale, dans la part accordée à sa priorité
+ *
+ * À défaut, la réponse est immédiate : 503 avec Retry-After, plutôt qu'une
+ * attente dans la file Tomcat qui ferait expirer toutes les requêtes.
+ * Les routes hors groupe ne sont pas limitées. Les requêtes de la chauffe JIT
+ * occupent une place mais ne fournissent pas d'échantillon : exécutées à froid,
+ * elles fausseraient la latence de référence des limites adaptatives.
+ *
+ * Métriques (étiquette "group", "global" pour la limite partagée) :
+ * - http.concurrency.limit et http.concurrency.in_flight (jauges)
+ * - http.concurrency.rejected (compteur, étiquette "limit" : limite atteinte, group ou global)
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * Groupe de routes et sa limite propre
+     *
+     * @param name Nom du groupe (étiquette des métriques)
+     * @param patterns Préfixes d'URL (hors context path)
+     * @param priority Priorité face à la limite globale
+     * @param limiter Limite propre au groupe
+     */
+    public record RouteGroup(String name, List<String> patterns, RequestPriority priority,
+                             AdaptiveConcurrencyLimiter limiter) {
+
+        public RouteGroup {
+            patterns = List.copyOf(patterns);
+        }
+
+        boolean matches(String path) {
+            for (String pattern : patterns) {
+                if (path.startsWith(pattern)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final List<Route> routes;
+    private final AdaptiveConcurrencyLimiter global;
+    private final String retryAfter;
+
+    /**
+     * @param groups Groupes de routes, évalués dans l'ordre
+     * @param global Limite partagée par tous les groupes
+     * @param retryAfter Délai suggéré dans l'en-tête Retry-After
+     * @param meterRegistry Registre des métriques
+     */
+    public ConcurrencyLimitFilter(List<RouteGroup> groups, AdaptiveConcurrencyLimiter global,
+                                  Duration retryAfter, MeterRegistry meterRegistry) {
+        this.global = global;
+        this.retryAfter = Long.toString(Math.max(1, retryAfter.toSeconds()));
+        registerGauges(meterRegistry, "global", global);
+        this.routes = groups.stream()
+                .map(group -> {
+                    registerGauges(meterRegistry, group.name(), group.limiter());
+                    return new Route(group,
+                            rejectedCounter(meterRegistry, group.name(), "group"),
+                            rejectedCounter(meterRegistry, group.name(), "global"),
+                            ("{\"error\":\"Service temporairement surchargé\",\"group\":\"" + group.name() + "\"}")
+                                    .getBytes(StandardCharsets.UTF_8));
+                })
+                .toList();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Route route = resolve(request);
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        AdaptiveConcurrencyLimiter groupLimiter = route.group().limiter();
+        if (!groupLimiter.tryAcquire(1.0)) {
+            route.groupRejected().increment();
+            reject(response, route);
+            return;
+        }
+        if (!global.tryAcquire(route.group().priority().share())) {
+            groupLimiter.releaseWithoutSample();
+            route.globalRejected().increment();
+            reject(response, route);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted() || WarmupTokenIssuer.isWarmupRequest(request)) {
+                // Flux long (SSE) : le temps d'ouverture n'est pas une latence de la route ;
+                // chauffe JIT : latence à froid, non représentative
+                groupLimiter.releaseWithoutSample();
+                global.releaseWithoutSample();
+            } else {
+                long rtt = System.nanoTime() - start;
+                groupLimiter.release(rtt);
+                global.release(rtt);
+            }
+        }
+    }
+
+    private Route resolve(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Route route : routes) {
+            if (route.group().matches(path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private void reject(HttpServletResponse response, Route route) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(route.body().length);
+        response.getOutputStream().write(route.body());
+    }
+
+    private static void registerGauges(MeterRegistry meterRegistry, String group, AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder("http.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Limite de concurrence adaptative")
+                .tag("group", group)
+                .register(meterRegistry);
+        Gauge.builder("http.concurrency.in_flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requêtes en cours de traitement")
+                .tag("group", group)
+                .register(meterRegistry);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String group, String limit) {
+        return Counter.builder("http.concurrency.rejected")
+                .description("Requêtes délestées (503)")
+                .tag("group", group)
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+
+    private record Route(RouteGroup group, Counter groupRejected, Counter globalRejected, byte[] body) {
+    }
+}
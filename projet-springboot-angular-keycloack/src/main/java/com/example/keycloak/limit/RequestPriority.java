@@ -0,0 +1,28 @@
+package com.example.keycloak.limit;
+
+/**
+ * Priorité d'un groupe de routes face à la limite globale
+ *
+ * Chaque priorité n'a accès qu'à une part de la limite globale : en cas de
+ * saturation, les requêtes LOW sont rejetées les premières et les requêtes
+ * CRITICAL (administration, sondes de santé) en dernier.
+ */
+public enum RequestPriority {
+
+    LOW(0.7),
+    NORMAL(0.9),
+    CRITICAL(1.0);
+
+    private final double share;
+
+    RequestPriority(double share) {
+        this.share = share;
+    }
+
+    /**
+     * @return Part de la limite globale accessible (0..1)
+     */
+    public double share() {
+        return share;
+    }
+}
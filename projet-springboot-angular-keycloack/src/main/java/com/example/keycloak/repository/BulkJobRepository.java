@@ -0,0 +1,120 @@
+package com.example.keycloak.repository;
+
+import com.example.keycloak.dto.BulkJobDto;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Accès JDBC à la file persistante des jobs de mise à jour en masse
+ *
+ * Tables : bulk_job (état), bulk_job_item (éléments), bulk_job_chunk (checkpoints)
+ */
+@Repository
+public class BulkJobRepository {
+
+    private static final RowMapper<BulkJobDto> JOB_MAPPER = (rs, rowNum) -> new BulkJobDto(
+        rs.getString("id"),
+        rs.getString("operation"),
+        rs.getString("submitted_by"),
+        BulkJobDto.Status.valueOf(rs.getString("status")),
+        rs.getInt("total_items"),
+        rs.getInt("processed_items"),
+        rs.getInt("chunk_size"),
+        rs.getString("last_error"),
+        rs.getTimestamp("created_at").toInstant(),
+        rs.getTimestamp("updated_at").toInstant()
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BulkJobRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Enregistre un nouveau job et ses éléments (insertion par lots)
+     */
+    @Transactional
+    public void insert(BulkJobDto job, List<String> payloads) {
+        jdbcTemplate.update(
+            "INSERT INTO bulk_job (id, operation, submitted_by, status, total_items, chunk_size) VALUES (?, ?, ?, ?, ?, ?)",
+            job.getId(), job.getOperation(), job.getSubmittedBy(), job.getStatus().name(),
+            job.getTotalItems(), job.getChunkSize());
+
+        List<Object[]> rows = new ArrayList<>(payloads.size());
+        for (int index = 0; index < payloads.size(); index++) {
+            rows.add(new Object[]{job.getId(), index, payloads.get(index)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO bulk_job_item (job_id, item_index, payload) VALUES (?, ?, ?)", rows);
+    }
+
+    public Optional<BulkJobDto> findById(String id) {
+        return jdbcTemplate.query("SELECT * FROM bulk_job WHERE id = ?", JOB_MAPPER, id)
+            .stream().findFirst();
+    }
+
+    public List<BulkJobDto> findAll() {
+        return jdbcTemplate.query("SELECT * FROM bulk_job ORDER BY created_at DESC", JOB_MAPPER);
+    }
+
+    /**
+     * @return jobs à exécuter ou à reprendre, du plus ancien au plus récent
+     */
+    public List<BulkJobDto> findRunnable() {
+        return jdbcTemplate.query(
+            "SELECT * FROM bulk_job WHERE status IN ('PENDING', 'RUNNING', 'PAUSED') ORDER BY created_at",
+            JOB_MAPPER);
+    }
+
+    /**
+     * @return payloads d'un chunk, dans l'ordre des éléments
+     */
+    public List<String> findChunkPayloads(String jobId, int chunkIndex, int chunkSize) {
+        int from = chunkIndex * chunkSize;
+        return jdbcTemplate.queryForList(
+            "SELECT payload FROM bulk_job_item WHERE job_id = ? AND item_index >= ? AND item_index < ? ORDER BY item_index",
+            String.class, jobId, from, from + chunkSize);
+    }
+
+    /**
+     * @return index des chunks déjà exécutés (checkpoints)
+     */
+    public Set<Integer> findCompletedChunks(String jobId) {
+        return new HashSet<>(jdbcTemplate.queryForList(
+            "SELECT chunk_index FROM bulk_job_chunk WHERE job_id = ?", Integer.class, jobId));
+    }
+
+    /**
+     * Enregistre le checkpoint d'un chunk et met à jour la progression du job
+     * (une seule transaction : checkpoint et compteur ne divergent jamais)
+     */
+    @Transactional
+    public void markChunkCompleted(String jobId, int chunkIndex, int itemCount) {
+        try {
+            jdbcTemplate.update(
+                "INSERT INTO bulk_job_chunk (job_id, chunk_index) VALUES (?, ?)", jobId, chunkIndex);
+        } catch (DuplicateKeyException e) {
+            return; // Chunk déjà comptabilisé (ré-exécution après reprise)
+        }
+        jdbcTemplate.update(
+            "UPDATE bulk_job SET processed_items = processed_items + ?, updated_at = ? WHERE id = ?",
+            itemCount, Timestamp.from(Instant.now()), jobId);
+    }
+
+    public void updateStatus(String jobId, BulkJobDto.Status status, String lastError) {
+        jdbcTemplate.update(
+            "UPDATE bulk_job SET status = ?, last_error = ?, updated_at = ? WHERE id = ?",
+            status.name(), lastError, Timestamp.from(Instant.now()), jobId);
+    }
+}
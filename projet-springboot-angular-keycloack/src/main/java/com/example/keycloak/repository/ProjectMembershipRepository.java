@@ -0,0 +1,61 @@
+package com.example.keycloak.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Accès JDBC à la table project_membership
+ *
+ * Source de vérité persistante des ACL projets. Les vérifications d'accès
+ * ne l'interrogent jamais directement : elles passent par l'index mémoire
+ * de ProjectAccessService, alimenté au démarrage puis mis à jour à chaque écriture.
+ */
+@Repository
+public class ProjectMembershipRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProjectMembershipRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Parcourt toutes les appartenances en streaming, triées par utilisateur
+     *
+     * @param consumer Reçoit chaque couple (username, projectId)
+     */
+    public void forEachMembership(BiConsumer<String, String> consumer) {
+        jdbcTemplate.query(
+            "SELECT username, project_id FROM project_membership ORDER BY username",
+            rs -> {
+                consumer.accept(rs.getString("username"), rs.getString("project_id"));
+            });
+    }
+
+    /**
+     * Ajoute une appartenance (sans effet si elle existe déjà)
+     *
+     * @param username Nom d'utilisateur
+     * @param projectId ID du projet
+     */
+    public void insert(String username, String projectId) {
+        jdbcTemplate.update(
+            "MERGE INTO project_membership (username, project_id) KEY (username, project_id) VALUES (?, ?)",
+            username, projectId);
+    }
+
+    /**
+     * Supprime une appartenance
+     *
+     * @param username Nom d'utilisateur
+     * @param projectId ID du projet
+     * @return true si une ligne a été supprimée
+     */
+    public boolean delete(String username, String projectId) {
+        return jdbcTemplate.update(
+            "DELETE FROM project_membership WHERE username = ? AND project_id = ?",
+            username, projectId) > 0;
+    }
+}
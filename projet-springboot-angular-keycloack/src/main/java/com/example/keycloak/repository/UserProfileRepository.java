@@ -0,0 +1,85 @@
+package com.example.keycloak.repository;
+
+import com.example.keycloak.dto.UserDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Accès JDBC à la table user_profile
+ *
+ * Les écritures arrivent par lots (UserProfileService.flush()) : une seule
+ * instruction MERGE par utilisateur actif depuis le lot précédent, quel que
+ * soit le nombre de requêtes qu'il a envoyées entre-temps.
+ */
+@Repository
+public class UserProfileRepository {
+
+    private static final RowMapper<UserDto> PROFILE_MAPPER = (rs, rowNum) -> {
+        UserDto profile = new UserDto(
+            rs.getString("subject"),
+            rs.getString("username"),
+            rs.getString("email"),
+            rs.getString("full_name"));
+        profile.setLastLogin(rs.getTimestamp("last_login").toInstant());
+        profile.setLastSeen(rs.getTimestamp("last_seen").toInstant());
+        return profile;
+    };
+
+    /**
+     * Les dates ne reculent jamais (lot rejoué après un échec, horloges de plusieurs instances) ;
+     * email et nom complet ne sont remplacés que par une valeur connue
+     */
+    private static final String UPSERT_ACTIVITY = """
+        MERGE INTO user_profile t
+        USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)),
+                       CAST(? AS VARCHAR(255)), CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP)))
+              s (username, subject, email, full_name, last_login, last_seen)
+        ON t.username = s.username
+        WHEN MATCHED THEN UPDATE SET
+            subject    = COALESCE(s.subject, t.subject),
+            email      = COALESCE(s.email, t.email),
+            full_name  = COALESCE(s.full_name, t.full_name),
+            last_login = GREATEST(t.last_login, s.last_login),
+            last_seen  = GREATEST(t.last_seen, s.last_seen)
+        WHEN NOT MATCHED THEN INSERT (username, subject, email, full_name, first_login, last_login, last_seen)
+            VALUES (s.username, s.subject, s.email, s.full_name, s.last_login, s.last_login, s.last_seen)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserProfileRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param username Nom d'utilisateur
+     * @return Profil enregistré, ou null si l'utilisateur n'a jamais été vu
+     */
+    public UserDto findByUsername(String username) {
+        List<UserDto> profiles = jdbcTemplate.query(
+            "SELECT username, subject, email, full_name, last_login, last_seen FROM user_profile WHERE username = ?",
+            PROFILE_MAPPER, username);
+        return profiles.isEmpty() ? null : profiles.get(0);
+    }
+
+    /**
+     * Enregistre l'activité d'un lot d'utilisateurs (insertion ou mise à jour, par lots JDBC)
+     *
+     * @param activity Une entrée par utilisateur (lastLogin et lastSeen renseignés)
+     */
+    public void upsertActivity(Collection<UserDto> activity) {
+        List<Object[]> rows = new ArrayList<>(activity.size());
+        for (UserDto profile : activity) {
+            rows.add(new Object[]{
+                profile.getUsername(), profile.getId(), profile.getEmail(), profile.getFullName(),
+                Timestamp.from(profile.getLastLogin()), Timestamp.from(profile.getLastSeen())});
+        }
+        jdbcTemplate.batchUpdate(UPSERT_ACTIVITY, rows);
+    }
+}
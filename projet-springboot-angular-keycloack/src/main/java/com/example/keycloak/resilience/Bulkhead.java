@@ -0,0 +1,62 @@
+package com.example.keycloak.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cloison : nombre d'appels simultanés borné par type d'appel
+ *
+ * Un Keycloak lent ne peut immobiliser qu'un nombre fixe de threads par type
+ * d'appel (JWKS, sondes, tokens, administration) ; au-delà, l'appel attend
+ * au plus maxWait puis échoue.
+ */
+public final class Bulkhead {
+
+    private final int maxConcurrent;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+
+    /**
+     * @param maxConcurrent Nombre maximal d'appels simultanés
+     * @param maxWait Attente maximale d'une place
+     */
+    public Bulkhead(int maxConcurrent, Duration maxWait) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent doit être positif : " + maxConcurrent);
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * @return true si une place a été obtenue (release obligatoire ensuite)
+     */
+    public boolean tryAcquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (maxWaitNanos <= 0) {
+            return false;
+        }
+        try {
+            return permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getAvailable() {
+        return permits.availablePermits();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.keycloak.resilience;
+
+import java.io.IOException;
+
+/**
+ * Appel refusé sans être tenté (disjoncteur ouvert ou cloison pleine)
+ *
+ * Sous-classe d'IOException : les clients HTTP (RestClient, récupération du JWKS
+ * par Nimbus) la traitent comme une erreur d'entrée / sortie ordinaire.
+ */
+public class CallNotPermittedException extends IOException {
+
+    public CallNotPermittedException(String message) {
+        super(message);
+    }
+}
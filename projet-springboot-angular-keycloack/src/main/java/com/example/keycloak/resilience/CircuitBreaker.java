@@ -0,0 +1,167 @@
+package com.example.keycloak.resilience;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Disjoncteur à fenêtre glissante par nombre d'appels
+ *
+ * - CLOSED : appels autorisés ; les résultats des N derniers appels sont conservés.
+ *   Dès que minimumCalls résultats sont connus et que le taux d'échec atteint
+ *   le seuil, le disjoncteur s'ouvre
+ * - OPEN : appels refusés immédiatement pendant openDuration (aucun thread bloqué
+ *   sur un Keycloak lent ou injoignable)
+ * - HALF_OPEN : quelques appels d'essai ; tous réussis -> CLOSED, un échec -> OPEN
+ *
+ * Chaque permission accordée doit être suivie de onSuccess, onFailure ou releasePermission.
+ * Les transitions sont protégées par this : les appels protégés sont des appels
+ * réseau, le coût du verrou est négligeable.
+ */
+public final class CircuitBreaker {
+
+    /**
+     * État du disjoncteur
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final Duration openDuration;
+    private final int halfOpenCalls;
+    private final Clock clock;
+
+    // Résultats des derniers appels (true = échec), en anneau
+    private final boolean[] outcomes;
+    private int position;
+    private int recorded;
+    private int failures;
+
+    private volatile State state = State.CLOSED;
+    private Instant openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    /**
+     * @param failureRateThreshold Taux d'échec déclenchant l'ouverture (0..1)
+     * @param slidingWindowSize Nombre d'appels pris en compte
+     * @param minimumCalls Nombre d'appels minimal avant de calculer le taux
+     * @param openDuration Durée d'ouverture avant les appels d'essai
+     * @param halfOpenCalls Nombre d'appels d'essai
+     * @param clock Horloge
+     */
+    public CircuitBreaker(double failureRateThreshold, int slidingWindowSize, int minimumCalls,
+                          Duration openDuration, int halfOpenCalls, Clock clock) {
+        if (slidingWindowSize < 1 || minimumCalls < 1 || halfOpenCalls < 1) {
+            throw new IllegalArgumentException("Paramètres de disjoncteur invalides");
+        }
+        this.failureRateThreshold = failureRateThreshold;
+        this.outcomes = new boolean[slidingWindowSize];
+        this.minimumCalls = Math.min(minimumCalls, slidingWindowSize);
+        this.openDuration = openDuration;
+        this.halfOpenCalls = halfOpenCalls;
+        this.clock = clock;
+    }
+
+    /**
+     * @return true si l'appel peut être tenté (onSuccess / onFailure / releasePermission obligatoire ensuite)
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.instant().isBefore(openedAt.plus(openDuration))) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenPermits = 0;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= halfOpenCalls) {
+                return false;
+            }
+            halfOpenPermits++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && getFailureRate() >= failureRateThreshold) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * Rend une permission sans résultat (appel finalement non tenté)
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return Taux d'échec sur la fenêtre courante (0 si aucun appel)
+     */
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0 : (double) failures / recorded;
+    }
+
+    /**
+     * @return Date de la dernière ouverture (null si jamais ouvert)
+     */
+    public synchronized Instant getOpenedAt() {
+        return openedAt;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[position]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[position] = failure;
+        if (failure) {
+            failures++;
+        }
+        position = (position + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.instant();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        recorded = 0;
+        failures = 0;
+        position = 0;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.keycloak.resilience;
+
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URL;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Récupération du JWKS protégée, avec mode dégradé sur les dernières clés valides
+ *
+ * Chaque récupération passe par le disjoncteur et la cloison "jwks". En cas d'échec
+ * (Keycloak lent, injoignable ou disjoncteur ouvert), le dernier JWKS obtenu est
+ * renvoyé tant qu'il a moins de maxStaleness : les tokens signés par des clés
+ * connues restent acceptés pendant la panne. Au-delà, l'échec est propagé et les
+ * tokens sont rejetés (une clé révoquée ne doit pas rester valide indéfiniment).
+ *
+ * Métriques : keycloak.jwks.degraded (0/1), keycloak.jwks.stale.served (JWKS périmés servis).
+ */
+public class LastKnownGoodResourceRetriever implements ResourceRetriever {
+
+    private static final Logger log = LoggerFactory.getLogger(LastKnownGoodResourceRetriever.class);
+
+    private final ResourceRetriever delegate;
+    private final ResilienceGuard guard;
+    private final Duration maxStaleness;
+    private final Clock clock;
+    private final Counter staleServed;
+
+    private volatile LastKnownGood lastKnownGood;
+    private volatile Instant degradedSince;
+
+    /**
+     * @param delegate Récupération HTTP (timeouts de connexion et de lecture courts)
+     * @param guard Disjoncteur et cloison des appels JWKS
+     * @param maxStaleness Durée maximale du mode dégradé, comptée depuis la dernière récupération réussie
+     * @param clock Horloge
+     * @param meterRegistry Registre des métriques
+     */
+    public LastKnownGoodResourceRetriever(ResourceRetriever delegate, ResilienceGuard guard, Duration maxStaleness,
+                                          Clock clock, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.guard = guard;
+        this.maxStaleness = maxStaleness;
+        this.clock = clock;
+        this.staleServed = Counter.builder("keycloak.jwks.stale.served")
+                .description("JWKS périmés servis pendant une indisponibilité de Keycloak")
+                .register(meterRegistry);
+        Gauge.builder("keycloak.jwks.degraded", this, retriever -> retriever.isDegraded() ? 1 : 0)
+                .description("Validation des tokens sur les dernières clés connues (1) ou nominale (0)")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Resource retrieveResource(URL url) throws IOException {
+        try {
+            Resource resource = guard.execute(() -> delegate.retrieveResource(url), result -> false);
+            lastKnownGood = new LastKnownGood(url.toString(), resource, clock.instant());
+            if (degradedSince != null) {
+                log.info("JWKS Keycloak de nouveau disponible, fin du mode dégradé (débuté le {})", degradedSince);
+                degradedSince = null;
+            }
+            return resource;
+        } catch (IOException e) {
+            LastKnownGood known = lastKnownGood;
+            if (known == null || !known.url().equals(url.toString())) {
+                throw e;
+            }
+            if (degradedSince == null) {
+                degradedSince = clock.instant();
+                log.warn("JWKS Keycloak indisponible ({}), validation sur les clés du {} pendant au plus {}",
+                        e.getMessage(), known.fetchedAt(), maxStaleness);
+            }
+            if (isExpired(known)) {
+                throw e;
+            }
+            staleServed.increment();
+            return known.resource();
+        }
+    }
+
+    /**
+     * @return true si le JWKS ne peut plus être rafraîchi (clés périmées servies, ou plus aucune clé)
+     */
+    public boolean isDegraded() {
+        return degradedSince != null;
+    }
+
+    /**
+     * @return true si des clés sont disponibles : JWKS à jour, ou périmé depuis moins de maxStaleness
+     */
+    public boolean isUsable() {
+        LastKnownGood known = lastKnownGood;
+        return known != null && (degradedSince == null || !isExpired(known));
+    }
+
+    /**
+     * @return Début du mode dégradé (null en fonctionnement nominal)
+     */
+    public Instant getDegradedSince() {
+        return degradedSince;
+    }
+
+    /**
+     * @return Date de la dernière récupération réussie (null si jamais)
+     */
+    public Instant getLastSuccess() {
+        LastKnownGood known = lastKnownGood;
+        return known != null ? known.fetchedAt() : null;
+    }
+
+    public Duration getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    public ResilienceGuard getGuard() {
+        return guard;
+    }
+
+    private boolean isExpired(LastKnownGood known) {
+        return Duration.between(known.fetchedAt(), clock.instant()).compareTo(maxStaleness) > 0;
+    }
+
+    private record LastKnownGood(String url, Resource resource, Instant fetchedAt) {
+    }
+}
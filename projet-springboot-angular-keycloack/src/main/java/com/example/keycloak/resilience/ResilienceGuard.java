@@ -0,0 +1,110 @@
+package com.example.keycloak.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.util.function.Predicate;
+
+/**
+ * Disjoncteur + cloison d'un type d'appel Keycloak, avec métriques
+ *
+ * Métriques (tag call) :
+ * - keycloak.calls{outcome=success|failure|circuit_open|bulkhead_full}
+ * - keycloak.circuit.state : 0 fermé, 1 semi-ouvert, 2 ouvert
+ * - keycloak.bulkhead.available : places libres
+ */
+public final class ResilienceGuard {
+
+    /**
+     * Appel réseau pouvant lever une IOException
+     */
+    @FunctionalInterface
+    public interface IoCall<T> {
+        T call() throws IOException;
+    }
+
+    private final String name;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Counter successes;
+    private final Counter failures;
+    private final Counter circuitOpen;
+    private final Counter bulkheadFull;
+
+    public ResilienceGuard(String name, CircuitBreaker circuitBreaker, Bulkhead bulkhead,
+                           MeterRegistry meterRegistry) {
+        this.name = name;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.successes = callCounter(meterRegistry, name, "success");
+        this.failures = callCounter(meterRegistry, name, "failure");
+        this.circuitOpen = callCounter(meterRegistry, name, "circuit_open");
+        this.bulkheadFull = callCounter(meterRegistry, name, "bulkhead_full");
+        Gauge.builder("keycloak.circuit.state", circuitBreaker, breaker -> breaker.getState() == CircuitBreaker.State.OPEN
+                        ? 2 : breaker.getState() == CircuitBreaker.State.HALF_OPEN ? 1 : 0)
+                .description("État du disjoncteur (0 fermé, 1 semi-ouvert, 2 ouvert)")
+                .tag("call", name)
+                .register(meterRegistry);
+        Gauge.builder("keycloak.bulkhead.available", bulkhead, Bulkhead::getAvailable)
+                .description("Places libres de la cloison")
+                .tag("call", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Exécute l'appel sous la protection du disjoncteur et de la cloison
+     *
+     * @param call Appel réseau
+     * @param failed Résultat considéré comme un échec (ex: réponse 5xx)
+     * @throws CallNotPermittedException si l'appel est refusé sans être tenté
+     */
+    public <T> T execute(IoCall<T> call, Predicate<T> failed) throws IOException {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            circuitOpen.increment();
+            throw new CallNotPermittedException("Disjoncteur ouvert pour les appels Keycloak " + name);
+        }
+        if (!bulkhead.tryAcquire()) {
+            // Refus local : ni succès ni échec de Keycloak
+            circuitBreaker.releasePermission();
+            bulkheadFull.increment();
+            throw new CallNotPermittedException("Trop d'appels Keycloak " + name + " simultanés");
+        }
+        boolean success = false;
+        try {
+            T result = call.call();
+            success = !failed.test(result);
+            return result;
+        } finally {
+            bulkhead.release();
+            if (success) {
+                circuitBreaker.onSuccess();
+                successes.increment();
+            } else {
+                circuitBreaker.onFailure();
+                failures.increment();
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    private static Counter callCounter(MeterRegistry meterRegistry, String name, String outcome) {
+        return Counter.builder("keycloak.calls")
+                .description("Appels Keycloak par type et résultat")
+                .tag("call", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.keycloak.resilience;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Intercepteur RestClient : appels Keycloak sous disjoncteur et cloison
+ *
+ * Une erreur d'entrée / sortie (timeout, connexion refusée) ou une réponse 5xx
+ * compte comme un échec ; les 4xx sont des réponses normales de Keycloak.
+ * Un appel refusé lève CallNotPermittedException, convertie par RestClient
+ * en ResourceAccessException.
+ */
+public class ResilienceInterceptor implements ClientHttpRequestInterceptor {
+
+    private final ResilienceGuard guard;
+
+    public ResilienceInterceptor(ResilienceGuard guard) {
+        this.guard = guard;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        return guard.execute(() -> execution.execute(request, body), ResilienceInterceptor::isServerError);
+    }
+
+    private static boolean isServerError(ClientHttpResponse response) {
+        try {
+            return response.getStatusCode().is5xxServerError();
+        } catch (IOException e) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.keycloak.resilience;
+
+import com.example.keycloak.config.KeycloakResilienceProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Protections des appels Keycloak, une par type d'appel (jwks, probe, token, admin...)
+ *
+ * Chaque type d'appel a son propre disjoncteur et sa propre cloison : une API
+ * d'administration lente ne peut pas priver la récupération du JWKS de threads.
+ */
+public class ResilienceRegistry {
+
+    private final KeycloakResilienceProperties properties;
+    private final Clock clock;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ResilienceGuard> guards = new ConcurrentHashMap<>();
+
+    public ResilienceRegistry(KeycloakResilienceProperties properties, Clock clock, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.clock = clock;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param name Type d'appel
+     * @return Protection du type d'appel (créée au premier accès)
+     */
+    public ResilienceGuard guard(String name) {
+        return guards.computeIfAbsent(name, this::create);
+    }
+
+    /**
+     * @return Protections créées, triées par nom
+     */
+    public Collection<ResilienceGuard> guards() {
+        return List.copyOf(new TreeMap<>(guards).values());
+    }
+
+    private ResilienceGuard create(String name) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(properties.getFailureRateThreshold(),
+                properties.getSlidingWindowSize(), properties.getMinimumCalls(),
+                properties.getOpenDuration(), properties.getHalfOpenCalls(), clock);
+        Bulkhead bulkhead = new Bulkhead(properties.maxConcurrentFor(name), properties.getMaxWait());
+        return new ResilienceGuard(name, circuitBreaker, bulkhead, meterRegistry);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.keycloak.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Contrôle la mise en cache des décisions @PreAuthorize d'une méthode
+ *
+ * Par défaut, toute décision prise pour un token JWT est mise en cache
+ * jusqu'à l'expiration du token. Les politiques dépendantes de l'heure
+ * (ex: @customSecurityService.isMaintenanceHour()) doivent :
+ * - soit désactiver le cache : @AuthorizationCache(enabled = false)
+ * - soit utiliser une fenêtre temporelle : @AuthorizationCache(windowSeconds = 60)
+ *   (la décision n'est réutilisée que dans la même tranche de 60 secondes)
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AuthorizationCache {
+
+    /**
+     * @return false pour ne jamais mettre en cache les décisions de cette méthode
+     */
+    boolean enabled() default true;
+
+    /**
+     * @return taille de la fenêtre temporelle en secondes (0 = aucune fenêtre)
+     */
+    long windowSeconds() default 0;
+}
@@ -0,0 +1,218 @@
+package com.example.keycloak.security;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.lang.reflect.Method;
+import java.security.Principal;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Décorateur d'AuthorizationManager qui met en cache les décisions de Method Security
+ *
+ * Les dashboards Angular interrogent les mêmes endpoints toutes les quelques secondes
+ * avec le même token : l'évaluation SpEL (et les appels à @customSecurityService
+ * ou @jwtService) est alors refaite à l'identique. Ce décorateur mémorise la décision
+ * pour la clé (id du token, méthode, arguments pertinents) :
+ * - l'entrée expire en même temps que le token JWT
+ * - seuls les tokens JWT sont mis en cache (pas d'expiration connue sinon)
+ * - seuls les arguments de type valeur (String, nombres, enums...) entrent dans la clé ;
+ *   une méthode recevant un autre type d'argument (ex: @RequestBody) n'est pas mise en cache
+ * - les méthodes annotées @AuthorizationCache(enabled = false) ne sont jamais mises en cache
+ * - l'époque des politiques horaires fait partie de la clé : toute ouverture ou fermeture
+ *   d'une fenêtre (maintenance, heures de bureau) invalide les décisions précédentes
+ */
+public class CachingAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+
+    private static final Optional<AuthorizationCache> NO_POLICY = Optional.empty();
+
+    private final AuthorizationManager<MethodInvocation> delegate;
+    private final int maxEntries;
+    private final Clock clock;
+    private final LongSupplier policyEpoch;
+
+    private final Map<CacheKey, CachedDecision> decisions = new ConcurrentHashMap<>();
+    private final Map<Method, Optional<AuthorizationCache>> policies = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public CachingAuthorizationManager(AuthorizationManager<MethodInvocation> delegate, int maxEntries) {
+        this(delegate, maxEntries, Clock.systemUTC(), () -> 0L);
+    }
+
+    /**
+     * @param delegate AuthorizationManager évaluant réellement les expressions
+     * @param maxEntries Nombre maximum de décisions conservées
+     * @param clock Horloge utilisée pour l'expiration des entrées
+     * @param policyEpoch Époque des politiques horaires, intégrée à la clé de cache
+     */
+    public CachingAuthorizationManager(AuthorizationManager<MethodInvocation> delegate, int maxEntries,
+                                       Clock clock, LongSupplier policyEpoch) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        this.policyEpoch = policyEpoch;
+    }
+
+    /**
+     * Méthode historique de l'API AuthorizationManager, délègue à authorize()
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        AuthorizationResult result = authorize(authentication, invocation);
+        if (result == null || result instanceof AuthorizationDecision) {
+            return (AuthorizationDecision) result;
+        }
+        return new AuthorizationDecision(result.isGranted());
+    }
+
+    @Override
+    public AuthorizationResult authorize(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        Optional<AuthorizationCache> policy = policyFor(invocation.getMethod());
+        if (policy.isPresent() && !policy.get().enabled()) {
+            return delegate.authorize(authentication, invocation);
+        }
+
+        Authentication auth = authentication.get();
+        if (!(auth instanceof JwtAuthenticationToken jwtAuth) || !auth.isAuthenticated()) {
+            return delegate.authorize(() -> auth, invocation);
+        }
+
+        Jwt jwt = jwtAuth.getToken();
+        Instant now = clock.instant();
+        if (jwt.getExpiresAt() == null || !jwt.getExpiresAt().isAfter(now)) {
+            return delegate.authorize(() -> auth, invocation);
+        }
+
+        List<Object> relevantArguments = relevantArguments(invocation.getArguments());
+        if (relevantArguments == null) {
+            return delegate.authorize(() -> auth, invocation);
+        }
+
+        long windowSeconds = policy.map(AuthorizationCache::windowSeconds).orElse(0L);
+        long window = windowSeconds > 0 ? now.getEpochSecond() / windowSeconds : 0;
+        CacheKey key = new CacheKey(tokenId(jwt), invocation.getMethod(), relevantArguments,
+                window, policyEpoch.getAsLong());
+
+        CachedDecision cached = decisions.get(key);
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            return cached.result();
+        }
+
+        AuthorizationResult result = delegate.authorize(() -> auth, invocation);
+        if (result != null) {
+            Instant expiresAt = jwt.getExpiresAt();
+            if (windowSeconds > 0) {
+                Instant windowEnd = Instant.ofEpochSecond((window + 1) * windowSeconds);
+                expiresAt = windowEnd.isBefore(expiresAt) ? windowEnd : expiresAt;
+            }
+            store(key, new CachedDecision(result, expiresAt, sequence.incrementAndGet()), now);
+        }
+        return result;
+    }
+
+    /**
+     * @return nombre de décisions actuellement en cache
+     */
+    public int size() {
+        return decisions.size();
+    }
+
+    private void store(CacheKey key, CachedDecision decision, Instant now) {
+        if (decisions.size() >= maxEntries) {
+            // Purge des entrées expirées, puis éviction des plus anciennes si le cache reste plein :
+            // un vidage complet ferait manquer le cache à toutes les requêtes en même temps
+            decisions.values().removeIf(entry -> !entry.expiresAt().isAfter(now));
+            int excess = decisions.size() - maxEntries + evictionBatch();
+            if (excess > 0) {
+                decisions.entrySet().stream()
+                        .sorted(Map.Entry.comparingByValue(Comparator.comparingLong(CachedDecision::sequence)))
+                        .limit(excess)
+                        .map(Map.Entry::getKey)
+                        .toList()
+                        .forEach(decisions::remove);
+            }
+        }
+        decisions.put(key, decision);
+    }
+
+    /**
+     * Entrées libérées en une fois (1/10e du cache) : le tri n'est pas refait à chaque insertion
+     */
+    private int evictionBatch() {
+        return Math.max(1, maxEntries / 10);
+    }
+
+    private Optional<AuthorizationCache> policyFor(Method method) {
+        return policies.computeIfAbsent(method, m -> {
+            AuthorizationCache annotation = AnnotationUtils.findAnnotation(m, AuthorizationCache.class);
+            return annotation != null ? Optional.of(annotation) : NO_POLICY;
+        });
+    }
+
+    /**
+     * Identifiant stable du token : le claim jti si présent, sinon la valeur brute du token
+     */
+    private static String tokenId(Jwt jwt) {
+        String jti = jwt.getId();
+        return jti != null && !jti.isEmpty() ? jti : jwt.getTokenValue();
+    }
+
+    /**
+     * Sélectionne les arguments qui participent à la clé de cache
+     *
+     * @return la liste des arguments de type valeur, ou null si un argument
+     *         ne peut pas être pris en compte de façon sûre
+     */
+    private static List<Object> relevantArguments(Object[] arguments) {
+        if (arguments == null || arguments.length == 0) {
+            return Collections.emptyList();
+        }
+        List<Object> relevant = new ArrayList<>(arguments.length);
+        for (Object argument : arguments) {
+            if (argument instanceof Jwt || argument instanceof Authentication || argument instanceof Principal) {
+                // Déjà représentés par l'identifiant du token
+                continue;
+            }
+            if (argument == null || isValueType(argument)) {
+                relevant.add(argument);
+            } else {
+                return null;
+            }
+        }
+        return relevant;
+    }
+
+    private static boolean isValueType(Object argument) {
+        return argument instanceof String
+                || argument instanceof Number
+                || argument instanceof Boolean
+                || argument instanceof Character
+                || argument instanceof Enum<?>
+                || argument instanceof UUID;
+    }
+
+    private record CacheKey(String tokenId, Method method, List<Object> arguments, long window, long epoch) {
+    }
+
+    private record CachedDecision(AuthorizationResult result, Instant expiresAt, long sequence) {
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.keycloak.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.X509EncodedKeySpec;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Clés de signature chargées depuis un fichier local (JWKS ou PEM), sans réseau
+ *
+ * Pour les déploiements isolés, ou démarrés avant Keycloak :
+ * - JWKS : document JSON exporté du realm (/protocol/openid-connect/certs)
+ * - PEM : clés publiques (PUBLIC KEY) ou certificats (CERTIFICATE) ; le kid est lu
+ *   sur une ligne "kid: ..." précédant le bloc, à défaut calculé (empreinte RFC 7638)
+ *
+ * Les clés sont analysées une seule fois et publiées dans un instantané immuable
+ * indexé par kid : la vérification d'un token ne fait qu'une lecture de Map.
+ * Un WatchService surveille le répertoire du fichier ; à chaque changement, le fichier
+ * est relu et, s'il est valide et différent, l'instantané est remplacé atomiquement.
+ * Un fichier invalide (écriture en cours, erreur de saisie) laisse les clés précédentes
+ * en place. La surveillance du répertoire couvre aussi les remplacements par
+ * renommage ou lien symbolique (volumes ConfigMap Kubernetes).
+ *
+ * Métriques : jwt.keys.file.count, jwt.keys.file.reloads{outcome=success|failure}.
+ */
+public class FileJwkSource implements JWKSource<SecurityContext>, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(FileJwkSource.class);
+
+    private static final Pattern PEM_BLOCK = Pattern.compile(
+            "-----BEGIN (PUBLIC KEY|CERTIFICATE)-----([A-Za-z0-9+/=\\s]+?)-----END \\1-----");
+    private static final Pattern PEM_KID = Pattern.compile("(?m)^\\s*kid\\s*:\\s*(\\S+)\\s*$");
+
+    private final Path file;
+    private final Counter reloads;
+    private final Counter reloadFailures;
+
+    private volatile KeySnapshot snapshot;
+    private WatchService watchService;
+    private Thread watcher;
+
+    /**
+     * Charge le fichier ; échoue s'il est absent ou ne contient aucune clé
+     *
+     * @param file Fichier JWKS (.json) ou PEM
+     * @param meterRegistry Registre des métriques
+     */
+    public FileJwkSource(Path file, MeterRegistry meterRegistry) {
+        this.file = file.toAbsolutePath().normalize();
+        try {
+            this.snapshot = load(this.file);
+        } catch (IOException | ParseException | GeneralSecurityException | JOSEException
+                 | IllegalArgumentException e) {
+            throw new IllegalStateException("Clés de signature illisibles : " + this.file, e);
+        }
+        this.reloads = reloadCounter(meterRegistry, "success");
+        this.reloadFailures = reloadCounter(meterRegistry, "failure");
+        Gauge.builder("jwt.keys.file.count", this, source -> source.snapshot.byKeyId().size())
+                .description("Clés de signature chargées depuis le fichier local")
+                .register(meterRegistry);
+        log.info("{} clé(s) de signature chargée(s) depuis {}", snapshot.byKeyId().size(), this.file);
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+        KeySnapshot current = snapshot;
+        Set<String> keyIds = jwkSelector.getMatcher().getKeyIDs();
+        if (keyIds != null && keyIds.size() == 1) {
+            JWK key = current.byKeyId().get(keyIds.iterator().next());
+            return key != null && jwkSelector.getMatcher().matches(key) ? List.of(key) : List.of();
+        }
+        return jwkSelector.select(current.jwkSet());
+    }
+
+    /**
+     * kid des clés chargées (pré-filtrage des tokens)
+     */
+    public Set<String> keyIds() {
+        return snapshot.byKeyId().keySet();
+    }
+
+    /**
+     * Démarre la surveillance du fichier (thread démon)
+     */
+    public synchronized void start() throws IOException {
+        if (watcher != null) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        watcher = new Thread(this::watch, "jwks-file-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+        if (watcher != null) {
+            watcher.interrupt();
+            watcher = null;
+        }
+    }
+
+    /**
+     * Relit le fichier et remplace les clés s'il est valide et a changé
+     *
+     * @return true si les clés ont été remplacées
+     */
+    public boolean reload() {
+        try {
+            KeySnapshot next = load(file);
+            if (Arrays.equals(next.digest(), snapshot.digest())) {
+                return false;
+            }
+            snapshot = next;
+            reloads.increment();
+            log.info("Clés de signature rechargées depuis {} : {}", file, next.byKeyId().keySet());
+            return true;
+        } catch (IOException | ParseException | GeneralSecurityException | JOSEException
+                 | IllegalArgumentException e) {
+            reloadFailures.increment();
+            log.warn("Rechargement des clés de signature impossible ({}), clés précédentes conservées : {}",
+                    file, e.getMessage());
+            return false;
+        }
+    }
+
+    private void watch() {
+        WatchService service = watchService;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = service.take();
+                // Les événements d'une même écriture sont regroupés en un seul rechargement
+                key.pollEvents();
+                key.reset();
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static KeySnapshot load(Path file)
+            throws IOException, ParseException, GeneralSecurityException, JOSEException {
+        byte[] content = Files.readAllBytes(file);
+        String text = new String(content, StandardCharsets.UTF_8);
+        List<JWK> keys = text.stripLeading().startsWith("{")
+                ? JWKSet.parse(text).getKeys()
+                : parsePem(text);
+
+        Map<String, JWK> byKeyId = new LinkedHashMap<>();
+        for (JWK key : keys) {
+            if (key.isPrivate()) {
+                throw new ParseException("Le fichier contient une clé privée (kid " + key.getKeyID() + ")", 0);
+            }
+            if (key.getKeyUse() != null && !KeyUse.SIGNATURE.equals(key.getKeyUse())) {
+                continue; // Clés de chiffrement publiées par Keycloak (use=enc)
+            }
+            JWK indexed = key.getKeyID() != null ? key : withThumbprintKeyId(key);
+            byKeyId.put(indexed.getKeyID(), indexed);
+        }
+        if (byKeyId.isEmpty()) {
+            throw new ParseException("Aucune clé de signature dans " + file, 0);
+        }
+        return new KeySnapshot(Map.copyOf(byKeyId), new JWKSet(List.copyOf(byKeyId.values())), sha256(content));
+    }
+
+    private static List<JWK> parsePem(String text) throws GeneralSecurityException, JOSEException {
+        List<JWK> keys = new ArrayList<>();
+        Matcher block = PEM_BLOCK.matcher(text);
+        int previousEnd = 0;
+        while (block.find()) {
+            Matcher kidLine = PEM_KID.matcher(text.substring(previousEnd, block.start()));
+            String keyId = null;
+            while (kidLine.find()) {
+                keyId = kidLine.group(1);
+            }
+            previousEnd = block.end();
+
+            byte[] der = Base64.getMimeDecoder().decode(block.group(2));
+            JWK key = "CERTIFICATE".equals(block.group(1))
+                    ? JWK.parse((X509Certificate) CertificateFactory.getInstance("X.509")
+                            .generateCertificate(new ByteArrayInputStream(der)))
+                    : publicKey(der);
+            keys.add(keyId != null ? withKeyId(key, keyId) : key);
+        }
+        return keys;
+    }
+
+    private static JWK publicKey(byte[] der) throws GeneralSecurityException {
+        X509EncodedKeySpec spec = new X509EncodedKeySpec(der);
+        PublicKey publicKey;
+        try {
+            publicKey = KeyFactory.getInstance("RSA").generatePublic(spec);
+        } catch (InvalidKeySpecException e) {
+            publicKey = KeyFactory.getInstance("EC").generatePublic(spec);
+        }
+        if (publicKey instanceof RSAPublicKey rsa) {
+            return new RSAKey.Builder(rsa).keyUse(KeyUse.SIGNATURE).build();
+        }
+        ECPublicKey ec = (ECPublicKey) publicKey;
+        return new ECKey.Builder(Curve.forECParameterSpec(ec.getParams()), ec).keyUse(KeyUse.SIGNATURE).build();
+    }
+
+    private static JWK withKeyId(JWK key, String keyId) throws JOSEException {
+        if (key instanceof RSAKey rsa) {
+            return new RSAKey.Builder(rsa).keyID(keyId).build();
+        }
+        if (key instanceof ECKey ec) {
+            return new ECKey.Builder(ec).keyID(keyId).build();
+        }
+        throw new JOSEException("Type de clé non supporté : " + key.getKeyType());
+    }
+
+    private static JWK withThumbprintKeyId(JWK key) throws JOSEException {
+        return withKeyId(key, key.computeThumbprint().toString());
+    }
+
+    private static byte[] sha256(byte[] content) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-256").digest(content);
+    }
+
+    private static Counter reloadCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("jwt.keys.file.reloads")
+                .description("Rechargements du fichier de clés de signature")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Instantané immuable des clés : index par kid, JWKSet pour les tokens sans kid
+     */
+    record KeySnapshot(Map<String, JWK> byKeyId, JWKSet jwkSet, byte[] digest) {
+    }
+}
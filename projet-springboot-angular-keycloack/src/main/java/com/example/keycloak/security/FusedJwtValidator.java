@@ -0,0 +1,123 @@
+package com.example.keycloak.security;
+
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Validateur JWT en une seule passe sur les claims
+ *
+ * Remplace la composition DelegatingOAuth2TokenValidator(issuer, timestamp, audience),
+ * qui exécute tous les validateurs et alloue des listes de résultats même en cas de succès :
+ * - contrôles ordonnés par coût, arrêt au premier échec :
+ *   exp / nbf (comparaison d'Instant), iss (égalité de chaîne),
+ *   aud et azp (recherche dans des ensembles précalculés)
+ * - plusieurs audiences et parties autorisées (azp) acceptées
+ * - succès et échecs renvoient des instances partagées (aucune allocation)
+ *
+ * Sémantique identique aux validateurs Spring d'origine : tolérance d'horloge
+ * sur exp / nbf, et un token sans claim aud est accepté si acceptMissingAudience.
+ */
+public class FusedJwtValidator implements OAuth2TokenValidator<Jwt> {
+
+    private static final OAuth2TokenValidatorResult SUCCESS = OAuth2TokenValidatorResult.success();
+    private static final OAuth2TokenValidatorResult EXPIRED = failure(OAuth2ErrorCodes.INVALID_TOKEN, "Jwt expired");
+    private static final OAuth2TokenValidatorResult NOT_YET_VALID = failure(OAuth2ErrorCodes.INVALID_TOKEN, "Jwt used before nbf");
+    private static final OAuth2TokenValidatorResult INVALID_ISSUER = failure(OAuth2ErrorCodes.INVALID_TOKEN, "The iss claim is not valid");
+    private static final OAuth2TokenValidatorResult INVALID_AUTHORIZED_PARTY = failure(OAuth2ErrorCodes.INVALID_TOKEN, "The azp claim is not valid");
+
+    private final String issuer;
+    private final Set<String> audiences;
+    private final Set<String> authorizedParties;
+    private final boolean acceptMissingAudience;
+    private final Duration clockSkew;
+    private final Clock clock;
+    private final OAuth2TokenValidatorResult invalidAudience;
+
+    /**
+     * @param issuer Issuer attendu (claim iss)
+     * @param audiences Audiences acceptées (vide : pas de contrôle)
+     * @param authorizedParties Clients émetteurs acceptés, claim azp (vide : pas de contrôle)
+     * @param acceptMissingAudience Accepte un token sans claim aud (configurations Keycloak sans mapper d'audience)
+     * @param clockSkew Tolérance d'horloge sur exp / nbf
+     * @param clock Horloge de référence
+     */
+    public FusedJwtValidator(String issuer, Set<String> audiences, Set<String> authorizedParties,
+                             boolean acceptMissingAudience, Duration clockSkew, Clock clock) {
+        this.issuer = issuer;
+        this.audiences = Set.copyOf(audiences);
+        this.authorizedParties = Set.copyOf(authorizedParties);
+        this.acceptMissingAudience = acceptMissingAudience;
+        this.clockSkew = clockSkew;
+        this.clock = clock;
+        this.invalidAudience = failure("invalid_audience", "The required audience is missing: " + String.join(",", audiences));
+    }
+
+    @Override
+    public OAuth2TokenValidatorResult validate(Jwt token) {
+        Map<String, Object> claims = token.getClaims();
+
+        // 1. Fenêtre de validité
+        Instant now = clock.instant();
+        Object expiresAt = claims.get(JwtClaimNames.EXP);
+        if (expiresAt instanceof Instant exp && now.minus(clockSkew).isAfter(exp)) {
+            return EXPIRED;
+        }
+        Object notBefore = claims.get(JwtClaimNames.NBF);
+        if (notBefore instanceof Instant nbf && now.plus(clockSkew).isBefore(nbf)) {
+            return NOT_YET_VALID;
+        }
+
+        // 2. Émetteur
+        Object iss = claims.get(JwtClaimNames.ISS);
+        if (iss == null || !issuer.equals(iss.toString())) {
+            return INVALID_ISSUER;
+        }
+
+        // 3. Audience
+        if (!audiences.isEmpty() && !hasAcceptedAudience(claims.get(JwtClaimNames.AUD))) {
+            return invalidAudience;
+        }
+
+        // 4. Partie autorisée
+        if (!authorizedParties.isEmpty()) {
+            Object azp = claims.get("azp");
+            if (azp == null || !authorizedParties.contains(azp.toString())) {
+                return INVALID_AUTHORIZED_PARTY;
+            }
+        }
+        return SUCCESS;
+    }
+
+    private boolean hasAcceptedAudience(Object aud) {
+        if (aud instanceof Collection<?> values) {
+            if (values.isEmpty()) {
+                return acceptMissingAudience;
+            }
+            for (Object value : values) {
+                if (value != null && audiences.contains(value.toString())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (aud == null) {
+            return acceptMissingAudience;
+        }
+        return audiences.contains(aud.toString());
+    }
+
+    private static OAuth2TokenValidatorResult failure(String errorCode, String description) {
+        return OAuth2TokenValidatorResult.failure(new OAuth2Error(errorCode, description, null));
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.keycloak.security;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecteur JSON minimal travaillant directement sur les octets UTF-8
+ *
+ * Indexe les membres d'un objet (nom -> position de la valeur) en sautant
+ * les valeurs sans les construire : seules les valeurs réellement lues
+ * sont décodées. Utilisé pour inspecter un JWT non vérifié à moindre coût
+ * et pour la lecture paresseuse des claims (LazyJsonObject).
+ */
+final class JsonScanner {
+
+    /**
+     * Position [start, end[ d'une valeur JSON brute
+     */
+    record Span(int start, int end) {
+    }
+
+    private final byte[] json;
+
+    JsonScanner(byte[] json) {
+        this.json = json;
+    }
+
+    /**
+     * Indexe les membres de l'objet JSON racine
+     *
+     * @return nom du membre -> position de sa valeur (ordre du document)
+     * @throws IllegalArgumentException si le document n'est pas un objet JSON valide
+     */
+    Map<String, Span> indexRoot() {
+        Cursor cursor = new Cursor(0);
+        Map<String, Span> members = indexObject(cursor);
+        skipWhitespace(cursor);
+        if (cursor.pos != json.length) {
+            throw malformed(cursor.pos);
+        }
+        return members;
+    }
+
+    /**
+     * Indexe les membres d'un objet JSON situé à la position donnée
+     */
+    Map<String, Span> indexObject(Span span) {
+        return indexObject(new Cursor(span.start()));
+    }
+
+    /**
+     * Indexe les éléments d'un tableau JSON situé à la position donnée
+     */
+    List<Span> indexArray(Span span) {
+        Cursor cursor = new Cursor(span.start());
+        expect(cursor, '[');
+        List<Span> elements = new ArrayList<>();
+        skipWhitespace(cursor);
+        if (peek(cursor) == ']') {
+            return elements;
+        }
+        while (true) {
+            skipWhitespace(cursor);
+            int start = cursor.pos;
+            skipValue(cursor);
+            elements.add(new Span(start, cursor.pos));
+            skipWhitespace(cursor);
+            byte next = next(cursor);
+            if (next == ']') {
+                return elements;
+            }
+            if (next != ',') {
+                throw malformed(cursor.pos - 1);
+            }
+        }
+    }
+
+    /**
+     * Décode entièrement une valeur (objets en Map, tableaux en List)
+     */
+    Object parse(Span span) {
+        return parseValue(new Cursor(span.start()));
+    }
+
+    /**
+     * Décode une valeur chaîne, ou null si la valeur n'est pas une chaîne
+     */
+    String string(Span span) {
+        Cursor cursor = new Cursor(span.start());
+        return json[cursor.pos] == '"' ? parseString(cursor) : null;
+    }
+
+    /**
+     * Indique si la valeur est un objet JSON
+     */
+    boolean isObject(Span span) {
+        return json[span.start()] == '{';
+    }
+
+    /**
+     * Indique si la valeur est un tableau JSON
+     */
+    boolean isArray(Span span) {
+        return json[span.start()] == '[';
+    }
+
+    private Map<String, Span> indexObject(Cursor cursor) {
+        skipWhitespace(cursor);
+        expect(cursor, '{');
+        Map<String, Span> members = new LinkedHashMap<>();
+        skipWhitespace(cursor);
+        if (peek(cursor) == '}') {
+            cursor.pos++;
+            return members;
+        }
+        while (true) {
+            skipWhitespace(cursor);
+            String name = parseString(cursor);
+            skipWhitespace(cursor);
+            expect(cursor, ':');
+            skipWhitespace(cursor);
+            int start = cursor.pos;
+            skipValue(cursor);
+            members.put(name, new Span(start, cursor.pos));
+            skipWhitespace(cursor);
+            byte next = next(cursor);
+            if (next == '}') {
+                return members;
+            }
+            if (next != ',') {
+                throw malformed(cursor.pos - 1);
+            }
+        }
+    }
+
+    private void skipValue(Cursor cursor) {
+        byte first = peek(cursor);
+        switch (first) {
+            case '"' -> skipString(cursor);
+            case '{', '[' -> skipContainer(cursor);
+            default -> {
+                int start = cursor.pos;
+                while (cursor.pos < json.length && isLiteralByte(json[cursor.pos])) {
+                    cursor.pos++;
+                }
+                if (cursor.pos == start) {
+                    throw malformed(start);
+                }
+            }
+        }
+    }
+
+    private void skipContainer(Cursor cursor) {
+        int depth = 0;
+        do {
+            byte b = next(cursor);
+            if (b == '"') {
+                cursor.pos--;
+                skipString(cursor);
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+            }
+        } while (depth > 0);
+    }
+
+    private void skipString(Cursor cursor) {
+        expect(cursor, '"');
+        while (true) {
+            byte b = next(cursor);
+            if (b == '\\') {
+                next(cursor);
+            } else if (b == '"') {
+                return;
+            }
+        }
+    }
+
+    private Object parseValue(Cursor cursor) {
+        skipWhitespace(cursor);
+        byte first = peek(cursor);
+        switch (first) {
+            case '"':
+                return parseString(cursor);
+            case '{': {
+                Map<String, Object> object = new LinkedHashMap<>();
+                indexObject(cursor).forEach((name, span) -> object.put(name, parse(span)));
+                return object;
+            }
+            case '[':
+                return parseArray(cursor);
+            default:
+                return parseLiteral(cursor);
+        }
+    }
+
+    private List<Object> parseArray(Cursor cursor) {
+        expect(cursor, '[');
+        List<Object> values = new ArrayList<>();
+        skipWhitespace(cursor);
+        if (peek(cursor) == ']') {
+            cursor.pos++;
+            return values;
+        }
+        while (true) {
+            values.add(parseValue(cursor));
+            skipWhitespace(cursor);
+            byte next = next(cursor);
+            if (next == ']') {
+                return values;
+            }
+            if (next != ',') {
+                throw malformed(cursor.pos - 1);
+            }
+        }
+    }
+
+    private Object parseLiteral(Cursor cursor) {
+        int start = cursor.pos;
+        skipValue(cursor);
+        String literal = new String(json, start, cursor.pos - start, StandardCharsets.US_ASCII);
+        switch (literal) {
+            case "true":
+                return Boolean.TRUE;
+            case "false":
+                return Boolean.FALSE;
+            case "null":
+                return null;
+            default:
+                try {
+                    if (literal.indexOf('.') < 0 && literal.indexOf('e') < 0 && literal.indexOf('E') < 0) {
+                        return Long.parseLong(literal);
+                    }
+                    return new BigDecimal(literal);
+                } catch (NumberFormatException e) {
+                    throw malformed(start);
+                }
+        }
+    }
+
+    private String parseString(Cursor cursor) {
+        expect(cursor, '"');
+        int start = cursor.pos;
+        // Chemin rapide : aucune séquence d'échappement
+        while (true) {
+            byte b = next(cursor);
+            if (b == '"') {
+                return new String(json, start, cursor.pos - 1 - start, StandardCharsets.UTF_8);
+            }
+            if (b == '\\') {
+                break;
+            }
+        }
+        StringBuilder builder = new StringBuilder(new String(json, start, cursor.pos - 1 - start, StandardCharsets.UTF_8));
+        cursor.pos--;
+        int chunkStart = cursor.pos;
+        while (true) {
+            byte b = next(cursor);
+            if (b == '"') {
+                builder.append(new String(json, chunkStart, cursor.pos - 1 - chunkStart, StandardCharsets.UTF_8));
+                return builder.toString();
+            }
+            if (b == '\\') {
+                builder.append(new String(json, chunkStart, cursor.pos - 1 - chunkStart, StandardCharsets.UTF_8));
+                byte escaped = next(cursor);
+                switch (escaped) {
+                    case '"', '\\', '/' -> builder.append((char) escaped);
+                    case 'b' -> builder.append('\b');
+                    case 'f' -> builder.append('\f');
+                    case 'n' -> builder.append('\n');
+                    case 'r' -> builder.append('\r');
+                    case 't' -> builder.append('\t');
+                    case 'u' -> {
+                        if (cursor.pos + 4 > json.length) {
+                            throw malformed(cursor.pos);
+                        }
+                        try {
+                            builder.append((char) Integer.parseInt(
+                                    new String(json, cursor.pos, 4, StandardCharsets.US_ASCII), 16));
+                        } catch (NumberFormatException e) {
+                            throw malformed(cursor.pos);
+                        }
+                        cursor.pos += 4;
+                    }
+                    default -> throw malformed(cursor.pos - 1);
+                }
+                chunkStart = cursor.pos;
+            }
+        }
+    }
+
+    private static boolean isLiteralByte(byte b) {
+        return (b >= '0' && b <= '9') || (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z')
+                || b == '-' || b == '+' || b == '.';
+    }
+
+    private void skipWhitespace(Cursor cursor) {
+        while (cursor.pos < json.length) {
+            byte b = json[cursor.pos];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            cursor.pos++;
+        }
+    }
+
+    private void expect(Cursor cursor, char expected) {
+        if (next(cursor) != expected) {
+            throw malformed(cursor.pos - 1);
+        }
+    }
+
+    private byte peek(Cursor cursor) {
+        if (cursor.pos >= json.length) {
+            throw malformed(cursor.pos);
+        }
+        return json[cursor.pos];
+    }
+
+    private byte next(Cursor cursor) {
+        byte b = peek(cursor);
+        cursor.pos++;
+        return b;
+    }
+
+    private static IllegalArgumentException malformed(int position) {
+        return new IllegalArgumentException("JSON invalide à la position " + position);
+    }
+
+    private static final class Cursor {
+
+        int pos;
+
+        Cursor(int pos) {
+            this.pos = pos;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.keycloak.security;
+
+import com.example.keycloak.jfr.SecurityStageEvent;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JwtDecoder à lecture paresseuse des claims
+ *
+ * NimbusJwtDecoder construit l'arbre complet du payload (Map imbriquées) avant
+ * même la conversion des claims, alors que JwtService et JwtAuthenticationConverter
+ * n'en lisent qu'une douzaine. Ici :
+ * - JWSObject.parse ne décode que l'en-tête ; la signature est vérifiée sur
+ *   les segments encodés, sans lire le payload
+ * - le payload est exposé comme un LazyClaimSet adossé aux octets bruts :
+ *   chaque claim, y compris de premier niveau, n'est décodé que s'il est lu ;
+ *   les objets volumineux (resource_access, claims métier) ne le sont que
+ *   pour les membres accédés
+ * - le constructeur de Jwt copie ses claims (donc les décoderait tous) :
+ *   LazyJwt lui passe un claim factice et expose le LazyClaimSet par getClaims()
+ *
+ * Les claims temporels (exp, iat, nbf) sont convertis en Instant et aud en liste,
+ * comme le fait MappedJwtClaimSetConverter, pour respecter le contrat de Jwt.
+ */
+public class LazyClaimsJwtDecoder implements JwtDecoder {
+
+    private final JWKSource<SecurityContext> jwkSource;
+    private final OAuth2TokenValidator<Jwt> jwtValidator;
+    private final Map<String, CachedVerifier> verifiers = new ConcurrentHashMap<>();
+
+    /**
+     * @param jwkSource Source des clés publiques (JWKS Keycloak, avec cache)
+     * @param jwtValidator Validateur appliqué après vérification de la signature
+     */
+    public LazyClaimsJwtDecoder(JWKSource<SecurityContext> jwkSource, OAuth2TokenValidator<Jwt> jwtValidator) {
+        this.jwkSource = jwkSource;
+        this.jwtValidator = jwtValidator;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        JWSObject jws;
+        try {
+            jws = JWSObject.parse(token);
+        } catch (ParseException e) {
+            throw new BadJwtException("Token JWS mal formé", e);
+        }
+        SecurityStageEvent signatureEvent = SecurityStageEvent.begin(SecurityStageEvent.SIGNATURE);
+        boolean verified = false;
+        try {
+            verifySignature(jws);
+            verified = true;
+        } finally {
+            signatureEvent.finish(jws.getHeader().getKeyID(), token.length(), 0, verified);
+        }
+
+        Jwt jwt;
+        try {
+            LazyClaimSet claims = new LazyClaimSet(new JsonScanner(jws.getPayload().toBytes()));
+            jwt = new LazyJwt(token, (Instant) claims.get(JwtClaimNames.IAT), (Instant) claims.get(JwtClaimNames.EXP),
+                    jws.getHeader().toJSONObject(), claims);
+        } catch (IllegalArgumentException | ClassCastException e) {
+            throw new BadJwtException("Claims du token invalides", e);
+        }
+
+        OAuth2TokenValidatorResult result = jwtValidator.validate(jwt);
+        if (result.hasErrors()) {
+            OAuth2Error error = result.getErrors().iterator().next();
+            throw new JwtValidationException(error.getDescription(), result.getErrors());
+        }
+        return jwt;
+    }
+
+    private void verifySignature(JWSObject jws) {
+        JWSHeader header = jws.getHeader();
+        List<JWK> keys;
+        try {
+            keys = jwkSource.get(new JWKSelector(JWKMatcher.forJWSHeader(header)), null);
+        } catch (KeySourceException e) {
+            throw new JwtException("Impossible de récupérer les clés de signature", e);
+        }
+        if (keys.isEmpty()) {
+            throw new BadJwtException("Aucune clé ne correspond au token");
+        }
+        for (JWK key : keys) {
+            try {
+                if (jws.verify(verifier(key))) {
+                    return;
+                }
+            } catch (JOSEException e) {
+                throw new BadJwtException("Vérification de signature impossible", e);
+            }
+        }
+        throw new BadJwtException("Signature invalide");
+    }
+
+    /**
+     * Vérifieur par clé, réutilisé tant que la source renvoie la même instance de JWK
+     */
+    private JWSVerifier verifier(JWK key) throws JOSEException {
+        String cacheKey = key.getKeyID() != null ? key.getKeyID() : key.computeThumbprint().toString();
+        CachedVerifier cached = verifiers.get(cacheKey);
+        if (cached != null && cached.key() == key) {
+            return cached.verifier();
+        }
+        JWSVerifier verifier;
+        if (key instanceof RSAKey rsaKey) {
+            verifier = new RSASSAVerifier(rsaKey);
+        } else if (key instanceof ECKey ecKey) {
+            verifier = new ECDSAVerifier(ecKey);
+        } else {
+            throw new JOSEException("Type de clé non supporté : " + key.getKeyType());
+        }
+        verifiers.put(cacheKey, new CachedVerifier(key, verifier));
+        return verifier;
+    }
+
+    private record CachedVerifier(JWK key, JWSVerifier verifier) {
+    }
+
+    /**
+     * Jwt dont les claims restent adossés au payload encodé
+     *
+     * Les accesseurs de Jwt (getClaim, getSubject...) passent tous par getClaims().
+     * La sérialisation produit un Jwt ordinaire, claims entièrement décodés.
+     */
+    static final class LazyJwt extends Jwt {
+
+        /**
+         * Jwt refuse un ensemble de claims vide ; ce claim n'est jamais exposé
+         */
+        private static final Map<String, Object> PLACEHOLDER_CLAIMS = Map.of(JwtClaimNames.JTI, "lazy");
+
+        private final transient LazyClaimSet claimSet;
+        private final transient Map<String, Object> lazyClaims;
+
+        LazyJwt(String tokenValue, Instant issuedAt, Instant expiresAt, Map<String, Object> headers,
+                LazyClaimSet claims) {
+            super(tokenValue, issuedAt, expiresAt, headers, PLACEHOLDER_CLAIMS);
+            this.claimSet = claims;
+            this.lazyClaims = Collections.unmodifiableMap(claims);
+        }
+
+        @Override
+        public Map<String, Object> getClaims() {
+            return lazyClaims;
+        }
+
+        LazyClaimSet claimSet() {
+            return claimSet;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object writeReplace() {
+            return new Jwt(getTokenValue(), getIssuedAt(), getExpiresAt(), getHeaders(),
+                    (Map<String, Object>) LazyJsonObject.toPlain(claimSet));
+        }
+    }
+
+    /**
+     * Claims racine : conversions attendues par Jwt et les validateurs
+     */
+    static final class LazyClaimSet extends LazyJsonObject {
+
+        LazyClaimSet(JsonScanner scanner) {
+            super(scanner, new JsonScanner.Span(0, 0));
+        }
+
+        @Override
+        protected Object materialize(String name, JsonScanner.Span valueSpan) {
+            Object value = super.materialize(name, valueSpan);
+            switch (name) {
+                case JwtClaimNames.EXP, JwtClaimNames.IAT, JwtClaimNames.NBF -> {
+                    return value instanceof Number seconds ? Instant.ofEpochSecond(seconds.longValue()) : value;
+                }
+                case JwtClaimNames.AUD -> {
+                    return value instanceof String audience ? List.of(audience) : value;
+                }
+                default -> {
+                    return value;
+                }
+            }
+        }
+    }
+}
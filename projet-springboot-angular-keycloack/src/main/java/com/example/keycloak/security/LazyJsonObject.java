@@ -0,0 +1,174 @@
+package com.example.keycloak.security;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Objet JSON en lecture seule décodé à la demande
+ *
+ * Les membres sont indexés au premier accès (les valeurs sont sautées, pas
+ * construites) ; une valeur n'est décodée que lorsqu'elle est lue :
+ * - chaînes, nombres et booléens : décodés à la lecture
+ * - objets et tableaux imbriqués : enveloppés à leur tour, décodés à la demande
+ *
+ * Ainsi resource_access.get("demo-app").get("roles") ne décode que le tableau
+ * de rôles du client concerné, les autres clients étant simplement sautés.
+ */
+class LazyJsonObject extends AbstractMap<String, Object> {
+
+    private final JsonScanner scanner;
+    private final JsonScanner.Span span;
+
+    private Map<String, JsonScanner.Span> members;
+    private Map<String, Object> values;
+
+    LazyJsonObject(JsonScanner scanner, JsonScanner.Span span) {
+        this.scanner = scanner;
+        this.span = span;
+    }
+
+    @Override
+    public synchronized Object get(Object key) {
+        Map<String, JsonScanner.Span> index = members();
+        JsonScanner.Span valueSpan = index.get(key);
+        if (valueSpan == null) {
+            return null;
+        }
+        if (values == null) {
+            values = new LinkedHashMap<>();
+        } else if (values.containsKey(key)) {
+            return values.get(key);
+        }
+        Object value = materialize((String) key, valueSpan);
+        values.put((String) key, value);
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return members().containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return members().size();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return Collections.unmodifiableSet(members().keySet());
+    }
+
+    /**
+     * Décode toutes les valeurs de premier niveau (sérialisation, copie...)
+     */
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        Map<String, Object> all = new LinkedHashMap<>();
+        for (String name : members().keySet()) {
+            all.put(name, get(name));
+        }
+        return Collections.unmodifiableMap(all).entrySet();
+    }
+
+    /**
+     * Décode une valeur ; surchargé pour convertir certains claims
+     */
+    protected Object materialize(String name, JsonScanner.Span valueSpan) {
+        return wrap(scanner, valueSpan);
+    }
+
+    /**
+     * Nombre de membres déjà décodés (tests)
+     */
+    synchronized int decodedCount() {
+        return values == null ? 0 : values.size();
+    }
+
+    protected final JsonScanner scanner() {
+        return scanner;
+    }
+
+    private synchronized Map<String, JsonScanner.Span> members() {
+        if (members == null) {
+            members = scanner.indexObject(span);
+        }
+        return members;
+    }
+
+    /**
+     * Copie entièrement décodée (LinkedHashMap, ArrayList), sérialisable
+     */
+    static Object toPlain(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            map.forEach((name, member) -> copy.put((String) name, toPlain(member)));
+            return copy;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            list.forEach(element -> copy.add(toPlain(element)));
+            return copy;
+        }
+        return value;
+    }
+
+    static Object wrap(JsonScanner scanner, JsonScanner.Span valueSpan) {
+        if (scanner.isObject(valueSpan)) {
+            return new LazyJsonObject(scanner, valueSpan);
+        }
+        if (scanner.isArray(valueSpan)) {
+            return new LazyJsonArray(scanner, valueSpan);
+        }
+        return scanner.parse(valueSpan);
+    }
+
+    /**
+     * Tableau JSON en lecture seule décodé à la demande
+     */
+    static final class LazyJsonArray extends AbstractList<Object> {
+
+        private final JsonScanner scanner;
+        private final JsonScanner.Span span;
+
+        private List<JsonScanner.Span> elements;
+        private Object[] values;
+
+        LazyJsonArray(JsonScanner scanner, JsonScanner.Span span) {
+            this.scanner = scanner;
+            this.span = span;
+        }
+
+        @Override
+        public synchronized Object get(int index) {
+            List<JsonScanner.Span> spans = elements();
+            if (values == null) {
+                values = new Object[spans.size()];
+            }
+            Object value = values[index];
+            if (value == null) {
+                value = wrap(scanner, spans.get(index));
+                values[index] = value;
+            }
+            return value;
+        }
+
+        @Override
+        public int size() {
+            return elements().size();
+        }
+
+        private synchronized List<JsonScanner.Span> elements() {
+            if (elements == null) {
+                elements = scanner.indexArray(span);
+            }
+            return elements;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.keycloak.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Rejet des tokens manifestement invalides avant toute vérification cryptographique
+ *
+ * Décore le JwtDecoder Nimbus : l'en-tête et le payload non vérifiés sont
+ * inspectés avec JsonScanner (aucun arbre JSON construit), puis le token est
+ * rejeté sans calcul RSA s'il est :
+ * - trop volumineux ou mal formé (3 segments base64url attendus)
+ * - signé avec un algorithme hors liste blanche (dont "none")
+ * - expiré (tolérance d'horloge incluse) ou émis par un autre issuer
+ *
+ * Ces contrôles ne remplacent pas la validation complète, exécutée ensuite
+ * par le décodeur délégué. Chaque rejet incrémente le compteur
+ * jwt.prevalidation.rejected, étiqueté par raison.
+ *
+ * Un kid absent du dernier JWKS connu n'est qu'un indice (rotation de clés
+ * pas encore vue par la sonde) : le token est transmis au décodeur délégué,
+ * dont la source JWK fait autorité, et le rafraîchissement anticipé est
+ * demandé (compteur jwt.prevalidation.unknown-kid).
+ */
+public class PreValidatingJwtDecoder implements JwtDecoder {
+
+    /**
+     * Raisons de rejet (étiquette "reason" du compteur)
+     */
+    public enum Rejection {
+        OVERSIZED, MALFORMED, ALGORITHM, EXPIRED, ISSUER
+    }
+
+    private final JwtDecoder delegate;
+    private final String issuer;
+    private final Set<String> allowedAlgorithms;
+    private final Supplier<Set<String>> knownKeyIds;
+    private final Runnable unknownKeyIdListener;
+    private final int maxTokenLength;
+    private final Duration clockSkew;
+    private final Clock clock;
+    private final Map<Rejection, Counter> rejections = new EnumMap<>(Rejection.class);
+    private final Counter unknownKeyIds;
+
+    /**
+     * @param delegate Décodeur complet (signature + validateurs)
+     * @param issuer Issuer attendu
+     * @param allowedAlgorithms Algorithmes de signature acceptés (ex: RS256)
+     * @param knownKeyIds kid du dernier JWKS connu (ensemble vide : aucun indice)
+     * @param unknownKeyIdListener Notifié à chaque kid inconnu (ex: rafraîchissement anticipé du JWKS)
+     * @param maxTokenLength Taille maximale du token encodé
+     * @param clockSkew Tolérance d'horloge sur exp
+     * @param clock Horloge de référence
+     * @param meterRegistry Registre des compteurs de rejet
+     */
+    public PreValidatingJwtDecoder(JwtDecoder delegate, String issuer, Set<String> allowedAlgorithms,
+                                   Supplier<Set<String>> knownKeyIds, Runnable unknownKeyIdListener,
+                                   int maxTokenLength, Duration clockSkew, Clock clock,
+                                   MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.issuer = issuer;
+        this.allowedAlgorithms = Set.copyOf(allowedAlgorithms);
+        this.knownKeyIds = knownKeyIds;
+        this.unknownKeyIdListener = unknownKeyIdListener;
+        this.maxTokenLength = maxTokenLength;
+        this.clockSkew = clockSkew;
+        this.clock = clock;
+        for (Rejection rejection : Rejection.values()) {
+            rejections.put(rejection, Counter.builder("jwt.prevalidation.rejected")
+                    .description("Tokens rejetés avant vérification de signature")
+                    .tag("reason", rejection.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        this.unknownKeyIds = Counter.builder("jwt.prevalidation.unknown-kid")
+                .description("Tokens signés avec un kid absent du dernier JWKS connu (transmis au décodeur)")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        preValidate(token);
+        return delegate.decode(token);
+    }
+
+    private void preValidate(String token) {
+        if (token == null || token.length() > maxTokenLength) {
+            throw reject(Rejection.OVERSIZED, "Token trop volumineux");
+        }
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (firstDot <= 0 || secondDot < 0 || secondDot == firstDot + 1
+                || token.indexOf('.', secondDot + 1) >= 0 || secondDot == token.length() - 1) {
+            throw reject(Rejection.MALFORMED, "Token JWS mal formé");
+        }
+
+        // Toute lecture JSON (index, nombres, chaînes) peut échouer sur un token forgé : rejet, jamais d'erreur 500
+        String alg;
+        Object exp;
+        String iss;
+        String kid;
+        try {
+            JsonScanner header = new JsonScanner(Base64.getUrlDecoder().decode(token.substring(0, firstDot)));
+            Map<String, JsonScanner.Span> headerMembers = header.indexRoot();
+            JsonScanner payload = new JsonScanner(
+                    Base64.getUrlDecoder().decode(token.substring(firstDot + 1, secondDot)));
+            Map<String, JsonScanner.Span> payloadMembers = payload.indexRoot();
+            alg = stringMember(header, headerMembers, "alg");
+            kid = stringMember(header, headerMembers, "kid");
+            JsonScanner.Span expSpan = payloadMembers.get("exp");
+            exp = expSpan == null ? null : payload.parse(expSpan);
+            iss = stringMember(payload, payloadMembers, "iss");
+        } catch (IllegalArgumentException e) {
+            throw reject(Rejection.MALFORMED, "Token JWS mal formé");
+        }
+
+        if (alg == null || !allowedAlgorithms.contains(alg)) {
+            throw reject(Rejection.ALGORITHM, "Algorithme de signature non autorisé");
+        }
+
+        if (exp instanceof Number seconds) {
+            long expiresAt = seconds instanceof BigDecimal decimal ? decimal.longValue() : seconds.longValue();
+            if (clock.instant().minus(clockSkew).getEpochSecond() > expiresAt) {
+                throw reject(Rejection.EXPIRED, "Token expiré");
+            }
+        }
+
+        if (!issuer.equals(iss)) {
+            throw reject(Rejection.ISSUER, "Issuer non reconnu");
+        }
+
+        // Indice seulement : seuls les tokens plausibles déclenchent un rafraîchissement
+        Set<String> keyIds = knownKeyIds.get();
+        if (kid != null && !keyIds.isEmpty() && !keyIds.contains(kid)) {
+            unknownKeyIds.increment();
+            unknownKeyIdListener.run();
+        }
+    }
+
+    private static String stringMember(JsonScanner scanner, Map<String, JsonScanner.Span> members, String name) {
+        JsonScanner.Span span = members.get(name);
+        return span == null ? null : scanner.string(span);
+    }
+
+    private BadJwtException reject(Rejection rejection, String message) {
+        rejections.get(rejection).increment();
+        return new BadJwtException(message);
+    }
+}
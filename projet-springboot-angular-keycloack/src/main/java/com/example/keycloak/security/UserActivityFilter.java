@@ -0,0 +1,42 @@
+package com.example.keycloak.security;
+
+import com.example.keycloak.service.UserProfileService;
+import com.example.keycloak.warmup.WarmupTokenIssuer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Enregistre l'activité de chaque requête authentifiée (dernière connexion / dernière activité)
+ *
+ * Placé juste après l'authentification Bearer (ou le cookie BFF) : seul un
+ * JwtAuthenticationToken est pris en compte, hors tokens de la chauffe JIT
+ * (warmup-user, warmup-admin). L'enregistrement reste en mémoire, l'écriture
+ * en base est faite par lots par UserProfileService.
+ */
+public class UserActivityFilter extends OncePerRequestFilter {
+
+    private final UserProfileService userProfileService;
+
+    public UserActivityFilter(UserProfileService userProfileService) {
+        this.userProfileService = userProfileService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof JwtAuthenticationToken token
+                && !WarmupTokenIssuer.isWarmupToken(token.getToken())) {
+            userProfileService.recordActivity(token.getToken());
+        }
+        filterChain.doFilter(request, response);
+    }
+}
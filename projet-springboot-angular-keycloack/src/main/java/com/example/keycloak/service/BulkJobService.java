@@ -0,0 +1,275 @@
+package com.example.keycloak.service;
+
+import com.example.keycloak.dto.BulkJobDto;
+import com.example.keycloak.repository.BulkJobRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Moteur de jobs de mise à jour en masse
+ *
+ * Les administrateurs soumettent un job à tout moment : il est persisté dans
+ * la file locale (base embarquée) et la requête HTTP rend la main immédiatement.
+ * Un scheduler exécute ensuite les jobs uniquement lorsque
+ * CustomSecurityService.canPerformSensitiveOperation(...) l'autorise
+ * (BULK_UPDATE : fenêtre de maintenance) :
+ * - découpage en chunks exécutés en parallèle sur un pool dédié
+ * - checkpoint en base après chaque chunk
+ * - fermeture de la fenêtre : les chunks restants sont laissés en attente (PAUSED)
+ *   et repris automatiquement à la prochaine ouverture, y compris après un redémarrage
+ */
+@Service
+public class BulkJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkJobService.class);
+    private static final TypeReference<Map<String, Object>> ITEM_TYPE = new TypeReference<>() {};
+    private static final int MAX_PAYLOAD_LENGTH = 4000; // Taille de bulk_job_item.payload
+    private static final int MAX_ERROR_LENGTH = 1000; // Taille de bulk_job.last_error
+
+    private final BulkJobRepository repository;
+    private final CustomSecurityService customSecurityService;
+    private final ObjectMapper objectMapper;
+    private final Map<String, BulkOperationHandler> handlers;
+    private final int chunkSize;
+    private final int maxItems;
+
+    private final ExecutorService coordinator;
+    private final ExecutorService workers;
+    private final AtomicBoolean executing = new AtomicBoolean();
+
+    public BulkJobService(BulkJobRepository repository,
+                          CustomSecurityService customSecurityService,
+                          ObjectMapper objectMapper,
+                          List<BulkOperationHandler> handlers,
+                          @Value("${bulk-jobs.chunk-size:500}") int chunkSize,
+                          @Value("${bulk-jobs.parallelism:4}") int parallelism,
+                          @Value("${bulk-jobs.max-items:1000000}") int maxItems) {
+        this.repository = repository;
+        this.customSecurityService = customSecurityService;
+        this.objectMapper = objectMapper;
+        this.handlers = handlers.stream()
+                .collect(Collectors.toUnmodifiableMap(BulkOperationHandler::operation, Function.identity()));
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+        this.coordinator = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "bulk-job-coordinator"));
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism,
+                runnable -> new Thread(runnable, "bulk-job-worker-" + threads.incrementAndGet()));
+    }
+
+    /**
+     * Met un job en file (aucune exécution sur le thread de la requête)
+     *
+     * @param operation Type d'opération (ex: "BULK_UPDATE")
+     * @param items Éléments à traiter
+     * @param submittedBy Administrateur à l'origine du job
+     * @return Job créé, au statut PENDING
+     * @throws IllegalArgumentException si l'opération est inconnue ou un élément invalide
+     */
+    public BulkJobDto submit(String operation, List<Map<String, Object>> items, String submittedBy) {
+        BulkOperationHandler handler = operation != null ? handlers.get(operation) : null;
+        if (handler == null) {
+            throw new IllegalArgumentException("Opération inconnue : " + operation);
+        }
+        if (items == null || items.isEmpty() || items.size() > maxItems) {
+            throw new IllegalArgumentException("Le job doit contenir entre 1 et " + maxItems + " éléments");
+        }
+
+        List<String> payloads = new ArrayList<>(items.size());
+        for (Map<String, Object> item : items) {
+            handler.validate(item);
+            String payload = toJson(item);
+            if (payload.length() > MAX_PAYLOAD_LENGTH) {
+                throw new IllegalArgumentException("Élément trop volumineux (max " + MAX_PAYLOAD_LENGTH + " caractères)");
+            }
+            payloads.add(payload);
+        }
+
+        Instant now = Instant.now();
+        BulkJobDto job = new BulkJobDto(UUID.randomUUID().toString(), operation, submittedBy,
+                BulkJobDto.Status.PENDING, items.size(), 0, chunkSize, null, now, now);
+        repository.insert(job, payloads);
+        log.info("Job {} soumis par {} : {} éléments ({})", job.getId(), submittedBy, items.size(), operation);
+        return job;
+    }
+
+    public Optional<BulkJobDto> findById(String jobId) {
+        return repository.findById(jobId);
+    }
+
+    public List<BulkJobDto> findAll() {
+        return repository.findAll();
+    }
+
+    /**
+     * Remet en file un job échoué : seuls les chunks sans checkpoint seront exécutés
+     *
+     * @return Job mis à jour, ou vide si le job n'existe pas
+     */
+    public Optional<BulkJobDto> resume(String jobId) {
+        return repository.findById(jobId).map(job -> {
+            if (job.getStatus() == BulkJobDto.Status.FAILED) {
+                repository.updateStatus(jobId, BulkJobDto.Status.PENDING, null);
+                job.setStatus(BulkJobDto.Status.PENDING);
+                job.setLastError(null);
+            }
+            return job;
+        });
+    }
+
+    /**
+     * Déclenchement périodique : délègue au coordinateur pour ne pas bloquer le scheduler
+     * (partagé avec les transitions des fenêtres horaires)
+     */
+    @Scheduled(fixedDelayString = "${bulk-jobs.poll-interval:PT30S}")
+    public void triggerExecution() {
+        if (executing.compareAndSet(false, true)) {
+            coordinator.execute(() -> {
+                try {
+                    runAvailableJobs();
+                } catch (RuntimeException e) {
+                    log.error("Erreur du coordinateur de jobs", e);
+                } finally {
+                    executing.set(false);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Exécute, du plus ancien au plus récent, les jobs dont l'opération est autorisée
+     *
+     * Un job hors de sa fenêtre est mis en pause puis ignoré : il ne bloque pas
+     * les jobs suivants dont la fenêtre est ouverte. Une erreur de persistance
+     * sur un job est journalisée sans interrompre le passage.
+     */
+    void runAvailableJobs() {
+        for (BulkJobDto job : repository.findRunnable()) {
+            try {
+                if (!isAllowedNow(job)) {
+                    if (job.getStatus() == BulkJobDto.Status.RUNNING) {
+                        repository.updateStatus(job.getId(), BulkJobDto.Status.PAUSED, null);
+                    }
+                    continue;
+                }
+                runJob(job);
+            } catch (DataAccessException e) {
+                log.error("Erreur de persistance sur le job {}, nouvel essai au prochain passage", job.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Exécute les chunks d'un job non encore checkpointés, en parallèle
+     *
+     * @return statut final du job pour ce passage
+     */
+    BulkJobDto.Status runJob(BulkJobDto job) {
+        BulkOperationHandler handler = handlers.get(job.getOperation());
+        repository.updateStatus(job.getId(), BulkJobDto.Status.RUNNING, null);
+
+        Set<Integer> completed = repository.findCompletedChunks(job.getId());
+        AtomicBoolean paused = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int chunk = 0; chunk < job.getTotalChunks(); chunk++) {
+            if (completed.contains(chunk)) {
+                continue;
+            }
+            int chunkIndex = chunk;
+            chunks.add(CompletableFuture.runAsync(() -> {
+                if (failure.get() != null) {
+                    return;
+                }
+                if (!isAllowedNow(job)) {
+                    paused.set(true);
+                    return;
+                }
+                try {
+                    runChunk(job, handler, chunkIndex);
+                } catch (RuntimeException e) {
+                    log.warn("Échec du chunk {} du job {}", chunkIndex, job.getId(), e);
+                    failure.compareAndSet(null, truncate("Chunk " + chunkIndex + " : " + e.getMessage()));
+                }
+            }, workers));
+        }
+        CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).join();
+
+        BulkJobDto.Status status;
+        if (failure.get() != null) {
+            status = BulkJobDto.Status.FAILED;
+        } else if (paused.get()) {
+            status = BulkJobDto.Status.PAUSED;
+        } else {
+            status = BulkJobDto.Status.COMPLETED;
+        }
+        repository.updateStatus(job.getId(), status, failure.get());
+        log.info("Job {} : {}", job.getId(), status);
+        return status;
+    }
+
+    private void runChunk(BulkJobDto job, BulkOperationHandler handler, int chunkIndex) {
+        List<String> payloads = repository.findChunkPayloads(job.getId(), chunkIndex, job.getChunkSize());
+        List<Map<String, Object>> items = new ArrayList<>(payloads.size());
+        for (String payload : payloads) {
+            items.add(fromJson(payload));
+        }
+        handler.apply(items);
+        repository.markChunkCompleted(job.getId(), chunkIndex, items.size());
+    }
+
+    private static String truncate(String error) {
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    private boolean isAllowedNow(BulkJobDto job) {
+        return customSecurityService.canPerformSensitiveOperation(job.getSubmittedBy(), job.getOperation());
+    }
+
+    private String toJson(Map<String, Object> item) {
+        try {
+            return objectMapper.writeValueAsString(item);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Élément non sérialisable", e);
+        }
+    }
+
+    private Map<String, Object> fromJson(String payload) {
+        try {
+            return objectMapper.readValue(payload, ITEM_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Élément corrompu en base", e);
+        }
+    }
+}
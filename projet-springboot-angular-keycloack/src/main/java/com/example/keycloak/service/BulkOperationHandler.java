@@ -0,0 +1,34 @@
+package com.example.keycloak.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exécuteur d'une opération de mise à jour en masse
+ *
+ * Chaque implémentation traite un type d'opération (ex: "BULK_UPDATE").
+ * Un chunk peut être ré-exécuté après une reprise (redémarrage pendant
+ * son traitement) : les implémentations doivent être idempotentes.
+ */
+public interface BulkOperationHandler {
+
+    /**
+     * @return type d'opération traité, ex: "BULK_UPDATE"
+     */
+    String operation();
+
+    /**
+     * Valide un élément avant la mise en file du job
+     *
+     * @param item Élément soumis
+     * @throws IllegalArgumentException si l'élément est invalide
+     */
+    void validate(Map<String, Object> item);
+
+    /**
+     * Applique un chunk d'éléments
+     *
+     * @param items Éléments du chunk, dans l'ordre de soumission
+     */
+    void apply(List<Map<String, Object>> items);
+}
@@ -1,8 +1,12 @@
 package com.example.keycloak.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Service personnalisé pour les validations de sécurité complexes
@@ -15,18 +19,32 @@ import java.time.LocalTime;
 @Service("customSecurityService")
 public class CustomSecurityService {
 
+    /**
+     * Nom de la fenêtre de maintenance dans security.time-windows.windows
+     */
+    public static final String MAINTENANCE_WINDOW = "maintenance";
+
+    /**
+     * Préfixe des projets accessibles à tous les utilisateurs
+     */
+    private static final String PUBLIC_PROJECT_PREFIX = "public-";
+
+    @Autowired
+    private TimeWindowPolicyService timeWindowPolicyService;
+
+    @Autowired
+    private ProjectAccessService projectAccessService;
+
     /**
      * Vérifie si nous sommes dans une fenêtre de maintenance autorisée
      * Utilisé dans @PreAuthorize("... and @customSecurityService.isMaintenanceHour()")
      * 
-     * @return true si nous sommes dans la fenêtre de maintenance (02:00-06:00)
+     * L'état de la fenêtre est précalculé par TimeWindowPolicyService (lecture volatile)
+     * 
+     * @return true si nous sommes dans la fenêtre de maintenance (02:00-06:00 UTC par défaut)
      */
     public boolean isMaintenanceHour() {
-        LocalTime now = LocalTime.now();
-        LocalTime maintenanceStart = LocalTime.of(2, 0);  // 02:00
-        LocalTime maintenanceEnd = LocalTime.of(6, 0);    // 06:00
-        
-        return now.isAfter(maintenanceStart) && now.isBefore(maintenanceEnd);
+        return timeWindowPolicyService.isOpen(MAINTENANCE_WINDOW);
     }
 
     /**
@@ -44,51 +62,65 @@ public class CustomSecurityService {
             return "super-admin".equals(username);
         }
         
-        if ("BULK_UPDATE".equals(operation)) {
-            // Opérations en masse pendant les heures creuses seulement
-            return isMaintenanceHour();
-        }
-        
-        return true; // Autres opérations autorisées par défaut
+        // Opérations liées à une fenêtre horaire (ex: BULK_UPDATE pendant la maintenance)
+        // Les opérations sans fenêtre configurée sont autorisées par défaut
+        return timeWindowPolicyService.isOperationAllowed(operation);
     }
 
     /**
      * Vérifie si l'utilisateur a accès à un projet spécifique
      * Exemple de validation métier personnalisée
      * 
+     * Les appartenances sont lues dans l'index mémoire de ProjectAccessService
+     * (aucune requête en base pendant la vérification)
+     * 
      * @param username Nom d'utilisateur
      * @param projectId ID du projet
      * @return true si l'utilisateur a accès au projet
      */
     public boolean hasProjectAccess(String username, String projectId) {
-        // Dans un vrai projet, ceci interrogerait la base de données
-        // Pour la démo, logique simplifiée
         if ("admin".equals(username)) {
             return true; // Les admins ont accès à tout
         }
         
-        // Autres utilisateurs : accès basé sur l'ID du projet
-        return projectId.startsWith("public-") || 
-               projectId.contains(username); // Projets contenant le nom d'utilisateur
+        // Projets publics ou projets dont l'utilisateur est membre
+        return projectId.startsWith(PUBLIC_PROJECT_PREFIX) ||
+               projectAccessService.isMember(username, projectId);
+    }
+
+    /**
+     * Vérification en lot pour les endpoints de liste
+     * 
+     * @param username Nom d'utilisateur
+     * @param projectIds IDs des projets à vérifier
+     * @return Projets accessibles, dans l'ordre de la demande
+     */
+    public List<String> filterAccessibleProjects(String username, Collection<String> projectIds) {
+        if ("admin".equals(username)) {
+            return new ArrayList<>(projectIds);
+        }
+        
+        Set<String> memberProjects = projectAccessService.memberProjects(username, projectIds);
+        List<String> accessible = new ArrayList<>(projectIds.size());
+        for (String projectId : projectIds) {
+            if (projectId.startsWith(PUBLIC_PROJECT_PREFIX) || memberProjects.contains(projectId)) {
+                accessible.add(projectId);
+            }
+        }
+        return accessible;
     }
 
     /**
      * Vérifie si l'utilisateur peut voir des données sensibles
-     * Basé sur le rôle et l'heure de la demande
+     * Basé sur le rôle et la fenêtre horaire configurée pour ce rôle
      * 
      * @param userRole Rôle de l'utilisateur
      * @return true si l'accès aux données sensibles est autorisé
      */
     public boolean canAccessSensitiveData(String userRole) {
-        // Données sensibles accessibles seulement pendant les heures de bureau
-        LocalTime now = LocalTime.now();
-        LocalTime businessStart = LocalTime.of(8, 0);   // 08:00
-        LocalTime businessEnd = LocalTime.of(18, 0);    // 18:00
-        
-        boolean isBusinessHour = now.isAfter(businessStart) && now.isBefore(businessEnd);
-        
-        // ADMIN peut toujours accéder, autres rôles seulement pendant heures de bureau
+        // ADMIN peut toujours accéder, autres rôles seulement pendant leur fenêtre
+        // (ex: MANAGER pendant les heures de bureau 08:00-18:00)
         return "ADMIN".equals(userRole) || 
-               ("MANAGER".equals(userRole) && isBusinessHour);
+               timeWindowPolicyService.isSensitiveDataOpenFor(userRole);
     }
 }
\ No newline at end of file
@@ -0,0 +1,253 @@
+package com.example.keycloak.service;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.example.keycloak.config.ConditionalOnNetworkKeys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sonde de connectivité Keycloak exécutée en arrière-plan
+ *
+ * Le scheduler interroge périodiquement le document de discovery et le JWKS
+ * du realm, puis publie un instantané immuable. Les health indicators et
+ * l'endpoint /api/public/health ne font que lire cet instantané : une rafale
+ * de sondes (load balancer, Kubernetes) ne génère jamais d'appel vers Keycloak.
+ *
+ * Le décalage d'horloge est estimé à partir de l'en-tête Date de la réponse
+ * de discovery (résolution d'une seconde), rapporté au milieu de l'aller-retour.
+ *
+ * Les kid du dernier JWKS sont exposés au pré-filtrage des tokens ; un kid inconnu
+ * peut déclencher une sonde anticipée, au plus une fois par min-refresh-interval.
+ *
+ * Absente en mode fichier (security.jwt.key-file) : aucune sonde n'est envoyée.
+ */
+@Service
+@ConditionalOnNetworkKeys
+public class KeycloakProbeService {
+
+    private static final Logger log = LoggerFactory.getLogger(KeycloakProbeService.class);
+
+    private final RestClient restClient;
+    private final Clock clock;
+    private final String discoveryUri;
+    private final String jwkSetUri;
+    private final Duration maxKeyAge;
+    private final Duration maxClockSkew;
+    private final TaskScheduler taskScheduler;
+    private final Duration minRefreshInterval;
+
+    private volatile ProbeState state = ProbeState.PENDING;
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final AtomicReference<Instant> lastRefreshRequest = new AtomicReference<>(Instant.EPOCH);
+
+    public KeycloakProbeService(@Qualifier("keycloakProbeRestClient") RestClient restClient,
+                                Clock clock,
+                                @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuerUri,
+                                @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri:"
+                                        + "${spring.security.oauth2.resourceserver.jwt.issuer-uri}"
+                                        + "/protocol/openid-connect/certs}") String jwkSetUri,
+                                @Value("${keycloak.health.max-key-age:PT10M}") Duration maxKeyAge,
+                                @Value("${keycloak.health.max-clock-skew:PT30S}") Duration maxClockSkew,
+                                TaskScheduler taskScheduler,
+                                @Value("${keycloak.health.min-refresh-interval:PT10S}") Duration minRefreshInterval) {
+        this.restClient = restClient;
+        this.clock = clock;
+        this.discoveryUri = issuerUri + "/.well-known/openid-configuration";
+        this.jwkSetUri = jwkSetUri;
+        this.maxKeyAge = maxKeyAge;
+        this.maxClockSkew = maxClockSkew;
+        this.taskScheduler = taskScheduler;
+        this.minRefreshInterval = minRefreshInterval;
+    }
+
+    /**
+     * Dernier état observé (aucun appel réseau)
+     */
+    public ProbeState currentState() {
+        return state;
+    }
+
+    /**
+     * kid des clés du dernier JWKS récupéré (vide si inconnu ou si une clé n'a pas de kid)
+     */
+    public Set<String> knownKeyIds() {
+        return state.keyIds();
+    }
+
+    /**
+     * Demande une sonde anticipée (ex: kid inconnu après une rotation de clés)
+     * Exécutée sur le scheduler, au plus une fois par min-refresh-interval
+     */
+    public void requestRefresh() {
+        Instant now = clock.instant();
+        Instant last = lastRefreshRequest.get();
+        if (Duration.between(last, now).compareTo(minRefreshInterval) < 0
+                || !lastRefreshRequest.compareAndSet(last, now)
+                || !refreshScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        taskScheduler.schedule(() -> {
+            try {
+                probe();
+            } finally {
+                refreshScheduled.set(false);
+            }
+        }, now);
+    }
+
+    /**
+     * Interroge Keycloak et publie un nouvel instantané
+     * En cas d'échec du JWKS, le nombre de clés et la date du dernier
+     * rafraîchissement réussi sont conservés pour évaluer leur fraîcheur.
+     */
+    @Scheduled(fixedDelayString = "${keycloak.health.probe-interval:PT30S}")
+    public void probe() {
+        ProbeState previous = state;
+        StringBuilder errors = new StringBuilder();
+
+        boolean discoveryReachable = false;
+        Duration clockSkew = previous.clockSkew();
+        Instant start = clock.instant();
+        try {
+            ResponseEntity<Void> response = restClient.get().uri(discoveryUri).retrieve().toBodilessEntity();
+            Instant end = clock.instant();
+            discoveryReachable = true;
+            long serverDate = response.getHeaders().getDate();
+            if (serverDate > 0) {
+                Instant midpoint = start.plus(Duration.between(start, end).dividedBy(2));
+                clockSkew = Duration.between(midpoint, Instant.ofEpochMilli(serverDate));
+            }
+        } catch (RestClientException e) {
+            errors.append("discovery: ").append(e.getMessage());
+        }
+
+        boolean jwksReachable = false;
+        int keyCount = previous.keyCount();
+        Set<String> keyIds = previous.keyIds();
+        Instant lastKeyRefresh = previous.lastKeyRefresh();
+        try {
+            String body = restClient.get().uri(jwkSetUri).retrieve().body(String.class);
+            List<JWK> keys = body == null ? List.of() : JWKSet.parse(body).getKeys();
+            jwksReachable = true;
+            if (!keys.isEmpty()) {
+                keyCount = keys.size();
+                keyIds = keyIds(keys);
+                lastKeyRefresh = clock.instant();
+            }
+        } catch (RestClientException | ParseException e) {
+            if (!errors.isEmpty()) {
+                errors.append("; ");
+            }
+            errors.append("jwks: ").append(e.getMessage());
+        }
+
+        ProbeState next = new ProbeState(discoveryReachable, jwksReachable, keyCount, keyIds, lastKeyRefresh,
+                clockSkew, clock.instant(), errors.isEmpty() ? null : errors.toString());
+        if (previous.isReachable() != next.isReachable() || !previous.isProbed()) {
+            if (next.isReachable()) {
+                log.info("Keycloak joignable ({} clé(s) publiée(s))", next.keyCount());
+            } else {
+                log.warn("Keycloak injoignable : {}", next.lastError());
+            }
+        }
+        state = next;
+    }
+
+    private static Set<String> keyIds(List<JWK> keys) {
+        Set<String> keyIds = new HashSet<>();
+        for (JWK key : keys) {
+            if (key.getKeyID() == null) {
+                return Set.of(); // Contrôle du kid impossible
+            }
+            keyIds.add(key.getKeyID());
+        }
+        return Set.copyOf(keyIds);
+    }
+
+    /**
+     * Clés disponibles et rafraîchies depuis moins de max-key-age
+     */
+    public boolean isKeysFresh(ProbeState probeState) {
+        return probeState.keyCount() > 0
+                && probeState.lastKeyRefresh() != null
+                && keyAge(probeState).compareTo(maxKeyAge) <= 0;
+    }
+
+    /**
+     * Décalage d'horloge mesuré et inférieur à max-clock-skew
+     */
+    public boolean isClockSkewAcceptable(ProbeState probeState) {
+        return probeState.clockSkew() != null && probeState.clockSkew().abs().compareTo(maxClockSkew) <= 0;
+    }
+
+    /**
+     * Synthèse : Keycloak joignable, clés fraîches et horloges synchronisées
+     */
+    public boolean isHealthy() {
+        ProbeState current = state;
+        return current.isReachable() && isKeysFresh(current) && isClockSkewAcceptable(current);
+    }
+
+    public Duration keyAge(ProbeState probeState) {
+        return Duration.between(probeState.lastKeyRefresh(), clock.instant());
+    }
+
+    public Duration getMaxKeyAge() {
+        return maxKeyAge;
+    }
+
+    public Duration getMaxClockSkew() {
+        return maxClockSkew;
+    }
+
+    /**
+     * Instantané immuable d'une sonde
+     *
+     * @param discoveryReachable Document de discovery récupéré
+     * @param jwksReachable JWKS récupéré et valide
+     * @param keyCount Nombre de clés du dernier JWKS non vide
+     * @param keyIds kid des clés du dernier JWKS non vide (vide si une clé n'a pas de kid)
+     * @param lastKeyRefresh Date du dernier JWKS non vide (null si jamais)
+     * @param clockSkew Heure Keycloak - heure locale (null si jamais mesuré)
+     * @param checkedAt Date de la sonde (null avant la première)
+     * @param lastError Erreurs de la sonde (null si aucune)
+     */
+    public record ProbeState(boolean discoveryReachable,
+                             boolean jwksReachable,
+                             int keyCount,
+                             Set<String> keyIds,
+                             Instant lastKeyRefresh,
+                             Duration clockSkew,
+                             Instant checkedAt,
+                             String lastError) {
+
+        static final ProbeState PENDING = new ProbeState(false, false, 0, Set.of(), null, null, null, null);
+
+        public boolean isProbed() {
+            return checkedAt != null;
+        }
+
+        public boolean isReachable() {
+            return discoveryReachable && jwksReachable;
+        }
+    }
+}
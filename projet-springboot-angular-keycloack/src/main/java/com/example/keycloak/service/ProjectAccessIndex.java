@@ -0,0 +1,193 @@
+package com.example.keycloak.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Index mémoire utilisateur -> projets pour les vérifications d'ACL
+ *
+ * Chaque ID de projet est converti une seule fois en entier (dictionnaire),
+ * et les projets d'un utilisateur sont stockés dans un tableau int[] trié :
+ * - quelques octets par appartenance, même pour des milliers de projets
+ * - vérification unitaire par recherche dichotomique, sans allocation
+ * - mises à jour incrémentales en copy-on-write : les lecteurs ne sont jamais bloqués
+ *
+ * Les écritures (rares : administration, jobs en masse) sont sérialisées. Elles
+ * tiennent le compte des membres de chaque projet : un projet sans plus aucun
+ * membre sort du dictionnaire (les ordinaux ne sont jamais réutilisés).
+ */
+public class ProjectAccessIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final Map<String, Integer> projectOrdinals = new ConcurrentHashMap<>();
+    private final AtomicInteger nextOrdinal = new AtomicInteger();
+    private final Map<String, int[]> memberships = new ConcurrentHashMap<>();
+
+    // Écritures uniquement (sous le verrou de l'index) : nombre de membres et ID de chaque ordinal
+    private final Map<Integer, Integer> memberCounts = new HashMap<>();
+    private final Map<Integer, String> projectIds = new HashMap<>();
+
+    /**
+     * Remplace l'ensemble des projets d'un utilisateur (chargement initial)
+     *
+     * @param username Nom d'utilisateur
+     * @param projectIds IDs des projets accessibles
+     */
+    public synchronized void setMemberships(String username, Collection<String> projectIds) {
+        int[] ordinals = projectIds.stream()
+                .mapToInt(this::ordinalOf)
+                .sorted()
+                .distinct()
+                .toArray();
+        int[] previous = memberships.put(username, ordinals);
+        for (int ordinal : ordinals) {
+            addMember(ordinal);
+        }
+        if (previous != null) {
+            for (int ordinal : previous) {
+                removeMember(ordinal);
+            }
+        }
+    }
+
+    /**
+     * Ajoute un projet à un utilisateur
+     *
+     * @return true si l'appartenance n'existait pas
+     */
+    public synchronized boolean grant(String username, String projectId) {
+        int ordinal = ordinalOf(projectId);
+        boolean[] changed = new boolean[1];
+        memberships.compute(username, (user, current) -> {
+            int[] projects = current != null ? current : EMPTY;
+            int position = Arrays.binarySearch(projects, ordinal);
+            if (position >= 0) {
+                return projects;
+            }
+            int insertion = -position - 1;
+            int[] updated = new int[projects.length + 1];
+            System.arraycopy(projects, 0, updated, 0, insertion);
+            updated[insertion] = ordinal;
+            System.arraycopy(projects, insertion, updated, insertion + 1, projects.length - insertion);
+            changed[0] = true;
+            return updated;
+        });
+        if (changed[0]) {
+            addMember(ordinal);
+        }
+        return changed[0];
+    }
+
+    /**
+     * Retire un projet à un utilisateur
+     *
+     * @return true si l'appartenance existait
+     */
+    public synchronized boolean revoke(String username, String projectId) {
+        Integer ordinal = projectOrdinals.get(projectId);
+        if (ordinal == null) {
+            return false;
+        }
+        boolean[] changed = new boolean[1];
+        memberships.computeIfPresent(username, (user, projects) -> {
+            int position = Arrays.binarySearch(projects, ordinal);
+            if (position < 0) {
+                return projects;
+            }
+            int[] updated = new int[projects.length - 1];
+            System.arraycopy(projects, 0, updated, 0, position);
+            System.arraycopy(projects, position + 1, updated, position, projects.length - position - 1);
+            changed[0] = true;
+            return updated.length == 0 ? null : updated;
+        });
+        if (changed[0]) {
+            removeMember(ordinal);
+        }
+        return changed[0];
+    }
+
+    /**
+     * Vérifie l'appartenance d'un utilisateur à un projet
+     */
+    public boolean hasAccess(String username, String projectId) {
+        Integer ordinal = projectOrdinals.get(projectId);
+        if (ordinal == null) {
+            return false;
+        }
+        int[] projects = memberships.get(username);
+        return projects != null && Arrays.binarySearch(projects, ordinal) >= 0;
+    }
+
+    /**
+     * Vérification en lot pour les endpoints de liste
+     * Le tableau de l'utilisateur n'est lu qu'une fois pour tout le lot
+     *
+     * @param username Nom d'utilisateur
+     * @param projectIds Projets à vérifier
+     * @return Sous-ensemble des projets accessibles, dans l'ordre de la demande
+     */
+    public Set<String> accessibleProjects(String username, Collection<String> projectIds) {
+        Set<String> accessible = new LinkedHashSet<>();
+        int[] projects = memberships.get(username);
+        if (projects == null) {
+            return accessible;
+        }
+        for (String projectId : projectIds) {
+            Integer ordinal = projectOrdinals.get(projectId);
+            if (ordinal != null && Arrays.binarySearch(projects, ordinal) >= 0) {
+                accessible.add(projectId);
+            }
+        }
+        return accessible;
+    }
+
+    /**
+     * @return nombre de projets accessibles par l'utilisateur
+     */
+    public int projectCount(String username) {
+        int[] projects = memberships.get(username);
+        return projects != null ? projects.length : 0;
+    }
+
+    /**
+     * @return nombre de projets présents dans le dictionnaire
+     */
+    public int dictionarySize() {
+        return projectOrdinals.size();
+    }
+
+    private int ordinalOf(String projectId) {
+        return projectOrdinals.computeIfAbsent(projectId, id -> {
+            int ordinal = nextOrdinal.getAndIncrement();
+            projectIds.put(ordinal, id);
+            return ordinal;
+        });
+    }
+
+    private void addMember(int ordinal) {
+        memberCounts.merge(ordinal, 1, Integer::sum);
+    }
+
+    /**
+     * Décrémente le nombre de membres et retire du dictionnaire un projet qui n'en a plus
+     */
+    private void removeMember(int ordinal) {
+        int remaining = memberCounts.getOrDefault(ordinal, 0) - 1;
+        if (remaining > 0) {
+            memberCounts.put(ordinal, remaining);
+            return;
+        }
+        memberCounts.remove(ordinal);
+        String projectId = projectIds.remove(ordinal);
+        if (projectId != null) {
+            projectOrdinals.remove(projectId, ordinal);
+        }
+    }
+}
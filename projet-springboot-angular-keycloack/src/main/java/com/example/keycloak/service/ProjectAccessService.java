@@ -0,0 +1,115 @@
+package com.example.keycloak.service;
+
+import com.example.keycloak.repository.ProjectMembershipRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Service d'ACL projets : base embarquée + index mémoire
+ *
+ * Les écritures passent par la base (source de vérité) puis mettent à jour l'index,
+ * sous un verrou par couple (utilisateur, projet) : un grant et un revoke concurrents
+ * ne peuvent pas laisser l'index en désaccord avec la table.
+ * Les lectures (autorisations, endpoints de liste) ne touchent que l'index :
+ * aucune requête SQL n'est exécutée pendant une vérification d'accès.
+ */
+@Service
+public class ProjectAccessService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectAccessService.class);
+
+    private final ProjectMembershipRepository repository;
+    private static final int LOCK_STRIPES = 64;
+
+    private final ProjectAccessIndex index = new ProjectAccessIndex();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public ProjectAccessService(ProjectMembershipRepository repository) {
+        this.repository = repository;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Charge l'index depuis la base au démarrage (lecture en streaming, triée par utilisateur)
+     */
+    @PostConstruct
+    public void loadIndex() {
+        List<String> currentProjects = new ArrayList<>();
+        String[] currentUser = new String[1];
+        int[] count = new int[1];
+
+        repository.forEachMembership((username, projectId) -> {
+            if (currentUser[0] != null && !currentUser[0].equals(username)) {
+                index.setMemberships(currentUser[0], currentProjects);
+                currentProjects.clear();
+            }
+            currentUser[0] = username;
+            currentProjects.add(projectId);
+            count[0]++;
+        });
+        if (currentUser[0] != null) {
+            index.setMemberships(currentUser[0], currentProjects);
+        }
+        log.info("Index ACL projets chargé : {} appartenances", count[0]);
+    }
+
+    /**
+     * Accorde l'accès à un projet (base puis index)
+     */
+    public void grant(String username, String projectId) {
+        synchronized (lockFor(username, projectId)) {
+            repository.insert(username, projectId);
+            index.grant(username, projectId);
+        }
+    }
+
+    /**
+     * Retire l'accès à un projet (base puis index)
+     *
+     * @return true si l'appartenance existait
+     */
+    public boolean revoke(String username, String projectId) {
+        synchronized (lockFor(username, projectId)) {
+            boolean deleted = repository.delete(username, projectId);
+            index.revoke(username, projectId);
+            return deleted;
+        }
+    }
+
+    /**
+     * Vérifie l'appartenance d'un utilisateur à un projet (index mémoire)
+     */
+    public boolean isMember(String username, String projectId) {
+        return index.hasAccess(username, projectId);
+    }
+
+    /**
+     * Vérification en lot des appartenances (index mémoire)
+     *
+     * @return Projets dont l'utilisateur est membre, dans l'ordre de la demande
+     */
+    public Set<String> memberProjects(String username, Collection<String> projectIds) {
+        return index.accessibleProjects(username, projectIds);
+    }
+
+    /**
+     * @return nombre de projets dont l'utilisateur est membre
+     */
+    public int projectCount(String username) {
+        return index.projectCount(username);
+    }
+
+    private Object lockFor(String username, String projectId) {
+        return locks[Math.floorMod(Objects.hash(username, projectId), locks.length)];
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.keycloak.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mise à jour en masse des ACL projets (opération BULK_UPDATE)
+ *
+ * Format d'un élément :
+ * {"action": "GRANT" | "REVOKE", "username": "john.doe", "projectId": "alpha"}
+ *
+ * GRANT (MERGE) et REVOKE (DELETE) sont idempotents : un chunk rejoué
+ * après une reprise produit le même résultat.
+ */
+@Component
+public class ProjectMembershipBulkHandler implements BulkOperationHandler {
+
+    private final ProjectAccessService projectAccessService;
+
+    public ProjectMembershipBulkHandler(ProjectAccessService projectAccessService) {
+        this.projectAccessService = projectAccessService;
+    }
+
+    @Override
+    public String operation() {
+        return "BULK_UPDATE";
+    }
+
+    @Override
+    public void validate(Map<String, Object> item) {
+        Object action = item.get("action");
+        if (!"GRANT".equals(action) && !"REVOKE".equals(action)) {
+            throw new IllegalArgumentException("action doit valoir GRANT ou REVOKE : " + action);
+        }
+        if (!(item.get("username") instanceof String) || !(item.get("projectId") instanceof String)) {
+            throw new IllegalArgumentException("username et projectId sont obligatoires");
+        }
+    }
+
+    @Override
+    public void apply(List<Map<String, Object>> items) {
+        for (Map<String, Object> item : items) {
+            String username = (String) item.get("username");
+            String projectId = (String) item.get("projectId");
+            if ("GRANT".equals(item.get("action"))) {
+                projectAccessService.grant(username, projectId);
+            } else {
+                projectAccessService.revoke(username, projectId);
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.keycloak.service;
+
+import com.example.keycloak.config.TimeWindowProperties;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moteur de politiques horaires pour les validations de sécurité
+ *
+ * L'état ouvert/fermé de chaque fenêtre est recalculé par le scheduler
+ * exactement aux bornes de la fenêtre : une vérification d'autorisation
+ * se résume donc à une lecture volatile, sans appel à l'horloge ni allocation.
+ *
+ * Chaque changement d'état incrémente une "époque" utilisée comme clé
+ * par le cache de décisions @PreAuthorize, qui reste ainsi valide
+ * d'une borne de fenêtre à l'autre.
+ */
+@Service
+public class TimeWindowPolicyService {
+
+    private static final Logger log = LoggerFactory.getLogger(TimeWindowPolicyService.class);
+
+    private final TimeWindowProperties properties;
+    private final Clock clock;
+    private final TaskScheduler taskScheduler;
+
+    private final AtomicLong epoch = new AtomicLong();
+    private Map<String, WindowState> windows = Collections.emptyMap();
+
+    public TimeWindowPolicyService(TimeWindowProperties properties, Clock clock, TaskScheduler taskScheduler) {
+        this.properties = properties;
+        this.clock = clock;
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Construit les fenêtres configurées et planifie leur première transition
+     *
+     * @throws IllegalArgumentException si une fenêtre n'a pas de début, de fin ou de fuseau,
+     *         ou si son début est égal à sa fin (ouverte en permanence ou jamais : ambigu)
+     */
+    @PostConstruct
+    public void initialize() {
+        Map<String, WindowState> states = new HashMap<>();
+        properties.getWindows().forEach((name, window) -> states.put(name, new WindowState(name, window)));
+        this.windows = Collections.unmodifiableMap(states);
+        windows.values().forEach(this::refresh);
+    }
+
+    /**
+     * Indique si une fenêtre nommée est actuellement ouverte
+     *
+     * @param windowName Nom de la fenêtre (ex: "maintenance")
+     * @return true si la fenêtre est ouverte, false si elle est fermée ou inconnue
+     */
+    public boolean isOpen(String windowName) {
+        WindowState state = windows.get(windowName);
+        return state != null && state.open;
+    }
+
+    /**
+     * Indique si une opération est autorisée à l'instant présent
+     *
+     * @param operation Type d'opération (ex: "BULK_UPDATE")
+     * @return true si l'opération n'est liée à aucune fenêtre ou si sa fenêtre est ouverte
+     */
+    public boolean isOperationAllowed(String operation) {
+        String windowName = properties.getOperations().get(operation);
+        return windowName == null || isOpen(windowName);
+    }
+
+    /**
+     * Indique si un rôle peut accéder aux données sensibles à l'instant présent
+     *
+     * @param role Rôle de l'utilisateur
+     * @return true si une fenêtre est configurée pour ce rôle et qu'elle est ouverte
+     */
+    public boolean isSensitiveDataOpenFor(String role) {
+        String windowName = properties.getSensitiveDataRoles().get(role);
+        return windowName != null && isOpen(windowName);
+    }
+
+    /**
+     * @return époque courante, incrémentée à chaque ouverture ou fermeture de fenêtre
+     */
+    public long epoch() {
+        return epoch.get();
+    }
+
+    /**
+     * Description lisible d'une fenêtre, ex: "02:00-06:00 UTC"
+     *
+     * @param windowName Nom de la fenêtre
+     * @return Description ou chaîne vide si la fenêtre est inconnue
+     */
+    public String describe(String windowName) {
+        WindowState state = windows.get(windowName);
+        if (state == null) {
+            return "";
+        }
+        return state.start + "-" + state.end + " " + state.zone.getId();
+    }
+
+    /**
+     * Recalcule l'état d'une fenêtre puis planifie la prochaine transition
+     */
+    private void refresh(WindowState state) {
+        Instant now = clock.instant();
+        boolean open = state.isOpenAt(now);
+        if (open != state.open) {
+            state.open = open;
+            epoch.incrementAndGet();
+            log.info("Fenêtre horaire '{}' {}", state.name, open ? "ouverte" : "fermée");
+        }
+        Instant next = state.nextBoundaryAfter(now);
+        taskScheduler.schedule(() -> refresh(state), next);
+    }
+
+    /**
+     * État d'une fenêtre : bornes immuables et indicateur d'ouverture volatile
+     */
+    private static final class WindowState {
+
+        private final String name;
+        private final LocalTime start;
+        private final LocalTime end;
+        private final ZoneId zone;
+
+        private volatile boolean open;
+
+        private WindowState(String name, TimeWindowProperties.Window window) {
+            if (window.getStart() == null || window.getEnd() == null || window.getZone() == null) {
+                throw new IllegalArgumentException(
+                        "Fenêtre horaire '" + name + "' : start, end et zone sont obligatoires");
+            }
+            if (window.getStart().equals(window.getEnd())) {
+                throw new IllegalArgumentException(
+                        "Fenêtre horaire '" + name + "' : start et end ne peuvent pas être égaux ("
+                                + window.getStart() + ")");
+            }
+            this.name = name;
+            this.start = window.getStart();
+            this.end = window.getEnd();
+            this.zone = window.getZone();
+        }
+
+        private boolean isOpenAt(Instant instant) {
+            LocalTime time = instant.atZone(zone).toLocalTime();
+            if (start.isBefore(end)) {
+                return !time.isBefore(start) && time.isBefore(end);
+            }
+            // Fenêtre traversant minuit
+            return !time.isBefore(start) || time.isBefore(end);
+        }
+
+        /**
+         * Prochaine borne (début ou fin) strictement postérieure à l'instant donné
+         */
+        private Instant nextBoundaryAfter(Instant instant) {
+            LocalDate today = instant.atZone(zone).toLocalDate();
+            Instant next = null;
+            for (int day = 0; day <= 1; day++) {
+                LocalDate date = today.plusDays(day);
+                for (LocalTime boundary : new LocalTime[]{start, end}) {
+                    Instant candidate = ZonedDateTime.of(date, boundary, zone).toInstant();
+                    if (candidate.isAfter(instant) && (next == null || candidate.isBefore(next))) {
+                        next = candidate;
+                    }
+                }
+            }
+            return next;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.keycloak.service;
+
+import com.example.keycloak.dto.UserDto;
+import com.example.keycloak.repository.UserProfileRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Profils utilisateurs persistants : dernière connexion et dernière activité
+ *
+ * Chaque requête authentifiée appelle recordActivity(...) (UserActivityFilter) :
+ * - écriture différée : l'activité est fusionnée en mémoire, une entrée par
+ *   utilisateur quel que soit le nombre de requêtes, puis écrite par lots
+ *   (user-activity.flush-interval) ; aucune écriture en base sur le thread de la requête
+ * - lecture : cache borné (user-activity.cache-ttl), alimenté depuis la base au
+ *   premier accès, auquel s'ajoute l'activité pas encore écrite
+ *
+ * Un arrêt brutal perd au plus un intervalle d'activité ; l'arrêt normal
+ * (@PreDestroy) écrit le tampon restant.
+ *
+ * Lecture concurrente d'un lot : une ligne lue en base pendant qu'un lot écrit
+ * l'activité qu'il vient de retirer du tampon serait mise en cache sans elle ;
+ * dans ce cas la ligne est relue sous flushLock, une fois le lot terminé.
+ */
+@Service
+public class UserProfileService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserProfileService.class);
+
+    private final UserProfileRepository repository;
+    private final JwtService jwtService;
+    private final Clock clock;
+    private final TaskScheduler taskScheduler;
+    private final int maxPending;
+    private final Duration cacheTtl;
+    private final int cacheMaxEntries;
+
+    private final Map<String, Activity> pending = new ConcurrentHashMap<>();
+    private final Map<String, CachedProfile> cache = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong drains = new AtomicLong();
+    private final Counter flushFailures;
+
+    public UserProfileService(UserProfileRepository repository,
+                              JwtService jwtService,
+                              Clock clock,
+                              TaskScheduler taskScheduler,
+                              MeterRegistry meterRegistry,
+                              @Value("${user-activity.max-pending:10000}") int maxPending,
+                              @Value("${user-activity.cache-ttl:PT5M}") Duration cacheTtl,
+                              @Value("${user-activity.cache-max-entries:10000}") int cacheMaxEntries) {
+        this.repository = repository;
+        this.jwtService = jwtService;
+        this.clock = clock;
+        this.taskScheduler = taskScheduler;
+        this.maxPending = maxPending;
+        this.cacheTtl = cacheTtl;
+        this.cacheMaxEntries = cacheMaxEntries;
+        Gauge.builder("app.user-activity.pending", pending, Map::size)
+                .description("Utilisateurs dont l'activité attend la prochaine écriture par lots")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("app.user-activity.flush.failures")
+                .description("Écritures par lots échouées (activité conservée pour le lot suivant)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Enregistre l'activité du porteur du token (mémoire uniquement)
+     *
+     * La dernière connexion est la date d'authentification Keycloak (auth_time),
+     * à défaut l'émission du token : un refresh ne compte pas comme une connexion.
+     *
+     * @param jwt Token de la requête authentifiée
+     */
+    public void recordActivity(Jwt jwt) {
+        Instant now = clock.instant();
+        Instant login = authTime(jwt);
+        Activity activity = new Activity(jwt.getSubject(), jwt.getClaimAsString("email"),
+                jwt.getClaimAsString("name"), login != null ? login : now, now);
+        pending.merge(jwtService.extractUsername(jwt), activity, Activity::merge);
+
+        // Tampon plein (pic de nouveaux utilisateurs) : écriture anticipée, hors du thread de la requête
+        if (pending.size() >= maxPending && flushRequested.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::flush, now);
+        }
+    }
+
+    /**
+     * Profil d'un utilisateur, activité non encore écrite comprise
+     *
+     * @param username Nom d'utilisateur
+     * @return Profil, ou null si l'utilisateur n'a jamais été vu
+     */
+    public UserDto findProfile(String username) {
+        Instant now = clock.instant();
+        CachedProfile cached = cache.get(username);
+        UserDto stored;
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            stored = cached.profile();
+        } else {
+            // Les utilisateurs inconnus sont aussi mis en cache (profil null)
+            long drainsBefore = drains.get();
+            stored = repository.findByUsername(username);
+            store(username, new CachedProfile(stored, now.plus(cacheTtl)), now);
+            // Vérifié après la mise en cache : un lot démarré ensuite met à jour l'entrée lui-même
+            if (drains.get() != drainsBefore || flushLock.isLocked()) {
+                flushLock.lock();
+                try {
+                    stored = repository.findByUsername(username);
+                    store(username, new CachedProfile(stored, now.plus(cacheTtl)), now);
+                } finally {
+                    flushLock.unlock();
+                }
+            }
+        }
+        return overlay(username, stored, pending.get(username));
+    }
+
+    /**
+     * Écrit l'activité fusionnée depuis le lot précédent, en un seul lot JDBC
+     *
+     * En cas d'échec, l'activité est remise dans le tampon pour le lot suivant.
+     */
+    @Scheduled(fixedDelayString = "${user-activity.flush-interval:PT5S}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return; // Lot déjà en cours (écriture anticipée ou périodique)
+        }
+        try {
+            flushRequested.set(false);
+            if (pending.isEmpty()) {
+                return;
+            }
+            drains.incrementAndGet();
+            List<UserDto> batch = new ArrayList<>(pending.size());
+            Map<String, Activity> drained = new HashMap<>();
+            for (String username : pending.keySet()) {
+                Activity activity = pending.remove(username);
+                if (activity != null) {
+                    // Les profils en cache reprennent l'activité sortie du tampon
+                    cache.computeIfPresent(username, (key, cached) ->
+                            new CachedProfile(overlay(key, cached.profile(), activity), cached.expiresAt()));
+                    drained.put(username, activity);
+                    batch.add(overlay(username, null, activity));
+                }
+            }
+            try {
+                repository.upsertActivity(batch);
+                log.debug("Activité de {} utilisateur(s) enregistrée", batch.size());
+            } catch (DataAccessException e) {
+                flushFailures.increment();
+                drained.forEach((username, activity) -> pending.merge(username, activity, Activity::merge));
+                log.warn("Écriture de l'activité de {} utilisateur(s) impossible, nouvel essai au prochain lot : {}",
+                        batch.size(), e.getMessage());
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    private void store(String username, CachedProfile profile, Instant now) {
+        if (cache.size() >= cacheMaxEntries) {
+            // Purge des entrées expirées, puis éviction des plus anciennes (expiration la plus proche)
+            // si le cache reste plein : un vidage complet renverrait toutes les lectures vers la base
+            cache.values().removeIf(entry -> !entry.expiresAt().isAfter(now));
+            int excess = cache.size() - cacheMaxEntries + Math.max(1, cacheMaxEntries / 10);
+            if (excess > 0) {
+                cache.entrySet().stream()
+                        .sorted(Map.Entry.comparingByValue(Comparator.comparing(CachedProfile::expiresAt)))
+                        .limit(excess)
+                        .map(Map.Entry::getKey)
+                        .toList()
+                        .forEach(cache::remove);
+            }
+        }
+        cache.put(username, profile);
+    }
+
+    /**
+     * Copie du profil enregistré complétée par l'activité en attente (jamais l'instance du cache)
+     */
+    private static UserDto overlay(String username, UserDto stored, Activity activity) {
+        if (stored == null && activity == null) {
+            return null;
+        }
+        UserDto profile = stored != null
+                ? new UserDto(stored.getId(), username, stored.getEmail(), stored.getFullName())
+                : new UserDto(null, username, null, null);
+        if (stored != null) {
+            profile.setLastLogin(stored.getLastLogin());
+            profile.setLastSeen(stored.getLastSeen());
+        }
+        if (activity != null) {
+            if (activity.subject() != null) {
+                profile.setId(activity.subject());
+            }
+            if (activity.email() != null) {
+                profile.setEmail(activity.email());
+            }
+            if (activity.fullName() != null) {
+                profile.setFullName(activity.fullName());
+            }
+            profile.setLastLogin(latest(profile.getLastLogin(), activity.lastLogin()));
+            profile.setLastSeen(latest(profile.getLastSeen(), activity.lastSeen()));
+        }
+        return profile;
+    }
+
+    private static Instant authTime(Jwt jwt) {
+        Object authTime = jwt.getClaim("auth_time");
+        if (authTime instanceof Instant instant) {
+            return instant;
+        }
+        if (authTime instanceof Number seconds) {
+            return Instant.ofEpochSecond(seconds.longValue());
+        }
+        return jwt.getIssuedAt();
+    }
+
+    private static Instant latest(Instant a, Instant b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.isAfter(b) ? a : b;
+    }
+
+    /**
+     * Activité d'un utilisateur depuis le dernier lot (valeurs les plus récentes)
+     */
+    private record Activity(String subject, String email, String fullName, Instant lastLogin, Instant lastSeen) {
+
+        Activity merge(Activity other) {
+            return new Activity(
+                    other.subject != null ? other.subject : subject,
+                    other.email != null ? other.email : email,
+                    other.fullName != null ? other.fullName : fullName,
+                    latest(lastLogin, other.lastLogin),
+                    latest(lastSeen, other.lastSeen));
+        }
+    }
+
+    private record CachedProfile(UserDto profile, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.keycloak.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Intercepteur Spring MVC : observation "http.controller" autour de la méthode du controller
+ *
+ * Le scope reste ouvert pendant l'exécution du handler : les contrôles
+ * @PreAuthorize et les appels sortants (RestClient) deviennent des spans enfants.
+ */
+public class ControllerObservationInterceptor implements HandlerInterceptor {
+
+    private static final String OBSERVATION_ATTRIBUTE = ControllerObservationInterceptor.class.getName() + ".OBSERVATION";
+    private static final String SCOPE_ATTRIBUTE = ControllerObservationInterceptor.class.getName() + ".SCOPE";
+
+    private final ObservationRegistry registry;
+
+    public ControllerObservationInterceptor(ObservationRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (registry.isNoop() || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        String controller = handlerMethod.getBeanType().getSimpleName();
+        String method = handlerMethod.getMethod().getName();
+        Observation observation = Observation.createNotStarted("http.controller", registry)
+                .contextualName(controller + "." + method)
+                .lowCardinalityKeyValue("controller", controller)
+                .lowCardinalityKeyValue("method", method)
+                .start();
+        request.setAttribute(OBSERVATION_ATTRIBUTE, observation);
+        request.setAttribute(SCOPE_ATTRIBUTE, observation.openScope());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(SCOPE_ATTRIBUTE) instanceof Observation.Scope scope) {
+            scope.close();
+            request.removeAttribute(SCOPE_ATTRIBUTE);
+        }
+        if (request.getAttribute(OBSERVATION_ATTRIBUTE) instanceof Observation observation) {
+            request.removeAttribute(OBSERVATION_ATTRIBUTE);
+            if (ex != null) {
+                observation.error(ex);
+            }
+            observation.lowCardinalityKeyValue("status", String.valueOf(response.getStatus()));
+            observation.stop();
+        }
+    }
+}
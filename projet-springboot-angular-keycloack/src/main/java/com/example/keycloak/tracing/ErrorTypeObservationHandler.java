@@ -0,0 +1,31 @@
+package com.example.keycloak.tracing;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+
+/**
+ * Ajoute l'attribut "error.type" (classe de l'exception) aux observations en erreur
+ *
+ * Le statut ERROR d'un span n'est lisible qu'à travers un instantané complet
+ * (toSpanData) ; l'attribut permet à TailSamplingSpanProcessor de reconnaître
+ * un span en erreur par simple lecture d'attribut. Valeur à forte cardinalité :
+ * reportée sur le span, jamais sur les métriques.
+ */
+public class ErrorTypeObservationHandler implements ObservationHandler<Observation.Context> {
+
+    public static final String ERROR_TYPE = "error.type";
+
+    @Override
+    public void onError(Observation.Context context) {
+        Throwable error = context.getError();
+        if (error != null) {
+            context.addHighCardinalityKeyValue(KeyValue.of(ERROR_TYPE, error.getClass().getName()));
+        }
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return true;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.keycloak.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Décorateur du convertisseur JWT -> Authentication : observation "security.jwt.convert"
+ */
+public class ObservedAuthenticationConverter implements Converter<Jwt, AbstractAuthenticationToken> {
+
+    private final Converter<Jwt, AbstractAuthenticationToken> delegate;
+    private final ObservationRegistry registry;
+
+    public ObservedAuthenticationConverter(Converter<Jwt, AbstractAuthenticationToken> delegate,
+                                           ObservationRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public AbstractAuthenticationToken convert(Jwt jwt) {
+        if (registry.isNoop()) {
+            return delegate.convert(jwt);
+        }
+        Observation observation = Observation.createNotStarted("security.jwt.convert", registry)
+                .contextualName("jwt convert")
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            AbstractAuthenticationToken authentication = delegate.convert(jwt);
+            if (authentication != null) {
+                observation.highCardinalityKeyValue("role.count", String.valueOf(authentication.getAuthorities().size()));
+            }
+            return authentication;
+        } catch (RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.keycloak.tracing;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.authorization.ObservationAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.util.function.Supplier;
+
+/**
+ * Décorateur d'AuthorizationManager de Method Security : span "authorize method"
+ *
+ * Reprend l'ObservationAuthorizationManager de Spring Security, que les intercepteurs
+ * déclarés explicitement (MethodSecurityConfig) ne reçoivent pas. Le registre
+ * n'est résolu qu'au premier appel, l'intercepteur étant un bean d'infrastructure
+ * créé avant les beans applicatifs.
+ */
+public class ObservedAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+
+    private final SingletonSupplier<AuthorizationManager<MethodInvocation>> observed;
+
+    public ObservedAuthorizationManager(AuthorizationManager<MethodInvocation> delegate,
+                                        Supplier<ObservationRegistry> registry) {
+        this.observed = SingletonSupplier.of(() -> new ObservationAuthorizationManager<>(registry.get(), delegate));
+    }
+
+    /**
+     * Méthode historique de l'API AuthorizationManager, délègue à authorize()
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        AuthorizationResult result = authorize(authentication, invocation);
+        if (result == null || result instanceof AuthorizationDecision) {
+            return (AuthorizationDecision) result;
+        }
+        return new AuthorizationDecision(result.isGranted());
+    }
+
+    @Override
+    public AuthorizationResult authorize(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        return observed.obtain().authorize(authentication, invocation);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.keycloak.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * Décorateur de JwtDecoder : observation (span + timer) "security.jwt.decode"
+ *
+ * Couvre le pré-filtrage, la vérification de signature et la validation ;
+ * la validation apparaît en span enfant (ObservedJwtValidator).
+ */
+public class ObservedJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final ObservationRegistry registry;
+
+    public ObservedJwtDecoder(JwtDecoder delegate, ObservationRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        if (registry.isNoop()) {
+            return delegate.decode(token);
+        }
+        return Observation.createNotStarted("security.jwt.decode", registry)
+                .contextualName("jwt decode")
+                .highCardinalityKeyValue("token.size", String.valueOf(token != null ? token.length() : 0))
+                .observe(() -> delegate.decode(token));
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.keycloak.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Décorateur de validateur : observation "security.jwt.validate", étiquetée valid / invalid
+ */
+public class ObservedJwtValidator implements OAuth2TokenValidator<Jwt> {
+
+    private final OAuth2TokenValidator<Jwt> delegate;
+    private final ObservationRegistry registry;
+
+    public ObservedJwtValidator(OAuth2TokenValidator<Jwt> delegate, ObservationRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public OAuth2TokenValidatorResult validate(Jwt token) {
+        if (registry.isNoop()) {
+            return delegate.validate(token);
+        }
+        Observation observation = Observation.createNotStarted("security.jwt.validate", registry)
+                .contextualName("jwt validate")
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            OAuth2TokenValidatorResult result = delegate.validate(token);
+            observation.lowCardinalityKeyValue("outcome", result.hasErrors() ? "invalid" : "valid");
+            return result;
+        } catch (RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+}
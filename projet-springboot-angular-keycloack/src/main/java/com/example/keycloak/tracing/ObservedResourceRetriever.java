@@ -0,0 +1,53 @@
+package com.example.keycloak.tracing;
+
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+
+/**
+ * Récupération du JWKS Keycloak par Nimbus, observée ("keycloak.jwks.fetch")
+ *
+ * Les autres appels Keycloak passent par des RestClient construits à partir du
+ * RestClient.Builder de Spring Boot, déjà instrumentés (span client + traceparent).
+ */
+public class ObservedResourceRetriever implements ResourceRetriever {
+
+    private final ResourceRetriever delegate;
+    private final ObservationRegistry registry;
+
+    /**
+     * @param connectTimeoutMillis Timeout de connexion
+     * @param readTimeoutMillis Timeout de lecture
+     * @param sizeLimitBytes Taille maximale du document
+     * @param registry Registre des observations
+     */
+    public ObservedResourceRetriever(int connectTimeoutMillis, int readTimeoutMillis, int sizeLimitBytes,
+                                     ObservationRegistry registry) {
+        this.delegate = new DefaultResourceRetriever(connectTimeoutMillis, readTimeoutMillis, sizeLimitBytes);
+        this.registry = registry;
+    }
+
+    @Override
+    public Resource retrieveResource(URL url) throws IOException {
+        try {
+            return Observation.createNotStarted("keycloak.jwks.fetch", registry)
+                    .contextualName("jwks fetch")
+                    .highCardinalityKeyValue("url", url.toString())
+                    .observe(() -> {
+                        try {
+                            return delegate.retrieveResource(url);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
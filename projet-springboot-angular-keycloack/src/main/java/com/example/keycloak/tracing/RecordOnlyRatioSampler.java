@@ -0,0 +1,46 @@
+package com.example.keycloak.tracing;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+import java.util.List;
+
+/**
+ * Échantillonnage en tête : ratio sur le trace id, décision du parent respectée
+ *
+ * Contrairement à Sampler.parentBased(traceIdRatioBased(...)), une trace non retenue
+ * n'est pas abandonnée mais enregistrée sans être marquée "sampled" (RECORD_ONLY) :
+ * ses spans restent disponibles pour TailSamplingSpanProcessor, qui les exporte
+ * si la trace s'avère lente ou en erreur. Le flag propagé en aval (traceparent)
+ * reste celui de la décision en tête.
+ */
+public class RecordOnlyRatioSampler implements Sampler {
+
+    private final Sampler delegate;
+    private final double probability;
+
+    /**
+     * @param probability Part des traces retenues en tête (0..1)
+     */
+    public RecordOnlyRatioSampler(double probability) {
+        this.delegate = Sampler.parentBased(Sampler.traceIdRatioBased(probability));
+        this.probability = probability;
+    }
+
+    @Override
+    public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+                                       Attributes attributes, List<LinkData> parentLinks) {
+        SamplingResult result = delegate.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+        return result.getDecision() == SamplingDecision.DROP ? SamplingResult.recordOnly() : result;
+    }
+
+    @Override
+    public String getDescription() {
+        return "RecordOnlyRatioSampler{" + probability + "}";
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.keycloak.tracing;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Échantillonnage en queue : toutes les traces lentes ou en erreur sont exportées
+ *
+ * Complète RecordOnlyRatioSampler :
+ * - span retenu en tête (sampled) : transmis immédiatement au processeur d'export
+ * - span non retenu (RECORD_ONLY) : conservé en mémoire, groupé par trace id
+ * - fin du span racine local : si la requête a duré au moins slowThreshold,
+ *   ou si un span de la trace est en erreur (outcome SERVER_ERROR, ou error.type
+ *   renseigné par ErrorTypeObservationHandler), toute la trace est exportée ;
+ *   sinon elle est abandonnée
+ *
+ * L'erreur est lue dans les attributs du span : le statut ERROR n'est accessible
+ * que par toSpanData(), un instantané complet qu'on ne construit pas pour chaque
+ * span non retenu.
+ *
+ * La mémoire est bornée : nombre de traces en attente et de spans par trace limités,
+ * traces sans racine locale (span terminé après sa racine) purgées après traceTimeout.
+ */
+public class TailSamplingSpanProcessor implements SpanProcessor {
+
+    private static final AttributeKey<String> OUTCOME = AttributeKey.stringKey("outcome");
+    private static final AttributeKey<String> ERROR_TYPE = AttributeKey.stringKey(ErrorTypeObservationHandler.ERROR_TYPE);
+    private static final String SERVER_ERROR = "SERVER_ERROR";
+    private static final int PURGE_EVERY = 1024;
+
+    private final SpanProcessor delegate;
+    private final long slowThresholdNanos;
+    private final int maxTraces;
+    private final int maxSpansPerTrace;
+    private final long traceTimeoutNanos;
+
+    private final Map<String, PendingTrace> pending = new ConcurrentHashMap<>();
+    private final AtomicLong ended = new AtomicLong();
+    private final AtomicLong kept = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    /**
+     * @param delegate Processeur d'export (BatchSpanProcessor acceptant les spans non "sampled")
+     * @param slowThreshold Durée à partir de laquelle une trace est toujours exportée
+     * @param maxTraces Nombre maximal de traces non retenues en attente de décision
+     * @param maxSpansPerTrace Nombre maximal de spans conservés par trace
+     * @param traceTimeout Délai après lequel une trace sans racine est abandonnée
+     */
+    public TailSamplingSpanProcessor(SpanProcessor delegate, Duration slowThreshold, int maxTraces,
+                                     int maxSpansPerTrace, Duration traceTimeout) {
+        this.delegate = delegate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.maxTraces = maxTraces;
+        this.maxSpansPerTrace = maxSpansPerTrace;
+        this.traceTimeoutNanos = traceTimeout.toNanos();
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+        delegate.onStart(parentContext, span);
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return delegate.isStartRequired();
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        if (ended.incrementAndGet() % PURGE_EVERY == 0) {
+            purgeExpired(System.nanoTime());
+        }
+        if (span.getSpanContext().isSampled()) {
+            delegate.onEnd(span);
+            return;
+        }
+
+        String traceId = span.getSpanContext().getTraceId();
+        boolean error = isError(span);
+        if (isLocalRoot(span)) {
+            PendingTrace trace = pending.remove(traceId);
+            if (error || span.getLatencyNanos() >= slowThresholdNanos || (trace != null && trace.error)) {
+                if (trace != null) {
+                    trace.spans().forEach(delegate::onEnd);
+                }
+                delegate.onEnd(span);
+                kept.incrementAndGet();
+            } else {
+                discarded.incrementAndGet();
+            }
+            return;
+        }
+
+        PendingTrace trace = pending.get(traceId);
+        if (trace == null) {
+            if (pending.size() >= maxTraces) {
+                discarded.incrementAndGet();
+                return;
+            }
+            trace = pending.computeIfAbsent(traceId, id -> new PendingTrace(System.nanoTime()));
+        }
+        trace.add(span, error, maxSpansPerTrace);
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return delegate.forceFlush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        pending.clear();
+        return delegate.shutdown();
+    }
+
+    /**
+     * @return Traces non retenues en tête mais exportées (lentes ou en erreur)
+     */
+    public long getKeptTraces() {
+        return kept.get();
+    }
+
+    /**
+     * @return Traces non retenues abandonnées
+     */
+    public long getDiscardedTraces() {
+        return discarded.get();
+    }
+
+    /**
+     * @return Traces en attente de la fin de leur span racine
+     */
+    public int getPendingTraces() {
+        return pending.size();
+    }
+
+    void purgeExpired(long now) {
+        pending.values().removeIf(trace -> now - trace.createdAt >= traceTimeoutNanos);
+    }
+
+    private static boolean isLocalRoot(ReadableSpan span) {
+        SpanContext parent = span.getParentSpanContext();
+        return !parent.isValid() || parent.isRemote();
+    }
+
+    private static boolean isError(ReadableSpan span) {
+        return SERVER_ERROR.equals(span.getAttribute(OUTCOME)) || span.getAttribute(ERROR_TYPE) != null;
+    }
+
+    /**
+     * Spans terminés d'une trace en attente de décision
+     */
+    private static final class PendingTrace {
+
+        private final long createdAt;
+        private final List<ReadableSpan> spans = new ArrayList<>();
+        private volatile boolean error;
+
+        PendingTrace(long createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        synchronized void add(ReadableSpan span, boolean spanError, int maxSpans) {
+            if (spans.size() < maxSpans) {
+                spans.add(span);
+            }
+            error |= spanError;
+        }
+
+        synchronized List<ReadableSpan> spans() {
+            return new ArrayList<>(spans);
+        }
+    }
+}
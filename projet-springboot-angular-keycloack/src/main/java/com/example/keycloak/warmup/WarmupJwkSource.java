@@ -0,0 +1,63 @@
+package com.example.keycloak.warmup;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Source de clés acceptant en plus la clé éphémère de chauffe, tant qu'elle existe
+ *
+ * Hors chauffe, une seule lecture volatile avant la délégation : aucun surcoût
+ * mesurable sur la vérification des tokens Keycloak. Un token portant le kid
+ * de chauffe ne déclenche jamais d'appel au JWKS Keycloak.
+ */
+public class WarmupJwkSource implements JWKSource<SecurityContext> {
+
+    private final JWKSource<SecurityContext> delegate;
+    private final WarmupTokenIssuer issuer;
+
+    public WarmupJwkSource(JWKSource<SecurityContext> delegate, WarmupTokenIssuer issuer) {
+        this.delegate = delegate;
+        this.issuer = issuer;
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector selector, SecurityContext context) throws KeySourceException {
+        JWKSet warmupKeys = issuer.publicKeys();
+        if (warmupKeys != null) {
+            List<JWK> matches = selector.select(warmupKeys);
+            if (!matches.isEmpty()) {
+                return matches;
+            }
+        }
+        return delegate.get(selector, context);
+    }
+
+    /**
+     * kid connus du pré-filtrage (PreValidatingJwtDecoder), complétés du kid de chauffe
+     *
+     * @param knownKeyIds kid de la source principale (ensemble vide : contrôle désactivé)
+     * @param issuer Émetteur des tokens de chauffe
+     */
+    public static Supplier<Set<String>> withWarmupKeyId(Supplier<Set<String>> knownKeyIds,
+                                                        WarmupTokenIssuer issuer) {
+        return () -> {
+            Set<String> keyIds = knownKeyIds.get();
+            String warmupKeyId = issuer.keyId();
+            if (warmupKeyId == null || keyIds.isEmpty()) {
+                return keyIds;
+            }
+            Set<String> extended = new HashSet<>(keyIds);
+            extended.add(warmupKeyId);
+            return extended;
+        };
+    }
+}
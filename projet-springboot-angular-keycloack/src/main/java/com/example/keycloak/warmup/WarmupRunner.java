@@ -0,0 +1,265 @@
+package com.example.keycloak.warmup;
+
+import com.example.keycloak.config.WarmupProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chauffe JIT exécutée au démarrage, avant que l'instance ne se déclare prête
+ *
+ * Après un déploiement, les premières minutes de trafic paient la compilation
+ * du décodage JWT (Nimbus, RSA), de la conversion des rôles, de l'évaluation SpEL
+ * de @PreAuthorize et de la sérialisation Jackson. La chauffe rejoue ce chemin
+ * complet sur les vraies routes, via le vrai serveur HTTP et la vraie chaîne
+ * de filtres, avec des tokens signés localement (WarmupTokenIssuer) :
+ * - profils USER et ADMIN : les routes d'administration sont aussi chauffées
+ *   sur le chemin du refus (403)
+ * - tokens renouvelés à chaque tour : décisions d'autorisation en cache et hors cache
+ * - fin de la chauffe lorsque le temps de compilation JIT par tour reste sous
+ *   warmup.compilation-threshold pendant warmup.stable-rounds tours consécutifs,
+ *   ou au plus tard après warmup.max-duration / warmup.max-rounds
+ *
+ * Les ApplicationRunner s'exécutent avant la publication de ReadinessState.ACCEPTING_TRAFFIC :
+ * /actuator/health/readiness reste OUT_OF_SERVICE pendant toute la chauffe.
+ * Un échec de la chauffe n'empêche jamais le démarrage (l'instance démarre simplement à froid).
+ *
+ * Métriques : app.warmup.duration, app.warmup.requests{outcome}.
+ */
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+
+    /**
+     * Résultat d'une requête de chauffe (étiquette "outcome" du compteur)
+     */
+    enum Outcome {
+        SUCCESS, FORBIDDEN, UNAUTHORIZED, ERROR
+    }
+
+    /**
+     * Profil de l'utilisateur synthétique
+     */
+    private record Persona(String username, List<String> roles) {
+    }
+
+    private static final List<Persona> PERSONAS = List.of(
+            new Persona("warmup-user", List.of("USER")),
+            new Persona("warmup-admin", List.of("ADMIN", "MANAGER", "ANALYST", "USER")));
+
+    private final WarmupProperties properties;
+    private final WarmupTokenIssuer issuer;
+    private final ApplicationContext context;
+    private final HttpClient client;
+    private final String scheme;
+    private final Map<Outcome, Counter> requests = new EnumMap<>(Outcome.class);
+
+    private volatile long durationMillis;
+
+    /**
+     * @param client Client HTTP configuré comme les vrais clients (HTTP/2, TLS)
+     * @param scheme http ou https
+     */
+    public WarmupRunner(WarmupProperties properties, WarmupTokenIssuer issuer, ApplicationContext context,
+                        HttpClient client, String scheme, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.issuer = issuer;
+        this.context = context;
+        this.client = client;
+        this.scheme = scheme;
+        for (Outcome outcome : Outcome.values()) {
+            requests.put(outcome, Counter.builder("app.warmup.requests")
+                    .description("Requêtes de chauffe JIT envoyées au démarrage")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        TimeGauge.builder("app.warmup.duration", this, TimeUnit.MILLISECONDS, runner -> runner.durationMillis)
+                .description("Durée de la chauffe JIT au démarrage")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!(context instanceof WebServerApplicationContext webContext)
+                || webContext.getWebServer() == null || webContext.getWebServer().getPort() <= 0) {
+            log.debug("Chauffe JIT ignorée : aucun serveur HTTP démarré");
+            return;
+        }
+        AvailabilityChangeEvent.publish(context, ReadinessState.REFUSING_TRAFFIC);
+        String baseUrl = scheme + "://localhost:" + webContext.getWebServer().getPort()
+                + contextPath(context.getEnvironment().getProperty("server.servlet.context-path", ""));
+
+        long start = System.nanoTime();
+        issuer.activate();
+        ExecutorService workers = Executors.newFixedThreadPool(properties.getConcurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "warmup-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Report report = warmUp(baseUrl, workers, start);
+            durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            log.info("Chauffe JIT terminée en {} ms : {} tours, {} requêtes, compilation {} ({} ms)",
+                    durationMillis, report.rounds(), report.requests(),
+                    report.stabilized() ? "stabilisée" : "non stabilisée", report.compilationMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            log.warn("Chauffe JIT interrompue après {} ms", durationMillis);
+        } catch (RuntimeException e) {
+            durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            log.warn("Chauffe JIT abandonnée après {} ms : démarrage à froid", durationMillis, e);
+        } finally {
+            workers.shutdownNow();
+            // Plus aucun token synthétique n'est accepté au-delà de ce point
+            issuer.deactivate();
+        }
+    }
+
+    /**
+     * @return Durée de la dernière chauffe en millisecondes (0 : pas de chauffe)
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    private Report warmUp(String baseUrl, ExecutorService workers, long start) throws InterruptedException {
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        boolean compilationMonitored = compilation != null && compilation.isCompilationTimeMonitoringSupported();
+        long compilationStart = compilationMonitored ? compilation.getTotalCompilationTime() : 0;
+        long deadline = start + properties.getMaxDuration().toNanos();
+        long threshold = properties.getCompilationThreshold().toMillis();
+
+        int rounds = 0;
+        int stableRounds = 0;
+        int sent = 0;
+        while (rounds < properties.getMaxRounds() && System.nanoTime() < deadline) {
+            long compilationBefore = compilationMonitored ? compilation.getTotalCompilationTime() : 0;
+            int[] outcomes = round(baseUrl, workers);
+            rounds++;
+            sent += properties.getRequestsPerRound();
+            if (outcomes[Outcome.SUCCESS.ordinal()] == 0) {
+                // Tokens refusés (issuer, algorithmes...) ou routes introuvables : inutile d'insister
+                log.warn("Chauffe JIT arrêtée : aucune réponse 2xx ({} 401, {} erreurs)",
+                        outcomes[Outcome.UNAUTHORIZED.ordinal()], outcomes[Outcome.ERROR.ordinal()]);
+                break;
+            }
+            long compiled = compilationMonitored ? compilation.getTotalCompilationTime() - compilationBefore : 0;
+            stableRounds = compiled <= threshold ? stableRounds + 1 : 0;
+            log.debug("Chauffe JIT, tour {} : compilation {} ms", rounds, compiled);
+            if (rounds >= properties.getMinRounds() && stableRounds >= properties.getStableRounds()) {
+                return new Report(rounds, sent, true, compilationTime(compilation, compilationMonitored, compilationStart));
+            }
+        }
+        return new Report(rounds, sent, false, compilationTime(compilation, compilationMonitored, compilationStart));
+    }
+
+    /**
+     * Un tour : requests-per-round requêtes réparties en parts égales entre les workers,
+     * chaque worker parcourant routes et profils avec ses propres tokens
+     *
+     * @return Nombre de requêtes par Outcome (indexé par ordinal)
+     */
+    private int[] round(String baseUrl, ExecutorService workers) throws InterruptedException {
+        int concurrency = properties.getConcurrency();
+        AtomicInteger next = new AtomicInteger();
+        List<Future<int[]>> batches = new ArrayList<>(concurrency);
+        for (int worker = 0; worker < concurrency; worker++) {
+            batches.add(workers.submit(() -> {
+                List<String> tokens = PERSONAS.stream()
+                        .map(persona -> issuer.issue(persona.username(), persona.roles()))
+                        .toList();
+                int[] outcomes = new int[Outcome.values().length];
+                int index;
+                while ((index = next.getAndIncrement()) < properties.getRequestsPerRound()) {
+                    int personaIndex = index % PERSONAS.size();
+                    String path = properties.getPaths().get((index / PERSONAS.size()) % properties.getPaths().size());
+                    Outcome outcome = send(baseUrl + path.replace("{username}",
+                            PERSONAS.get(personaIndex).username()), tokens.get(personaIndex));
+                    requests.get(outcome).increment();
+                    outcomes[outcome.ordinal()]++;
+                }
+                return outcomes;
+            }));
+        }
+        int[] total = new int[Outcome.values().length];
+        for (Future<int[]> batch : batches) {
+            try {
+                int[] outcomes = batch.get();
+                for (int i = 0; i < total.length; i++) {
+                    total[i] += outcomes[i];
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Échec d'un worker de chauffe", e.getCause());
+            }
+        }
+        return total;
+    }
+
+    private Outcome send(String url, String token) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(properties.getRequestTimeout())
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .header(HttpHeaders.ACCEPT, "application/json")
+                .GET()
+                .build();
+        try {
+            return outcome(client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+        } catch (IOException e) {
+            return Outcome.ERROR;
+        }
+    }
+
+    static Outcome outcome(int status) {
+        if (status >= 200 && status < 300) {
+            return Outcome.SUCCESS;
+        }
+        if (status == 401) {
+            return Outcome.UNAUTHORIZED;
+        }
+        // 403 attendu : profil USER sur les routes d'administration, ou hors fenêtre de maintenance
+        return status == 403 ? Outcome.FORBIDDEN : Outcome.ERROR;
+    }
+
+    static String contextPath(String contextPath) {
+        if (contextPath == null || contextPath.isEmpty() || "/".equals(contextPath)) {
+            return "";
+        }
+        return contextPath.endsWith("/") ? contextPath.substring(0, contextPath.length() - 1) : contextPath;
+    }
+
+    private static long compilationTime(CompilationMXBean compilation, boolean monitored, long start) {
+        return monitored ? compilation.getTotalCompilationTime() - start : -1;
+    }
+
+    private record Report(int rounds, int requests, boolean stabilized, long compilationMillis) {
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.keycloak.warmup;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Émetteur de tokens synthétiques pour la chauffe JIT
+ *
+ * La clé RSA est générée en mémoire au début de la chauffe et détruite à la fin :
+ * le JwtDecoder ne l'accepte que pendant cette fenêtre (WarmupJwkSource), avant
+ * que l'instance ne se déclare prête. La clé privée ne quitte jamais la JVM ;
+ * aucun token synthétique n'est plus vérifiable une fois la chauffe terminée.
+ *
+ * Les tokens reprennent la forme d'un access token Keycloak (iss, realm_access,
+ * resource_access, preferred_username...) pour emprunter les mêmes chemins de code.
+ */
+public class WarmupTokenIssuer {
+
+    private static final Duration TOKEN_LIFETIME = Duration.ofMinutes(2);
+    private static final String KEY_ID_PREFIX = "warmup-";
+
+    private final String issuer;
+    private final String audience;
+    private final String authorizedParty;
+    private final Clock clock;
+
+    private volatile RSAKey signingKey;
+    private volatile JWKSet publicKeys;
+
+    /**
+     * @param issuer Issuer attendu par le JwtDecoder
+     * @param audience Audience à inclure (null : pas de claim aud)
+     * @param authorizedParty Client émetteur à inclure, claim azp (null : pas de claim)
+     * @param clock Horloge de référence
+     */
+    public WarmupTokenIssuer(String issuer, String audience, String authorizedParty, Clock clock) {
+        this.issuer = issuer;
+        this.audience = audience;
+        this.authorizedParty = authorizedParty;
+        this.clock = clock;
+    }
+
+    /**
+     * Génère la clé de signature éphémère (kid "warmup-...")
+     */
+    public synchronized void activate() {
+        try {
+            signingKey = new RSAKeyGenerator(2048)
+                    .keyID(KEY_ID_PREFIX + UUID.randomUUID())
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(JWSAlgorithm.RS256)
+                    .generate();
+            publicKeys = new JWKSet(signingKey.toPublicJWK());
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Génération de la clé de chauffe impossible", e);
+        }
+    }
+
+    /**
+     * Détruit la clé : les tokens synthétiques sont refusés à partir de cet instant
+     */
+    public synchronized void deactivate() {
+        publicKeys = null;
+        signingKey = null;
+    }
+
+    /**
+     * @return Clé publique de chauffe, null hors chauffe
+     */
+    public JWKSet publicKeys() {
+        return publicKeys;
+    }
+
+    /**
+     * @return kid de la clé de chauffe, null hors chauffe
+     */
+    public String keyId() {
+        RSAKey key = signingKey;
+        return key != null ? key.getKeyID() : null;
+    }
+
+    /**
+     * @return true si le token a été signé par la clé de chauffe (identités synthétiques)
+     */
+    public static boolean isWarmupToken(Jwt jwt) {
+        return jwt.getHeaders().get("kid") instanceof String kid && kid.startsWith(KEY_ID_PREFIX);
+    }
+
+    /**
+     * @return true si la requête, une fois traitée, a été authentifiée par un token de chauffe
+     * (SecurityContext conservé en attribut de requête)
+     */
+    public static boolean isWarmupRequest(HttpServletRequest request) {
+        Object context = request.getAttribute(RequestAttributeSecurityContextRepository.DEFAULT_REQUEST_ATTR_NAME);
+        return context instanceof SecurityContext securityContext
+                && securityContext.getAuthentication() instanceof JwtAuthenticationToken token
+                && isWarmupToken(token.getToken());
+    }
+
+    /**
+     * Signe un token synthétique
+     *
+     * @param username Utilisateur (preferred_username)
+     * @param roles Rôles du realm
+     * @return Token JWS compact
+     */
+    public String issue(String username, List<String> roles) {
+        RSAKey key = signingKey;
+        if (key == null) {
+            throw new IllegalStateException("Chauffe inactive : aucune clé de signature");
+        }
+        Instant now = clock.instant();
+        JWTClaimsSet.Builder claims = new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .subject(UUID.nameUUIDFromBytes(username.getBytes(StandardCharsets.UTF_8)).toString())
+                .jwtID(UUID.randomUUID().toString())
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plus(TOKEN_LIFETIME)))
+                .claim("typ", "Bearer")
+                .claim("preferred_username", username)
+                .claim("email", username + "@warmup.local")
+                .claim("email_verified", true)
+                .claim("name", "Warmup " + username)
+                .claim("given_name", "Warmup")
+                .claim("family_name", username)
+                .claim("scope", "openid profile email")
+                .claim("realm_access", Map.of("roles", roles))
+                .claim("resource_access", Map.of("account", Map.of("roles", List.of("view-profile"))));
+        if (audience != null) {
+            claims.audience(audience);
+        }
+        if (authorizedParty != null) {
+            claims.claim("azp", authorizedParty);
+        }
+        try {
+            SignedJWT jwt = new SignedJWT(
+                    new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+                    claims.build());
+            jwt.sign(new RSASSASigner(key));
+            return jwt.serialize();
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Signature du token de chauffe impossible", e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+-- Schéma de la base embarquée (exécuté au démarrage, idempotent)
+
+-- ACL projets : appartenance d'un utilisateur à un projet
+CREATE TABLE IF NOT EXISTS project_membership (
+    username   VARCHAR(255) NOT NULL,
+    project_id VARCHAR(255) NOT NULL,
+    granted_at TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (username, project_id)
+);
+
+-- Jobs de mise à jour en masse (file locale persistante)
+CREATE TABLE IF NOT EXISTS bulk_job (
+    id              VARCHAR(36)   NOT NULL PRIMARY KEY,
+    operation       VARCHAR(64)   NOT NULL,
+    submitted_by    VARCHAR(255)  NOT NULL,
+    status          VARCHAR(16)   NOT NULL,
+    total_items     INT           NOT NULL,
+    processed_items INT           NOT NULL DEFAULT 0,
+    chunk_size      INT           NOT NULL,
+    last_error      VARCHAR(1000),
+    created_at      TIMESTAMP     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at      TIMESTAMP     NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Éléments d'un job (payload JSON), découpés en chunks par item_index / chunk_size
+CREATE TABLE IF NOT EXISTS bulk_job_item (
+    job_id     VARCHAR(36)   NOT NULL,
+    item_index INT           NOT NULL,
+    payload    VARCHAR(4000) NOT NULL,
+    PRIMARY KEY (job_id, item_index)
+);
+
+-- Checkpoints : chunks déjà exécutés (reprise après fermeture de fenêtre ou redémarrage)
+CREATE TABLE IF NOT EXISTS bulk_job_chunk (
+    job_id       VARCHAR(36) NOT NULL,
+    chunk_index  INT         NOT NULL,
+    completed_at TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (job_id, chunk_index)
+);
+
+-- Profils utilisateurs : dernière connexion / dernière activité par sujet
+-- (écrits par lots par UserProfileService, jamais sur le chemin de la requête)
+CREATE TABLE IF NOT EXISTS user_profile (
+    username    VARCHAR(255) NOT NULL PRIMARY KEY,
+    subject     VARCHAR(255),
+    email       VARCHAR(255),
+    full_name   VARCHAR(255),
+    first_login TIMESTAMP    NOT NULL,
+    last_login  TIMESTAMP    NOT NULL,
+    last_seen   TIMESTAMP    NOT NULL
+);
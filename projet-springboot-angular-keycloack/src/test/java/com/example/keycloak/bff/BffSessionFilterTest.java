@@ -0,0 +1,75 @@
+package com.example.keycloak.bff;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires pour BffSessionFilter
+ * Store de sessions simulé, dépôt de contexte identique à celui de la chaîne
+ */
+@DisplayName("BFF Session Filter Tests")
+class BffSessionFilterTest {
+
+    private final RequestAttributeSecurityContextRepository repository = new RequestAttributeSecurityContextRepository();
+    private final Authentication alice = new TestingAuthenticationToken("alice", null, "ROLE_USER");
+    private BffSessionFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        BffSessionService sessions = mock(BffSessionService.class);
+        when(sessions.resolve("session-1")).thenReturn(alice);
+        filter = new BffSessionFilter(sessions, "BFF_SESSION", "X-Requested-With", repository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should save the session context in the chain's request attribute repository")
+    void testContextSavedInRepository() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/private/events");
+        request.setCookies(new Cookie("BFF_SESSION", "session-1"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(request, response, new MockFilterChain());
+
+        // Then : visible des dispatchs ASYNC et de LatencyRecordingFilter
+        Object saved = request.getAttribute(RequestAttributeSecurityContextRepository.DEFAULT_REQUEST_ATTR_NAME);
+        assertThat(saved).isInstanceOf(SecurityContext.class);
+        assertThat(((SecurityContext) saved).getAuthentication()).isSameAs(alice);
+        assertThat(repository.containsContext(request)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should leave the repository untouched without a valid session cookie")
+    void testNoContextWithoutSession() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/private/events");
+        request.setCookies(new Cookie("BFF_SESSION", "unknown"));
+
+        // When
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertThat(repository.containsContext(request)).isFalse();
+    }
+}
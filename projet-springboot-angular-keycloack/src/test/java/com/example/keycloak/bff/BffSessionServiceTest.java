@@ -0,0 +1,320 @@
+package com.example.keycloak.bff;
+
+import com.example.keycloak.config.BffProperties;
+import com.example.keycloak.config.JwtAuthenticationConverter;
+import com.example.keycloak.events.NotificationHub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.response.DefaultResponseCreator;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withBadRequest;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Tests unitaires pour BffSessionService
+ * Keycloak simulé (endpoint token), décodeur JWT simulé, horloge et scheduler contrôlés
+ */
+@DisplayName("BFF Session Service Tests")
+class BffSessionServiceTest {
+
+    private static final String TOKEN_URI = "http://keycloak/realms/demo/protocol/openid-connect/token";
+    private static final String LOGOUT_URI = "http://keycloak/realms/demo/protocol/openid-connect/logout";
+
+    private MutableClock clock;
+    private MockRestServiceServer server;
+    private JwtDecoder jwtDecoder;
+    private BffSessionStore store;
+    private NotificationHub notificationHub;
+    private final List<Scheduled> scheduled = new ArrayList<>();
+    private BffSessionService service;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T10:00:00Z"));
+
+        BffProperties properties = new BffProperties();
+        properties.setAuthorizationUri("http://keycloak/realms/demo/protocol/openid-connect/auth");
+        properties.setTokenUri(TOKEN_URI);
+        properties.setLogoutUri(LOGOUT_URI);
+        properties.setClientId("angular-app");
+        properties.setRedirectUri("http://localhost:8081/bff/callback");
+        properties.setMaxSessions(2);
+
+        RestClient.Builder builder = RestClient.builder();
+        server = MockRestServiceServer.bindTo(builder).build();
+
+        jwtDecoder = mock(JwtDecoder.class);
+        when(jwtDecoder.decode(anyString())).thenAnswer(invocation -> jwt(invocation.getArgument(0)));
+
+        TaskScheduler scheduler = mock(TaskScheduler.class);
+        when(scheduler.schedule(any(Runnable.class), any(Instant.class))).thenAnswer(invocation -> {
+            scheduled.add(new Scheduled(invocation.getArgument(0), invocation.getArgument(1)));
+            return mock(ScheduledFuture.class);
+        });
+
+        notificationHub = mock(NotificationHub.class);
+        store = new InMemoryBffSessionStore(properties.getMaxSessions(), properties.getIdleTimeout(), clock);
+        service = new BffSessionService(properties, store,
+                new SessionCookieCodec("0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8)),
+                new BffTokenClient(builder.build(), properties, clock), jwtDecoder,
+                new JwtAuthenticationConverter(), scheduler, clock, new SimpleMeterRegistry(), notificationHub);
+    }
+
+    @Test
+    @DisplayName("Should run the PKCE code flow and resolve the cookie without decoding the token again")
+    void testLoginAndResolve() {
+        // Given : redirection vers Keycloak
+        Map<String, String> query = query(service.startLogin().location());
+        assertThat(query).containsEntry("code_challenge_method", "S256").containsEntry("client_id", "angular-app");
+
+        // Then : le code_verifier envoyé correspond au code_challenge de la redirection
+        server.expect(requestTo(TOKEN_URI))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(content().formDataContains(Map.of("grant_type", "authorization_code",
+                        "code", "abc", "client_id", "angular-app")))
+                .andExpect(request -> {
+                    String body = ((MockClientHttpRequest) request).getBodyAsString();
+                    String verifier = UriComponentsBuilder.fromUriString("?" + body).build()
+                            .getQueryParams().getFirst("code_verifier");
+                    assertThat(BffSessionService.codeChallenge(verifier)).isEqualTo(query.get("code_challenge"));
+                })
+                .andRespond(tokenResponse("a1", "r1"));
+
+        // When
+        String cookie = service.completeLogin("abc", query.get("state"), query.get("state"));
+        Authentication first = service.resolve(cookie);
+        Authentication second = service.resolve(cookie);
+
+        // Then : cookie compact, Authentication construite une seule fois
+        assertThat(cookie).hasSize(45);
+        assertThat(first.getName()).isEqualTo("user-a1");
+        assertThat(first.getAuthorities()).extracting("authority").contains("ROLE_USER");
+        assertThat(second).isSameAs(first);
+        verify(jwtDecoder, times(1)).decode(anyString());
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("Should reject unknown or replayed states and tampered cookies")
+    void testRejectsForgedRequests() {
+        // Given
+        String state = query(service.startLogin().location()).get("state");
+        server.expect(requestTo(TOKEN_URI)).andRespond(tokenResponse("a1", "r1"));
+        String cookie = service.completeLogin("abc", state, state);
+
+        // Then
+        assertThatThrownBy(() -> service.completeLogin("abc", state, state)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.completeLogin("abc", "forged", "forged"))
+                .isInstanceOf(IllegalArgumentException.class);
+        String tampered = (cookie.charAt(0) == 'A' ? 'B' : 'A') + cookie.substring(1);
+        assertThat(service.resolve(tampered)).isNull();
+        assertThat(service.resolve("not-a-cookie")).isNull();
+        assertThat(service.resolve(cookie)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should reject a callback whose state does not match the browser's state cookie")
+    void testRejectsLoginCsrf() {
+        // Given : l'attaquant démarre une connexion, la victime a démarré la sienne
+        String attackerState = query(service.startLogin().location()).get("state");
+        String victimState = query(service.startLogin().location()).get("state");
+
+        // Then : le code de l'attaquant est refusé dans le navigateur de la victime (ou sans cookie)
+        assertThatThrownBy(() -> service.completeLogin("attacker-code", attackerState, victimState))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.completeLogin("attacker-code", attackerState, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(service.pendingLogins()).isEqualTo(2);
+
+        // Et : la connexion de la victime aboutit toujours
+        server.expect(requestTo(TOKEN_URI)).andRespond(tokenResponse("a1", "r1"));
+        assertThat(service.resolve(service.completeLogin("abc", victimState, victimState))).isNotNull();
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("Should refresh in background, close idle sessions and sessions rejected by Keycloak")
+    void testBackgroundRefresh() {
+        // Given : connexion, rafraîchissement accepté puis refusé (session révoquée), seconde connexion
+        server.expect(requestTo(TOKEN_URI)).andRespond(tokenResponse("a1", "r1"));
+        server.expect(requestTo(TOKEN_URI))
+                .andExpect(content().formDataContains(Map.of("grant_type", "refresh_token", "refresh_token", "r1")))
+                .andRespond(tokenResponse("a2", "r2"));
+        server.expect(requestTo(TOKEN_URI)).andRespond(withBadRequest());
+        server.expect(requestTo(TOKEN_URI)).andRespond(tokenResponse("b1", "s1"));
+        String cookie = login("a1");
+
+        // Then : rafraîchissement planifié 30 s avant expiration
+        assertThat(scheduled).hasSize(1);
+        assertThat(scheduled.get(0).at()).isEqualTo(Instant.parse("2025-01-01T10:04:30Z"));
+
+        // When : le rafraîchissement s'exécute
+        clock.set(scheduled.get(0).at());
+        scheduled.get(0).task().run();
+
+        // Then : nouvelle Authentication servie depuis le store
+        assertThat(((Jwt) service.resolve(cookie).getPrincipal()).getTokenValue()).isEqualTo("a2");
+
+        // When : Keycloak refuse le refresh token (session révoquée)
+        clock.set(scheduled.get(1).at());
+        scheduled.get(1).task().run();
+
+        // Then : session fermée, connexions SSE de l'utilisateur prévenues
+        assertThat(service.resolve(cookie)).isNull();
+        assertThat(store.size()).isZero();
+        verify(notificationHub).forceLogout("user-a2", "session-revoked");
+
+        // When : une autre session n'est plus utilisée au-delà de idle-timeout
+        login("b1");
+        clock.set(scheduled.get(2).at().plus(Duration.ofMinutes(40)));
+        scheduled.get(2).task().run();
+
+        // Then : fermée sans appel à Keycloak
+        assertThat(store.size()).isZero();
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("Should close every session of a user on a forced logout, and end them at Keycloak")
+    void testLogoutUser() {
+        // Given
+        server.expect(requestTo(TOKEN_URI)).andRespond(tokenResponse("a1", "r1"));
+        server.expect(requestTo(TOKEN_URI)).andRespond(tokenResponse("b1", "s1"));
+        server.expect(requestTo(LOGOUT_URI))
+                .andExpect(content().formDataContains(Map.of("refresh_token", "r1")))
+                .andRespond(withSuccess());
+        String target = login("a1");
+        String bystander = login("b1");
+
+        // When
+        int closed = service.logoutUser("user-a1");
+
+        // Then
+        assertThat(closed).isEqualTo(1);
+        assertThat(service.resolve(target)).isNull();
+        assertThat(service.resolve(bystander)).isNotNull();
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used session when the store is full")
+    void testBoundedStore() {
+        // Given : deux sessions (max-sessions = 2), la première utilisée plus récemment
+        server.expect(requestTo(TOKEN_URI)).andRespond(tokenResponse("a1", "r1"));
+        server.expect(requestTo(TOKEN_URI)).andRespond(tokenResponse("b1", "s1"));
+        server.expect(requestTo(TOKEN_URI)).andRespond(tokenResponse("c1", "t1"));
+        String first = login("a1");
+        clock.set(clock.instant().plusSeconds(10));
+        String second = login("b1");
+        clock.set(clock.instant().plusSeconds(10));
+        service.resolve(first);
+
+        // When
+        String third = login("c1");
+
+        // Then
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(service.resolve(first)).isNotNull();
+        assertThat(service.resolve(second)).isNull();
+        assertThat(service.resolve(third)).isNotNull();
+    }
+
+    /**
+     * Connexion complète ; la réponse token doit avoir été déclarée au préalable
+     */
+    private String login(String code) {
+        String state = query(service.startLogin().location()).get("state");
+        return service.completeLogin(code, state, state);
+    }
+
+    private static Map<String, String> query(URI uri) {
+        return UriComponentsBuilder.fromUri(uri).build().getQueryParams().toSingleValueMap();
+    }
+
+    private Jwt jwt(String token) {
+        Instant now = clock.instant();
+        return Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .subject("user-" + token)
+                .claim("preferred_username", "user-" + token)
+                .claim("realm_access", Map.of("roles", List.of("USER")))
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(300))
+                .build();
+    }
+
+    private static DefaultResponseCreator tokenResponse(String accessToken, String refreshToken) {
+        return withSuccess("{\"access_token\":\"" + accessToken + "\",\"expires_in\":300,"
+                + "\"refresh_token\":\"" + refreshToken + "\",\"refresh_expires_in\":1800,"
+                + "\"token_type\":\"Bearer\"}", MediaType.APPLICATION_JSON);
+    }
+
+    private record Scheduled(Runnable task, Instant at) {
+    }
+
+    /**
+     * Horloge modifiable pour simuler l'écoulement du temps
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        private void set(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
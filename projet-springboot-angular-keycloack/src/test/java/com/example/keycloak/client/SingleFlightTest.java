@@ -0,0 +1,58 @@
+package com.example.keycloak.client;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires pour la coalescence des appels concurrents
+ */
+@DisplayName("Single Flight Tests")
+class SingleFlightTest {
+
+    @Test
+    @DisplayName("Should release waiting callers when the loader throws an Error")
+    void testErrorReleasesWaiters() throws Exception {
+        // Given : un chargement en cours, bloqué jusqu'à l'arrivée d'un second appelant
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", () -> {
+            loading.countDown();
+            await(release);
+            throw new AssertionError("chargeur en échec");
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> waiter = CompletableFuture.supplyAsync(
+                () -> singleFlight.execute("key", () -> "ne doit pas être appelé"));
+        Thread.sleep(100); // le second appelant attend le premier
+        assertThat(waiter).isNotDone();
+
+        // When
+        release.countDown();
+
+        // Then : les deux appelants reçoivent l'Error, aucun ne reste bloqué
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(AssertionError.class);
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(AssertionError.class);
+        assertThat(singleFlight.inflightCount()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
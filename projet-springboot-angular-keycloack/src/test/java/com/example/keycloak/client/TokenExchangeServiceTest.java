@@ -0,0 +1,207 @@
+package com.example.keycloak.client;
+
+import com.example.keycloak.config.OutboundClientProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.response.DefaultResponseCreator;
+import org.springframework.web.client.RestClient;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.ExpectedCount.times;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Tests unitaires pour TokenExchangeService
+ * Endpoint token Keycloak simulé
+ */
+@DisplayName("Token Exchange Service Tests")
+class TokenExchangeServiceTest {
+
+    private static final String TOKEN_URI = "http://keycloak/realms/demo/protocol/openid-connect/token";
+    private static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+
+    private MockRestServiceServer server;
+    private MutableClock clock;
+    private TokenExchangeService service;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(NOW);
+        OutboundClientProperties properties = new OutboundClientProperties();
+        properties.setTokenUri(TOKEN_URI);
+        properties.getRegistrations().put("token-exchange",
+                new OutboundClientProperties.Registration("demo-backend", "secret", null, null));
+
+        RestClient.Builder builder = RestClient.builder();
+        server = MockRestServiceServer.bindTo(builder).build();
+        service = new TokenExchangeService(new TokenEndpointClient(builder.build(), properties, clock),
+                properties, clock, "token-exchange", 100);
+    }
+
+    @Test
+    @DisplayName("Should relay the incoming token unchanged")
+    void testRelay() {
+        assertThat(service.relay(jwt("jti-1", 300))).isEqualTo("user-token-jti-1");
+    }
+
+    @Test
+    @DisplayName("Should exchange once per subject token and audience")
+    void testExchangeIsCachedPerAudience() {
+        // Given
+        server.expect(once(), requestTo(TOKEN_URI))
+                .andExpect(content().formDataContains(Map.of(
+                        "grant_type", TokenExchangeService.TOKEN_EXCHANGE_GRANT,
+                        "subject_token", "user-token-jti-1",
+                        "audience", "reporting-service")))
+                .andRespond(tokenResponse("exchanged-reporting", 300));
+        server.expect(once(), requestTo(TOKEN_URI))
+                .andExpect(content().formDataContains(Map.of("audience", "billing-service")))
+                .andRespond(tokenResponse("exchanged-billing", 300));
+        Jwt subject = jwt("jti-1", 300);
+
+        // When
+        String first = service.exchange(subject, "reporting-service");
+        String second = service.exchange(subject, "reporting-service");
+        String billing = service.exchange(subject, "billing-service");
+
+        // Then
+        assertThat(first).isEqualTo("exchanged-reporting");
+        assertThat(second).isEqualTo("exchanged-reporting");
+        assertThat(billing).isEqualTo("exchanged-billing");
+        assertThat(service.size()).isEqualTo(2);
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("Should not cache an exchanged token beyond the subject token expiry")
+    void testExchangedTokenBoundBySubjectExpiry() {
+        // Given : le token utilisateur expire dans 3 s, le token échangé dans 5 min
+        server.expect(requestTo(TOKEN_URI)).andRespond(tokenResponse("exchanged-1", 300));
+        server.expect(requestTo(TOKEN_URI)).andRespond(tokenResponse("exchanged-2", 300));
+        Jwt subject = jwt("jti-2", 3);
+
+        // When : sous la marge de validité, le token n'est pas réutilisé
+        service.exchange(subject, "reporting-service");
+        String second = service.exchange(subject, "reporting-service");
+
+        // Then
+        assertThat(second).isEqualTo("exchanged-2");
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("Should call the reporting service with the token exchanged for its audience")
+    void testReportingClientSendsExchangedToken() {
+        // Given
+        server.expect(once(), requestTo(TOKEN_URI))
+                .andExpect(content().formDataContains(Map.of("audience", "reporting-service")))
+                .andRespond(tokenResponse("exchanged-reporting", 300));
+        RestClient.Builder reportingBuilder = RestClient.builder()
+                .baseUrl("http://reporting/api")
+                .requestInterceptor(new UserTokenInterceptor(service, "reporting-service"));
+        MockRestServiceServer reportingServer = MockRestServiceServer.bindTo(reportingBuilder).build();
+        reportingServer.expect(once(), requestTo("http://reporting/api/reports"))
+                .andExpect(header(HttpHeaders.AUTHORIZATION, "Bearer exchanged-reporting"))
+                .andRespond(withSuccess("[\"Security Audit Report\"]", MediaType.APPLICATION_JSON));
+        ReportingClient client = new ReportingClient(reportingBuilder.build());
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt("jti-3", 300)));
+
+        // When
+        List<String> reports;
+        try {
+            reports = client.availableReports();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        // Then
+        assertThat(reports).containsExactly("Security Audit Report");
+        server.verify();
+        reportingServer.verify();
+    }
+
+    @Test
+    @DisplayName("Should evict the oldest exchanged tokens instead of clearing the cache when full")
+    void testBoundedCacheEviction() {
+        // Given : cache de 100 tokens rempli, un échange par seconde
+        server.expect(times(102), requestTo(TOKEN_URI)).andRespond(tokenResponse("exchanged", 300));
+        for (int i = 0; i < 100; i++) {
+            service.exchange(jwt("jti-" + i, 300), "reporting-service");
+            clock.advance(Duration.ofSeconds(1));
+        }
+
+        // When
+        service.exchange(jwt("jti-100", 300), "reporting-service");
+
+        // Then : les 10 plus anciens évincés, les plus récents toujours servis par le cache
+        assertThat(service.size()).isEqualTo(91);
+        service.exchange(jwt("jti-99", 300), "reporting-service");
+        service.exchange(jwt("jti-0", 300), "reporting-service");
+        server.verify();
+    }
+
+    private static Jwt jwt(String jti, long expiresIn) {
+        return Jwt.withTokenValue("user-token-" + jti)
+                .header("alg", "RS256")
+                .subject("john.doe")
+                .jti(jti)
+                .issuedAt(NOW.minusSeconds(10))
+                .expiresAt(NOW.plusSeconds(expiresIn))
+                .build();
+    }
+
+    private static DefaultResponseCreator tokenResponse(String token, int expiresIn) {
+        return withSuccess("{\"access_token\":\"" + token + "\",\"expires_in\":" + expiresIn
+                + ",\"token_type\":\"Bearer\"}", MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * Horloge modifiable pour simuler l'écoulement du temps
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.keycloak.config;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Banc de charge HTTP : débit, latences et octets échangés par protocole
+ * Exécution : mvn test -Pbenchmark -Dtest=HttpProtocolBenchmarkTest [-Dembedded-server=jetty|undertow]
+ *
+ * Serveur réel (port aléatoire) derrière un relais TCP qui compte les octets
+ * dans chaque sens. Scénarios : HTTP/1.1 et h2c, sans et avec compression (gzip),
+ * clients concurrents envoyant un token de la taille d'un token Keycloak
+ * (~3 Ko). La comparaison entre serveurs se fait en relançant avec un autre profil.
+ *
+ * Le client JDK envoie Authorization en « never indexed » (HPACK) : en h2c, le gain
+ * montant vient du codage Huffman et de l'indexation des autres en-têtes.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"warmup.enabled=false", "logging.level.org.springframework=WARN",
+                "logging.level.com.example.keycloak=INFO"})
+@Tag("benchmark")
+@DisplayName("HTTP Protocol Benchmark")
+class HttpProtocolBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpProtocolBenchmarkTest.class);
+
+    private static final int CONCURRENCY = 16;
+    private static final int WARMUP = 1_000;
+    private static final int ITERATIONS = 5_000;
+    private static final String PATH = "/api/advanced/management";
+
+    // Token opaque de taille réaliste (décodeur simulé) : base64url aléatoire, peu compressible
+    private static final String TOKEN = largeToken(2_200);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @MockBean
+    private JwtDecoder jwtDecoder;
+
+    private CountingProxy proxy;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(jwtDecoder.decode(anyString())).thenReturn(adminJwt());
+        proxy = new CountingProxy(port);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        proxy.close();
+    }
+
+    @Test
+    @DisplayName("Throughput, latency and bytes per request for HTTP/1.1 and h2c")
+    void benchmarkProtocols() throws Exception {
+        String server = context.getWebServer().getClass().getSimpleName();
+        log.info(String.format("[benchmark] server=%s, %d clients, %d requests, token=%d chars",
+                server, CONCURRENCY, ITERATIONS, TOKEN.length()));
+        report(server, HttpClient.Version.HTTP_1_1, false);
+        report(server, HttpClient.Version.HTTP_1_1, true);
+        report(server, HttpClient.Version.HTTP_2, false);
+        report(server, HttpClient.Version.HTTP_2, true);
+    }
+
+    private void report(String server, HttpClient.Version version, boolean gzip) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            // Nouveau client : connexions et tables HPACK repartent de zéro
+            HttpClient client = HttpClient.newBuilder().version(version).build();
+            proxy.reset();
+            run(client, clients, WARMUP, gzip, version, new ConcurrentHistogram(3));
+            // Connexions comptées sur tout le scénario (ouvertes pendant la chauffe pour h2c)
+            proxy.resetBytes();
+
+            Histogram latencies = new ConcurrentHistogram(3);
+            long start = System.nanoTime();
+            run(client, clients, ITERATIONS, gzip, version, latencies);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            log.info(String.format("[benchmark] %-14s %-8s %-8s %9.0f req/s  p50 %6.2f ms  p99 %6.2f ms  "
+                            + "up %6.0f B/req  down %6.0f B/req  connections %d",
+                    server, version == HttpClient.Version.HTTP_2 ? "h2c" : "http/1.1", gzip ? "gzip" : "identity",
+                    ITERATIONS / seconds,
+                    latencies.getValueAtPercentile(50) / 1_000.0, latencies.getValueAtPercentile(99) / 1_000.0,
+                    (double) proxy.upstream.get() / ITERATIONS, (double) proxy.downstream.get() / ITERATIONS,
+                    proxy.connections.get()));
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private void run(HttpClient client, ExecutorService clients, int requests, boolean gzip,
+                     HttpClient.Version version, Histogram latencies) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            workers.add(clients.submit(() -> {
+                while (next.getAndIncrement() < requests) {
+                    HttpRequest.Builder request = HttpRequest.newBuilder(
+                                    URI.create("http://127.0.0.1:" + proxy.port() + PATH))
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + TOKEN)
+                            .header(HttpHeaders.ACCEPT, "application/json");
+                    if (gzip) {
+                        request.header(HttpHeaders.ACCEPT_ENCODING, "gzip");
+                    }
+                    long start = System.nanoTime();
+                    HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+                    latencies.recordValue((System.nanoTime() - start) / 1_000);
+                    assertThat(response.statusCode()).isEqualTo(200);
+                    assertThat(response.version()).isEqualTo(version);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+    }
+
+    private static Jwt adminJwt() {
+        Instant now = Instant.now();
+        return Jwt.withTokenValue(TOKEN)
+                .header("alg", "RS256")
+                .issuer("http://localhost:8080/realms/demo")
+                .subject("6f1c2a9e-3b8d-4c1e-9a77-0d5e2f4b8c13")
+                .claim("preferred_username", "jane.admin")
+                .claim("email", "jane.admin@example.com")
+                .claim("name", "Jane Admin")
+                .claim("given_name", "Jane")
+                .claim("family_name", "Admin")
+                .claim("realm_access", Map.of("roles", List.of("ADMIN", "MANAGER", "ANALYST", "USER",
+                        "offline_access", "uma_authorization", "default-roles-demo")))
+                .claim("groups", IntStream.range(0, 20).mapToObj(i -> "/departments/team-" + i).toList())
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(300))
+                .build();
+    }
+
+    private static String largeToken(int bytes) {
+        byte[] random = new byte[bytes];
+        new Random(42).nextBytes(random);
+        String body = Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+        return body.substring(0, 60) + "." + body.substring(60, body.length() - 342) + "." + body.substring(body.length() - 342);
+    }
+
+    /**
+     * Relais TCP comptant les octets client -> serveur (upstream) et serveur -> client (downstream)
+     */
+    private static final class CountingProxy implements AutoCloseable {
+
+        private final ServerSocket serverSocket;
+        private final int target;
+        private final AtomicLong upstream = new AtomicLong();
+        private final AtomicLong downstream = new AtomicLong();
+        private final AtomicInteger connections = new AtomicInteger();
+        private final List<Socket> sockets = new ArrayList<>();
+
+        CountingProxy(int target) throws IOException {
+            this.target = target;
+            this.serverSocket = new ServerSocket(0, 256, InetAddress.getLoopbackAddress());
+            Thread acceptor = new Thread(this::accept, "benchmark-proxy");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        void reset() {
+            resetBytes();
+            connections.set(0);
+        }
+
+        void resetBytes() {
+            upstream.set(0);
+            downstream.set(0);
+        }
+
+        private void accept() {
+            try {
+                while (!serverSocket.isClosed()) {
+                    Socket client = serverSocket.accept();
+                    Socket server = new Socket(InetAddress.getLoopbackAddress(), target);
+                    client.setTcpNoDelay(true);
+                    server.setTcpNoDelay(true);
+                    synchronized (sockets) {
+                        sockets.add(client);
+                        sockets.add(server);
+                    }
+                    connections.incrementAndGet();
+                    pump(client, server, upstream);
+                    pump(server, client, downstream);
+                }
+            } catch (IOException e) {
+                // Relais fermé
+            }
+        }
+
+        private static void pump(Socket from, Socket to, AtomicLong counter) {
+            Thread thread = new Thread(() -> {
+                byte[] buffer = new byte[16_384];
+                try {
+                    InputStream in = from.getInputStream();
+                    OutputStream out = to.getOutputStream();
+                    int read;
+                    while ((read = in.read(buffer)) >= 0) {
+                        counter.addAndGet(read);
+                        out.write(buffer, 0, read);
+                        out.flush();
+                    }
+                    // Demi-fermeture : l'autre sens reste ouvert jusqu'à sa propre fin de flux
+                    to.shutdownOutput();
+                } catch (IOException e) {
+                    // Connexion fermée
+                }
+            }, "benchmark-proxy-pump");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            synchronized (sockets) {
+                for (Socket socket : sockets) {
+                    socket.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.keycloak.config;
+
+import com.example.keycloak.resilience.LastKnownGoodResourceRetriever;
+import com.example.keycloak.service.KeycloakProbeService;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests du mode fichier (security.jwt.key-file) : aucun composant ne contacte Keycloak
+ *
+ * Le contexte complet démarre sans jwk-set-uri ni sonde ; les groupes de santé
+ * restent servis sans les indicateurs Keycloak.
+ */
+@SpringBootTest(properties = "spring.security.oauth2.resourceserver.jwt.jwk-set-uri=")
+@AutoConfigureMockMvc
+@DisplayName("Key File Mode Tests")
+class KeyFileModeTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void keyFile(DynamicPropertyRegistry registry) throws IOException, JOSEException {
+        Path file = Files.createTempFile("realm-jwks", ".json");
+        file.toFile().deleteOnExit();
+        Files.writeString(file, new JWKSet(new RSAKeyGenerator(2048).keyID("k1").generate().toPublicJWK()).toString());
+        registry.add("security.jwt.key-file", file::toString);
+    }
+
+    @Test
+    @DisplayName("Should not create the Keycloak probe nor the JWKS retriever")
+    void testNoNetworkComponents() {
+        assertThat(context.getBeansOfType(KeycloakProbeService.class)).isEmpty();
+        assertThat(context.getBeansOfType(LastKnownGoodResourceRetriever.class)).isEmpty();
+        assertThat(context.containsBean("keycloakProbeRestClient")).isFalse();
+        assertThat(context.containsBean("keycloakResilienceHealthIndicator")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should serve health endpoints without Keycloak indicators")
+    void testHealthWithoutKeycloak() throws Exception {
+        mockMvc.perform(get("/api/public/health"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"))
+                .andExpect(jsonPath("$.keycloak.key_source").value("file"));
+        mockMvc.perform(get("/actuator/health/readiness"))
+                .andExpect(jsonPath("$.components.keycloakResilience").doesNotExist());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.keycloak.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Benchmark du coût par requête de la chaîne de sécurité stateless
+ * Exécution : mvn test -Pbenchmark
+ *
+ * Mesure la latence moyenne (MockMvc, sans réseau) d'une requête publique
+ * et d'une requête authentifiée, et vérifie qu'aucune session n'est créée.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Tag("benchmark")
+@DisplayName("Stateless Session Benchmark")
+class StatelessSessionBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(StatelessSessionBenchmarkTest.class);
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 10_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private JwtDecoder jwtDecoder;
+
+    @BeforeEach
+    void setUp() {
+        when(jwtDecoder.decode(StatelessSessionTest.USER_TOKEN))
+                .thenReturn(StatelessSessionTest.jwt("john.doe", List.of("USER")));
+    }
+
+    @Test
+    @DisplayName("Per-request overhead without session creation")
+    void benchmarkPerRequestOverhead() throws Exception {
+        report("public", "/api/public/hello", null);
+        report("authenticated", "/api/private/user", "Bearer " + StatelessSessionTest.USER_TOKEN);
+    }
+
+    private void report(String label, String uri, String authorization) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            perform(uri, authorization);
+        }
+        int sessions = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            if (perform(uri, authorization).getRequest().getSession(false) != null) {
+                sessions++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        log.info(String.format("[benchmark] %-14s %8.1f us/req, sessions=%d",
+                label, elapsed / 1_000.0 / ITERATIONS, sessions));
+        assertThat(sessions).isZero();
+    }
+
+    private MvcResult perform(String uri, String authorization) throws Exception {
+        var request = get(uri);
+        if (authorization != null) {
+            request.header(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        return mockMvc.perform(request).andReturn();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.keycloak.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Tests du mode stateless : aucune HttpSession ne doit être créée,
+ * quel que soit le chemin (public, authentifié, 401, 403)
+ *
+ * Le JwtDecoder est simulé : le token traverse la vraie chaîne de filtres
+ * (BearerTokenAuthenticationFilter, conversion, autorisation).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DisplayName("Stateless Session Tests")
+class StatelessSessionTest {
+
+    static final String USER_TOKEN = "user-token";
+    static final String ADMIN_TOKEN = "admin-token";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private JwtDecoder jwtDecoder;
+
+    @BeforeEach
+    void setUp() {
+        when(jwtDecoder.decode(USER_TOKEN)).thenReturn(jwt("john.doe", List.of("USER")));
+        when(jwtDecoder.decode(ADMIN_TOKEN)).thenReturn(jwt("admin", List.of("USER", "ADMIN")));
+    }
+
+    @Test
+    @DisplayName("Should not create a session for public endpoints")
+    void testPublicEndpoint() throws Exception {
+        assertNoSession(get("/api/public/hello"), 200);
+    }
+
+    @Test
+    @DisplayName("Should not create a session for authenticated requests")
+    void testAuthenticatedEndpoint() throws Exception {
+        assertNoSession(get("/api/private/user").header(HttpHeaders.AUTHORIZATION, "Bearer " + USER_TOKEN), 200);
+        assertNoSession(get("/api/admin/dashboard").header(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN), 200);
+    }
+
+    @Test
+    @DisplayName("Should not create a session when access is denied")
+    void testRejectedRequests() throws Exception {
+        // 401 : le RequestCache ne doit pas mémoriser la requête en session
+        assertNoSession(get("/api/private/user"), 401);
+        // 403 : rôle insuffisant
+        assertNoSession(get("/api/admin/dashboard").header(HttpHeaders.AUTHORIZATION, "Bearer " + USER_TOKEN), 403);
+    }
+
+    private void assertNoSession(RequestBuilder request, int expectedStatus) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        assertThat(result.getResponse().getStatus()).isEqualTo(expectedStatus);
+        assertThat(result.getRequest().getSession(false)).isNull();
+        // Portée requête : le holder ThreadLocal est vidé une fois la requête terminée
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    static Jwt jwt(String username, List<String> roles) {
+        Instant now = Instant.now();
+        return Jwt.withTokenValue(username + "-token")
+                .header("alg", "RS256")
+                .subject(username)
+                .claim("preferred_username", username)
+                .claim("realm_access", Map.of("roles", roles))
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(300))
+                .build();
+    }
+}
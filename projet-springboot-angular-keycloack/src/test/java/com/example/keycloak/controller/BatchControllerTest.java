@@ -0,0 +1,178 @@
+package com.example.keycloak.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockServletConfig;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Tests de l'endpoint de requêtes groupées (POST /api/batch)
+ *
+ * Le JwtDecoder est simulé : l'appel traverse la vraie chaîne de filtres, les
+ * sous-requêtes ses règles d'URL et la vraie sécurité de méthode.
+ * /api/admin/dashboard, protégé par une seule règle d'URL, est ajouté aux routes autorisées.
+ */
+@SpringBootTest(properties = {
+        "warmup.enabled=false",
+        "batch.allowed-paths=/api/private/,/api/advanced/,/api/admin/dashboard"
+})
+@AutoConfigureMockMvc
+@DisplayName("Batch Controller Tests")
+class BatchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DispatcherServlet dispatcherServlet;
+
+    @MockBean
+    private JwtDecoder jwtDecoder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Sans conteneur, MockMvc utilise son propre servlet : celui du contexte (cible des sous-requêtes)
+        // n'est pas initialisé, contrairement au premier appel servi par Tomcat
+        if (dispatcherServlet.getServletConfig() == null) {
+            dispatcherServlet.init(new MockServletConfig(new MockServletContext()));
+        }
+        when(jwtDecoder.decode("admin")).thenReturn(jwt("admin", List.of("USER", "ADMIN")));
+        when(jwtDecoder.decode("user")).thenReturn(jwt("john.doe", List.of("USER")));
+    }
+
+    @Test
+    @DisplayName("Should run the dashboard calls under one authentication and stream one line per sub-request")
+    void testDashboard() throws Exception {
+        // When
+        Map<String, JsonNode> lines = batch("admin", """
+                {"requests": [
+                  {"id": "user", "path": "/api/private/user"},
+                  {"id": "reports", "path": "/api/advanced/reports"},
+                  {"id": "management", "path": "/api/advanced/management"},
+                  {"id": "profile", "path": "/api/advanced/profile/john.doe?verbose=true"},
+                  {"id": "admin", "path": "/api/admin/dashboard"}
+                ]}""");
+
+        // Then : corps JSON des controllers repris tels quels, ETag transmis
+        assertThat(lines).containsOnlyKeys("user", "reports", "management", "profile", "admin");
+        assertThat(lines.values()).allSatisfy(line -> assertThat(line.get("status").asInt()).isEqualTo(200));
+        assertThat(lines.get("user").at("/body/user_info/username").asText()).isEqualTo("admin");
+        assertThat(lines.get("user").at("/headers/ETag").asText()).startsWith("\"");
+        assertThat(lines.get("reports").at("/body/available_reports").isArray()).isTrue();
+        verify(jwtDecoder, times(1)).decode(anyString());
+    }
+
+    @Test
+    @DisplayName("Should enforce URL rules, method security and the route allow-list per sub-request")
+    void testPerSubRequestSecurity() throws Exception {
+        // When
+        Map<String, JsonNode> lines = batch("user", """
+                {"requests": [
+                  {"id": "user", "path": "/api/private/user"},
+                  {"id": "management", "path": "/api/advanced/management"},
+                  {"id": "reports", "path": "/api/advanced/reports"},
+                  {"id": "admin", "path": "/api/admin/dashboard"},
+                  {"id": "traversal", "path": "/api/private/../admin/dashboard"},
+                  {"id": "events", "path": "/api/private/events"},
+                  {"id": "info", "path": "/actuator/info"},
+                  {"id": "post", "method": "POST", "path": "/api/advanced/sensitive-operation"},
+                  {"id": "missing", "path": "/api/private/unknown"}
+                ]}""");
+
+        // Then
+        assertThat(lines.get("user").get("status").asInt()).isEqualTo(200);
+        assertThat(lines.get("management").get("status").asInt()).isEqualTo(403);
+        assertThat(lines.get("reports").get("status").asInt()).isEqualTo(403);
+        // Règle d'URL /api/admin/** hasRole('ADMIN') : le controller n'a pas de @PreAuthorize
+        assertThat(lines.get("admin").get("status").asInt()).isEqualTo(403);
+        assertThat(lines.get("traversal").get("status").asInt()).isEqualTo(400);
+        assertThat(lines.get("events").get("status").asInt()).isEqualTo(400);
+        assertThat(lines.get("info").get("status").asInt()).isEqualTo(400);
+        assertThat(lines.get("post").get("status").asInt()).isEqualTo(405);
+        assertThat(lines.get("missing").get("status").asInt()).isEqualTo(404);
+        assertThat(lines.get("management").at("/body/error").asText()).isNotEmpty();
+    }
+
+    @Test
+    @DisplayName("Should honour If-None-Match per sub-request and reject malformed batches")
+    void testConditionalAndMalformed() throws Exception {
+        // Given
+        String etag = batch("admin", """
+                {"requests": [{"id": "user", "path": "/api/private/user"}]}""")
+                .get("user").at("/headers/ETag").asText();
+
+        // When
+        Map<String, JsonNode> lines = batch("admin", """
+                {"requests": [{"id": "user", "path": "/api/private/user", "headers": {"If-None-Match": %s}}]}"""
+                .formatted(objectMapper.writeValueAsString(etag)));
+
+        // Then
+        assertThat(lines.get("user").get("status").asInt()).isEqualTo(304);
+        assertThat(lines.get("user").has("body")).isFalse();
+        assertThat(mockMvc.perform(post("/api/batch")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer admin")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"requests\": []}")).andReturn().getResponse().getStatus()).isEqualTo(400);
+        assertThat(mockMvc.perform(post("/api/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"requests\": [{\"id\": \"user\", \"path\": \"/api/private/user\"}]}"))
+                .andReturn().getResponse().getStatus()).isEqualTo(401);
+    }
+
+    private Map<String, JsonNode> batch(String token, String body) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/batch")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body)).andReturn();
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        assertThat(result.getResponse().getContentType()).startsWith(BatchController.NDJSON);
+
+        Map<String, JsonNode> lines = new HashMap<>();
+        for (String line : result.getResponse().getContentAsString().split("\n")) {
+            JsonNode node = objectMapper.readTree(line);
+            lines.put(node.get("id").asText(), node);
+        }
+        return lines;
+    }
+
+    private static Jwt jwt(String username, List<String> roles) {
+        Instant now = Instant.now();
+        return Jwt.withTokenValue(username)
+                .header("alg", "RS256")
+                .subject(username)
+                .claim("preferred_username", username)
+                .claim("realm_access", Map.of("roles", roles))
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(900))
+                .build();
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.keycloak.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Tests des GET conditionnels des endpoints d'identité (ETag dérivé des claims)
+ *
+ * Le JwtDecoder est simulé : le token traverse la vraie chaîne de filtres
+ * et la vérification @PreAuthorize.
+ */
+@SpringBootTest(properties = "warmup.enabled=false")
+@AutoConfigureMockMvc
+@DisplayName("Claims ETag Tests")
+class ClaimsETagTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private JwtDecoder jwtDecoder;
+
+    @BeforeEach
+    void setUp() {
+        Instant now = Instant.now();
+        when(jwtDecoder.decode("admin-1")).thenReturn(jwt("admin-1", "admin", List.of("USER", "ADMIN"), now));
+        when(jwtDecoder.decode("admin-2")).thenReturn(jwt("admin-2", "admin", List.of("USER", "ADMIN"), now.plusSeconds(60)));
+        when(jwtDecoder.decode("user-1")).thenReturn(jwt("user-1", "john.doe", List.of("USER"), now));
+    }
+
+    @Test
+    @DisplayName("Should answer 304 to a matching If-None-Match and cache privately until the response changes")
+    void testNotModified() throws Exception {
+        // Given
+        MvcResult first = mockMvc.perform(get("/api/private/user").header(HttpHeaders.AUTHORIZATION, "Bearer admin-1"))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Then : ETag fort, cache privé jusqu'au passage de token_expiring_soon (exp - 5 min)
+        assertThat(first.getResponse().getStatus()).isEqualTo(200);
+        assertThat(etag).startsWith("\"");
+        assertThat(first.getResponse().getHeader(HttpHeaders.CACHE_CONTROL)).contains("private").contains("max-age=");
+        assertThat(String.join(",", first.getResponse().getHeaders(HttpHeaders.VARY))).contains("Authorization", "Cookie");
+
+        // When : même token, ETag renvoyé (fort ou faible)
+        MvcResult second = mockMvc.perform(get("/api/private/user")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer admin-1")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+        MvcResult weak = mockMvc.perform(get("/api/private/user")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer admin-1")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + etag)).andReturn();
+
+        // Then : 304 sans corps
+        assertThat(second.getResponse().getStatus()).isEqualTo(304);
+        assertThat(second.getResponse().getContentAsByteArray()).isEmpty();
+        assertThat(second.getResponse().getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+        assertThat(weak.getResponse().getStatus()).isEqualTo(304);
+
+        // When : autre utilisateur présentant le même ETag
+        MvcResult other = mockMvc.perform(get("/api/private/user")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer user-1")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+
+        // Then : réponse complète
+        assertThat(other.getResponse().getStatus()).isEqualTo(200);
+        assertThat(other.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+    }
+
+    @Test
+    @DisplayName("Should keep the auth-details ETag across token refreshes with unchanged authorities")
+    void testEtagSurvivesRefresh() throws Exception {
+        // Given
+        String etag = mockMvc.perform(get("/api/private/auth-details").header(HttpHeaders.AUTHORIZATION, "Bearer admin-1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // When : nouveau token (jti, iat, exp différents), mêmes autorités
+        MvcResult refreshed = mockMvc.perform(get("/api/private/auth-details")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer admin-2")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+
+        // Then
+        assertThat(refreshed.getResponse().getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    @DisplayName("Should check authorization before answering 304")
+    void testAuthorizationBeforeNotModified() throws Exception {
+        // Given
+        String etag = mockMvc.perform(get("/api/advanced/management").header(HttpHeaders.AUTHORIZATION, "Bearer admin-1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Then
+        assertThat(mockMvc.perform(get("/api/advanced/management")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer admin-1")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn().getResponse().getStatus()).isEqualTo(304);
+        assertThat(mockMvc.perform(get("/api/advanced/management")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer user-1")
+                .header(HttpHeaders.IF_NONE_MATCH, "*")).andReturn().getResponse().getStatus()).isEqualTo(403);
+    }
+
+    @Test
+    @DisplayName("Should compare If-None-Match entity tags exactly, with weak comparison")
+    void testWeakMatch() {
+        String etag = "W/\"abc123\"";
+
+        assertThat(ClaimsETag.weakMatch("W/\"abc123\"", etag)).isTrue();
+        assertThat(ClaimsETag.weakMatch("\"abc123\"", etag)).isTrue();
+        assertThat(ClaimsETag.weakMatch("\"other\", W/\"abc123\"", etag)).isTrue();
+        assertThat(ClaimsETag.weakMatch("*", etag)).isTrue();
+        assertThat(ClaimsETag.weakMatch("\"xabc123\"", etag)).isFalse();
+        assertThat(ClaimsETag.weakMatch("W/\"abc1234\"", etag)).isFalse();
+        assertThat(ClaimsETag.weakMatch("\"prefix\"W/\"abc123\"\"", etag)).isFalse();
+        assertThat(ClaimsETag.weakMatch(null, etag)).isFalse();
+    }
+
+    private static Jwt jwt(String token, String username, List<String> roles, Instant issuedAt) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .subject(username)
+                .jti(token)
+                .claim("preferred_username", username)
+                .claim("realm_access", Map.of("roles", roles))
+                .issuedAt(issuedAt)
+                .expiresAt(issuedAt.plusSeconds(900))
+                .build();
+    }
+}
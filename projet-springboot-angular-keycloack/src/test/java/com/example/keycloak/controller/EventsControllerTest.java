@@ -0,0 +1,140 @@
+package com.example.keycloak.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Tests du canal de notifications poussées (GET /api/private/events)
+ *
+ * Le JwtDecoder est simulé ; heartbeat raccourci pour observer les commentaires SSE.
+ */
+@SpringBootTest(properties = {"warmup.enabled=false", "events.heartbeat=PT0.2S"})
+@AutoConfigureMockMvc
+@DisplayName("Events Controller Tests")
+class EventsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private JwtDecoder jwtDecoder;
+
+    @BeforeEach
+    void setUp() {
+        Instant now = Instant.now();
+        when(jwtDecoder.decode("short")).thenReturn(jwt("short", "alice", List.of("USER"), now.plusSeconds(2)));
+        when(jwtDecoder.decode("user")).thenReturn(jwt("user", "john.doe", List.of("USER"), now.plusSeconds(900)));
+        when(jwtDecoder.decode("manager")).thenReturn(jwt("manager", "john.doe", List.of("USER", "MANAGER"),
+                now.plusSeconds(900)));
+        when(jwtDecoder.decode("bob")).thenReturn(jwt("bob", "bob", List.of("USER"), now.plusSeconds(900)));
+        when(jwtDecoder.decode("other")).thenReturn(jwt("other", "jane.doe", List.of("USER"), now.plusSeconds(900)));
+        when(jwtDecoder.decode("admin")).thenReturn(jwt("admin", "admin", List.of("USER", "ADMIN"), now.plusSeconds(900)));
+    }
+
+    @Test
+    @DisplayName("Should push expiry warnings and heartbeats, then end the stream when the token expires")
+    void testTokenExpiry() throws Exception {
+        // When : token valable 2 s, moins que expiry-warning (5 min)
+        MvcResult stream = open("short");
+
+        // Then
+        awaitContent(stream, "event:connected");
+        awaitContent(stream, "event:token-expiring");
+        awaitContent(stream, ":heartbeat");
+        awaitContent(stream, "event:token-expired");
+        assertThat(stream.getResponse().getContentType()).startsWith("text/event-stream");
+        awaitCompletion(stream);
+    }
+
+    @Test
+    @DisplayName("Should let only administrators force a logout, and only on the target user's streams")
+    void testForcedLogout() throws Exception {
+        // Given
+        MvcResult target = open("bob");
+        MvcResult bystander = open("other");
+        awaitContent(target, "event:connected");
+        awaitContent(bystander, "event:connected");
+
+        // Then : refusé à un utilisateur
+        assertThat(mockMvc.perform(post("/api/admin/users/bob/logout")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer other")).andReturn().getResponse().getStatus()).isEqualTo(403);
+
+        // When
+        String body = mockMvc.perform(post("/api/admin/users/bob/logout")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer admin")).andReturn().getResponse().getContentAsString();
+
+        // Then
+        assertThat(body).contains("\"notified_connections\":1");
+        awaitContent(target, "event:forced-logout");
+        awaitCompletion(target);
+        assertThat(bystander.getResponse().getContentAsString()).doesNotContain("forced-logout");
+        assertThat(bystander.getRequest().isAsyncStarted()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should notify open streams when the same user connects with different roles")
+    void testRolesChanged() throws Exception {
+        // Given
+        MvcResult first = open("user");
+        awaitContent(first, "event:connected");
+
+        // When : nouveau token portant MANAGER
+        open("manager");
+
+        // Then
+        awaitContent(first, "event:roles-changed");
+        awaitContent(first, "\"MANAGER\"");
+    }
+
+    private MvcResult open(String token) throws Exception {
+        return mockMvc.perform(get("/api/private/events").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private static void awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!result.getResponse().getContentAsString().contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(result.getResponse().getContentAsString()).contains(expected);
+    }
+
+    /**
+     * Fin du flux : le résultat asynchrone est posé à la complétion de l'émetteur
+     */
+    private static void awaitCompletion(MvcResult result) {
+        assertThat(result.getAsyncResult(5_000)).isNull();
+    }
+
+    private static Jwt jwt(String token, String username, List<String> roles, Instant expiresAt) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .subject(username)
+                .claim("preferred_username", username)
+                .claim("realm_access", Map.of("roles", roles))
+                .issuedAt(Instant.now())
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.keycloak.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires pour SseConnection
+ * Émetteur simulé dont l'écriture bloque comme un client qui ne lit plus
+ */
+@DisplayName("SSE Connection Tests")
+class SseConnectionTest {
+
+    private ExecutorService executor;
+    private Counter overflows;
+    private BlockingEmitter emitter;
+    private SseConnection connection;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        overflows = new SimpleMeterRegistry().counter("app.events.overflows");
+        emitter = new BlockingEmitter();
+        connection = new SseConnection("john.doe", Set.of("USER"), emitter, 2, executor, Clock.systemUTC(), overflows);
+    }
+
+    @AfterEach
+    void tearDown() {
+        emitter.release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should disconnect a slow consumer instead of buffering past the queue capacity")
+    void testOverflowClosesConnection() throws Exception {
+        // Given : le premier envoi bloque (client qui ne lit plus), deux événements en file
+        assertThat(connection.offer(event("e1"))).isTrue();
+        assertThat(emitter.sending.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(connection.offer(event("e2"))).isTrue();
+        assertThat(connection.offer(event("e3"))).isTrue();
+
+        // When : file pleine
+        boolean accepted = connection.offer(event("e4"));
+
+        // Then : connexion fermée, file libérée, plus rien n'est accepté
+        assertThat(accepted).isFalse();
+        assertThat(connection.isClosed()).isTrue();
+        assertThat(emitter.completed).isTrue();
+        assertThat(overflows.count()).isEqualTo(1.0);
+        assertThat(connection.offer(event("e5"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should send pending events in order before closing, and heartbeat only when idle")
+    void testCloseAfterDrain() throws Exception {
+        // Given
+        emitter.release.countDown();
+        connection.offer(event("e1"));
+        connection.offer(event("e2"));
+
+        // When
+        connection.closeAfterDrain();
+        awaitClosed();
+
+        // Then
+        assertThat(emitter.sent).containsExactly("e1", "e2");
+        assertThat(emitter.completed).isTrue();
+        connection.heartbeatIfIdle(Duration.ZERO);
+        assertThat(emitter.sent).hasSize(2);
+    }
+
+    private void awaitClosed() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!connection.isClosed() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder event(String name) {
+        return SseEmitter.event().name(name).data(name);
+    }
+
+    /**
+     * Émetteur enregistrant le nom des événements ; chaque envoi attend release
+     */
+    private static final class BlockingEmitter extends SseEmitter {
+
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+        private volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String text = builder.build().iterator().next().getData().toString();
+            sent.add(text.substring("event:".length(), text.indexOf('\n')));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
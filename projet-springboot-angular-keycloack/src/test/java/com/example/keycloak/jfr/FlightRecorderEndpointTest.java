@@ -0,0 +1,95 @@
+package com.example.keycloak.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires des événements JFR du pipeline de sécurité et de l'endpoint /actuator/jfr
+ */
+@DisplayName("Flight Recorder Endpoint Tests")
+class FlightRecorderEndpointTest {
+
+    private FlightRecorderEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        endpoint = new FlightRecorderEndpoint(Duration.ofSeconds(30), Duration.ofMinutes(2), DataSize.ofMegabytes(20));
+    }
+
+    @AfterEach
+    void tearDown() {
+        endpoint.close();
+    }
+
+    @Test
+    @DisplayName("Should record security stage events and expose the recording for download")
+    void testRecordAndDownload() throws Exception {
+        // Given
+        JwtDecoder delegate = mock(JwtDecoder.class);
+        Jwt jwt = Jwt.withTokenValue("a.b.c").header("alg", "RS256").subject("john")
+                .issuedAt(Instant.now()).expiresAt(Instant.now().plusSeconds(60)).build();
+        when(delegate.decode("a.b.c")).thenReturn(jwt);
+        when(delegate.decode("bad")).thenThrow(new BadJwtException("invalide"));
+        JwtDecoder decoder = new RecordingJwtDecoder(delegate);
+
+        // When
+        WebEndpointResponse<Map<String, Object>> started = endpoint.start(null, null);
+        decoder.decode("a.b.c");
+        assertThatThrownBy(() -> decoder.decode("bad")).isInstanceOf(BadJwtException.class);
+        Map<String, Object> stopped = endpoint.stop();
+        WebEndpointResponse<Resource> download = endpoint.download("recording.jfr");
+
+        // Then
+        assertThat(started.getStatus()).isEqualTo(200);
+        assertThat(started.getBody()).containsEntry("state", "RUNNING").containsEntry("duration", "PT30S");
+        // Avec une destination, le JDK ferme l'enregistrement après l'avoir écrit
+        assertThat(stopped.get("state")).isIn("STOPPED", "CLOSED");
+        assertThat((long) stopped.get("size_bytes")).isPositive();
+        assertThat(download.getStatus()).isEqualTo(200);
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(download.getBody().getFile().toPath()).stream()
+                .filter(event -> event.getEventType().getName().equals("com.example.keycloak.SecurityStage"))
+                .toList();
+        assertThat(events).hasSize(2).allSatisfy(event -> {
+            assertThat(event.getString("stage")).isEqualTo(SecurityStageEvent.DECODE);
+            assertThat(event.getInt("tokenSize")).isGreaterThan(0);
+        });
+        assertThat(events).extracting(event -> event.getBoolean("success")).containsExactlyInAnyOrder(true, false);
+    }
+
+    @Test
+    @DisplayName("Should cap the duration, refuse concurrent recordings and reject unknown settings")
+    void testTimeBoxAndConflicts() {
+        // When
+        WebEndpointResponse<Map<String, Object>> started = endpoint.start(Duration.ofHours(1), "profile");
+        WebEndpointResponse<Map<String, Object>> concurrent = endpoint.start(null, null);
+        endpoint.stop();
+        WebEndpointResponse<Map<String, Object>> unknown = endpoint.start(null, "unknown-settings");
+
+        // Then
+        assertThat(started.getBody()).containsEntry("duration", "PT2M").containsEntry("settings", "profile");
+        assertThat(concurrent.getStatus()).isEqualTo(409);
+        assertThat(unknown.getStatus()).isEqualTo(400);
+        assertThat(endpoint.download("other.jfr").getStatus()).isEqualTo(404);
+    }
+}
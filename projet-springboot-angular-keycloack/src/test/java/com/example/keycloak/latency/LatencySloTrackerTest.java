@@ -0,0 +1,161 @@
+package com.example.keycloak.latency;
+
+import com.example.keycloak.config.LatencySloProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.keycloak.latency.LatencySloTracker.AuthOutcome.AUTHENTICATED;
+import static com.example.keycloak.latency.LatencySloTracker.AuthOutcome.FORBIDDEN;
+import static com.example.keycloak.latency.LatencySloTracker.RoleClass.ADMIN;
+import static com.example.keycloak.latency.LatencySloTracker.RoleClass.USER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires du suivi des latences et de l'endpoint /actuator/latency
+ */
+@DisplayName("Latency SLO Tracker Tests")
+class LatencySloTrackerTest {
+
+    private LatencySloProperties properties;
+    private LatencySloTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LatencySloProperties();
+        properties.setWindowIntervals(3);
+        properties.setMaxRoutes(2);
+        properties.setThreshold(Duration.ofMillis(100));
+        properties.setObjective(0.9);
+        tracker = new LatencySloTracker(properties);
+    }
+
+    @Test
+    @DisplayName("Should expose samples only once rotated and drop them after the window")
+    void testRollingWindow() {
+        // Given
+        tracker.record("/api/private/user", AUTHENTICATED, USER, 5_000);
+        assertThat(tracker.snapshot()).isEmpty();
+
+        // When
+        tracker.rotate();
+        List<LatencySloTracker.WindowSnapshot> inWindow = tracker.snapshot();
+        tracker.rotate();
+        tracker.rotate();
+        tracker.rotate();
+
+        // Then
+        assertThat(inWindow).singleElement().satisfies(snapshot -> {
+            assertThat(snapshot.route()).isEqualTo("/api/private/user");
+            assertThat(snapshot.outcome()).isEqualTo(AUTHENTICATED);
+            assertThat(snapshot.roleClass()).isEqualTo(USER);
+            assertThat(snapshot.histogram().getTotalCount()).isEqualTo(1);
+        });
+        assertThat(tracker.snapshot()).isEmpty();
+        assertThat(tracker.window()).isEqualTo(Duration.ofSeconds(30));
+    }
+
+    @Test
+    @DisplayName("Should bound the number of tracked routes")
+    void testRouteOverflow() {
+        // When
+        tracker.record("/a", AUTHENTICATED, USER, 1_000);
+        tracker.record("/b", AUTHENTICATED, USER, 1_000);
+        tracker.record("/c", AUTHENTICATED, USER, 1_000);
+        tracker.record("/d", AUTHENTICATED, USER, 1_000);
+        tracker.rotate();
+
+        // Then
+        assertThat(tracker.snapshot()).extracting(LatencySloTracker.WindowSnapshot::route)
+                .containsExactlyInAnyOrder("/a", "/b", LatencySloTracker.OVERFLOW);
+    }
+
+    @Test
+    @DisplayName("Should report percentiles and burn rate per route and role class")
+    @SuppressWarnings("unchecked")
+    void testEndpointReport() {
+        // Given : 100 requêtes ADMIN dont 20 au-delà du seuil de 100 ms, 5 refus USER
+        for (int i = 0; i < 80; i++) {
+            tracker.record("/api/advanced/management", AUTHENTICATED, ADMIN, 10_000);
+        }
+        for (int i = 0; i < 20; i++) {
+            tracker.record("/api/advanced/management", AUTHENTICATED, ADMIN, 400_000);
+        }
+        for (int i = 0; i < 5; i++) {
+            tracker.record("/api/advanced/management", FORBIDDEN, USER, 2_000);
+        }
+        tracker.rotate();
+
+        // When
+        Map<String, Object> report = new LatencyEndpoint(tracker, properties).latency();
+
+        // Then
+        Map<String, Object> route = (Map<String, Object>) ((Map<String, Object>) report.get("routes"))
+                .get("/api/advanced/management");
+        assertThat(route.get("count")).isEqualTo(105L);
+        assertThat(route.get("slow")).isEqualTo(20L);
+        assertThat((double) route.get("p50_ms")).isBetween(9.0, 11.0);
+        assertThat((double) route.get("p99_ms")).isBetween(390.0, 410.0);
+        assertThat((List<Map<String, Object>>) route.get("breakdown")).hasSize(2);
+
+        Map<String, Object> admin = (Map<String, Object>) ((Map<String, Object>) report.get("role_classes")).get("ADMIN");
+        assertThat(admin.get("burn_rate")).isEqualTo(2.0);
+        Map<String, Object> user = (Map<String, Object>) ((Map<String, Object>) report.get("role_classes")).get("USER");
+        assertThat(user.get("burn_rate")).isEqualTo(0.0);
+    }
+
+    @Test
+    @DisplayName("Should classify outcome and highest role of the caller")
+    void testOutcomeAndRoleClass() {
+        TestingAuthenticationToken manager = new TestingAuthenticationToken("bob", null, "ROLE_USER", "ROLE_MANAGER");
+        manager.setAuthenticated(true);
+
+        assertThat(LatencyRecordingFilter.roleClass(manager)).isEqualTo(LatencySloTracker.RoleClass.MANAGER);
+        assertThat(LatencyRecordingFilter.roleClass(null)).isEqualTo(LatencySloTracker.RoleClass.NONE);
+        assertThat(LatencyRecordingFilter.outcome(200, manager)).isEqualTo(AUTHENTICATED);
+        assertThat(LatencyRecordingFilter.outcome(401, null)).isEqualTo(LatencySloTracker.AuthOutcome.UNAUTHORIZED);
+        assertThat(LatencyRecordingFilter.outcome(200, null)).isEqualTo(LatencySloTracker.AuthOutcome.ANONYMOUS);
+    }
+
+    @Test
+    @DisplayName("Should not record requests authenticated with a warm-up token")
+    void testWarmupRequestsNotRecorded() throws Exception {
+        // Given
+        LatencyRecordingFilter filter = new LatencyRecordingFilter(tracker);
+        MockHttpServletRequest warmup = authenticated("warmup-0f3c");
+        MockHttpServletRequest regular = authenticated("keycloak-rs256");
+
+        // When
+        filter.doFilter(warmup, new MockHttpServletResponse(), new MockFilterChain());
+        filter.doFilter(regular, new MockHttpServletResponse(), new MockFilterChain());
+        tracker.rotate();
+
+        // Then : seule la requête réelle alimente le SLO
+        assertThat(tracker.snapshot()).singleElement()
+                .satisfies(snapshot -> assertThat(snapshot.histogram().getTotalCount()).isEqualTo(1));
+    }
+
+    private static MockHttpServletRequest authenticated(String keyId) {
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .header("kid", keyId)
+                .subject("john.doe")
+                .build();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/private/user");
+        request.setAttribute(RequestAttributeSecurityContextRepository.DEFAULT_REQUEST_ATTR_NAME,
+                new SecurityContextImpl(new JwtAuthenticationToken(jwt, List.of())));
+        return request;
+    }
+}
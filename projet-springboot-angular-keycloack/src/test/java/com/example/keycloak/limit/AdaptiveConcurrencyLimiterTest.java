@@ -0,0 +1,105 @@
+package com.example.keycloak.limit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires de la limite de concurrence adaptative
+ */
+@DisplayName("Adaptive Concurrency Limiter Tests")
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    @DisplayName("Should reject acquisitions beyond the limit and the priority share")
+    void testRejectsBeyondLimit() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0.2, 1.5, 10, 20);
+
+        // When
+        int admittedLow = 0;
+        while (limiter.tryAcquire(0.7)) {
+            admittedLow++;
+        }
+        int admittedCritical = 0;
+        while (limiter.tryAcquire(1.0)) {
+            admittedCritical++;
+        }
+
+        // Then
+        assertThat(admittedLow).isEqualTo(7);
+        assertThat(admittedCritical).isEqualTo(3);
+        limiter.releaseWithoutSample();
+        assertThat(limiter.getInFlight()).isEqualTo(9);
+        assertThat(limiter.tryAcquire(1.0)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should grow the limit while latency is stable and the limit is used")
+    void testGrowsWithStableLatency() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0.5, 1.5, 10, 20);
+
+        // When
+        for (int window = 0; window < 5; window++) {
+            runWindow(limiter, limiter.getLimit(), 10 * MILLIS);
+        }
+
+        // Then
+        assertThat(limiter.getLimit()).isGreaterThan(10);
+    }
+
+    @Test
+    @DisplayName("Should not grow the limit when the service is application-limited")
+    void testDoesNotGrowWhenUnderused() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 1, 100, 0.5, 1.5, 10, 20);
+
+        // When
+        for (int window = 0; window < 5; window++) {
+            runWindow(limiter, 2, 10 * MILLIS);
+        }
+
+        // Then
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    @DisplayName("Should shrink the limit down to the floor when latency drifts")
+    void testShrinksWhenLatencyDrifts() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 5, 100, 0.5, 1.5, 10, 20);
+        runWindow(limiter, 50, 10 * MILLIS);
+        int baseline = limiter.getLimit();
+
+        // When
+        for (int window = 0; window < 20; window++) {
+            runWindow(limiter, limiter.getLimit(), 100 * MILLIS);
+        }
+
+        // Then
+        assertThat(limiter.getLimit()).isLessThan(baseline).isGreaterThanOrEqualTo(5);
+    }
+
+    /**
+     * Simule une fenêtre de 10 requêtes avec la concurrence et la latence données
+     */
+    private static void runWindow(AdaptiveConcurrencyLimiter limiter, int concurrency, long rttNanos) {
+        for (int i = 0; i < concurrency; i++) {
+            limiter.tryAcquire(1.0);
+        }
+        for (int i = 0; i < 10; i++) {
+            if (limiter.getInFlight() == 0) {
+                limiter.tryAcquire(1.0);
+            }
+            limiter.release(rttNanos);
+            limiter.tryAcquire(1.0);
+        }
+        while (limiter.getInFlight() > 0) {
+            limiter.releaseWithoutSample();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.keycloak.limit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires du filtre de délestage
+ */
+@DisplayName("Concurrency Limit Filter Tests")
+class ConcurrencyLimitFilterTest {
+
+    private AdaptiveConcurrencyLimiter global;
+    private AdaptiveConcurrencyLimiter privateLimiter;
+    private AdaptiveConcurrencyLimiter publicLimiter;
+    private SimpleMeterRegistry meterRegistry;
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        global = fixedLimiter(10);
+        privateLimiter = fixedLimiter(2);
+        publicLimiter = fixedLimiter(100);
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new ConcurrencyLimitFilter(List.of(
+                new ConcurrencyLimitFilter.RouteGroup("admin", List.of("/api/admin/"), RequestPriority.CRITICAL, fixedLimiter(100)),
+                new ConcurrencyLimitFilter.RouteGroup("private", List.of("/api/private/"), RequestPriority.NORMAL, privateLimiter),
+                new ConcurrencyLimitFilter.RouteGroup("public", List.of("/api/public/"), RequestPriority.LOW, publicLimiter)),
+                global, Duration.ofSeconds(2), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should shed low priority traffic first and keep admin traffic")
+    void testPriorityShedding() throws Exception {
+        // Given : 7 requêtes en cours occupent la part LOW (70 %) de la limite globale
+        for (int i = 0; i < 7; i++) {
+            global.tryAcquire(1.0);
+        }
+
+        // When
+        MockHttpServletResponse publicResponse = call("/api/public/hello");
+        MockHttpServletResponse adminResponse = call("/api/admin/users");
+
+        // Then
+        assertThat(publicResponse.getStatus()).isEqualTo(503);
+        assertThat(publicResponse.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(publicResponse.getContentAsString()).contains("\"group\":\"public\"");
+        assertThat(publicLimiter.getInFlight()).isZero();
+        assertThat(adminResponse.getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("http.concurrency.rejected")
+                .tag("group", "public").tag("limit", "global").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should enforce the route group limit and release slots after each request")
+    void testGroupLimit() throws Exception {
+        // Given : la limite du groupe private (2) est atteinte
+        privateLimiter.tryAcquire(1.0);
+        privateLimiter.tryAcquire(1.0);
+
+        // When
+        MockHttpServletResponse rejected = call("/api/private/user");
+        privateLimiter.releaseWithoutSample();
+        MockHttpServletResponse admitted = call("/api/private/user");
+
+        // Then
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(admitted.getStatus()).isEqualTo(200);
+        assertThat(privateLimiter.getInFlight()).isEqualTo(1);
+        assertThat(global.getInFlight()).isZero();
+        assertThat(meterRegistry.get("http.concurrency.rejected")
+                .tag("group", "private").tag("limit", "group").counter().count()).isEqualTo(1.0);
+        assertThat(call("/api/other").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Should not feed warm-up requests into the adaptive limit baselines")
+    void testWarmupRequestsWithoutSample() throws Exception {
+        // Given : requête authentifiée par un token de chauffe JIT
+        AdaptiveConcurrencyLimiter groupLimiter = mock(AdaptiveConcurrencyLimiter.class);
+        AdaptiveConcurrencyLimiter globalLimiter = mock(AdaptiveConcurrencyLimiter.class);
+        when(groupLimiter.tryAcquire(anyDouble())).thenReturn(true);
+        when(globalLimiter.tryAcquire(anyDouble())).thenReturn(true);
+        ConcurrencyLimitFilter warmupFilter = new ConcurrencyLimitFilter(List.of(
+                new ConcurrencyLimitFilter.RouteGroup("private", List.of("/api/private/"), RequestPriority.NORMAL, groupLimiter)),
+                globalLimiter, Duration.ofSeconds(2), new SimpleMeterRegistry());
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .header("kid", "warmup-0f3c")
+                .subject("warmup-user")
+                .build();
+        MockHttpServletRequest request = request("/api/private/user");
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse) {
+                // Chaîne Spring Security : contexte conservé en attribut de requête
+                servletRequest.setAttribute(RequestAttributeSecurityContextRepository.DEFAULT_REQUEST_ATTR_NAME,
+                        new SecurityContextImpl(new JwtAuthenticationToken(jwt, List.of())));
+            }
+        };
+
+        // When
+        warmupFilter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // Then : place libérée, aucune latence enregistrée
+        verify(groupLimiter).releaseWithoutSample();
+        verify(globalLimiter).releaseWithoutSample();
+        verify(groupLimiter, never()).release(anyLong());
+        verify(globalLimiter, never()).release(anyLong());
+    }
+
+    private MockHttpServletResponse call(String path) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(path), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        return new MockHttpServletRequest("GET", path);
+    }
+
+    private static AdaptiveConcurrencyLimiter fixedLimiter(int limit) {
+        return new AdaptiveConcurrencyLimiter(limit, limit, limit, 0.2, 1.5, 50, 20);
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.keycloak.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires du disjoncteur et de la cloison des appels Keycloak
+ */
+@DisplayName("Circuit Breaker Tests")
+class CircuitBreakerTest {
+
+    private MutableClock clock;
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T10:00:00Z"));
+        circuitBreaker = new CircuitBreaker(0.5, 10, 4, Duration.ofSeconds(30), 2, clock);
+    }
+
+    @Test
+    @DisplayName("Should open once the failure rate reaches the threshold over the minimum calls")
+    void testOpensOnFailureRate() {
+        // Given
+        record(true, false, true);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        // When
+        record(true);
+
+        // Then
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should close after successful trial calls and reopen on a failed one")
+    void testHalfOpenTransitions() {
+        // Given
+        record(true, true, true, true);
+        clock.advance(Duration.ofSeconds(31));
+
+        // When : deux appels d'essai réussis
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+
+        // Then
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.getFailureRate()).isZero();
+
+        // When : nouvel échec massif puis essai raté
+        record(true, true, true, true);
+        clock.advance(Duration.ofSeconds(31));
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        circuitBreaker.onFailure();
+
+        // Then
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.getOpenedAt()).isEqualTo(clock.instant());
+    }
+
+    @Test
+    @DisplayName("Should forget failures that slid out of the window")
+    void testSlidingWindow() {
+        // Given
+        record(true, true, true);
+        record(false, false, false, false, false, false, false);
+
+        // When : les trois échecs sortent de la fenêtre de 10 appels
+        record(false, false, false, true);
+
+        // Then
+        assertThat(circuitBreaker.getFailureRate()).isEqualTo(0.1);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("Should fail fast when the circuit is open or the bulkhead is full")
+    void testGuardRejections() throws Exception {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ResilienceGuard guard = new ResilienceGuard("jwks", circuitBreaker,
+                new Bulkhead(1, Duration.ZERO), meterRegistry);
+        CountDownLatch inCall = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            // When : une place occupée par un appel lent
+            executor.submit(() -> guard.execute(() -> {
+                inCall.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "slow";
+            }, result -> false));
+            assertThat(inCall.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Then
+            assertThatThrownBy(() -> guard.execute(() -> "fast", result -> false))
+                    .isInstanceOf(CallNotPermittedException.class);
+            release.countDown();
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        // When : échecs jusqu'à l'ouverture (3 échecs sur 4 appels)
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> guard.execute(() -> {
+                throw new SocketTimeoutException("Read timed out");
+            }, result -> false)).isInstanceOf(SocketTimeoutException.class);
+        }
+
+        // Then
+        assertThatThrownBy(() -> guard.execute(() -> "fast", result -> false))
+                .isInstanceOf(CallNotPermittedException.class)
+                .isInstanceOf(IOException.class);
+        assertThat(meterRegistry.get("keycloak.calls").tag("outcome", "bulkhead_full").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("keycloak.calls").tag("outcome", "failure").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("keycloak.calls").tag("outcome", "circuit_open").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("keycloak.circuit.state").gauge().value()).isEqualTo(2);
+    }
+
+    private void record(boolean... failures) {
+        for (boolean failure : failures) {
+            assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+            if (failure) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+        }
+    }
+
+    /**
+     * Horloge modifiable pour simuler l'écoulement du temps
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
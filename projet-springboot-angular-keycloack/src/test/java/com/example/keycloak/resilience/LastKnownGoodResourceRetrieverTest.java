@@ -0,0 +1,146 @@
+package com.example.keycloak.resilience;
+
+import com.nimbusds.jose.util.Resource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URL;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires du mode dégradé sur les dernières clés connues
+ */
+@DisplayName("Last Known Good Resource Retriever Tests")
+class LastKnownGoodResourceRetrieverTest {
+
+    private static final String JWKS = "{\"keys\":[]}";
+
+    private MutableClock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private LastKnownGoodResourceRetriever retriever;
+    private URL url;
+    private boolean keycloakUp;
+    private int httpCalls;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clock = new MutableClock(Instant.parse("2025-01-01T10:00:00Z"));
+        meterRegistry = new SimpleMeterRegistry();
+        url = new URL("http://localhost:8080/realms/demo/protocol/openid-connect/certs");
+        keycloakUp = true;
+        CircuitBreaker circuitBreaker = new CircuitBreaker(0.5, 10, 3, Duration.ofSeconds(30), 1, clock);
+        ResilienceGuard guard = new ResilienceGuard("jwks", circuitBreaker, new Bulkhead(2, Duration.ZERO),
+                meterRegistry);
+        retriever = new LastKnownGoodResourceRetriever(requestUrl -> {
+            httpCalls++;
+            if (!keycloakUp) {
+                throw new ConnectException("Connection refused");
+            }
+            return new Resource(JWKS, "application/json");
+        }, guard, Duration.ofHours(1), clock, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should serve the last known keys during an outage and leave degraded mode on recovery")
+    void testDegradedMode() throws IOException {
+        // Given
+        retriever.retrieveResource(url);
+        keycloakUp = false;
+        clock.advance(Duration.ofMinutes(10));
+
+        // When
+        Resource first = retriever.retrieveResource(url);
+        Resource second = retriever.retrieveResource(url);
+        Resource third = retriever.retrieveResource(url);
+
+        // Then : le disjoncteur s'ouvre après deux échecs, le troisième appel n'atteint pas Keycloak
+        assertThat(first.getContent()).isEqualTo(JWKS);
+        assertThat(second.getContent()).isEqualTo(JWKS);
+        assertThat(third.getContent()).isEqualTo(JWKS);
+        assertThat(httpCalls).isEqualTo(3);
+        assertThat(retriever.isDegraded()).isTrue();
+        assertThat(retriever.isUsable()).isTrue();
+        assertThat(meterRegistry.get("keycloak.jwks.stale.served").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("keycloak.jwks.degraded").gauge().value()).isEqualTo(1);
+
+        // When : Keycloak revient, fin de la période d'ouverture
+        keycloakUp = true;
+        clock.advance(Duration.ofSeconds(31));
+        retriever.retrieveResource(url);
+
+        // Then
+        assertThat(retriever.isDegraded()).isFalse();
+        assertThat(retriever.getLastSuccess()).isEqualTo(clock.instant());
+        assertThat(meterRegistry.get("keycloak.jwks.degraded").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should stop serving keys older than the maximum staleness")
+    void testStalenessBound() throws IOException {
+        // Given
+        retriever.retrieveResource(url);
+        keycloakUp = false;
+
+        // When
+        clock.advance(Duration.ofMinutes(61));
+
+        // Then
+        assertThatThrownBy(() -> retriever.retrieveResource(url)).isInstanceOf(ConnectException.class);
+        assertThat(retriever.isUsable()).isFalse();
+        assertThat(retriever.isDegraded()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should propagate the failure when no keys were ever retrieved")
+    void testNoKnownKeys() {
+        // Given
+        keycloakUp = false;
+
+        // When / Then
+        assertThatThrownBy(() -> retriever.retrieveResource(url)).isInstanceOf(ConnectException.class);
+        assertThat(retriever.isUsable()).isFalse();
+        assertThat(retriever.getLastSuccess()).isNull();
+    }
+
+    /**
+     * Horloge modifiable pour simuler l'écoulement du temps
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.keycloak.security;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.lang.reflect.Method;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires pour CachingAuthorizationManager
+ * Vérifie la réutilisation des décisions @PreAuthorize et leurs cas d'exclusion
+ */
+@DisplayName("Caching Authorization Manager Tests")
+class CachingAuthorizationManagerTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+
+    private final AtomicInteger evaluations = new AtomicInteger();
+    private final AtomicLong epoch = new AtomicLong();
+    private CachingAuthorizationManager manager;
+
+    @BeforeEach
+    void setUp() {
+        AuthorizationManager<MethodInvocation> delegate = (authentication, invocation) -> {
+            evaluations.incrementAndGet();
+            return new AuthorizationDecision(true);
+        };
+        manager = new CachingAuthorizationManager(delegate, 100, Clock.fixed(NOW, ZoneOffset.UTC), epoch::get);
+    }
+
+    @Test
+    @DisplayName("Should evaluate only once for the same token, method and arguments")
+    void testSameTokenIsCached() throws Exception {
+        // Given
+        Supplier<Authentication> auth = jwtAuthentication("token-1", NOW.plusSeconds(300));
+        MethodInvocation invocation = invocation("profile", "john");
+
+        // When
+        AuthorizationResult first = manager.authorize(auth, invocation);
+        AuthorizationResult second = manager.authorize(auth, invocation);
+
+        // Then
+        assertThat(first.isGranted()).isTrue();
+        assertThat(second.isGranted()).isTrue();
+        assertThat(evaluations.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should evaluate again for different arguments or tokens")
+    void testDifferentKeysAreEvaluated() throws Exception {
+        // When
+        manager.authorize(jwtAuthentication("token-1", NOW.plusSeconds(300)), invocation("profile", "john"));
+        manager.authorize(jwtAuthentication("token-1", NOW.plusSeconds(300)), invocation("profile", "alice"));
+        manager.authorize(jwtAuthentication("token-2", NOW.plusSeconds(300)), invocation("profile", "john"));
+
+        // Then
+        assertThat(evaluations.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should evaluate again after a time window transition")
+    void testPolicyEpochChangeInvalidatesDecisions() throws Exception {
+        // Given
+        Supplier<Authentication> auth = jwtAuthentication("token-1", NOW.plusSeconds(300));
+        MethodInvocation invocation = invocation("profile", "john");
+        manager.authorize(auth, invocation);
+
+        // When
+        epoch.incrementAndGet();
+        manager.authorize(auth, invocation);
+        manager.authorize(auth, invocation);
+
+        // Then
+        assertThat(evaluations.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should not cache methods opted out with @AuthorizationCache(enabled = false)")
+    void testOptOutIsNeverCached() throws Exception {
+        // Given
+        Supplier<Authentication> auth = jwtAuthentication("token-1", NOW.plusSeconds(300));
+        MethodInvocation invocation = invocation("maintenance");
+
+        // When
+        manager.authorize(auth, invocation);
+        manager.authorize(auth, invocation);
+
+        // Then
+        assertThat(evaluations.get()).isEqualTo(2);
+        assertThat(manager.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not cache non value-type arguments such as request bodies")
+    void testRequestBodyIsNotCached() throws Exception {
+        // Given
+        Supplier<Authentication> auth = jwtAuthentication("token-1", NOW.plusSeconds(300));
+        MethodInvocation invocation = invocation("operation", Map.of("operation", "BULK_UPDATE"));
+
+        // When
+        manager.authorize(auth, invocation);
+        manager.authorize(auth, invocation);
+
+        // Then
+        assertThat(evaluations.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should not cache non-JWT or expired authentications")
+    void testNonJwtAndExpiredTokensAreNotCached() throws Exception {
+        // Given
+        Supplier<Authentication> mockUser = () -> new TestingAuthenticationToken("john", "n/a", "ROLE_USER");
+        Supplier<Authentication> expired = jwtAuthentication("token-1", NOW.minusSeconds(1));
+
+        // When
+        manager.authorize(mockUser, invocation("profile", "john"));
+        manager.authorize(mockUser, invocation("profile", "john"));
+        manager.authorize(expired, invocation("profile", "john"));
+        manager.authorize(expired, invocation("profile", "john"));
+
+        // Then
+        assertThat(evaluations.get()).isEqualTo(4);
+        assertThat(manager.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should evict only the oldest decisions when the cache is full")
+    void testFullCacheEvictsOldestFirst() throws Exception {
+        // Given : cache plein (100 entrées valides)
+        Supplier<Authentication> auth = jwtAuthentication("token-1", NOW.plusSeconds(300));
+        for (int i = 0; i < 100; i++) {
+            manager.authorize(auth, invocation("profile", "user-" + i));
+        }
+
+        // When
+        manager.authorize(auth, invocation("profile", "user-100"));
+
+        // Then : les 10 plus anciennes sont évincées, les récentes restent en cache
+        assertThat(manager.size()).isEqualTo(91);
+        int before = evaluations.get();
+        manager.authorize(auth, invocation("profile", "user-99"));
+        manager.authorize(auth, invocation("profile", "user-10"));
+        assertThat(evaluations.get()).isEqualTo(before);
+        manager.authorize(auth, invocation("profile", "user-0"));
+        assertThat(evaluations.get()).isEqualTo(before + 1);
+    }
+
+    // Méthodes annotées utilisées comme cibles d'invocation
+    static class SecuredTarget {
+        public void profile(String username) {
+        }
+
+        @AuthorizationCache(enabled = false)
+        public void maintenance() {
+        }
+
+        public void operation(Map<String, Object> body) {
+        }
+    }
+
+    private MethodInvocation invocation(String methodName, Object... arguments) throws Exception {
+        Method method = switch (methodName) {
+            case "profile" -> SecuredTarget.class.getMethod("profile", String.class);
+            case "operation" -> SecuredTarget.class.getMethod("operation", Map.class);
+            default -> SecuredTarget.class.getMethod(methodName);
+        };
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getMethod()).thenReturn(method);
+        when(invocation.getArguments()).thenReturn(arguments);
+        return invocation;
+    }
+
+    private Supplier<Authentication> jwtAuthentication(String tokenId, Instant expiresAt) {
+        Jwt jwt = Jwt.withTokenValue("token-value-" + tokenId)
+                .header("alg", "RS256")
+                .claim("jti", tokenId)
+                .claim("sub", "user-123")
+                .issuedAt(expiresAt.minusSeconds(600))
+                .expiresAt(expiresAt)
+                .build();
+        return () -> new JwtAuthenticationToken(jwt, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+}
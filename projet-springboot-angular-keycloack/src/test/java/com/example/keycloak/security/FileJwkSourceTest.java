@@ -0,0 +1,160 @@
+package com.example.keycloak.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires des clés de signature lues depuis un fichier local
+ */
+@DisplayName("File JWK Source Tests")
+class FileJwkSourceTest {
+
+    private static RSAKey firstKey;
+    private static RSAKey secondKey;
+    private static ECKey ecKey;
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private FileJwkSource source;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        firstKey = new RSAKeyGenerator(2048).keyID("k1").generate();
+        secondKey = new RSAKeyGenerator(2048).keyID("k2").generate();
+        ecKey = new ECKeyGenerator(Curve.P_256).keyID("ec1").generate();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (source != null) {
+            source.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should index the signing keys of a JWKS file by kid")
+    void testJwksFile() throws Exception {
+        // Given
+        Path file = write("realm-jwks.json", new JWKSet(List.of(firstKey.toPublicJWK(), ecKey.toPublicJWK())).toString());
+
+        // When
+        source = new FileJwkSource(file, meterRegistry);
+
+        // Then
+        assertThat(source.keyIds()).containsExactlyInAnyOrder("k1", "ec1");
+        assertThat(select(JWSAlgorithm.RS256, "k1")).singleElement()
+                .satisfies(key -> assertThat(key.toRSAKey().toRSAPublicKey()).isEqualTo(firstKey.toRSAPublicKey()));
+        assertThat(select(JWSAlgorithm.RS256, "ec1")).isEmpty();
+        assertThat(select(JWSAlgorithm.RS256, "unknown")).isEmpty();
+        assertThat(select(JWSAlgorithm.ES256, null)).singleElement()
+                .satisfies(key -> assertThat(key.getKeyID()).isEqualTo("ec1"));
+        assertThat(meterRegistry.get("jwt.keys.file.count").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should read PEM public keys and certificates with an optional kid line")
+    void testPemFile() throws Exception {
+        // Given
+        String pem = "Clés exportées du realm demo\n"
+                + "kid: k1\n" + pem("PUBLIC KEY", firstKey.toRSAPublicKey().getEncoded())
+                + pem("PUBLIC KEY", ecKey.toECPublicKey().getEncoded());
+        Path file = write("realm.pem", pem);
+
+        // When
+        source = new FileJwkSource(file, meterRegistry);
+
+        // Then
+        String thumbprint = ecKey.toPublicJWK().computeThumbprint().toString();
+        assertThat(source.keyIds()).containsExactlyInAnyOrder("k1", thumbprint);
+        assertThat(select(JWSAlgorithm.RS256, "k1")).hasSize(1);
+        assertThat(select(JWSAlgorithm.ES256, thumbprint)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should refuse files without signing keys or with private keys")
+    void testInvalidFiles() throws Exception {
+        assertThatThrownBy(() -> new FileJwkSource(write("empty.json", "{\"keys\":[]}"), meterRegistry))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new FileJwkSource(write("private.json", new JWKSet(firstKey).toString(false)),
+                meterRegistry))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new FileJwkSource(directory.resolve("missing.json"), meterRegistry))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Should swap keys when the file is replaced and keep them when it is invalid")
+    void testHotReload() throws Exception {
+        // Given
+        Path file = write("realm-jwks.json", new JWKSet(firstKey.toPublicJWK()).toString());
+        source = new FileJwkSource(file, meterRegistry);
+        source.start();
+
+        // When : remplacement atomique (écriture puis renommage)
+        Path next = write("realm-jwks.json.tmp", new JWKSet(secondKey.toPublicJWK()).toString());
+        Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Then
+        awaitKeyIds("k2");
+        assertThat(select(JWSAlgorithm.RS256, "k1")).isEmpty();
+
+        // When : contenu invalide
+        Files.writeString(file, "{\"keys\": [");
+
+        // Then
+        assertThat(source.reload()).isFalse();
+        assertThat(source.keyIds()).containsExactly("k2");
+        assertThat(meterRegistry.get("jwt.keys.file.reloads").tag("outcome", "failure").counter().count())
+                .isGreaterThanOrEqualTo(1);
+    }
+
+    private List<JWK> select(JWSAlgorithm algorithm, String keyId) {
+        JWSHeader header = new JWSHeader.Builder(algorithm).keyID(keyId).build();
+        return source.get(new JWKSelector(JWKMatcher.forJWSHeader(header)), null);
+    }
+
+    private void awaitKeyIds(String expected) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!source.keyIds().equals(Set.of(expected)) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(source.keyIds()).containsExactly(expected);
+    }
+
+    private Path write(String name, String content) throws Exception {
+        return Files.writeString(directory.resolve(name), content);
+    }
+
+    private static String pem(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes()).encodeToString(der)
+                + "\n-----END " + type + "-----\n";
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.keycloak.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Benchmark : FusedJwtValidator contre la chaîne DelegatingOAuth2TokenValidator d'origine
+ * Exécution : mvn test -Pbenchmark
+ *
+ * Mesure le coût moyen d'une validation pour un token valide (cas nominal)
+ * et pour un token expiré (rejet au premier contrôle).
+ */
+@Tag("benchmark")
+@DisplayName("Fused JWT Validator Benchmark")
+class FusedJwtValidatorBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(FusedJwtValidatorBenchmarkTest.class);
+
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 2_000_000;
+
+    @Test
+    @DisplayName("Validation cost: fused vs delegating chain")
+    void benchmarkValidation() {
+        OAuth2TokenValidator<Jwt> chain = FusedJwtValidatorTest.delegatingChain("demo-app");
+        OAuth2TokenValidator<Jwt> fused = new FusedJwtValidator(FusedJwtValidatorTest.ISSUER,
+                Set.of("demo-app"), Set.of(), true, Duration.ofSeconds(60), FusedJwtValidatorTest.CLOCK);
+
+        Jwt valid = FusedJwtValidatorTest.jwt(builder -> builder.audience(List.of("account", "demo-app")));
+        Jwt expired = FusedJwtValidatorTest.jwt(builder -> builder.expiresAt(FusedJwtValidatorTest.NOW.minusSeconds(120)));
+
+        report("delegating/valid", chain, valid);
+        report("fused/valid", fused, valid);
+        report("delegating/expired", chain, expired);
+        report("fused/expired", fused, expired);
+    }
+
+    private void report(String label, OAuth2TokenValidator<Jwt> validator, Jwt token) {
+        int errors = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            errors += validator.validate(token).hasErrors() ? 1 : 0;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            errors += validator.validate(token).hasErrors() ? 1 : 0;
+        }
+        long elapsed = System.nanoTime() - start;
+        log.info(String.format("[benchmark] %-20s %8.1f ns/op (errors=%d)",
+                label, (double) elapsed / ITERATIONS, errors));
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.keycloak.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtIssuerValidator;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires pour FusedJwtValidator
+ * Comparaison avec la chaîne DelegatingOAuth2TokenValidator d'origine
+ */
+@DisplayName("Fused JWT Validator Tests")
+class FusedJwtValidatorTest {
+
+    static final String ISSUER = "http://localhost:8080/realms/demo";
+    static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+    static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    private final FusedJwtValidator validator = new FusedJwtValidator(ISSUER,
+            Set.of("demo-app", "demo-backend"), Set.of(), true, Duration.ofSeconds(60), CLOCK);
+
+    @Test
+    @DisplayName("Should return the shared success instance for a valid token")
+    void testValidToken() {
+        OAuth2TokenValidatorResult first = validator.validate(jwt(builder -> builder.audience(List.of("demo-app"))));
+        OAuth2TokenValidatorResult second = validator.validate(jwt(builder -> builder.audience(List.of("account", "demo-backend"))));
+
+        assertThat(first.hasErrors()).isFalse();
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    @DisplayName("Should reject expired, not yet valid and foreign tokens")
+    void testRejections() {
+        assertThat(errorCode(jwt(builder -> builder.expiresAt(NOW.minusSeconds(61))))).isEqualTo("invalid_token");
+        assertThat(errorCode(jwt(builder -> builder.notBefore(NOW.plusSeconds(61))))).isEqualTo("invalid_token");
+        assertThat(errorCode(jwt(builder -> builder.issuer("http://evil/realms/demo")))).isEqualTo("invalid_token");
+        assertThat(errorCode(jwt(builder -> builder.audience(List.of("other-app"))))).isEqualTo("invalid_audience");
+    }
+
+    @Test
+    @DisplayName("Should tolerate clock skew and tokens without audience")
+    void testToleratedCases() {
+        assertThat(validator.validate(jwt(builder -> builder.expiresAt(NOW.minusSeconds(30)))).hasErrors()).isFalse();
+        assertThat(validator.validate(jwt(builder -> builder.claims(claims -> claims.remove("aud")))).hasErrors()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should restrict authorized parties when configured")
+    void testAuthorizedParties() {
+        FusedJwtValidator restricted = new FusedJwtValidator(ISSUER, Set.of(), Set.of("demo-frontend"),
+                true, Duration.ofSeconds(60), CLOCK);
+
+        assertThat(restricted.validate(jwt(builder -> builder.claim("azp", "demo-frontend"))).hasErrors()).isFalse();
+        assertThat(restricted.validate(jwt(builder -> builder.claim("azp", "other-client"))).hasErrors()).isTrue();
+        assertThat(restricted.validate(jwt(builder -> { })).hasErrors()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should agree with the delegating validator chain")
+    void testSameOutcomeAsDelegatingChain() {
+        OAuth2TokenValidator<Jwt> chain = delegatingChain("demo-app");
+        FusedJwtValidator fused = new FusedJwtValidator(ISSUER, Set.of("demo-app"), Set.of(),
+                true, Duration.ofSeconds(60), CLOCK);
+        List<Jwt> tokens = List.of(
+                jwt(builder -> { }),
+                jwt(builder -> builder.expiresAt(NOW.minusSeconds(120))),
+                jwt(builder -> builder.notBefore(NOW.plusSeconds(120))),
+                jwt(builder -> builder.issuer("http://other")),
+                jwt(builder -> builder.audience(List.of("other-app"))),
+                jwt(builder -> builder.claims(claims -> claims.remove("aud"))));
+
+        for (Jwt token : tokens) {
+            assertThat(fused.validate(token).hasErrors()).isEqualTo(chain.validate(token).hasErrors());
+        }
+    }
+
+    /**
+     * Chaîne d'origine de JwtConfig (issuer, timestamp, audience)
+     */
+    static OAuth2TokenValidator<Jwt> delegatingChain(String audience) {
+        JwtTimestampValidator timestampValidator = new JwtTimestampValidator(Duration.ofSeconds(60));
+        timestampValidator.setClock(CLOCK);
+        return new DelegatingOAuth2TokenValidator<>(
+                new JwtIssuerValidator(ISSUER),
+                timestampValidator,
+                token -> {
+                    List<String> tokenAudiences = token.getAudience();
+                    if (tokenAudiences == null || tokenAudiences.isEmpty() || tokenAudiences.contains(audience)) {
+                        return OAuth2TokenValidatorResult.success();
+                    }
+                    return OAuth2TokenValidatorResult.failure(
+                            new OAuth2Error("invalid_audience"));
+                });
+    }
+
+    static Jwt jwt(Consumer<Jwt.Builder> customizer) {
+        Jwt.Builder builder = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .issuer(ISSUER)
+                .subject("john.doe")
+                .audience(List.of("demo-app"))
+                .issuedAt(NOW.minusSeconds(600))
+                .expiresAt(NOW.plusSeconds(300));
+        customizer.accept(builder);
+        return builder.build();
+    }
+
+    private String errorCode(Jwt token) {
+        return validator.validate(token).getErrors().iterator().next().getErrorCode();
+    }
+}
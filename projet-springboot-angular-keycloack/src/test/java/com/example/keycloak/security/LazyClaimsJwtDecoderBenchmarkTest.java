@@ -0,0 +1,107 @@
+package com.example.keycloak.security;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmark : LazyClaimsJwtDecoder contre NimbusJwtDecoder sur un token volumineux
+ * Exécution : mvn test -Pbenchmark
+ *
+ * Chaque itération décode le token puis lit, par les accesseurs de Jwt comme
+ * l'application, les claims utilisés par JwtAuthenticationConverter et
+ * JwtService (rôles, username, email) ; les autres claims ne sont jamais lus.
+ * Mesure le temps et les octets alloués par décodage.
+ */
+@Tag("benchmark")
+@DisplayName("Lazy Claims JWT Decoder Benchmark")
+class LazyClaimsJwtDecoderBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LazyClaimsJwtDecoderBenchmarkTest.class);
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 10_000;
+
+    @Test
+    @DisplayName("Decode cost for a fat Keycloak token")
+    void benchmarkDecode() throws Exception {
+        LazyClaimsJwtDecoderTest.generateKeys();
+        String token = LazyClaimsJwtDecoderTest.sign(LazyClaimsJwtDecoderTest.signingKey, fatPayload());
+
+        NimbusJwtDecoder nimbus = NimbusJwtDecoder.withPublicKey(LazyClaimsJwtDecoderTest.signingKey.toRSAPublicKey()).build();
+        nimbus.setJwtValidator(jwt -> OAuth2TokenValidatorResult.success());
+        LazyClaimsJwtDecoder lazy = new LazyClaimsJwtDecoder(
+                new ImmutableJWKSet<>(new JWKSet(LazyClaimsJwtDecoderTest.signingKey.toPublicJWK())),
+                jwt -> OAuth2TokenValidatorResult.success());
+
+        log.info("[benchmark] payload {} octets", fatPayload().length());
+        report("nimbus", nimbus, token);
+        report("lazy", lazy, token);
+    }
+
+    private void report(String label, JwtDecoder decoder, String token) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += readClaims(decoder.decode(token));
+        }
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += readClaims(decoder.decode(token));
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        log.info(String.format("[benchmark] %-8s %8.1f us/op %10d octets/op (sink=%d)",
+                label, elapsed / 1_000.0 / ITERATIONS, allocated / ITERATIONS, sink));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long readClaims(Jwt jwt) {
+        Map<String, Object> realmAccess = jwt.getClaimAsMap("realm_access");
+        Map<String, Object> resourceAccess = jwt.getClaim("resource_access");
+        Map<String, Object> client = (Map<String, Object>) resourceAccess.get("demo-app");
+        return ((List<String>) realmAccess.get("roles")).size()
+                + ((List<String>) client.get("roles")).size()
+                + jwt.getClaimAsString("preferred_username").length()
+                + jwt.getClaimAsString("email").length();
+    }
+
+    /**
+     * Payload proche de notre realm : 40 clients dans resource_access et des claims métier
+     */
+    private static String fatPayload() {
+        Instant now = Instant.now();
+        StringBuilder payload = new StringBuilder("{\"exp\":").append(now.plusSeconds(3600).getEpochSecond())
+                .append(",\"iat\":").append(now.getEpochSecond())
+                .append(",\"iss\":\"http://localhost:8080/realms/demo\",\"aud\":[\"demo-app\",\"account\"]")
+                .append(",\"sub\":\"f1b2c3d4\",\"preferred_username\":\"john.doe\",\"email\":\"john.doe@example.com\"")
+                .append(",\"realm_access\":{\"roles\":[\"USER\",\"MANAGER\",\"offline_access\",\"uma_authorization\"]}")
+                .append(",\"resource_access\":{\"demo-app\":{\"roles\":[\"ADMIN\",\"USER\"]}");
+        for (int client = 0; client < 40; client++) {
+            payload.append(",\"service-").append(client).append("\":{\"roles\":[");
+            for (int role = 0; role < 10; role++) {
+                payload.append(role == 0 ? "" : ",").append("\"role-").append(client).append('-').append(role).append('"');
+            }
+            payload.append("]}");
+        }
+        payload.append("},\"groups\":[");
+        for (int group = 0; group < 50; group++) {
+            payload.append(group == 0 ? "" : ",").append("\"/org/unit-").append(group).append('"');
+        }
+        return payload.append("]}").toString();
+    }
+}
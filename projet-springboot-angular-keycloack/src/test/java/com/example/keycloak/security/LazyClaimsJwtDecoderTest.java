@@ -0,0 +1,154 @@
+package com.example.keycloak.security;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires pour LazyClaimsJwtDecoder
+ * Tokens signés localement avec une clé RSA générée pour le test
+ */
+@DisplayName("Lazy Claims JWT Decoder Tests")
+class LazyClaimsJwtDecoderTest {
+
+    static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+
+    static RSAKey signingKey;
+    private static RSAKey rogueKey;
+
+    private final LazyClaimsJwtDecoder decoder = new LazyClaimsJwtDecoder(
+            new ImmutableJWKSet<>(new JWKSet(signingKey.toPublicJWK())), token -> OAuth2TokenValidatorResult.success());
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        signingKey = new RSAKeyGenerator(2048).keyID("k1").generate();
+        rogueKey = new RSAKeyGenerator(2048).keyID("k1").generate();
+    }
+
+    @Test
+    @DisplayName("Should expose claims with the types expected by Jwt")
+    void testClaimConversion() throws Exception {
+        // When
+        Jwt jwt = decoder.decode(sign(signingKey, payload()));
+
+        // Then
+        assertThat(jwt.getSubject()).isEqualTo("john.doe");
+        assertThat(jwt.getExpiresAt()).isEqualTo(NOW.plusSeconds(300));
+        assertThat(jwt.getIssuedAt()).isEqualTo(NOW);
+        assertThat(jwt.getAudience()).containsExactly("demo-app");
+        assertThat(jwt.getClaimAsString("name")).isEqualTo("Jöhn \"JD\" Doe");
+        assertThat(jwt.getHeaders()).containsEntry("kid", "k1");
+
+        Map<String, Object> realmAccess = jwt.getClaimAsMap("realm_access");
+        assertThat(realmAccess.get("roles")).isEqualTo(List.of("USER", "MANAGER"));
+        Map<String, Object> resourceAccess = jwt.getClaim("resource_access");
+        assertThat(((Map<?, ?>) resourceAccess.get("demo-app")).get("roles")).isEqualTo(List.of("ADMIN"));
+    }
+
+    @Test
+    @DisplayName("Should decode nested values identically to a full JSON parse")
+    void testSameContentAsFullParse() throws Exception {
+        // Given
+        String payload = payload();
+        Map<String, Object> expected = JSONObjectUtils.parse(payload);
+
+        // When
+        Jwt jwt = decoder.decode(sign(signingKey, payload));
+
+        // Then
+        assertThat(jwt.getClaims().get("resource_access")).isEqualTo(expected.get("resource_access"));
+        assertThat(jwt.getClaims().get("custom")).isEqualTo(expected.get("custom"));
+    }
+
+    @Test
+    @DisplayName("Should decode only the claims read through Jwt, and serialize as a plain Jwt")
+    void testTopLevelClaimsStayLazy() throws Exception {
+        // When
+        Jwt jwt = decoder.decode(sign(signingKey, payload()));
+        LazyClaimsJwtDecoder.LazyClaimSet claims = ((LazyClaimsJwtDecoder.LazyJwt) jwt).claimSet();
+
+        // Then : seuls iat et exp sont décodés par le constructeur de Jwt
+        assertThat(claims.decodedCount()).isEqualTo(2);
+        assertThat(jwt.getSubject()).isEqualTo("john.doe");
+        assertThat(claims.decodedCount()).isEqualTo(3);
+        assertThat(jwt.getClaims()).doesNotContainKey(JwtClaimNames.JTI);
+
+        // Et : la copie sérialisée contient tous les claims
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(jwt);
+        }
+        Jwt copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (Jwt) in.readObject();
+        }
+        assertThat(copy.getClass()).isEqualTo(Jwt.class);
+        assertThat(copy.getClaims()).isEqualTo(jwt.getClaims());
+    }
+
+    @Test
+    @DisplayName("Should reject invalid signatures and malformed tokens")
+    void testRejections() throws Exception {
+        assertThatThrownBy(() -> decoder.decode(sign(rogueKey, payload()))).isInstanceOf(BadJwtException.class);
+        assertThatThrownBy(() -> decoder.decode("not-a-token")).isInstanceOf(BadJwtException.class);
+    }
+
+    @Test
+    @DisplayName("Should surface validator errors")
+    void testValidatorFailure() {
+        LazyClaimsJwtDecoder strict = new LazyClaimsJwtDecoder(
+                new ImmutableJWKSet<>(new JWKSet(signingKey.toPublicJWK())),
+                token -> OAuth2TokenValidatorResult.failure(new OAuth2Error("invalid_token", "Jwt expired", null)));
+
+        assertThatThrownBy(() -> strict.decode(sign(signingKey, payload())))
+                .isInstanceOf(JwtValidationException.class)
+                .hasMessage("Jwt expired");
+    }
+
+    static String payload() {
+        return "{\"exp\":" + NOW.plusSeconds(300).getEpochSecond()
+                + ",\"iat\":" + NOW.getEpochSecond()
+                + ",\"iss\":\"http:\\/\\/localhost:8080\\/realms\\/demo\",\"aud\":\"demo-app\",\"sub\":\"john.doe\""
+                + ",\"name\":\"J\\u00f6hn \\\"JD\\\" Doe\",\"preferred_username\":\"john.doe\""
+                + ",\"realm_access\":{\"roles\":[\"USER\",\"MANAGER\"]}"
+                + ",\"resource_access\":{\"account\":{\"roles\":[\"manage-account\",\"view-profile\"]},"
+                + "\"demo-app\":{\"roles\":[\"ADMIN\"]}}"
+                + ",\"custom\":{\"flags\":[true,false,null],\"level\":3,\"nested\":{\"empty\":[],\"obj\":{}}}}";
+    }
+
+    static String sign(RSAKey key, String payload) throws Exception {
+        JWSObject jws = new JWSObject(
+                new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).type(JOSEObjectType.JWT).build(),
+                new Payload(payload));
+        jws.sign(new RSASSASigner(key));
+        return jws.serialize();
+    }
+}
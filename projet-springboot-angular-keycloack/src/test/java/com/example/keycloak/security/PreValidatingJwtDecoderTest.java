@@ -0,0 +1,142 @@
+package com.example.keycloak.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires pour PreValidatingJwtDecoder
+ * Le décodeur délégué (signature) ne doit être appelé que pour les tokens plausibles
+ */
+@DisplayName("Pre-Validating JWT Decoder Tests")
+class PreValidatingJwtDecoderTest {
+
+    private static final String ISSUER = "http://localhost:8080/realms/demo";
+    private static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+    private static final String VALID_HEADER = "{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"k1\"}";
+
+    private JwtDecoder delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private final AtomicInteger unknownKidNotifications = new AtomicInteger();
+    private PreValidatingJwtDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(JwtDecoder.class);
+        meterRegistry = new SimpleMeterRegistry();
+        decoder = new PreValidatingJwtDecoder(delegate, ISSUER, Set.of("RS256"), () -> Set.of("k1", "k2"),
+                unknownKidNotifications::incrementAndGet, 4096, Duration.ofSeconds(60),
+                Clock.fixed(NOW, ZoneOffset.UTC), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should delegate plausible tokens to the full decoder")
+    void testPlausibleTokenIsDelegated() {
+        // Given
+        Jwt jwt = mock(Jwt.class);
+        String token = token(VALID_HEADER, payload(NOW.plusSeconds(300), ISSUER));
+        when(delegate.decode(token)).thenReturn(jwt);
+
+        // When / Then
+        assertThat(decoder.decode(token)).isSameAs(jwt);
+        assertThat(meterRegistry.find("jwt.prevalidation.rejected").counters())
+                .allSatisfy(counter -> assertThat(counter.count()).isZero());
+    }
+
+    @Test
+    @DisplayName("Should reject oversized and malformed tokens")
+    void testMalformedTokens() {
+        assertRejected("a".repeat(5000), "oversized");
+        assertRejected("abc.def", "malformed");
+        assertRejected("abc..sig", "malformed");
+        assertRejected("!!!.???.sig", "malformed");
+        assertRejected(token("{\"alg\":\"RS256\"", payload(NOW.plusSeconds(300), ISSUER)), "malformed");
+    }
+
+    @Test
+    @DisplayName("Should reject disallowed algorithms")
+    void testHeaderChecks() {
+        String payload = payload(NOW.plusSeconds(300), ISSUER);
+        assertRejected(token("{\"alg\":\"none\"}", payload), "algorithm");
+        assertRejected(token("{\"alg\":\"HS256\",\"kid\":\"k1\"}", payload), "algorithm");
+        assertThat(unknownKidNotifications).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("Should delegate tokens with an unknown key id and request a key refresh")
+    void testUnknownKeyIdIsOnlyAHint() {
+        // Given : clé ajoutée par une rotation que la sonde n'a pas encore vue
+        Jwt jwt = mock(Jwt.class);
+        String token = token("{\"alg\":\"RS256\",\"kid\":\"k3\"}", payload(NOW.plusSeconds(300), ISSUER));
+        when(delegate.decode(token)).thenReturn(jwt);
+
+        // When / Then : le décodeur délégué tranche
+        assertThat(decoder.decode(token)).isSameAs(jwt);
+        assertThat(unknownKidNotifications).hasValue(1);
+        assertThat(meterRegistry.counter("jwt.prevalidation.unknown-kid").count()).isEqualTo(1);
+
+        // Et : un token expiré ne déclenche pas de rafraîchissement
+        String expired = token("{\"alg\":\"RS256\",\"kid\":\"k4\"}", payload(NOW.minusSeconds(120), ISSUER));
+        assertThatThrownBy(() -> decoder.decode(expired)).isInstanceOf(BadJwtException.class);
+        verify(delegate, never()).decode(expired);
+        assertThat(unknownKidNotifications).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should reject expired tokens and foreign issuers")
+    void testPayloadChecks() {
+        assertRejected(token(VALID_HEADER, payload(NOW.minusSeconds(120), ISSUER)), "expired");
+        assertRejected(token(VALID_HEADER, payload(NOW.plusSeconds(300), "http://evil/realms/demo")), "issuer");
+    }
+
+    @Test
+    @DisplayName("Should reject tokens whose claims are not valid JSON values")
+    void testMalformedClaimValues() {
+        assertRejected(token(VALID_HEADER, "{\"exp\":tru,\"iss\":\"" + ISSUER + "\"}"), "malformed");
+        assertRejected(token(VALID_HEADER, "{\"exp\":99999999999999999999999}"), "malformed");
+        assertRejected(token(VALID_HEADER, "{\"iss\":\"\\x\"}"), "malformed");
+        assertRejected(token("{\"alg\":\"RS\\q256\"}", payload(NOW.plusSeconds(300), ISSUER)), "malformed");
+        assertRejected(token("{\"alg\":\"RS256\",\"kid\":\"\\u12\"}", payload(NOW.plusSeconds(300), ISSUER)),
+                "malformed");
+    }
+
+    private void assertRejected(String token, String reason) {
+        double before = meterRegistry.counter("jwt.prevalidation.rejected", "reason", reason).count();
+        assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(BadJwtException.class);
+        assertThat(meterRegistry.counter("jwt.prevalidation.rejected", "reason", reason).count())
+                .isEqualTo(before + 1);
+        verify(delegate, never()).decode(anyString());
+    }
+
+    private static String payload(Instant expiresAt, String issuer) {
+        return "{\"exp\":" + expiresAt.getEpochSecond() + ",\"iss\":\"" + issuer.replace("/", "\\/")
+                + "\",\"realm_access\":{\"roles\":[\"USER\"]},\"sub\":\"john.doe\"}";
+    }
+
+    private static String token(String header, String payload) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".c2lnbmF0dXJl";
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.keycloak.service;
+
+import com.example.keycloak.dto.BulkJobDto;
+import com.example.keycloak.repository.BulkJobRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires pour le moteur de jobs de mise à jour en masse
+ */
+@DisplayName("Bulk Job Service Tests")
+class BulkJobServiceTest {
+
+    private BulkJobRepository repository;
+    private CustomSecurityService customSecurityService;
+    private final List<Map<String, Object>> applied = Collections.synchronizedList(new ArrayList<>());
+    private BulkJobService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(BulkJobRepository.class);
+        customSecurityService = mock(CustomSecurityService.class);
+
+        BulkOperationHandler handler = new BulkOperationHandler() {
+            @Override
+            public String operation() {
+                return "BULK_UPDATE";
+            }
+
+            @Override
+            public void validate(Map<String, Object> item) {
+                if (!item.containsKey("username")) {
+                    throw new IllegalArgumentException("username manquant");
+                }
+            }
+
+            @Override
+            public void apply(List<Map<String, Object>> items) {
+                for (Map<String, Object> item : items) {
+                    if (item.containsKey("error")) {
+                        throw new IllegalStateException(String.valueOf(item.get("error")));
+                    }
+                }
+                applied.addAll(items);
+            }
+        };
+        service = new BulkJobService(repository, customSecurityService, new ObjectMapper(),
+                List.of(handler), 2, 2, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should persist a submitted job without executing it")
+    void testSubmitOnlyEnqueues() {
+        // When
+        BulkJobDto job = service.submit("BULK_UPDATE",
+                List.of(Map.of("username", "a"), Map.of("username", "b"), Map.of("username", "c")), "admin");
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(BulkJobDto.Status.PENDING);
+        assertThat(job.getTotalChunks()).isEqualTo(2);
+        verify(repository).insert(eq(job), any());
+        assertThat(applied).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject unknown operations and invalid items")
+    void testSubmitValidation() {
+        assertThatThrownBy(() -> service.submit("UNKNOWN", List.of(Map.of("username", "a")), "admin"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.submit(null, List.of(Map.of("username", "a")), "admin"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.submit("BULK_UPDATE", List.of(Map.of("project", "x")), "admin"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should run only chunks without checkpoint and complete the job")
+    void testRunJobResumesFromCheckpoint() {
+        // Given
+        BulkJobDto job = job(BulkJobDto.Status.PAUSED, 3);
+        when(customSecurityService.canPerformSensitiveOperation("admin", "BULK_UPDATE")).thenReturn(true);
+        when(repository.findCompletedChunks(job.getId())).thenReturn(Set.of(0));
+        when(repository.findChunkPayloads(job.getId(), 1, 2)).thenReturn(List.of("{\"username\":\"c\"}"));
+
+        // When
+        BulkJobDto.Status status = service.runJob(job);
+
+        // Then
+        assertThat(status).isEqualTo(BulkJobDto.Status.COMPLETED);
+        assertThat(applied).containsExactly(Map.of("username", "c"));
+        verify(repository, never()).findChunkPayloads(job.getId(), 0, 2);
+        verify(repository).markChunkCompleted(job.getId(), 1, 1);
+        verify(repository).updateStatus(job.getId(), BulkJobDto.Status.COMPLETED, null);
+    }
+
+    @Test
+    @DisplayName("Should pause remaining chunks when the maintenance window is closed")
+    void testRunJobPausesOutsideWindow() {
+        // Given
+        BulkJobDto job = job(BulkJobDto.Status.PENDING, 4);
+        when(customSecurityService.canPerformSensitiveOperation(anyString(), anyString())).thenReturn(false);
+        when(repository.findCompletedChunks(job.getId())).thenReturn(Set.of());
+
+        // When
+        BulkJobDto.Status status = service.runJob(job);
+
+        // Then
+        assertThat(status).isEqualTo(BulkJobDto.Status.PAUSED);
+        assertThat(applied).isEmpty();
+        verify(repository, never()).markChunkCompleted(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should not start any job outside the maintenance window")
+    void testRunAvailableJobsWaitsForWindow() {
+        // Given
+        BulkJobDto job = job(BulkJobDto.Status.PENDING, 2);
+        when(repository.findRunnable()).thenReturn(List.of(job));
+        when(customSecurityService.canPerformSensitiveOperation("admin", "BULK_UPDATE")).thenReturn(false);
+
+        // When
+        service.runAvailableJobs();
+
+        // Then
+        verify(repository, never()).findCompletedChunks(anyString());
+        assertThat(applied).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should run later jobs whose window is open when the oldest job is outside its window")
+    void testRunAvailableJobsSkipsBlockedJob() {
+        // Given : le plus ancien job n'est pas autorisé pour son auteur
+        BulkJobDto blocked = job("job-1", "operator", BulkJobDto.Status.RUNNING, 2);
+        BulkJobDto runnable = job("job-2", "admin", BulkJobDto.Status.PENDING, 2);
+        when(repository.findRunnable()).thenReturn(List.of(blocked, runnable));
+        when(customSecurityService.canPerformSensitiveOperation("operator", "BULK_UPDATE")).thenReturn(false);
+        when(customSecurityService.canPerformSensitiveOperation("admin", "BULK_UPDATE")).thenReturn(true);
+        when(repository.findCompletedChunks("job-2")).thenReturn(Set.of());
+        when(repository.findChunkPayloads("job-2", 0, 2)).thenReturn(List.of("{\"username\":\"a\"}"));
+
+        // When
+        service.runAvailableJobs();
+
+        // Then
+        verify(repository).updateStatus("job-1", BulkJobDto.Status.PAUSED, null);
+        verify(repository, never()).findCompletedChunks("job-1");
+        verify(repository).updateStatus("job-2", BulkJobDto.Status.COMPLETED, null);
+        assertThat(applied).containsExactly(Map.of("username", "a"));
+    }
+
+    @Test
+    @DisplayName("Should truncate the failure message to the last_error column size")
+    void testFailureMessageIsTruncated() {
+        // Given : un chunk échoue avec un message plus long que la colonne
+        BulkJobDto job = job(BulkJobDto.Status.PENDING, 1);
+        when(repository.findCompletedChunks("job-1")).thenReturn(Set.of());
+        when(repository.findChunkPayloads("job-1", 0, 2))
+                .thenReturn(List.of("{\"username\":\"a\",\"error\":\"" + "x".repeat(1500) + "\"}"));
+        when(customSecurityService.canPerformSensitiveOperation("admin", "BULK_UPDATE")).thenReturn(true);
+
+        // When
+        BulkJobDto.Status status = service.runJob(job);
+
+        // Then
+        assertThat(status).isEqualTo(BulkJobDto.Status.FAILED);
+        verify(repository).updateStatus(eq("job-1"), eq(BulkJobDto.Status.FAILED),
+                argThat(error -> error.startsWith("Chunk 0 : xxx") && error.length() == 1000));
+    }
+
+    @Test
+    @DisplayName("Should keep running later jobs when persisting the state of a job fails")
+    void testPersistenceErrorDoesNotStopLaterJobs() {
+        // Given : l'état du premier job ne peut pas être enregistré
+        BulkJobDto broken = job("job-1", "admin", BulkJobDto.Status.PENDING, 2);
+        BulkJobDto runnable = job("job-2", "admin", BulkJobDto.Status.PENDING, 2);
+        when(repository.findRunnable()).thenReturn(List.of(broken, runnable));
+        when(customSecurityService.canPerformSensitiveOperation("admin", "BULK_UPDATE")).thenReturn(true);
+        doThrow(new DataAccessResourceFailureException("base indisponible"))
+                .when(repository).updateStatus("job-1", BulkJobDto.Status.RUNNING, null);
+        when(repository.findCompletedChunks("job-2")).thenReturn(Set.of());
+        when(repository.findChunkPayloads("job-2", 0, 2)).thenReturn(List.of("{\"username\":\"a\"}"));
+
+        // When
+        service.runAvailableJobs();
+
+        // Then
+        verify(repository, never()).findCompletedChunks("job-1");
+        verify(repository).updateStatus("job-2", BulkJobDto.Status.COMPLETED, null);
+        assertThat(applied).containsExactly(Map.of("username", "a"));
+    }
+
+    private BulkJobDto job(BulkJobDto.Status status, int totalItems) {
+        return job("job-1", "admin", status, totalItems);
+    }
+
+    private BulkJobDto job(String id, String submittedBy, BulkJobDto.Status status, int totalItems) {
+        Instant now = Instant.now();
+        return new BulkJobDto(id, "BULK_UPDATE", submittedBy, status, totalItems, 0, 2, null, now, now);
+    }
+}
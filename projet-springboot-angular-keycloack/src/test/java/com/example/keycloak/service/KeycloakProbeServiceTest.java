@@ -0,0 +1,153 @@
+package com.example.keycloak.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Tests unitaires pour KeycloakProbeService
+ * Keycloak simulé par MockRestServiceServer, horloge contrôlée
+ */
+@DisplayName("Keycloak Probe Service Tests")
+class KeycloakProbeServiceTest {
+
+    private static final String ISSUER = "http://keycloak/realms/demo";
+    private static final String DISCOVERY = ISSUER + "/.well-known/openid-configuration";
+    private static final String JWKS = ISSUER + "/protocol/openid-connect/certs";
+    private static final String JWKS_BODY = "{\"keys\":[{\"kty\":\"RSA\",\"kid\":\"k1\",\"n\":\"sXchDaQebHnPiGvyDOAT4saGEUetSyo9MKLOoWFsueri23bOdgWp4Dy1WlUzewbgBHod5pcM9H95GQRV3JDXboIRROSBigeC5yjU1hGzHHyXss8UDprecbAYxknTcQkhslANGRUZmdTOQ5qTRsLAt6BTYuyvVRdhS8exSZEy_c4gs_7svlJJQ4H9_NxsiIoLwAEk7-Q3UXERGYw_75IDrGA84-lA_-Ct4eTlXHBIY2EaV7t7LjJaynVJCpkv4LKjTTAumiGUIuQhrNhZLuF_RJLqHpM2kgWFLU7-VTdL1VbC2tejvcI2BlMkEpk1BzBZI0KQB0GaDWFLN-aEAw3vRw\",\"e\":\"AQAB\"}]}";
+
+    private MutableClock clock;
+    private MockRestServiceServer server;
+    private KeycloakProbeService service;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T10:00:00Z"));
+        RestClient.Builder builder = RestClient.builder();
+        server = MockRestServiceServer.bindTo(builder).build();
+        service = new KeycloakProbeService(builder.build(), clock, ISSUER, JWKS,
+                Duration.ofMinutes(10), Duration.ofSeconds(30), mock(TaskScheduler.class), Duration.ofSeconds(10));
+    }
+
+    @Test
+    @DisplayName("Should report pending state before the first probe")
+    void testPendingState() {
+        assertThat(service.currentState().isProbed()).isFalse();
+        assertThat(service.isHealthy()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should publish reachability, key count and clock skew")
+    void testHealthyProbe() {
+        // Given : horloge Keycloak en avance de 5 secondes
+        HttpHeaders headers = new HttpHeaders();
+        headers.setDate(Instant.parse("2025-01-01T10:00:05Z").toEpochMilli());
+        server.expect(requestTo(DISCOVERY)).andRespond(withSuccess("{}", MediaType.APPLICATION_JSON).headers(headers));
+        server.expect(requestTo(JWKS)).andRespond(withSuccess(JWKS_BODY, MediaType.APPLICATION_JSON));
+
+        // When
+        service.probe();
+
+        // Then
+        KeycloakProbeService.ProbeState state = service.currentState();
+        assertThat(state.isReachable()).isTrue();
+        assertThat(state.keyCount()).isEqualTo(1);
+        assertThat(service.knownKeyIds()).containsExactly("k1");
+        assertThat(state.clockSkew()).isEqualTo(Duration.ofSeconds(5));
+        assertThat(service.isHealthy()).isTrue();
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("Should keep last known keys until they exceed the maximum age")
+    void testKeysStayFreshDuringShortOutage() {
+        // Given : une première sonde réussie
+        server.expect(requestTo(DISCOVERY)).andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo(JWKS)).andRespond(withSuccess(JWKS_BODY, MediaType.APPLICATION_JSON));
+        service.probe();
+        server.reset();
+
+        // When : Keycloak tombe
+        server.expect(requestTo(DISCOVERY)).andRespond(withServerError());
+        server.expect(requestTo(JWKS)).andRespond(withServerError());
+        clock.advance(Duration.ofMinutes(5));
+        service.probe();
+
+        // Then : injoignable mais clés encore fraîches
+        KeycloakProbeService.ProbeState state = service.currentState();
+        assertThat(state.isReachable()).isFalse();
+        assertThat(state.lastError()).contains("discovery").contains("jwks");
+        assertThat(state.keyCount()).isEqualTo(1);
+        assertThat(service.isKeysFresh(state)).isTrue();
+
+        // Puis : au-delà de max-key-age, les clés sont considérées périmées
+        clock.advance(Duration.ofMinutes(6));
+        assertThat(service.isKeysFresh(state)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should reject a clock skew beyond the configured maximum")
+    void testClockSkewTooLarge() {
+        // Given : horloge Keycloak en retard de 2 minutes
+        HttpHeaders headers = new HttpHeaders();
+        headers.setDate(Instant.parse("2025-01-01T09:58:00Z").toEpochMilli());
+        server.expect(requestTo(DISCOVERY)).andRespond(withSuccess("{}", MediaType.APPLICATION_JSON).headers(headers));
+        server.expect(requestTo(JWKS)).andRespond(withSuccess(JWKS_BODY, MediaType.APPLICATION_JSON));
+
+        // When
+        service.probe();
+
+        // Then
+        assertThat(service.currentState().clockSkew()).isEqualTo(Duration.ofMinutes(-2));
+        assertThat(service.isClockSkewAcceptable(service.currentState())).isFalse();
+        assertThat(service.isHealthy()).isFalse();
+    }
+
+    /**
+     * Horloge modifiable pour simuler l'écoulement du temps
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.keycloak.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires pour l'index mémoire des ACL projets
+ */
+@DisplayName("Project Access Index Tests")
+class ProjectAccessIndexTest {
+
+    private ProjectAccessIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProjectAccessIndex();
+        index.setMemberships("john.doe", List.of("alpha", "gamma", "beta", "alpha"));
+    }
+
+    @Test
+    @DisplayName("Should answer membership checks from the loaded index")
+    void testLoadedMemberships() {
+        assertThat(index.hasAccess("john.doe", "alpha")).isTrue();
+        assertThat(index.hasAccess("john.doe", "gamma")).isTrue();
+        assertThat(index.hasAccess("john.doe", "delta")).isFalse();
+        assertThat(index.hasAccess("jane.smith", "alpha")).isFalse();
+        assertThat(index.projectCount("john.doe")).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should apply incremental grants and revokes")
+    void testIncrementalUpdates() {
+        // When
+        boolean granted = index.grant("john.doe", "delta");
+        boolean grantedTwice = index.grant("john.doe", "delta");
+        boolean revoked = index.revoke("john.doe", "alpha");
+        boolean revokedUnknown = index.revoke("john.doe", "unknown");
+
+        // Then
+        assertThat(granted).isTrue();
+        assertThat(grantedTwice).isFalse();
+        assertThat(revoked).isTrue();
+        assertThat(revokedUnknown).isFalse();
+        assertThat(index.hasAccess("john.doe", "delta")).isTrue();
+        assertThat(index.hasAccess("john.doe", "alpha")).isFalse();
+        assertThat(index.projectCount("john.doe")).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should filter a batch of projects in request order")
+    void testBatchCheck() {
+        // When
+        var accessible = index.accessibleProjects("john.doe", List.of("gamma", "unknown", "alpha", "delta"));
+
+        // Then
+        assertThat(accessible).containsExactly("gamma", "alpha");
+        assertThat(index.accessibleProjects("jane.smith", List.of("alpha"))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should remove the user entry when the last project is revoked")
+    void testRevokeLastProject() {
+        // Given
+        index.grant("jane.smith", "alpha");
+
+        // When
+        index.revoke("jane.smith", "alpha");
+
+        // Then
+        assertThat(index.projectCount("jane.smith")).isZero();
+        assertThat(index.hasAccess("jane.smith", "alpha")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should prune projects without members from the dictionary")
+    void testDictionaryPruning() {
+        // Given
+        index.grant("jane.smith", "alpha");
+        index.grant("jane.smith", "delta");
+        assertThat(index.dictionarySize()).isEqualTo(4);
+
+        // When
+        index.revoke("jane.smith", "delta");
+        index.revoke("john.doe", "alpha");
+        index.setMemberships("john.doe", List.of("beta"));
+
+        // Then : gamma et delta n'ont plus de membre, alpha reste à jane.smith
+        assertThat(index.dictionarySize()).isEqualTo(2);
+        assertThat(index.hasAccess("jane.smith", "alpha")).isTrue();
+        assertThat(index.hasAccess("john.doe", "beta")).isTrue();
+        assertThat(index.hasAccess("john.doe", "gamma")).isFalse();
+
+        // Et : un projet élagué puis réaccordé reçoit un nouvel ordinal cohérent
+        index.grant("jane.smith", "delta");
+        assertThat(index.hasAccess("jane.smith", "delta")).isTrue();
+        assertThat(index.accessibleProjects("jane.smith", List.of("alpha", "delta"))).containsExactly("alpha", "delta");
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.keycloak.service;
+
+import com.example.keycloak.config.TimeWindowProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires pour TimeWindowPolicyService
+ * Horloge et scheduler contrôlés pour des résultats déterministes
+ */
+@DisplayName("Time Window Policy Service Tests")
+class TimeWindowPolicyServiceTest {
+
+    private MutableClock clock;
+    private final List<Scheduled> scheduled = new ArrayList<>();
+    private TimeWindowPolicyService service;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T01:00:00Z"));
+
+        TimeWindowProperties properties = new TimeWindowProperties();
+        properties.getWindows().put("maintenance",
+                new TimeWindowProperties.Window(LocalTime.of(2, 0), LocalTime.of(6, 0), ZoneOffset.UTC));
+        properties.getWindows().put("night",
+                new TimeWindowProperties.Window(LocalTime.of(22, 0), LocalTime.of(4, 0), ZoneId.of("Europe/Paris")));
+        properties.getOperations().put("BULK_UPDATE", "maintenance");
+        properties.getSensitiveDataRoles().put("MANAGER", "maintenance");
+
+        TaskScheduler scheduler = mock(TaskScheduler.class);
+        when(scheduler.schedule(any(Runnable.class), any(Instant.class))).thenAnswer(invocation -> {
+            scheduled.add(new Scheduled(invocation.getArgument(0), invocation.getArgument(1)));
+            return mock(ScheduledFuture.class);
+        });
+
+        service = new TimeWindowPolicyService(properties, clock, scheduler);
+        service.initialize();
+    }
+
+    @Test
+    @DisplayName("Should compute the initial state of each window")
+    void testInitialState() {
+        // 01:00 UTC = 02:00 Europe/Paris
+        assertThat(service.isOpen("maintenance")).isFalse();
+        assertThat(service.isOpen("night")).isTrue();
+        assertThat(service.isOpen("unknown")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should schedule the next transition at the window boundary")
+    void testNextBoundaryIsScheduled() {
+        assertThat(scheduled)
+                .extracting(Scheduled::at)
+                .contains(Instant.parse("2025-01-01T02:00:00Z"), Instant.parse("2025-01-01T03:00:00Z"));
+    }
+
+    @Test
+    @DisplayName("Should open the window and bump the epoch when the boundary is reached")
+    void testTransitionOpensWindow() {
+        // Given
+        long epochBefore = service.epoch();
+        Scheduled maintenanceStart = scheduled.stream()
+                .filter(task -> task.at().equals(Instant.parse("2025-01-01T02:00:00Z")))
+                .findFirst()
+                .orElseThrow();
+
+        // When
+        clock.set(maintenanceStart.at());
+        maintenanceStart.task().run();
+
+        // Then
+        assertThat(service.isOpen("maintenance")).isTrue();
+        assertThat(service.isOperationAllowed("BULK_UPDATE")).isTrue();
+        assertThat(service.isSensitiveDataOpenFor("MANAGER")).isTrue();
+        assertThat(service.epoch()).isEqualTo(epochBefore + 1);
+        assertThat(scheduled).extracting(Scheduled::at).contains(Instant.parse("2025-01-01T06:00:00Z"));
+    }
+
+    @Test
+    @DisplayName("Should allow operations without window and deny unmapped roles")
+    void testUnmappedOperationsAndRoles() {
+        assertThat(service.isOperationAllowed("BULK_UPDATE")).isFalse();
+        assertThat(service.isOperationAllowed("EXPORT")).isTrue();
+        assertThat(service.isSensitiveDataOpenFor("USER")).isFalse();
+        assertThat(service.describe("maintenance")).isEqualTo("02:00-06:00 Z");
+    }
+
+    @Test
+    @DisplayName("Should reject empty or incomplete windows at startup")
+    void testInvalidWindowsRejected() {
+        TaskScheduler scheduler = mock(TaskScheduler.class);
+
+        TimeWindowProperties sameBounds = new TimeWindowProperties();
+        sameBounds.getWindows().put("always",
+                new TimeWindowProperties.Window(LocalTime.of(2, 0), LocalTime.of(2, 0), ZoneOffset.UTC));
+        assertThatThrownBy(() -> new TimeWindowPolicyService(sameBounds, clock, scheduler).initialize())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("'always'");
+
+        TimeWindowProperties missingEnd = new TimeWindowProperties();
+        missingEnd.getWindows().put("open-ended",
+                new TimeWindowProperties.Window(LocalTime.of(2, 0), null, ZoneOffset.UTC));
+        assertThatThrownBy(() -> new TimeWindowPolicyService(missingEnd, clock, scheduler).initialize())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("'open-ended'");
+    }
+
+    private record Scheduled(Runnable task, Instant at) {
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        private void set(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.keycloak.service;
+
+import com.example.keycloak.dto.UserDto;
+import com.example.keycloak.repository.UserProfileRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests unitaires pour les profils utilisateurs (écriture par lots, cache en lecture)
+ *
+ * Le repository s'exécute sur une base H2 embarquée initialisée avec schema.sql.
+ */
+@DisplayName("User Profile Service Tests")
+class UserProfileServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-03T10:00:00Z");
+    private static final Instant AUTH_TIME = NOW.minusSeconds(1800);
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private UserProfileRepository repository;
+    private MutableClock clock;
+    private UserProfileService service;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        repository = spy(new UserProfileRepository(jdbcTemplate));
+        clock = new MutableClock(NOW);
+        service = new UserProfileService(repository, new JwtService(), clock, mock(TaskScheduler.class),
+                new SimpleMeterRegistry(), 100, Duration.ofMinutes(5), 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should coalesce activity per user and write it in one batch")
+    void testCoalescedBatchWrite() {
+        // Given : 3 requêtes d'alice, 1 de bob
+        service.recordActivity(jwt("alice"));
+        clock.advance(Duration.ofSeconds(2));
+        service.recordActivity(jwt("alice"));
+        service.recordActivity(jwt("bob"));
+        clock.advance(Duration.ofSeconds(1));
+        service.recordActivity(jwt("alice"));
+        assertThat(service.pendingCount()).isEqualTo(2);
+
+        // When
+        service.flush();
+
+        // Then : un seul lot, une ligne par utilisateur, valeurs les plus récentes
+        verify(repository, times(1)).upsertActivity(anyCollection());
+        assertThat(service.pendingCount()).isZero();
+        UserDto alice = repository.findByUsername("alice");
+        assertThat(alice.getId()).isEqualTo("sub-alice");
+        assertThat(alice.getEmail()).isEqualTo("alice@example.com");
+        assertThat(alice.getLastLogin()).isEqualTo(AUTH_TIME);
+        assertThat(alice.getLastSeen()).isEqualTo(NOW.plusSeconds(3));
+        assertThat(repository.findByUsername("bob").getLastSeen()).isEqualTo(NOW.plusSeconds(2));
+
+        // Et : un lot rejoué avec une activité plus ancienne ne fait pas reculer les dates
+        UserDto stale = new UserDto("sub-alice", "alice", null, null);
+        stale.setLastLogin(AUTH_TIME.minusSeconds(60));
+        stale.setLastSeen(NOW);
+        repository.upsertActivity(List.of(stale));
+        assertThat(repository.findByUsername("alice").getLastSeen()).isEqualTo(NOW.plusSeconds(3));
+        assertThat(repository.findByUsername("alice").getEmail()).isEqualTo("alice@example.com");
+    }
+
+    @Test
+    @DisplayName("Should serve profile reads from the cache, including activity not yet written")
+    void testReadThroughCache() {
+        // Given
+        service.recordActivity(jwt("alice"));
+        service.flush();
+
+        // When
+        UserDto first = service.findProfile("alice");
+        clock.advance(Duration.ofSeconds(30));
+        service.recordActivity(jwt("alice"));
+        UserDto second = service.findProfile("alice");
+
+        // Then : une seule lecture en base, activité en attente visible
+        assertThat(first.getLastSeen()).isEqualTo(NOW);
+        assertThat(second.getLastSeen()).isEqualTo(NOW.plusSeconds(30));
+        assertThat(second.getLastLogin()).isEqualTo(AUTH_TIME);
+        verify(repository, times(1)).findByUsername("alice");
+
+        // Et : utilisateur inconnu mis en cache lui aussi, relu après expiration
+        assertThat(service.findProfile("nobody")).isNull();
+        assertThat(service.findProfile("nobody")).isNull();
+        verify(repository, times(1)).findByUsername("nobody");
+        clock.advance(Duration.ofMinutes(6));
+        assertThat(service.findProfile("nobody")).isNull();
+        verify(repository, times(2)).findByUsername("nobody");
+    }
+
+    @Test
+    @DisplayName("Should keep activity buffered when a batch write fails and retry on the next flush")
+    void testRetryAfterFailedFlush() {
+        // Given
+        doThrow(new DataAccessResourceFailureException("base indisponible"))
+                .doCallRealMethod()
+                .when(repository).upsertActivity(any(Collection.class));
+        service.recordActivity(jwt("alice"));
+
+        // When : premier lot en échec, nouvelle activité avant le lot suivant
+        service.flush();
+        clock.advance(Duration.ofSeconds(5));
+        service.recordActivity(jwt("alice"));
+
+        // Then
+        assertThat(service.pendingCount()).isEqualTo(1);
+        assertThat(service.findProfile("alice").getLastSeen()).isEqualTo(NOW.plusSeconds(5));
+        service.flush();
+        assertThat(service.pendingCount()).isZero();
+        assertThat(repository.findByUsername("alice").getLastSeen()).isEqualTo(NOW.plusSeconds(5));
+        assertThat(repository.findByUsername("alice").getLastLogin()).isEqualTo(AUTH_TIME);
+    }
+
+    @Test
+    @DisplayName("Should re-read a profile when a batch write overlaps the database read")
+    void testReadOverlappingFlush() {
+        // Given : profil enregistré, nouvelle activité en attente
+        service.recordActivity(jwt("alice"));
+        service.flush();
+        clock.advance(Duration.ofSeconds(30));
+        service.recordActivity(jwt("alice"));
+
+        // Un lot retire l'activité du tampon et l'écrit juste après la lecture de l'ancienne ligne
+        doAnswer(invocation -> {
+            Object staleRow = invocation.callRealMethod();
+            service.flush();
+            return staleRow;
+        }).doCallRealMethod().when(repository).findByUsername("alice");
+
+        // When
+        UserDto first = service.findProfile("alice");
+        UserDto cached = service.findProfile("alice");
+
+        // Then : ni la réponse ni le cache ne perdent l'activité écrite par le lot
+        assertThat(first.getLastSeen()).isEqualTo(NOW.plusSeconds(30));
+        assertThat(cached.getLastSeen()).isEqualTo(NOW.plusSeconds(30));
+        verify(repository, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    @DisplayName("Should evict the oldest cached profiles instead of clearing the cache when full")
+    void testBoundedCacheEviction() {
+        // Given : cache de 100 profils rempli, un chargement par seconde
+        for (int i = 0; i < 100; i++) {
+            service.findProfile("user-" + i);
+            clock.advance(Duration.ofSeconds(1));
+        }
+
+        // When
+        service.findProfile("user-100");
+
+        // Then : les 10 plus anciens évincés, les plus récents toujours servis par le cache
+        service.findProfile("user-99");
+        service.findProfile("user-0");
+        verify(repository, times(1)).findByUsername("user-99");
+        verify(repository, times(2)).findByUsername("user-0");
+    }
+
+    private static Jwt jwt(String username) {
+        return Jwt.withTokenValue("token-" + username)
+                .header("alg", "RS256")
+                .subject("sub-" + username)
+                .claim("preferred_username", username)
+                .claim("email", username + "@example.com")
+                .claim("auth_time", AUTH_TIME.getEpochSecond())
+                .issuedAt(NOW)
+                .expiresAt(NOW.plusSeconds(900))
+                .build();
+    }
+
+    /**
+     * Horloge modifiable pour simuler l'écoulement du temps
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
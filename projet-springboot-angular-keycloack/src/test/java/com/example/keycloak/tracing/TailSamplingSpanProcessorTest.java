@@ -0,0 +1,201 @@
+package com.example.keycloak.tracing;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessorBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires de l'échantillonnage en tête (RecordOnlyRatioSampler) et en queue
+ */
+@DisplayName("Tail Sampling Span Processor Tests")
+class TailSamplingSpanProcessorTest {
+
+    private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+    private SdkTracerProvider tracerProvider;
+    private TailSamplingSpanProcessor tailSampling;
+
+    @AfterEach
+    void tearDown() {
+        if (tracerProvider != null) {
+            tracerProvider.shutdown().join(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    @DisplayName("Should discard fast traces that were not sampled at the head")
+    void testFastTraceDiscarded() {
+        // Given
+        Tracer tracer = tracer(0.0, unsampledAware(SimpleSpanProcessor.builder(exporter)));
+
+        // When
+        request(tracer, 10, false);
+
+        // Then
+        assertThat(exporter.getFinishedSpanItems()).isEmpty();
+        assertThat(tailSampling.getDiscardedTraces()).isEqualTo(1);
+        assertThat(tailSampling.getPendingTraces()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should export the whole trace when it is slow or contains an error")
+    void testSlowAndErrorTracesKept() {
+        // Given
+        Tracer tracer = tracer(0.0, unsampledAware(SimpleSpanProcessor.builder(exporter)));
+
+        // When
+        request(tracer, 800, false);
+        request(tracer, 10, true);
+
+        // Then
+        assertThat(exporter.getFinishedSpanItems())
+                .extracting(SpanData::getName)
+                .containsExactly("security.jwt.decode", "http.controller", "http server",
+                        "security.jwt.decode", "http.controller", "http server");
+        assertThat(tailSampling.getKeptTraces()).isEqualTo(2);
+        assertThat(tailSampling.getDiscardedTraces()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should tag failed observations with error.type for the tail sampler")
+    void testErrorTypeTagged() {
+        // Given
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new ErrorTypeObservationHandler());
+        Observation failed = Observation.start("http.controller", registry);
+        Observation succeeded = Observation.start("http.controller", registry);
+
+        // When
+        failed.error(new IllegalStateException("boom"));
+        failed.stop();
+        succeeded.stop();
+
+        // Then
+        assertThat(failed.getContext().getHighCardinalityKeyValue(ErrorTypeObservationHandler.ERROR_TYPE).getValue())
+                .isEqualTo(IllegalStateException.class.getName());
+        assertThat(succeeded.getContext().getHighCardinalityKeyValue(ErrorTypeObservationHandler.ERROR_TYPE)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should forward head-sampled spans immediately")
+    void testHeadSampledForwarded() {
+        // Given
+        Tracer tracer = tracer(1.0, unsampledAware(SimpleSpanProcessor.builder(exporter)));
+
+        // When
+        request(tracer, 10, false);
+
+        // Then
+        assertThat(exporter.getFinishedSpanItems()).hasSize(3)
+                .allSatisfy(span -> assertThat(span.getSpanContext().isSampled()).isTrue());
+        assertThat(tailSampling.getKeptTraces()).isZero();
+        assertThat(tailSampling.getDiscardedTraces()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should drop pending traces whose root never ends")
+    void testPendingTracesExpire() {
+        // Given
+        Tracer tracer = tracer(0.0, unsampledAware(SimpleSpanProcessor.builder(exporter)));
+        Span orphanRoot = tracer.spanBuilder("http server").startSpan();
+        try (Scope ignored = orphanRoot.makeCurrent()) {
+            tracer.spanBuilder("security.jwt.decode").startSpan().end();
+        }
+        assertThat(tailSampling.getPendingTraces()).isEqualTo(1);
+
+        // When
+        tailSampling.purgeExpired(System.nanoTime() + Duration.ofMinutes(1).toNanos());
+
+        // Then
+        assertThat(tailSampling.getPendingTraces()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should export kept traces over OTLP/HTTP to a collector")
+    void testOtlpExport() throws Exception {
+        // Given : collecteur OTLP factice
+        HttpServer collector = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        AtomicInteger exports = new AtomicInteger();
+        CountDownLatch received = new CountDownLatch(1);
+        collector.createContext("/v1/traces", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exports.incrementAndGet();
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            received.countDown();
+        });
+        collector.start();
+        try {
+            OtlpHttpSpanExporter otlp = OtlpHttpSpanExporter.builder()
+                    .setEndpoint("http://127.0.0.1:" + collector.getAddress().getPort() + "/v1/traces")
+                    .build();
+            Tracer tracer = tracer(0.0, BatchSpanProcessor.builder(otlp).setExportUnsampledSpans(true).build());
+
+            // When
+            request(tracer, 10, false);
+            request(tracer, 800, false);
+            tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+
+            // Then
+            assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(exports.get()).isEqualTo(1);
+            assertThat(tailSampling.getKeptTraces()).isEqualTo(1);
+            assertThat(tailSampling.getDiscardedTraces()).isEqualTo(1);
+        } finally {
+            collector.stop(0);
+        }
+    }
+
+    private Tracer tracer(double probability, SpanProcessor export) {
+        tailSampling = new TailSamplingSpanProcessor(export, Duration.ofMillis(500), 100, 16, Duration.ofSeconds(30));
+        tracerProvider = SdkTracerProvider.builder()
+                .setSampler(new RecordOnlyRatioSampler(probability))
+                .addSpanProcessor(tailSampling)
+                .build();
+        return tracerProvider.get("test");
+    }
+
+    private static SpanProcessor unsampledAware(SimpleSpanProcessorBuilder builder) {
+        return builder.setExportUnsampledSpans(true).build();
+    }
+
+    /**
+     * Requête simulée : racine, décodage du token puis controller (durée contrôlée)
+     */
+    private static void request(Tracer tracer, long durationMillis, boolean error) {
+        long start = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        Span root = tracer.spanBuilder("http server").setStartTimestamp(start, TimeUnit.NANOSECONDS).startSpan();
+        try (Scope ignored = root.makeCurrent()) {
+            tracer.spanBuilder("security.jwt.decode").startSpan().end();
+            Span controller = tracer.spanBuilder("http.controller").startSpan();
+            if (error) {
+                controller.setStatus(StatusCode.ERROR);
+                controller.setAttribute(ErrorTypeObservationHandler.ERROR_TYPE, IllegalStateException.class.getName());
+            }
+            controller.end();
+        }
+        root.end(start + TimeUnit.MILLISECONDS.toNanos(durationMillis), TimeUnit.NANOSECONDS);
+    }
+}
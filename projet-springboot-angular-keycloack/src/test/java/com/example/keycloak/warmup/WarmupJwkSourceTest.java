@@ -0,0 +1,111 @@
+package com.example.keycloak.warmup;
+
+import com.example.keycloak.config.JwtAuthenticationConverter;
+import com.example.keycloak.security.FusedJwtValidator;
+import com.example.keycloak.security.LazyClaimsJwtDecoder;
+import com.example.keycloak.security.PreValidatingJwtDecoder;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires de la clé éphémère de chauffe JIT
+ * Le décodeur reproduit la chaîne de JwtConfig (pré-filtrage, signature, validation)
+ */
+@DisplayName("Warmup JWK Source Tests")
+class WarmupJwkSourceTest {
+
+    private static final String ISSUER = "http://localhost:8080/realms/demo";
+
+    private static RSAKey realmKey;
+
+    private final Clock clock = Clock.systemUTC();
+    private final WarmupTokenIssuer issuer = new WarmupTokenIssuer(ISSUER, "demo-app", null, clock);
+    private final WarmupJwkSource source = new WarmupJwkSource(
+            new ImmutableJWKSet<>(new JWKSet(realmKey.toPublicJWK())), issuer);
+    private final JwtDecoder decoder = new PreValidatingJwtDecoder(
+            new LazyClaimsJwtDecoder(source, new FusedJwtValidator(ISSUER, Set.of("demo-app"), Set.of(), true,
+                    Duration.ofSeconds(60), clock)),
+            ISSUER, Set.of("RS256"), WarmupJwkSource.withWarmupKeyId(() -> Set.of("realm-key"), issuer),
+            () -> { }, 16384, Duration.ofSeconds(60), clock, new SimpleMeterRegistry());
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        realmKey = new RSAKeyGenerator(2048).keyID("realm-key").generate();
+    }
+
+    @Test
+    @DisplayName("Should accept synthetic tokens through the full pipeline while warm-up is active")
+    void testAcceptedDuringWarmup() {
+        // Given
+        issuer.activate();
+        String token = issuer.issue("warmup-admin", List.of("ADMIN", "USER"));
+
+        // When
+        Jwt jwt = decoder.decode(token);
+
+        // Then
+        assertThat(jwt.getClaimAsString("preferred_username")).isEqualTo("warmup-admin");
+        assertThat(jwt.getAudience()).containsExactly("demo-app");
+        assertThat(new JwtAuthenticationConverter().convert(jwt).getAuthorities())
+                .extracting(GrantedAuthority::getAuthority)
+                .contains("ROLE_ADMIN", "ROLE_USER");
+        // Identité synthétique : ignorée par l'enregistrement de l'activité (UserActivityFilter)
+        assertThat(WarmupTokenIssuer.isWarmupToken(jwt)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reject synthetic tokens once warm-up is over")
+    void testRejectedAfterWarmup() {
+        // Given
+        issuer.activate();
+        String token = issuer.issue("warmup-user", List.of("USER"));
+        assertThat(decoder.decode(token).getSubject()).isNotBlank();
+
+        // When
+        issuer.deactivate();
+
+        // Then
+        assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(BadJwtException.class);
+        assertThat(issuer.keyId()).isNull();
+        assertThatThrownBy(() -> issuer.issue("warmup-user", List.of("USER")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Should keep resolving realm keys and leave the known kid check untouched")
+    void testDelegation() throws Exception {
+        // Given
+        issuer.activate();
+        JWKSelector realmSelector = new JWKSelector(JWKMatcher.forJWSHeader(
+                new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("realm-key").build()));
+
+        // Then
+        assertThat(source.get(realmSelector, null)).singleElement()
+                .satisfies(key -> assertThat(key.getKeyID()).isEqualTo("realm-key"));
+        assertThat(WarmupJwkSource.withWarmupKeyId(() -> Set.of("realm-key"), issuer).get())
+                .containsExactlyInAnyOrder("realm-key", issuer.keyId());
+        assertThat(WarmupJwkSource.withWarmupKeyId(Set::of, issuer).get()).isEmpty();
+    }
+}
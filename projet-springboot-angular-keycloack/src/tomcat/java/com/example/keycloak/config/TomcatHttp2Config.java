@@ -0,0 +1,35 @@
+package com.example.keycloak.config;
+
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * HTTP/2 sur Tomcat (profil Maven par défaut)
+ *
+ * Spring Boot ajoute le protocole d'upgrade Http2Protocol (h2c, ou ALPN en TLS) ;
+ * on y applique les réglages communs. La table HPACK du décodeur Tomcat est fixée
+ * à 4 Ko : http2.header-table-size est sans effet ici.
+ */
+@Configuration
+@EnableConfigurationProperties(Http2Properties.class)
+@ConditionalOnProperty(name = "server.http2.enabled")
+public class TomcatHttp2Config {
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> tomcatHttp2Customizer(Http2Properties properties) {
+        return factory -> factory.addConnectorCustomizers(connector -> {
+            for (UpgradeProtocol protocol : connector.findUpgradeProtocols()) {
+                if (protocol instanceof Http2Protocol http2) {
+                    http2.setMaxConcurrentStreams(properties.getMaxConcurrentStreams());
+                    http2.setMaxConcurrentStreamExecution(properties.getMaxConcurrentStreams());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.keycloak.config;
+
+import io.undertow.UndertowOptions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.undertow.UndertowServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * HTTP/2 sur Undertow (mvn ... -Dembedded-server=undertow)
+ *
+ * Spring Boot active UndertowOptions.ENABLE_HTTP2 (upgrade h2c, ou ALPN en TLS) ;
+ * on y ajoute les réglages communs, dont la table HPACK du décodeur.
+ */
+@Configuration
+@EnableConfigurationProperties(Http2Properties.class)
+@ConditionalOnProperty(name = "server.http2.enabled")
+public class UndertowHttp2Config {
+
+    @Bean
+    public WebServerFactoryCustomizer<UndertowServletWebServerFactory> undertowHttp2Customizer(Http2Properties properties) {
+        return factory -> factory.addBuilderCustomizers(builder -> builder
+                .setServerOption(UndertowOptions.HTTP2_SETTINGS_MAX_CONCURRENT_STREAMS, properties.getMaxConcurrentStreams())
+                .setServerOption(UndertowOptions.HTTP2_SETTINGS_HEADER_TABLE_SIZE,
+                        (int) properties.getHeaderTableSize().toBytes()));
+    }
+}